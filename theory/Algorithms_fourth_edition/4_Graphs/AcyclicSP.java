@@ -14,6 +14,8 @@ public class AcyclicSP {
 
     private double[] distTo;    // distTo[v] = distance of shortest s->v path.
     private DirectedEdge[] edgeTo;  // edgeTo[v] = last edge on shortest s->v path.
+    private CSREdgeWeightedDigraph csr;     // frozen digraph, if the tree was computed on one
+    private int[] edgeIndex;    // edgeIndex[v] = position in csr of edgeTo[v], or -1
 
     // Computes a shortest paths tree from s to every other vertex in
     // the directed acyclic graph G.
@@ -40,6 +42,57 @@ public class AcyclicSP {
         }
     }
 
+    // Computes a shortest paths tree from s to every other vertex in the
+    // frozen directed acyclic graph G. The topological order is computed
+    // with Kahn's algorithm on int arrays and the tree is kept as edge
+    // positions in G, so the relax loop does not allocate.
+    public AcyclicSP(CSREdgeWeightedDigraph G, int s) {
+        csr = G;
+        distTo = new double[G.V()];
+        edgeIndex = new int[G.V()];
+
+        validateVertex(s);
+
+        for (int v = 0; v < G.V(); v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+            edgeIndex[v] = -1;
+        }
+        distTo[s] = 0.0;
+
+        // order[] is filled with the vertices of indegree 0, then with every
+        // vertex whose remaining indegree drops to 0.
+        int[] indegree = new int[G.V()];
+        int[] order = new int[G.V()];
+        int n = 0;
+        for (int v = 0; v < G.V(); v++) {
+            indegree[v] = G.indegree(v);
+            if (indegree[v] == 0)
+                order[n++] = v;
+        }
+        for (int k = 0; k < n; k++) {
+            int v = order[k];
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                if (--indegree[G.to(i)] == 0)
+                    order[n++] = G.to(i);
+            }
+        }
+        if (n != G.V()) {
+            throw new IllegalArgumentException("Digraph is not acyclic.");
+        }
+
+        // visit vertices in topological order.
+        for (int k = 0; k < n; k++) {
+            int v = order[k];
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                int w = G.to(i);
+                if (distTo[w] > distTo[v] + G.weight(i)) {
+                    distTo[w] = distTo[v] + G.weight(i);
+                    edgeIndex[w] = i;
+                }
+            }
+        }
+    }
+
     // relax edge e
     private void relax(DirectedEdge e) {
         int v = e.from(), w = e.to();
@@ -68,12 +121,21 @@ public class AcyclicSP {
             return null;
         }
         Stack<DirectedEdge> path = new Stack<DirectedEdge>();
-        for (DirectedEdge e = edgeTo[v]; e != null; e = edgeTo[e.from()]) {
+        for (DirectedEdge e = edgeTo(v); e != null; e = edgeTo(e.from())) {
             path.push(e);
         }
         return path;
     }
 
+    // Returns the last edge on the shortest s->v path, or null. On a frozen
+    // digraph the edge is created from its position in csr.
+    private DirectedEdge edgeTo(int v) {
+        if (csr == null) {
+            return edgeTo[v];
+        }
+        return edgeIndex[v] < 0 ? null : csr.edge(edgeIndex[v]);
+    }
+
     // throw new IllegalArgumentException unless 0 <= v < V.
     private void validateVertex(int v) {
         int V = distTo.length;
@@ -1,12 +1,18 @@
 //   A digraph, implemented using an adjacency matrix.
 //   Parallel edges are disallowed; self-loops are allowd.
+//   The matrix is packed 64 vertices to a long in one flat array, as in
+//   AdjMatrixGraph: bit w of row v is at adj[v*words + w/64], and the
+//   vertices adjacent from v are found a word at a time with
+//   Long.numberOfTrailingZeros(). The layout is the one of the rows of
+//   BitsetTransitiveClosure, which copies them as they are.
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-public class AdjMatrixDigraph {
+public class AdjMatrixDigraph implements AdjacencyDigraph {
     private int V;
     private int E;
-    private boolean[][] adj;
+    private int words;      // words per row
+    private long[] adj;     // bit w of row v is at adj[v*words + w/64]
 
     // empty graph with V vertices
     public AdjMatrixDigraph(int V) {
@@ -14,7 +20,10 @@ public class AdjMatrixDigraph {
             throw new RuntimeException("Number of vertices must be nonnegative");
         this.V = V;
         this.E = 0;
-        this.adj = new boolean[V][V];
+        this.words = (V + 63) / 64;
+        if ((long) V * words > Integer.MAX_VALUE)
+            throw new RuntimeException("Too many vertices for one flat matrix");
+        this.adj = new long[V * words];
     }
 
     // random graph with V vertices and E edges
@@ -22,7 +31,7 @@ public class AdjMatrixDigraph {
         this(V);
         if (E < 0)
             throw new RuntimeException("Number of edges must be nonnegatie");
-        if (E > V * V)
+        if (E > (long) V * V)
             throw new RuntimeException("Too many edges");
         // can be inefficient
         while (this.E != E) {
@@ -43,23 +52,83 @@ public class AdjMatrixDigraph {
 
     // add directed edge v->w
     public void addEdge(int v, int w) {
-        if (!adj[v][w])
+        validateVertex(v);
+        validateVertex(w);
+        if (!contains(v, w))
             E++;
-        adj[v][w] = true;
+        adj[v * words + (w >>> 6)] |= 1L << w;
+    }
+
+    // does the digraph contain the edge v->w ?
+    public boolean contains(int v, int w) {
+        return (adj[v * words + (w >>> 6)] & (1L << w)) != 0;
+    }
+
+    // number of edges pointing from v
+    public int outdegree(int v) {
+        validateVertex(v);
+        int degree = 0;
+        for (int i = v * words, end = i + words; i < end; i++)
+            degree += Long.bitCount(adj[i]);
+        return degree;
+    }
+
+    // number of vertices adjacent from both v and w
+    public int commonSuccessors(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        int count = 0;
+        for (int i = v * words, j = w * words, end = i + words; i < end; i++, j++)
+            count += Long.bitCount(adj[i] & adj[j]);
+        return count;
+    }
+
+    // the reverse of the digraph: the transpose of the matrix, made one
+    // set bit at a time
+    public AdjMatrixDigraph reverse() {
+        AdjMatrixDigraph R = new AdjMatrixDigraph(V);
+        R.E = E;
+        for (int v = 0; v < V; v++) {
+            int row = v * words;
+            for (int w = next(row, 0); w < V; w = next(row, w + 1))
+                R.adj[w * words + (v >>> 6)] |= 1L << v;
+        }
+        return R;
+    }
+
+    // the rows of the matrix, for BitsetTransitiveClosure; not to be modified
+    long[] rows() {
+        return adj;
+    }
+
+    // the first vertex w >= from whose bit is set in the row at offset row, or V
+    int next(int row, int from) {
+        int k = from >>> 6;
+        if (k >= words)
+            return V;
+        long word = adj[row + k] & (-1L << from);
+        while (word == 0) {
+            if (++k == words)
+                return V;
+            word = adj[row + k];
+        }
+        return (k << 6) + Long.numberOfTrailingZeros(word);
     }
 
     // Return list of neighbors of v
     public Iterable<Integer> adj(int v) {
+        validateVertex(v);
         return new AdjIterator(v);
     }
 
     // support iteration over graph vetices
     private class AdjIterator implements Iterator<Integer>, Iterable<Integer> {
-        private int v;
-        private int w = 0;
+        private int row;
+        private int w;
 
         AdjIterator(int v) {
-            this.v = v;
+            this.row = v * words;
+            this.w = AdjMatrixDigraph.this.next(row, 0);
         }
 
         public Iterator<Integer> iterator() {
@@ -67,26 +136,28 @@ public class AdjMatrixDigraph {
         }
 
         public boolean hasNext() {
-            while (w < V) {
-                if (adj[v][w])
-                    return true;
-                w++;
-            }
-            return false;
+            return w < V;
         }
 
         public Integer next() {
-            if (hasNext())
-                return w++;
-            else
+            if (!hasNext())
                 throw new NoSuchElementException();
+            int current = w;
+            w = AdjMatrixDigraph.this.next(row, w + 1);
+            return current;
         }
-        
+
         public void remove() {
             throw new UnsupportedOperationException();
         }
     }
 
+    // throw an exception unless 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
     // string representation of Graph - takes quadratic time.
     public String toString() {
         String NEWLINE = System.getProperty("line.separator");
@@ -101,11 +172,46 @@ public class AdjMatrixDigraph {
         return s.toString();
     }
 
-    // test client
+    // test client: a random digraph with V vertices and E edges (default
+    // 300 and 5000) against a boolean[][] matrix, then its reverse
     public static void main(String[] args) {
-        int V = Integer.parseInt(args[0]);
-        int E = Integer.parseInt(args[0]);
-        AdjMatrixDigraph G = new AdjMatrixDigraph(V, E);
-        StdOut.println(G);
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int E = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        AdjMatrixDigraph G = new AdjMatrixDigraph(V);
+        boolean[][] matrix = new boolean[V][V];
+        for (int e = 0; e < E; e++) {
+            int v = StdRandom.uniform(V);
+            int w = StdRandom.uniform(V);
+            G.addEdge(v, w);
+            matrix[v][w] = true;
+        }
+        AdjMatrixDigraph R = G.reverse();
+        int differ = 0;
+        long edges = 0;
+        for (int v = 0; v < V; v++) {
+            int degree = 0;
+            for (int w = 0; w < V; w++) {
+                if (matrix[v][w] != G.contains(v, w) || matrix[v][w] != R.contains(w, v)) differ++;
+                if (matrix[v][w]) degree++;
+            }
+            edges += degree;
+            if (G.outdegree(v) != degree) differ++;
+            int k = 0;
+            for (int w : G.adj(v))
+                if (!matrix[v][w]) differ++; else k++;
+            if (k != degree) differ++;
+        }
+        if (edges != G.E() || R.E() != G.E()) differ++;
+        for (int t = 0; t < 1000; t++) {
+            int v = StdRandom.uniform(V);
+            int w = StdRandom.uniform(V);
+            int common = 0;
+            for (int u = 0; u < V; u++)
+                if (matrix[v][u] && matrix[w][u]) common++;
+            if (G.commonSuccessors(v, w) != common) differ++;
+        }
+        StdOut.println(G.E() + " edges, " + differ + " results differ");
+        if (V <= 20)
+            StdOut.println(G);
     }
-}
\ No newline at end of file
+}
@@ -82,6 +82,13 @@ public class AdjMatrixEdgeWeightedDigraph {
         return new AdjIterator(v);
     }
 
+    // Returns the edge v->w, or null if there is no such edge.
+    public DirectedEdge edge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return adj[v][w];
+    }
+
     // support iteration over graph vertices
     private class AdjIterator implements Iterator<DirectedEdge>, Iterable<DirectedEdge> {
         private int v;
@@ -1,27 +1,37 @@
 // A graph, implemented using an adjacency matrix.
 // Parallel edges are disallowed; self-loops are allowed.
+// The matrix is packed 64 vertices to a long in one flat array: bit w of
+// row v is at adj[v*words + w/64], so it takes V^2/8 bytes instead of the
+// V^2 of a boolean[][], and the neighbors of v are found a word at a time
+// with Long.numberOfTrailingZeros(), in time proportional to V/64 plus
+// the degree of v. Two rows are intersected 64 vertices at a time with
+// Long.bitCount(), which is what commonNeighbors() and triangles() use.
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-public class AdjMatrixGraph {
+public class AdjMatrixGraph implements AdjacencyGraph {
     private static final String NEWLINE = System.getProperty("line.separator");
     private int V;
     private int E;
-    private boolean[][] adj;
+    private int words;      // words per row
+    private long[] adj;     // bit w of row v is at adj[v*words + w/64]
 
     // empty graph with V vertices
     public AdjMatrixGraph(int V) {
         if (V < 0)  throw new RuntimeException("Number of vertices must be nonegative");
         this.V = V;
         this.E = 0;
-        this.adj = new boolean[V][V];
+        this.words = (V + 63) / 64;
+        if ((long) V * words > Integer.MAX_VALUE)
+            throw new RuntimeException("Too many vertices for one flat matrix");
+        this.adj = new long[V * words];
     }
 
     // random graph with V vertices and E edges
     public AdjMatrixGraph(int V, int E) {
         this(V);
         if (E < 0)  throw new RuntimeException("Number of edges must be nonnegative");
-        if (E > V * (V - 1) + V)    throw new RuntimeException("Too many edges");
+        if (E > (long) V * (V - 1) / 2 + V)    throw new RuntimeException("Too many edges");
 
         // can be inefficient
         while (this.E != E) {
@@ -42,29 +52,105 @@ public class AdjMatrixGraph {
 
     // add undirected edge v-w
     public void addEdge(int v, int w) {
-        if (!adj[v][w])
+        validateVertex(v);
+        validateVertex(w);
+        if (!contains(v, w))
             E++;
-        adj[v][w] = true;
-        adj[w][v] = true;
+        adj[v * words + (w >>> 6)] |= 1L << w;
+        adj[w * words + (v >>> 6)] |= 1L << v;
     }
 
     // does the graph contain the edge v-w ?
     public boolean contains(int v, int w) {
-        return adj[v][w];
+        return (adj[v * words + (w >>> 6)] & (1L << w)) != 0;
+    }
+
+    // number of neighbors of v (a self-loop counts once)
+    public int degree(int v) {
+        validateVertex(v);
+        int degree = 0;
+        for (int i = v * words, end = i + words; i < end; i++)
+            degree += Long.bitCount(adj[i]);
+        return degree;
+    }
+
+    // number of vertices adjacent to both v and w
+    public int commonNeighbors(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        int count = 0;
+        for (int i = v * words, j = w * words, end = i + words; i < end; i++, j++)
+            count += Long.bitCount(adj[i] & adj[j]);
+        return count;
+    }
+
+    // number of triangles u-v-w of three distinct vertices: for each edge
+    // v-w with v < w, the common neighbors above w, counted a word at a time
+    public long triangles() {
+        long count = 0;
+        for (int v = 0; v < V; v++) {
+            int row = v * words;
+            for (int w = next(row, v + 1); w < V; w = next(row, w + 1))
+                count += commonAbove(row, w * words, w + 1);
+        }
+        return count;
+    }
+
+    // number of triangles that contain v
+    public int triangles(int v) {
+        validateVertex(v);
+        int row = v * words;
+        boolean loop = contains(v, v);      // then v is its own common neighbor with w
+        int count = 0;
+        for (int w = next(row, 0); w < V; w = next(row, w + 1)) {
+            if (w == v)
+                continue;
+            count += commonAbove(row, w * words, w + 1);
+            if (loop && w < v)
+                count--;
+        }
+        return count;
+    }
+
+    // number of bits u >= from set in both the rows at offsets i and j
+    private int commonAbove(int i, int j, int from) {
+        int k = from >>> 6;
+        if (k >= words)
+            return 0;
+        int count = Long.bitCount(adj[i + k] & adj[j + k] & (-1L << from));
+        for (k++; k < words; k++)
+            count += Long.bitCount(adj[i + k] & adj[j + k]);
+        return count;
+    }
+
+    // the first vertex w >= from whose bit is set in the row at offset row, or V
+    private int next(int row, int from) {
+        int k = from >>> 6;
+        if (k >= words)
+            return V;
+        long word = adj[row + k] & (-1L << from);
+        while (word == 0) {
+            if (++k == words)
+                return V;
+            word = adj[row + k];
+        }
+        return (k << 6) + Long.numberOfTrailingZeros(word);
     }
 
     // return list of neighbors of v
     public Iterable<Integer> adj(int v) {
+        validateVertex(v);
         return new AdjIterator(v);
     }
 
     // support class AdjIterator over graph vertices
     private class AdjIterator implements Iterator<Integer>, Iterable<Integer> {
-        private int v;
-        private int w = 0;
+        private int row;
+        private int w;
 
         AdjIterator(int v) {
-            this.v = v;
+            this.row = v * words;
+            this.w = AdjMatrixGraph.this.next(row, 0);
         }
 
         public Iterator<Integer> iterator() {
@@ -72,19 +158,16 @@ public class AdjMatrixGraph {
         }
 
         public boolean hasNext() {
-            while (w < V) {
-                if (adj[v][w])
-                    return true;
-                w++;
-            } 
-            return false;
+            return w < V;
         }
 
         public Integer next() {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
-            return w++;
+            int current = w;
+            w = AdjMatrixGraph.this.next(row, w + 1);
+            return current;
         }
 
         public void remove() {
@@ -92,6 +175,12 @@ public class AdjMatrixGraph {
         }
     }
 
+    // throw an exception unless 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
     // string representation of Graph - takes quadratic time.
     public String toString() {
         StringBuilder s = new StringBuilder();
@@ -105,13 +194,11 @@ public class AdjMatrixGraph {
         return s.toString();
     }
 
-    // test client
+    // test client: a small graph, then neighbors, degrees, common
+    // neighbors and triangles of a random graph with V vertices and E
+    // edges (default 500 and 20000) against a boolean[][] matrix
     public static void main(String[] args) {
-        //int V = Integer.parseInt(args[0]);
-        //int E = Integer.parseInt(args[1]);
-        int V = 10;
-        int E = 10;
-        AdjMatrixGraph G = new AdjMatrixGraph(V, E);
+        AdjMatrixGraph G = new AdjMatrixGraph(10, 10);
         StdOut.println(G);
 
         System.out.println("#############");
@@ -119,7 +206,75 @@ public class AdjMatrixGraph {
             System.out.print(v + " ");
         }
         System.out.println();
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int E = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        G = new AdjMatrixGraph(V);
+        boolean[][] matrix = new boolean[V][V];
+        for (int e = 0; e < E; e++) {
+            int v = StdRandom.uniform(V);
+            int w = StdRandom.uniform(V);
+            G.addEdge(v, w);
+            matrix[v][w] = true;
+            matrix[w][v] = true;
+        }
+        int differ = 0;
+        long edges = 0;
+        for (int v = 0; v < V; v++) {
+            int degree = 0;
+            for (int w = 0; w < V; w++) {
+                if (matrix[v][w] != G.contains(v, w)) differ++;
+                if (matrix[v][w]) degree++;
+                if (matrix[v][w] && w >= v) edges++;
+            }
+            if (G.degree(v) != degree) differ++;
+            int k = 0;
+            for (int w : G.adj(v))
+                if (!matrix[v][w]) differ++; else k++;
+            if (k != degree) differ++;
+        }
+        if (edges != G.E()) differ++;
+        long triangles = 0;
+        int[] local = new int[V];
+        for (int u = 0; u < V; u++) {
+            for (int v = u + 1; v < V; v++) {
+                if (!matrix[u][v]) continue;
+                for (int w = v + 1; w < V; w++) {
+                    if (matrix[u][w] && matrix[v][w]) {
+                        triangles++;
+                        local[u]++;
+                        local[v]++;
+                        local[w]++;
+                    }
+                }
+            }
+        }
+        if (G.triangles() != triangles) differ++;
+        for (int v = 0; v < V; v++) {
+            if (G.triangles(v) != local[v]) differ++;
+        }
+        for (int t = 0; t < 1000; t++) {
+            int v = StdRandom.uniform(V);
+            int w = StdRandom.uniform(V);
+            int common = 0;
+            for (int u = 0; u < V; u++)
+                if (matrix[v][u] && matrix[w][u]) common++;
+            if (G.commonNeighbors(v, w) != common) differ++;
+        }
+        StdOut.println(triangles + " triangles, " + differ + " results differ");
+
+        Stopwatch timer = new Stopwatch();
+        long sum = 0;
+        for (int v = 0; v < V; v++) {
+            for (int w : G.adj(v))
+                sum += w;
+        }
+        StdOut.printf("iterated %d adjacency lists in %.3f s (checksum %d), counted triangles in ",
+                      V, timer.elapsedTime(), sum);
+        timer = new Stopwatch();
+        G.triangles();
+        StdOut.printf("%.3f s\n", timer.elapsedTime());
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+/**
+ *  The {@code AdjacencyDigraph} interface extends {@link AdjacencyGraph}
+ *  with the one extra operation the strong-component algorithms need:
+ *  the reverse of the digraph.
+ *  It is implemented by {@link Digraph} and {@link CSRDigraph}, so that
+ *  {@link KosarajuSharirSCC} and {@link TarjanSCC} run unchanged on either.
+ */
+public interface AdjacencyDigraph extends AdjacencyGraph {
+
+    // Returns the reverse of the digraph.
+    AdjacencyDigraph reverse();
+}
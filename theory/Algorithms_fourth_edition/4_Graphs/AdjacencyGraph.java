@@ -0,0 +1,21 @@
+/**
+ *  The {@code AdjacencyGraph} interface is the read-only view of a graph
+ *  of vertices named 0 through V - 1 that the search algorithms need:
+ *  the number of vertices, the number of edges, and the vertices adjacent
+ *  to a given vertex.
+ *  It is implemented both by the mutable {@link Graph} and {@link Digraph}
+ *  and by the frozen compressed-sparse-row {@link CSRGraph} and
+ *  {@link CSRDigraph}, so that {@link BreadthFirstPaths} and
+ *  {@link DepthFirstOrder} run unchanged on either representation.
+ */
+public interface AdjacencyGraph {
+
+    // Returns the number of vertices in this graph.
+    int V();
+
+    // Returns the number of edges in this graph.
+    int E();
+
+    // Returns the vertices adjacent to (or from) vertex v.
+    Iterable<Integer> adj(int v);
+}
@@ -0,0 +1,503 @@
+// A long-running arbitrage detector over a stream of exchange-rate
+// updates. Arbitrage.java reads one table of rates and runs
+// BellmanFordSP on it once; here the digraph of -ln(rate) edges is kept
+// in place, with a virtual source that has an edge of weight 0 to every
+// currency (so that every cycle is reachable), and each update is one
+// SPFA.setWeight(), which only touches the part of the shortest-paths
+// tree the new rate changes and finds a negative cycle as soon as the
+// rate closes it.
+
+/**
+ *  The {@code ArbitrageDetector} class represents a table of exchange
+ *  rates between V currencies that changes one rate at a time, and
+ *  reports the arbitrage opportunities (cycles of trades whose product of
+ *  rates is more than 1) as the updates arrive.
+ *  <p>
+ *  Every trade can be charged a fee, a fraction of the amount traded, so
+ *  that only cycles that pay for their fees are reported; a fee also
+ *  keeps cycles of rates whose product is 1 up to rounding from being
+ *  reported. A rate of 0 means there is no quote.
+ *  {@code update()} returns the opportunity the update leaves, unless the
+ *  last one reported is still there: the cycle the shortest paths find
+ *  can change with every update while an opportunity lasts, so it is
+ *  reported once, and a new one when its rates close it. The latencies of the last {@code WINDOW} updates are
+ *  kept for percentiles, and their mean and maximum since the start.
+ *  <p>
+ *  The feed is a file, standard input or the lines sent to a local TCP
+ *  port, one update per line: the names of two currencies and the rate.
+ *  An update takes time proportional to the part of the shortest-paths
+ *  tree it changes, and to V while an opportunity lasts.
+ */
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.io.IOException;
+
+public class ArbitrageDetector {
+    public static final int WINDOW = 1 << 16;   // latencies kept for percentiles
+
+    private final int V;                // number of currencies; V is the virtual source
+    private final String[] names;       // names[v] = name of currency v
+    private final ST<String, Integer> index;    // name -> currency
+    private final double fee;           // fraction of each trade paid as a fee
+    private final double[] rates;       // rates[v*V + w] = rate from v to w, or 0
+    private final int[] position;       // position[v*V + w] = position of the edge v->w
+    private final SPFA spfa;
+
+    private Opportunity last;           // the last opportunity reported, or null
+    private long updates;               // number of updates
+    private long opportunities;         // number of opportunities reported
+    private final long[] latency;       // latency[k % WINDOW] = nanoseconds of update k
+    private long totalLatency, maxLatency;
+
+    // An arbitrage opportunity: a cycle of currencies and its profit.
+    public static class Opportunity {
+        private final int[] cycle;      // currencies of the cycle
+        private final String[] path;    // their names, the first also at the end
+        private final double profit;    // product of the rates, net of fees, minus 1
+
+        Opportunity(int[] cycle, String[] path, double profit) {
+            this.cycle = cycle;
+            this.path = path;
+            this.profit = profit;
+        }
+
+        // Returns the currencies of the cycle, the first one also at the end.
+        public String[] path() {
+            return path.clone();
+        }
+
+        // Returns the fraction gained by going once around the cycle.
+        public double profit() {
+            return profit;
+        }
+
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            for (int k = 0; k < path.length; k++)
+                s.append(k == 0 ? "" : " -> ").append(path[k]);
+            return s.append(String.format("  %+.6f%%", 100 * profit)).toString();
+        }
+    }
+
+    // Initializes a detector for the named currencies, with no quotes yet
+    // and the given fee per trade.
+    public ArbitrageDetector(String[] names, double fee) {
+        if (fee < 0.0 || fee >= 1.0)
+            throw new IllegalArgumentException("fee must be in [0, 1)");
+        V = names.length;
+        this.names = names.clone();
+        this.fee = fee;
+        index = new ST<String, Integer>();
+        for (int v = 0; v < V; v++) {
+            if (index.contains(names[v]))
+                throw new IllegalArgumentException("duplicate currency " + names[v]);
+            index.put(names[v], v);
+        }
+
+        // a complete digraph with edges of infinite weight, and the source
+        int E = V * (V - 1) + V;
+        int[] from = new int[E];
+        int[] to = new int[E];
+        double[] w = new double[E];
+        int k = 0;
+        for (int v = 0; v < V; v++) {
+            for (int x = 0; x < V; x++) {
+                if (v == x) continue;
+                from[k] = v;
+                to[k] = x;
+                w[k++] = Double.POSITIVE_INFINITY;
+            }
+            from[k] = V;
+            to[k] = v;
+            w[k++] = 0.0;
+        }
+        CSREdgeWeightedDigraph G = new CSREdgeWeightedDigraph(V + 1, from, to, w);
+        rates = new double[V * V];
+        position = new int[V * V];
+        for (int v = 0; v < V; v++) {
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++)
+                position[v * V + G.to(i)] = i;
+        }
+        spfa = new SPFA(G, V);
+        latency = new long[WINDOW];
+    }
+
+    // Initializes a detector from a table in the format of Arbitrage: the
+    // number of currencies V, then for each currency its name and its V
+    // rates to every currency. The table does not count as updates, and
+    // the opportunity it leaves, if any, is current() and not reported.
+    public ArbitrageDetector(In in, double fee) {
+        this(read(in), fee);
+    }
+
+    private ArbitrageDetector(Table table, double fee) {
+        this(table.names, fee);
+        for (int v = 0; v < V; v++) {
+            for (int w = 0; w < V; w++) {
+                if (v != w)
+                    update(v, w, table.rates[v * V + w]);
+            }
+        }
+        last = current();
+        updates = 0;
+        opportunities = 0;
+        totalLatency = 0;
+        maxLatency = 0;
+    }
+
+    // the names and rates of a table
+    private static class Table {
+        private final String[] names;
+        private final double[] rates;   // rates[v*V + w] = rate from v to w
+
+        Table(String[] names, double[] rates) {
+            this.names = names;
+            this.rates = rates;
+        }
+    }
+
+    // the number of currencies V, then for each currency its name and its
+    // V rates
+    private static Table read(In in) {
+        int V = in.readInt();
+        if (V < 0)
+            throw new IllegalArgumentException("number of currencies must be nonnegative");
+        String[] names = new String[V];
+        double[] rates = new double[V * V];
+        for (int v = 0; v < V; v++) {
+            names[v] = in.readString();
+            for (int w = 0; w < V; w++)
+                rates[v * V + w] = in.readDouble();
+        }
+        return new Table(names, rates);
+    }
+
+    // Sets the rate from currency v to currency w, and returns the
+    // arbitrage opportunity it leaves, or null if there is none or the
+    // last one reported still pays.
+    public Opportunity update(int v, int w, double rate) {
+        validateCurrency(v);
+        validateCurrency(w);
+        if (v == w)
+            throw new IllegalArgumentException("rate from " + names[v] + " to itself");
+        if (!(rate >= 0.0) || rate == Double.POSITIVE_INFINITY)
+            throw new IllegalArgumentException("rate must be nonnegative and finite");
+        long start = System.nanoTime();
+        rates[v * V + w] = rate;
+        double weight = rate == 0.0 ? Double.POSITIVE_INFINITY : -Math.log(rate * (1.0 - fee));
+        Opportunity found = null;
+        if (!spfa.setWeight(position[v * V + w], weight)) {
+            last = null;
+        }
+        else if (last == null || product(last.cycle) <= 1.0) {
+            Opportunity opportunity = opportunity();
+            if (last == null || !java.util.Arrays.equals(last.path, opportunity.path)) {
+                found = opportunity;
+                last = opportunity;
+                opportunities++;
+            }
+        }
+        long time = System.nanoTime() - start;
+        latency[(int) (updates % WINDOW)] = time;
+        updates++;
+        totalLatency += time;
+        maxLatency = Math.max(maxLatency, time);
+        return found;
+    }
+
+    // Sets the rate from the currency named from to the one named to.
+    public Opportunity update(String from, String to, double rate) {
+        return update(indexOf(from), indexOf(to), rate);
+    }
+
+    // the negative cycle of the SPFA, starting at its smallest currency
+    private Opportunity opportunity() {
+        int[] cycle = new int[V + 1];
+        int n = 0;
+        for (DirectedEdge e : spfa.negativeCycle())
+            cycle[n++] = e.from();
+        int first = 0;
+        for (int k = 1; k < n; k++) {
+            if (cycle[k] < cycle[first])
+                first = k;
+        }
+        int[] rotated = new int[n];
+        String[] path = new String[n + 1];
+        for (int k = 0; k < n; k++) {
+            rotated[k] = cycle[(first + k) % n];
+            path[k] = names[rotated[k]];
+        }
+        path[n] = path[0];
+        return new Opportunity(rotated, path, product(rotated) - 1.0);
+    }
+
+    // the product of the rates around the cycle, net of fees
+    private double product(int[] cycle) {
+        double product = 1.0;
+        for (int k = 0; k < cycle.length; k++) {
+            int v = cycle[k];
+            int w = cycle[(k + 1) % cycle.length];
+            product *= rates[v * V + w] * (1.0 - fee);
+        }
+        return product;
+    }
+
+    // Returns the opportunity the rates have now, or null.
+    public Opportunity current() {
+        return spfa.hasNegativeCycle() ? opportunity() : null;
+    }
+
+    // Returns the rate from currency v to currency w, or 0 if there is no quote.
+    public double rate(int v, int w) {
+        validateCurrency(v);
+        validateCurrency(w);
+        return v == w ? 1.0 : rates[v * V + w];
+    }
+
+    // Returns the number of currencies.
+    public int V() {
+        return V;
+    }
+
+    // Returns the name of currency v.
+    public String name(int v) {
+        validateCurrency(v);
+        return names[v];
+    }
+
+    // Returns the currency with the given name.
+    public int indexOf(String name) {
+        Integer v = index.get(name);
+        if (v == null)
+            throw new IllegalArgumentException("unknown currency " + name);
+        return v;
+    }
+
+    // Returns the number of updates so far.
+    public long updates() {
+        return updates;
+    }
+
+    // Returns the number of opportunities reported so far.
+    public long opportunities() {
+        return opportunities;
+    }
+
+    // Returns the mean latency of an update, in nanoseconds.
+    public double meanLatency() {
+        return updates == 0 ? 0.0 : (double) totalLatency / updates;
+    }
+
+    // Returns the largest latency of an update, in nanoseconds.
+    public long maxLatency() {
+        return maxLatency;
+    }
+
+    // Returns the p-th percentile (0 <= p <= 100) of the latencies of the
+    // last WINDOW updates, in nanoseconds.
+    public long latency(double p) {
+        if (!(p >= 0.0 && p <= 100.0))
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        int n = (int) Math.min(updates, WINDOW);
+        if (n == 0)
+            return 0;
+        long[] sorted = java.util.Arrays.copyOf(latency, n);
+        java.util.Arrays.sort(sorted);
+        return sorted[(int) Math.min(n - 1, Math.floor(p / 100.0 * n))];
+    }
+
+    // Returns the latency metrics as one line.
+    public String metrics() {
+        return String.format("%d updates, %d opportunities, latency mean %.2f us, p50 %.2f us, p99 %.2f us, max %.2f us",
+                             updates, opportunities, meanLatency() / 1e3, latency(50) / 1e3, latency(99) / 1e3,
+                             maxLatency / 1e3);
+    }
+
+    // Reads updates from feed until it is empty, one per line: the names
+    // of two currencies and the rate. A line that is not an update is
+    // reported on standard error and skipped. Prints each opportunity
+    // reported, with the number of its update, if verbose is true.
+    public void listen(In feed, boolean verbose) {
+        while (feed.hasNextLine()) {
+            String line = feed.readLine().trim();
+            if (line.isEmpty()) continue;
+            String[] fields = line.split("\\s+");
+            try {
+                if (fields.length != 3)
+                    throw new IllegalArgumentException("expected FROM TO RATE");
+                Opportunity opportunity = update(fields[0], fields[1], Double.parseDouble(fields[2]));
+                if (verbose && opportunity != null)
+                    StdOut.println(updates + ": " + opportunity);
+            }
+            catch (IllegalArgumentException e) {
+                System.err.println("skipped \"" + line + "\": " + e.getMessage());
+            }
+        }
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V.
+    private void validateCurrency(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("currency " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // a table of C currencies in the format of Arbitrage, with a spread of
+    // about 0.1% around the values
+    private static String table(double[] value) {
+        int C = value.length;
+        StringBuilder s = new StringBuilder().append(C).append('\n');
+        for (int v = 0; v < C; v++) {
+            s.append("C").append(v);
+            for (int w = 0; w < C; w++)
+                s.append(' ').append(v == w ? 1.0 : quote(value, v, w));
+            s.append('\n');
+        }
+        return s.toString();
+    }
+
+    // the rate from v to w at the values, less a random spread
+    private static double quote(double[] value, int v, int w) {
+        return value[v] / value[w] * (1.0 - StdRandom.uniform(0.0005, 0.0015));
+    }
+
+    // a feed of n updates, each of which moves the value of one currency
+    // and quotes one of its rates; one in odds quotes is too high, by up to
+    // the fraction markup
+    private static String feed(double[] value, int n, int odds, double markup) {
+        int C = value.length;
+        StringBuilder feed = new StringBuilder();
+        for (int k = 0; k < n; k++) {
+            int v = StdRandom.uniform(C);
+            int w = (v + 1 + StdRandom.uniform(C - 1)) % C;
+            value[v] *= Math.exp(0.0002 * StdRandom.gaussian());
+            double rate = quote(value, v, w);
+            if (StdRandom.uniform(odds) == 0)
+                rate *= 1.0 + markup * StdRandom.uniform();
+            feed.append("C").append(v).append(" C").append(w).append(' ').append(rate).append('\n');
+        }
+        return feed.toString();
+    }
+
+    // replays the feed on the detector and returns the number of updates
+    // after which BellmanFordSP does not agree on whether there is an
+    // opportunity, or the detector has or reports one that does not pay
+    private static int check(ArbitrageDetector detector, String feed) {
+        In in = new In(new java.util.Scanner(feed));
+        int differ = 0;
+        while (in.hasNextLine()) {
+            String[] fields = in.readLine().split(" ");
+            Opportunity found = detector.update(fields[0], fields[1], Double.parseDouble(fields[2]));
+            Opportunity current = detector.current();
+            if ((current != null) != bellmanFord(detector)
+                || (current != null && current.profit() <= 0.0)
+                || (found != null && found.profit() <= 0.0))
+                differ++;
+        }
+        return differ;
+    }
+
+    // does BellmanFordSP, from scratch, find an opportunity in the rates ?
+    private static boolean bellmanFord(ArbitrageDetector detector) {
+        int C = detector.V();
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(C + 1);
+        for (int v = 0; v < C; v++) {
+            G.addEdge(new DirectedEdge(C, v, 0.0));
+            for (int w = 0; w < C; w++) {
+                double rate = detector.rate(v, w);
+                if (v != w && rate > 0.0)
+                    G.addEdge(new DirectedEdge(v, w, -Math.log(rate * (1.0 - detector.fee))));
+            }
+        }
+        return new BellmanFordSP(G, C).hasNegativeCycle();
+    }
+
+    // Reads a table in the format of Arbitrage from the file named args[0]
+    // and then the updates from the file named args[1], from standard input
+    // if it is "-", or from every connection to the local port args[1] in
+    // turn, and prints the opportunities and the latency metrics; args[2]
+    // is the fee, 0 by default.
+    // Or, given "simulate", a number of currencies C and of updates n,
+    // replays a random walk of the values of C currencies, with a mispriced
+    // quote now and then, checks after every update that BellmanFordSP
+    // finds an opportunity if and only if the detector has one, and that
+    // it pays, and replays the same feed over a local socket; then does the
+    // same checks on 4 currencies with a mispriced quote in every 2.
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (!args[0].equals("simulate")) {
+            double fee = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+            ArbitrageDetector detector = new ArbitrageDetector(new In(args[0]), fee);
+            Opportunity opportunity = detector.current();
+            if (opportunity != null)
+                StdOut.println("0: " + opportunity);
+            if (args[1].equals("-")) {
+                detector.listen(new In(), true);
+            }
+            else if (args[1].matches("\\d+")) {
+                ServerSocket server = new ServerSocket(Integer.parseInt(args[1]));
+                while (true) {
+                    Socket socket = server.accept();
+                    detector.listen(new In(socket), true);
+                    socket.close();
+                    StdOut.println(detector.metrics());
+                }
+            }
+            else {
+                detector.listen(new In(args[1]), true);
+            }
+            StdOut.println(detector.metrics());
+            return;
+        }
+
+        int C = Integer.parseInt(args[1]);
+        int n = Integer.parseInt(args[2]);
+        double fee = args.length > 3 ? Double.parseDouble(args[3]) : 0.0;
+        double[] value = new double[C];
+        for (int v = 0; v < C; v++)
+            value[v] = Math.exp(StdRandom.uniform(-3.0, 3.0));
+        String table = table(value);
+
+        // one in 10000 quotes is up to 1% too high
+        String feed = feed(value, n, 10000, 0.01);
+        ArbitrageDetector detector = new ArbitrageDetector(new In(new java.util.Scanner(table)), fee);
+        int differ = check(detector, feed);
+        StdOut.println("replay: " + detector.metrics());
+        StdOut.printf("%d updates checked against BellmanFordSP, %d differ\n", detector.updates(), differ);
+        Opportunity opportunity = detector.current();
+        if (opportunity != null)
+            StdOut.println("last: " + opportunity);
+
+        // the same feed, sent to a socket on the loopback interface
+        final ServerSocket server = new ServerSocket(0);
+        final byte[] bytes = feed.getBytes("UTF-8");
+        Thread sender = new Thread() {
+            public void run() {
+                try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+                    socket.getOutputStream().write(bytes);
+                }
+                catch (IOException e) {
+                    System.err.println(e);
+                }
+            }
+        };
+        sender.start();
+        ArbitrageDetector remote = new ArbitrageDetector(new In(new java.util.Scanner(table)), fee);
+        Socket socket = server.accept();
+        remote.listen(new In(socket), false);
+        socket.close();
+        server.close();
+        sender.join();
+        StdOut.println("socket: " + remote.metrics());
+        StdOut.println(remote.opportunities() == detector.opportunities() ? "same opportunities" : "OPPORTUNITIES DIFFER");
+
+        // 4 currencies, one in 2 quotes up to 0.3% too high and no fee, so
+        // that cycles open and close all the time, and many updates come
+        // while one is open
+        value = new double[4];
+        for (int v = 0; v < value.length; v++)
+            value[v] = Math.exp(StdRandom.uniform(-3.0, 3.0));
+        detector = new ArbitrageDetector(new In(new java.util.Scanner(table(value))), 0.0);
+        differ = check(detector, feed(value, 300000, 2, 0.003));
+        StdOut.printf("4 currencies, frequent mispricing: %d opportunities, %d of %d updates differ from BellmanFordSP\n",
+                      detector.opportunities(), differ, detector.updates());
+    }
+}
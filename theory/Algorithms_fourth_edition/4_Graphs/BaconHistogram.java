@@ -21,7 +21,7 @@ public class BaconHistogram {
 
         // run breadth-first search from s
         int s = sg.indexOf(source);
-        BreadthFirstPaths bfs = new BreadthFirstPaths(G, s);
+        ParallelBreadthFirstPaths bfs = new ParallelBreadthFirstPaths(G, s);
 
         // compute histogram of Kevin Bacon numbers - 100 for infinity
         int MAX_BACON = 100;
@@ -15,7 +15,12 @@
  *  Afterwards, the {@code distTo()}, {@code hasPathTo()}, and {@code hasNegativeCycle()}
  *  methods take constant time; the {@code pathTo()} and {@code negativeCycle()}
  *  method takes time proportional to the number of edges returned.
+ *  See {@link SPFA} for a version that finds a negative cycle as soon as
+ *  it closes and updates the paths when a weight changes, and
+ *  {@link ParallelBellmanFordSP} for one that relaxes in parallel rounds.
  */
+import java.util.Arrays;
+
 public class BellmanFordSP {
 
     private double[] distTo;    // distTo[v] = distance of shortest s->v path
@@ -24,6 +29,12 @@ public class BellmanFordSP {
     private Queue<Integer> queue;   // queue of vertices to relax
     private int cost;       // number of calls to relax()
     private Iterable<DirectedEdge> cycle;   // negative cycle (or null if no such cycle)
+    private CSREdgeWeightedDigraph csr;     // frozen digraph, if the tree was computed on one
+    private int[] edgeIndex;    // edgeIndex[v] = position in csr of edgeTo[v], or -1
+    private int[] ring;         // queue of vertices to relax, as a circular buffer
+    private int ringFirst;      // position of the first vertex in ring
+    private int ringSize;       // number of vertices in ring
+    private int[] walk;         // walk[v] = 1 + start of the parent walk that reached v
 
     // Computes a shortest paths tree from s to every other vertex in the edge-weighted 
     // digraph G.
@@ -48,6 +59,60 @@ public class BellmanFordSP {
         assert check(G, s);
     }
 
+    // Computes a shortest paths tree from s to every other vertex in the frozen
+    // edge-weighted digraph G. The queue is an int[] ring (each vertex is on
+    // it at most once) and the tree is kept as edge positions in G, so the
+    // relax loop does not allocate.
+    public BellmanFordSP(CSREdgeWeightedDigraph G, int s) {
+        csr = G;
+        distTo = new double[G.V()];
+        edgeIndex = new int[G.V()];
+        onQueue = new boolean[G.V()];
+        walk = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+            edgeIndex[v] = -1;
+        }
+        validateVertex(s);
+        distTo[s] = 0.0;
+
+        // Bellman-Ford algorithm
+        ring = new int[G.V()];
+        ring[0] = s;
+        ringSize = 1;
+        onQueue[s] = true;
+        while (ringSize > 0 && !hasNegativeCycle()) {
+            int v = ring[ringFirst];
+            ringFirst = (ringFirst + 1) % ring.length;
+            ringSize--;
+            onQueue[v] = false;
+            relax(G, v);
+        }
+        assert check(G, s);
+    }
+
+    // relax every edge leaving v in the frozen digraph G
+    private void relax(CSREdgeWeightedDigraph G, int v) {
+        for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+            int w = G.to(i);
+            if (distTo[w] > distTo[v] + G.weight(i)) {
+                distTo[w] = distTo[v] + G.weight(i);
+                edgeIndex[w] = i;
+                if (!onQueue[w]) {
+                    ring[(ringFirst + ringSize) % ring.length] = w;
+                    ringSize++;
+                    onQueue[w] = true;
+                }
+            }
+            if (cost++ % G.V() == 0) {
+                findNegativeCycle(G);
+                if (hasNegativeCycle()) {
+                    return;     // found a negative cycle
+                }
+            }
+        }
+    }
+
     // relax vertex v and put other endpoints on queue if changed
     private void relax(EdgeWeightedDigraph G, int v) {
         for (DirectedEdge e : G.adj(v)) {
@@ -93,6 +158,41 @@ public class BellmanFordSP {
         cycle = finder.cycle();
     }
 
+    // by finding a cycle in the predecessor graph of the frozen digraph G.
+    // Every vertex has at most one parent, so it is enough to follow parent
+    // links from each vertex until reaching a vertex seen before.
+    private void findNegativeCycle(CSREdgeWeightedDigraph G) {
+        int V = edgeIndex.length;
+        Arrays.fill(walk, 0);
+        for (int v = 0; v < V; v++) {
+            int x = v;
+            while (x != -1 && walk[x] == 0) {
+                walk[x] = v + 1;
+                x = edgeIndex[x] < 0 ? -1 : G.from(edgeIndex[x]);
+            }
+            if (x != -1 && walk[x] == v + 1) {
+                // x is on a cycle of the predecessor graph
+                Stack<DirectedEdge> stack = new Stack<DirectedEdge>();
+                int y = x;
+                do {
+                    stack.push(G.edge(edgeIndex[y]));
+                    y = G.from(edgeIndex[y]);
+                } while (y != x);
+                cycle = stack;
+                return;
+            }
+        }
+    }
+
+    // Returns the last edge on the shortest s->v path, or null. On a frozen
+    // digraph the edge is created from its position in csr.
+    private DirectedEdge edgeTo(int v) {
+        if (csr == null) {
+            return edgeTo[v];
+        }
+        return edgeIndex[v] < 0 ? null : csr.edge(edgeIndex[v]);
+    }
+
     // Returns the length of a shortest path from the source s to vertex v.
     public double distTo(int v) {
         validateVertex(v);
@@ -118,7 +218,7 @@ public class BellmanFordSP {
             return null;
         }
         Stack<DirectedEdge> path = new Stack<DirectedEdge>();
-        for (DirectedEdge e = edgeTo[v]; e != null; e = edgeTo[e.from()]) {
+        for (DirectedEdge e = edgeTo(v); e != null; e = edgeTo(e.from())) {
             path.push(e);
         }
         return path;
@@ -188,6 +288,64 @@ public class BellmanFordSP {
         return true;
     }
 
+    // check the same optimality conditions on the frozen digraph G.
+    private boolean check(CSREdgeWeightedDigraph G, int s) {
+
+        // has a negative cycle
+        if (hasNegativeCycle()) {
+            double weight = 0.0;
+            for (DirectedEdge e : negativeCycle()) {
+                weight += e.weight();
+            }
+            if (weight >= 0.0) {
+                System.err.println("error: weight of negative cycle = " + weight);
+                return false;
+            }
+        }
+
+        // no negative cycle reachable from source
+        else {
+
+            // check that distTo[v] and edgeIndex[v] are consistent
+            if (distTo[s] != 0.0 || edgeIndex[s] != -1) {
+                System.err.println("distanceTo[s] and edgeTo[s] inconsistent");
+                return false;
+            }
+            for (int v = 0; v < G.V(); v++) {
+                if (v == s) continue;
+                if (edgeIndex[v] == -1 && distTo[v] != Double.POSITIVE_INFINITY) {
+                    System.err.println("distTo[] and edgeTo[] inconsistent");
+                    return false;
+                }
+            }
+
+            // check that all edges e = v->w satisfy distTo[w] <= distTo[v] + e.weight()
+            for (int v = 0; v < G.V(); v++) {
+                for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                    if (distTo[v] + G.weight(i) < distTo[G.to(i)]) {
+                        System.err.println("edge " + G.edge(i) + " not relaxed");
+                        return false;
+                    }
+                }
+            }
+
+            // check that all edges e = v->w on SPT satisfy distTo[w] == distTo[v] + e.weight()
+            for (int w = 0; w < G.V(); w++) {
+                if (edgeIndex[w] == -1) continue;
+                int i = edgeIndex[w];
+                if (w != G.to(i)) return false;
+                if (distTo[G.from(i)] + G.weight(i) != distTo[w]) {
+                    System.err.println("edge " + G.edge(i) + " on shortest path not tight");
+                    return false;
+                }
+            }
+        }
+
+        StdOut.println("Satisfies optimality conditions");
+        StdOut.println();
+        return true;
+    }
+
     // throw an IllegalArguemntException unless 0 <= v < V.
     private void validateVertex(int v) {
         int V = distTo.length;
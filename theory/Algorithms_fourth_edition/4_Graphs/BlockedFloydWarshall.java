@@ -0,0 +1,363 @@
+// Blocked (tiled) Floyd-Warshall all-pairs shortest path algorithm over a
+// flat row-major double[] matrix, with the tiles of each phase updated in
+// parallel on a ForkJoinPool.
+// As in FloydWarshall, the diagonal is checked for negative cycles so that
+// intermediate numbers cannot grow without bound.
+
+/**
+ *  The {@code BlockedFloydWarshall} class represents a data type for solving the
+ *  all-pairs shortest paths problem in edge-weighted digraphs with
+ *  no negative cycles, with the same API as {@link FloydWarshall}.
+ *  The edge weights can be positive, negative, or zero.
+ *  This class finds either a shortest path between every pair of vertices
+ *  or a negative cycle.
+ *  <p>
+ *  The V-by-V distance matrix is one {@code double[]} in row-major order and
+ *  is cut into B-by-B tiles. For each block of B intermediate vertices
+ *  the algorithm runs three phases: the diagonal tile is updated by
+ *  itself; then the tiles in its row and its column, which only need the
+ *  diagonal tile, are updated in parallel; then all remaining tiles, which
+ *  only need one row tile and one column tile, are updated in parallel.
+ *  Each tile update touches three B-by-B tiles, which stay in cache, so
+ *  the run is bound by arithmetic instead of memory bandwidth.
+ *  The predecessor of w on the shortest v->w path is kept in an
+ *  {@code int[]} matrix of the same layout. The diagonal is checked after
+ *  each block; when an entry is negative, the relaxations are replayed one
+ *  pivot at a time up to the first negative entry, so that the negative
+ *  cycle is the one {@code FloydWarshall} finds.
+ *  The constructor takes time proportional to V^3 in the worst case and
+ *  space proportional to V^2 (12 bytes per pair).
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class BlockedFloydWarshall {
+
+    private static final int DEFAULT_BLOCK = 64;    // tile side, in vertices
+    private static final double EPSILON = 1E-10;    // rounding slack in check(): the tiles
+                                                    // add path lengths in a different order
+
+    private final AdjMatrixEdgeWeightedDigraph G;
+    private final int V;
+    private final int B;                // tile side
+    private final int T;                // number of tiles per side
+    private boolean hasNegativeCycle;   // is there a negative cycle ?
+    private double[] distTo;    // distTo[v*V + w] = length of shortest v->w path.
+    private int[] pred;         // pred[v*V + w] = vertex before w on shortest v->w path, or -1.
+
+    // Computes a shortest paths tree from each vertex to every other vertex in
+    // the edge-weighted digraph G, on the common pool.
+    public BlockedFloydWarshall(AdjMatrixEdgeWeightedDigraph G) {
+        this(G, DEFAULT_BLOCK, ForkJoinPool.commonPool());
+    }
+
+    // Computes a shortest paths tree from each vertex to every other vertex in
+    // the edge-weighted digraph G, with tiles of side block, on pool.
+    // If no such shortest path exists for some pair of vertices, it computes
+    // a negative cycle.
+    public BlockedFloydWarshall(AdjMatrixEdgeWeightedDigraph G, int block, ForkJoinPool pool) {
+        if (block < 1)
+            throw new IllegalArgumentException("block size must be positive");
+        if ((long) G.V() * G.V() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("too many vertices for one flat matrix");
+        this.G = G;
+        this.V = G.V();
+        this.B = block;
+        this.T = (V + B - 1) / B;
+        distTo = new double[V * V];
+        pred = new int[V * V];
+        initialize();
+
+        for (int kb = 0; kb < T; kb++) {
+            // phase 1: diagonal tile
+            update(kb, kb, kb);
+            // phase 2: the rest of row kb and of column kb
+            pool.invoke(new Phase(kb, 0, 2 * T, true));
+            // phase 3: every other tile
+            pool.invoke(new Phase(kb, 0, T * T, false));
+
+            // check for negative cycle
+            for (int v = 0; v < V; v++) {
+                if (distTo[v * V + v] < 0.0) {
+                    hasNegativeCycle = true;
+                    replay();
+                    return;
+                }
+            }
+        }
+        assert check();
+    }
+
+    // the edges of G, and 0 on the diagonal unless there is a negative self-loop
+    private void initialize() {
+        // initialize distances to infinity
+        for (int i = 0; i < V * V; i++) {
+            distTo[i] = Double.POSITIVE_INFINITY;
+            pred[i] = -1;
+        }
+
+        // initialize distances using edge-weighted digraph's
+        for (int v = 0; v < V; v++) {
+            for (DirectedEdge e : G.adj(v)) {
+                distTo[e.from() * V + e.to()] = e.weight();
+                pred[e.from() * V + e.to()] = e.from();
+            }
+            // in case of self-loops
+            if (distTo[v * V + v] >= 0.0) {
+                distTo[v * V + v] = 0.0;
+                pred[v * V + v] = -1;
+            }
+        }
+    }
+
+    // The block that made a diagonal entry negative ran its later pivots
+    // after that, and they can rewrite the pred[] row of the cycle into a
+    // walk that is no longer one. Start over and relax one pivot at a
+    // time, as FloydWarshall does, and stop at the first negative diagonal
+    // entry, while pred[] still holds the cycle.
+    private void replay() {
+        initialize();
+        for (int k = 0; k < V; k++) {
+            int rowK = k * V;
+            for (int v = 0; v < V; v++) {
+                int rowV = v * V;
+                double dvk = distTo[rowV + k];
+                if (dvk == Double.POSITIVE_INFINITY) {
+                    continue;   // optimization
+                }
+                for (int w = 0; w < V; w++) {
+                    if (distTo[rowV + w] > dvk + distTo[rowK + w]) {
+                        distTo[rowV + w] = dvk + distTo[rowK + w];
+                        pred[rowV + w] = pred[rowK + w];
+                    }
+                }
+                if (distTo[rowV + v] < 0.0)
+                    return;
+            }
+        }
+    }
+
+    // updates the tiles of one phase for block kb: in phase 2 index t names
+    // the row tile (kb, t) for t < T and the column tile (t - T, kb) otherwise;
+    // in phase 3 it names tile (t / T, t % T).
+    private class Phase extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int kb, lo, hi;
+        private final boolean cross;
+
+        Phase(int kb, int lo, int hi, boolean cross) {
+            this.kb = kb;
+            this.lo = lo;
+            this.hi = hi;
+            this.cross = cross;
+        }
+
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Phase(kb, lo, mid, cross), new Phase(kb, mid, hi, cross));
+                return;
+            }
+            int t = lo;
+            if (cross) {
+                if (t < T && t != kb)           update(kb, t, kb);
+                else if (t >= T && t - T != kb) update(t - T, kb, kb);
+            }
+            else {
+                int ib = t / T, jb = t % T;
+                if (ib != kb && jb != kb)       update(ib, jb, kb);
+            }
+        }
+    }
+
+    // relaxes tile (ib, jb) through the intermediate vertices of block kb:
+    // d[i][j] = min(d[i][j], d[i][k] + d[k][j]).
+    private void update(int ib, int jb, int kb) {
+        int i0 = ib * B, i1 = Math.min(i0 + B, V);
+        int j0 = jb * B, j1 = Math.min(j0 + B, V);
+        int k0 = kb * B, k1 = Math.min(k0 + B, V);
+        for (int k = k0; k < k1; k++) {
+            int rowK = k * V;
+            for (int i = i0; i < i1; i++) {
+                int rowI = i * V;
+                double dik = distTo[rowI + k];
+                if (dik == Double.POSITIVE_INFINITY) {
+                    continue;   // optimization
+                }
+                for (int j = j0; j < j1; j++) {
+                    double d = dik + distTo[rowK + j];
+                    if (distTo[rowI + j] > d) {
+                        distTo[rowI + j] = d;
+                        pred[rowI + j] = pred[rowK + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // Is there a negative cycle ?
+    public boolean hasNegativeCycle() {
+        return hasNegativeCycle;
+    }
+
+    // Returns a negative cycle, or null if there is no such cycle.
+    public Iterable<DirectedEdge> negativeCycle() {
+        for (int v = 0; v < V; v++) {
+            // negative cycle in v's predecessor graph.
+            if (distTo[v * V + v] < 0.0) {
+                EdgeWeightedDigraph spt = new EdgeWeightedDigraph(V);
+                for (int w = 0; w < V; w++) {
+                    if (pred[v * V + w] != -1) {
+                        spt.addEdge(G.edge(pred[v * V + w], w));
+                    }
+                }
+                EdgeWeightedDirectedCycle finder = new EdgeWeightedDirectedCycle(spt);
+                assert finder.hasCycle();
+                return finder.cycle();
+            }
+        }
+        return null;
+    }
+
+    // Is there a path from the vertex s to vertex t ?
+    public boolean hasPath(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        return distTo[s * V + t] < Double.POSITIVE_INFINITY;
+    }
+
+    // Returns the length of a shortest path from vertex s to vertex t.
+    public double dist(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        if (hasNegativeCycle()) {
+            throw new UnsupportedOperationException("Negative cost cycle exists");
+        }
+        return distTo[s * V + t];
+    }
+
+    // Returns a shortest path from vertex s to vertex t.
+    public Iterable<DirectedEdge> path(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        if (hasNegativeCycle()) {
+            throw new UnsupportedOperationException("Negative cost cycle exists");
+        }
+        if (!hasPath(s, t)) {
+            return null;
+        }
+        Stack<DirectedEdge> path = new Stack<DirectedEdge>();
+        for (int w = t; pred[s * V + w] != -1; w = pred[s * V + w]) {
+            path.push(G.edge(pred[s * V + w], w));
+        }
+        return path;
+    }
+
+    // random digraphs of at most 60 vertices, most with a negative cycle
+    private static void cycles(int trials) {
+        int found = 0, wrong = 0;
+        for (int t = 0; t < trials; t++) {
+            int V = 2 + StdRandom.uniform(59);
+            AdjMatrixEdgeWeightedDigraph G = new AdjMatrixEdgeWeightedDigraph(V);
+            int E = V + StdRandom.uniform(4 * V);
+            for (int i = 0; i < E; i++) {
+                int v = StdRandom.uniform(V);
+                int w = StdRandom.uniform(V);
+                if (v != w)
+                    G.addEdge(new DirectedEdge(v, w, StdRandom.uniform(-0.15, 0.85)));
+            }
+            BlockedFloydWarshall spt = new BlockedFloydWarshall(G, 1 + StdRandom.uniform(10), ForkJoinPool.commonPool());
+            if (spt.hasNegativeCycle() != new FloydWarshall(G).hasNegativeCycle()) {
+                wrong++;
+                continue;
+            }
+            if (!spt.hasNegativeCycle())
+                continue;
+            found++;
+            double weight = 0.0;
+            int first = -1, last = -1;
+            boolean chained = true;
+            for (DirectedEdge e : spt.negativeCycle()) {
+                if (first == -1) first = e.from();
+                else if (e.from() != last) chained = false;
+                last = e.to();
+                weight += e.weight();
+            }
+            if (!chained || last != first || weight >= 0.0)
+                wrong++;
+        }
+        StdOut.printf("%d negative cycles in %d digraphs, %d wrong\n", found, trials, wrong);
+    }
+
+    // check optimality conditions
+    private boolean check() {
+        // no negative cycle
+        if (!hasNegativeCycle()) {
+            for (int v = 0; v < V; v++) {
+                for (DirectedEdge e : G.adj(v)) {
+                    int w = e.to();
+                    for (int i = 0; i < V; i++) {
+                        if (distTo[i * V + w] > distTo[i * V + v] + e.weight() + EPSILON) {
+                            System.err.println("edge " + e + " is eligible");
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V) {
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+        }
+    }
+
+    // Unit tests the BlockedFloydWarshall data type against FloydWarshall
+    // on a random digraph with V vertices and E edges; then checks that
+    // the negative cycles of 1000 small random digraphs, with tiles of
+    // side 1 to 10, are cycles of negative weight.
+    public static void main(String[] args) {
+        cycles(1000);
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        int block = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BLOCK;
+        AdjMatrixEdgeWeightedDigraph G = new AdjMatrixEdgeWeightedDigraph(V);
+        for (int i = 0; i < E; i++) {
+            int v = StdRandom.uniform(V);
+            int w = StdRandom.uniform(V);
+            double weight = Math.round(100 * (StdRandom.uniform() - 0.15)) / 100.0;
+            if (v == w) G.addEdge(new DirectedEdge(v, w, Math.abs(weight)));
+            else G.addEdge(new DirectedEdge(v, w, weight));
+        }
+
+        Stopwatch timer1 = new Stopwatch();
+        FloydWarshall spt1 = new FloydWarshall(G);
+        double time1 = timer1.elapsedTime();
+        Stopwatch timer2 = new Stopwatch();
+        BlockedFloydWarshall spt2 = new BlockedFloydWarshall(G, block, ForkJoinPool.commonPool());
+        double time2 = timer2.elapsedTime();
+        StdOut.printf("FloydWarshall %.3f s, BlockedFloydWarshall %.3f s\n", time1, time2);
+
+        if (spt1.hasNegativeCycle() || spt2.hasNegativeCycle()) {
+            StdOut.println("negative cycle: " + spt1.hasNegativeCycle() + " " + spt2.hasNegativeCycle());
+            double weight = 0.0;
+            for (DirectedEdge e : spt2.negativeCycle()) {
+                StdOut.println(e);
+                weight += e.weight();
+            }
+            StdOut.println("weight " + weight);
+            return;
+        }
+        int differ = 0;
+        for (int v = 0; v < V; v++) {
+            for (int w = 0; w < V; w++) {
+                if (Math.abs(spt1.dist(v, w) - spt2.dist(v, w)) > 1e-9)
+                    differ++;
+            }
+        }
+        StdOut.println(differ + " distances differ");
+    }
+}
@@ -22,7 +22,7 @@ public class BreadthFirstPaths {
 
     // Computes the shortest path between the source vertex s and 
     // every other vertex in the graph G.
-    public BreadthFirstPaths(Graph G, int s) {
+    public BreadthFirstPaths(AdjacencyGraph G, int s) {
         marked = new boolean[G.V()];
         distTo = new int[G.V()];
         edgeTo = new int[G.V()];
@@ -35,7 +35,7 @@ public class BreadthFirstPaths {
 
     // Computes the shortest path between any one of the source vertices in sources
     // and every other vertex in graph G.
-    public BreadthFirstPaths(Graph G, Iterable<Integer> sources) {
+    public BreadthFirstPaths(AdjacencyGraph G, Iterable<Integer> sources) {
         marked = new boolean[G.V()];
         distTo = new int[G.V()];
         edgeTo = new int[G.V()];
@@ -47,7 +47,7 @@ public class BreadthFirstPaths {
     }
 
     // breadth-first search from a single source
-    private void bfs(Graph G, int s) {
+    private void bfs(AdjacencyGraph G, int s) {
         Queue<Integer> q = new Queue<Integer>();
         for (int v = 0; v < G.V(); v++)
             distTo[v] = INFINITY;
@@ -88,7 +88,7 @@ public class BreadthFirstPaths {
     }
 
     // breadth-first search from multiple sources
-    private void bfs(Graph G, Iterable<Integer> sources) {
+    private void bfs(AdjacencyGraph G, Iterable<Integer> sources) {
         Queue<Integer> q = new Queue<Integer>();
         for (int s : sources) {
             marked[s] = true;
@@ -164,7 +164,7 @@ public class BreadthFirstPaths {
             return null;
         Stack<Integer> path = new Stack<Integer>();
         int x;
-        for (x = v; distTo[x] != 0; x = distTo[x])
+        for (x = v; distTo[x] != 0; x = edgeTo[x])
             path.push(x);
         path.push(x);
         return path;
@@ -179,7 +179,7 @@ public class BreadthFirstPaths {
     }
 
     // Check optimality conditions for single source
-    private boolean check(Graph G, int s) {
+    private boolean check(AdjacencyGraph G, int s) {
         // check that the distance of s = 0
         if (distTo[s] != 0) {
             StdOut.println("distance of source " + s + " to itself = " + distTo[s]);
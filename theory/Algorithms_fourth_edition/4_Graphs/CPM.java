@@ -12,6 +12,8 @@
  *  path in a DAG.
  *  The running time is proportional to V + E, where V is the number 
  *  of jobs and E is the number of precedence constraints.
+ *  See {@link ParallelCPM} for a version that schedules large problems
+ *  layer by layer in parallel, with the same start times.
  */
 public class CPM {
 
@@ -0,0 +1,271 @@
+/**
+ *  The {@code CSRDigraph} class represents an immutable directed graph of
+ *  vertices named 0 through V - 1, stored in compressed-sparse-row form.
+ *  The targets of all edges are kept in one {@code int[]} array, sorted by
+ *  source vertex, and {@code offset[v]} .. {@code offset[v+1] - 1} is the
+ *  range of positions holding the vertices adjacent from v.
+ *  There is no {@link Bag} node and no boxed {@code Integer} per edge, so
+ *  a digraph with E edges takes 4(V + E) bytes plus the indegree array.
+ *  The neighbors of v are in the same order as {@code Digraph.adj(v)},
+ *  so every search visits vertices in the same order on both.
+ *  Callers that want to avoid boxing altogether can walk the range
+ *  {@code adjBegin(v)} .. {@code adjEnd(v) - 1} with {@code target(i)}.
+ *  The constructors take time proportional to V + E; all other operations
+ *  take constant time, except iterating over the neighbors of a vertex.
+ */
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class CSRDigraph implements AdjacencyDigraph {
+
+    private static final String NEWLINE = System.getProperty("line.separator");
+    private final int V;            // number of vertices in this digraph.
+    private final int E;            // number of edges in this digraph.
+    private final int[] offset;     // offset[v] = first position of v's edges in target[].
+    private final int[] target;     // target[i] = head of the i-th edge.
+    private final int[] indegree;   // indegree[v] = indegree of vertex v.
+
+    // Freezes the digraph G into compressed-sparse-row form.
+    public CSRDigraph(Digraph G) {
+        this.V = G.V();
+        this.E = G.E();
+        offset = new int[V + 1];
+        target = new int[E];
+        indegree = new int[V];
+        for (int v = 0; v < V; v++)
+            offset[v + 1] = offset[v] + G.outdegree(v);
+        for (int v = 0; v < V; v++) {
+            int i = offset[v];
+            for (int w : G.adj(v)) {
+                target[i++] = w;
+                indegree[w]++;
+            }
+        }
+    }
+
+    // Returns G itself if it is already frozen, or else a CSRDigraph with the
+    // same adjacency rows in the same order. For an undirected graph every
+    // edge v-w becomes the two edges v->w and w->v.
+    public static CSRDigraph freeze(AdjacencyGraph G) {
+        if (G instanceof CSRDigraph)
+            return (CSRDigraph) G;
+        if (G instanceof Digraph)
+            return new CSRDigraph((Digraph) G);
+        int n = 0;
+        for (int v = 0; v < G.V(); v++) {
+            for (int w : G.adj(v))
+                n++;
+        }
+        // build() lists each row in reverse order of the edge arrays, so
+        // each row goes into the arrays backwards
+        int[] from = new int[n];
+        int[] to = new int[n];
+        int end = 0;
+        for (int v = 0; v < G.V(); v++) {
+            for (int w : G.adj(v))
+                end++;
+            int i = end;
+            for (int w : G.adj(v)) {
+                from[--i] = v;
+                to[i] = w;
+            }
+        }
+        return new CSRDigraph(G.V(), from, to);
+    }
+
+    // Initializes a digraph from the specified input stream, in the same
+    // format as Digraph(In), without building an intermediate Digraph.
+    // The edges are buffered in two int arrays, so the peak extra space
+    // is 8E bytes and no object is allocated per edge.
+    public CSRDigraph(In in) {
+        try {
+            this.V = in.readInt();
+            if (V < 0)
+                throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
+            this.E = in.readInt();
+            if (E < 0)
+                throw new IllegalArgumentException("number of edges in a Digraph must be nonnegative");
+            int[] from = new int[E];
+            int[] to = new int[E];
+            for (int i = 0; i < E; i++) {
+                from[i] = in.readInt();
+                to[i] = in.readInt();
+                validateVertex(from[i]);
+                validateVertex(to[i]);
+            }
+            offset = new int[V + 1];
+            target = new int[E];
+            indegree = new int[V];
+            build(from, to);
+        }
+        catch (NoSuchElementException e) {
+            throw new IllegalArgumentException("invalid input format in CSRDigraph constructor", e);
+        }
+    }
+
+    // Initializes a digraph with V vertices from the parallel edge arrays
+    // from[] and to[]; edge i is from[i]->to[i].
+    public CSRDigraph(int V, int[] from, int[] to) {
+        if (V < 0)
+            throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
+        if (from.length != to.length)
+            throw new IllegalArgumentException("from[] and to[] must have the same length");
+        this.V = V;
+        this.E = from.length;
+        for (int i = 0; i < E; i++) {
+            validateVertex(from[i]);
+            validateVertex(to[i]);
+        }
+        offset = new int[V + 1];
+        target = new int[E];
+        indegree = new int[V];
+        build(from, to);
+    }
+
+    // counting sort of the edges by source vertex. Each row is filled from
+    // its end so that it lists the edges in reverse order of insertion,
+    // exactly as a Bag-based Digraph built from the same edges would.
+    private void build(int[] from, int[] to) {
+        for (int i = 0; i < E; i++) {
+            offset[from[i] + 1]++;
+            indegree[to[i]]++;
+        }
+        for (int v = 0; v < V; v++)
+            offset[v + 1] += offset[v];
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++)
+            next[v] = offset[v + 1];
+        for (int i = 0; i < E; i++)
+            target[--next[from[i]]] = to[i];
+    }
+
+    // Returns the number of vertices in this digraph.
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of edges in this digraph.
+    public int E() {
+        return E;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Returns the first position in the edge range of vertex v.
+    public int adjBegin(int v) {
+        validateVertex(v);
+        return offset[v];
+    }
+
+    // Returns one past the last position in the edge range of vertex v.
+    public int adjEnd(int v) {
+        validateVertex(v);
+        return offset[v + 1];
+    }
+
+    // Returns the vertex at position i of the edge array, that is the
+    // head of the i-th edge.
+    public int target(int i) {
+        if (i < 0 || i >= E)
+            throw new IllegalArgumentException("edge position " + i + " is not between 0 and " + (E - 1));
+        return target[i];
+    }
+
+    // Returns the vertices adjacent from vertex v in this digraph.
+    public Iterable<Integer> adj(int v) {
+        validateVertex(v);
+        return new AdjIterator(offset[v], offset[v + 1]);
+    }
+
+    // iterator over one row of target[].
+    private class AdjIterator implements Iterator<Integer>, Iterable<Integer> {
+        private int i;
+        private final int end;
+
+        AdjIterator(int begin, int end) {
+            this.i = begin;
+            this.end = end;
+        }
+
+        public Iterator<Integer> iterator() {
+            return this;
+        }
+
+        public boolean hasNext() {
+            return i < end;
+        }
+
+        public Integer next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return target[i++];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Returns the number of directed edges incident from vertex v.
+    public int outdegree(int v) {
+        validateVertex(v);
+        return offset[v + 1] - offset[v];
+    }
+
+    // Returns the number of directed edges incident to vertex v.
+    public int indegree(int v) {
+        validateVertex(v);
+        return indegree[v];
+    }
+
+    // Returns the reverse of the digraph, also in compressed-sparse-row form.
+    // The rows are in the same order as Digraph.reverse() would produce.
+    public CSRDigraph reverse() {
+        int[] from = new int[E];
+        int[] to = new int[E];
+        int k = 0;
+        for (int v = 0; v < V; v++) {
+            for (int i = offset[v]; i < offset[v + 1]; i++) {
+                from[k] = target[i];
+                to[k] = v;
+                k++;
+            }
+        }
+        return new CSRDigraph(V, from, to);
+    }
+
+    // Returns a string representation of the graph.
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(V + " vertices, " + E + " edges " + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(String.format("%d: ", v));
+            for (int i = offset[v]; i < offset[v + 1]; i++)
+                s.append(String.format("%d ", target[i]));
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+    // Unit tests the CSRDigraph data type: the strong components found on
+    // the frozen digraph must match those found on the Bag-based one.
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Digraph G = new Digraph(in);
+        CSRDigraph csr = new CSRDigraph(G);
+        StdOut.println(csr);
+
+        KosarajuSharirSCC scc1 = new KosarajuSharirSCC(G);
+        KosarajuSharirSCC scc2 = new KosarajuSharirSCC(csr);
+        TarjanSCC scc3 = new TarjanSCC(csr);
+        StdOut.println(scc1.count() + " " + scc2.count() + " " + scc3.count() + " strong components");
+        for (int v = 0; v < G.V(); v++) {
+            if (scc1.id(v) != scc2.id(v))
+                StdOut.println("id(" + v + ") differs: " + scc1.id(v) + " " + scc2.id(v));
+        }
+    }
+}
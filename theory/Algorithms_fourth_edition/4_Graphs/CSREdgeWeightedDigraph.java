@@ -0,0 +1,254 @@
+/**
+ *  The {@code CSREdgeWeightedDigraph} class represents an immutable
+ *  edge-weighted digraph of vertices named 0 through V - 1, stored in
+ *  compressed-sparse-row form as three parallel primitive arrays instead
+ *  of one {@link DirectedEdge} object per edge.
+ *  The edges leaving vertex v are at positions
+ *  {@code offset[v]} .. {@code offset[v+1] - 1}; the edge at position i
+ *  goes to {@code to[i]} and has weight {@code weight[i]}.
+ *  The edges leaving v are in the same order as {@code EdgeWeightedDigraph.adj(v)}.
+ *  A digraph with E edges takes 4V + 12E bytes, and the shortest-path
+ *  classes {@link DijkstraSP}, {@link BellmanFordSP} and {@link AcyclicSP}
+ *  relax its edges without allocating.
+ *  {@code DirectedEdge} objects are created only on request, by
+ *  {@code edge(i)}, {@code adj(v)} and {@code edges()}.
+ */
+import java.util.NoSuchElementException;
+
+public class CSREdgeWeightedDigraph {
+
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final int V;            // number of vertices in this digraph.
+    private final int E;            // number of edges in this digraph.
+    private final int[] offset;     // offset[v] = position of the first edge leaving v.
+    private final int[] to;         // to[i] = head vertex of the edge at position i.
+    private final double[] weight;  // weight[i] = weight of the edge at position i.
+    private final int[] indegree;   // indegree[v] = indegree of vertex v.
+
+    // Freezes the edge-weighted digraph G into compressed-sparse-row form.
+    public CSREdgeWeightedDigraph(EdgeWeightedDigraph G) {
+        this.V = G.V();
+        this.E = G.E();
+        offset = new int[V + 1];
+        to = new int[E];
+        weight = new double[E];
+        indegree = new int[V];
+        for (int v = 0; v < V; v++)
+            offset[v + 1] = offset[v] + G.outdegree(v);
+        for (int v = 0; v < V; v++) {
+            int i = offset[v];
+            for (DirectedEdge e : G.adj(v)) {
+                to[i] = e.to();
+                weight[i] = e.weight();
+                indegree[e.to()]++;
+                i++;
+            }
+        }
+    }
+
+    // Initializes an edge-weighted digraph from the specified input stream,
+    // in the same format as EdgeWeightedDigraph(In), without creating
+    // a DirectedEdge per edge.
+    public CSREdgeWeightedDigraph(In in) {
+        try {
+            this.V = in.readInt();
+            if (V < 0)
+                throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
+            this.E = in.readInt();
+            if (E < 0)
+                throw new IllegalArgumentException("Number of edges must be nonnegative");
+            int[] from = new int[E];
+            int[] head = new int[E];
+            double[] w = new double[E];
+            for (int i = 0; i < E; i++) {
+                from[i] = in.readInt();
+                head[i] = in.readInt();
+                validateVertex(from[i]);
+                validateVertex(head[i]);
+                w[i] = in.readDouble();
+                if (Double.isNaN(w[i]))
+                    throw new IllegalArgumentException("Weight is NaN");
+            }
+            offset = new int[V + 1];
+            to = new int[E];
+            weight = new double[E];
+            indegree = new int[V];
+            build(from, head, w);
+        }
+        catch (NoSuchElementException e) {
+            throw new IllegalArgumentException("invalid input format in CSREdgeWeightedDigraph constructor", e);
+        }
+    }
+
+    // Initializes an edge-weighted digraph with V vertices from parallel
+    // edge arrays; edge i is from[i]->head[i] with weight w[i].
+    public CSREdgeWeightedDigraph(int V, int[] from, int[] head, double[] w) {
+        if (V < 0)
+            throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
+        if (from.length != head.length || from.length != w.length)
+            throw new IllegalArgumentException("edge arrays must have the same length");
+        this.V = V;
+        this.E = from.length;
+        for (int i = 0; i < E; i++) {
+            validateVertex(from[i]);
+            validateVertex(head[i]);
+            if (Double.isNaN(w[i]))
+                throw new IllegalArgumentException("Weight is NaN");
+        }
+        offset = new int[V + 1];
+        to = new int[E];
+        weight = new double[E];
+        indegree = new int[V];
+        build(from, head, w);
+    }
+
+    // counting sort of the edges by source vertex; rows are filled from
+    // their end to match the iteration order of a Bag-based digraph.
+    private void build(int[] from, int[] head, double[] w) {
+        for (int i = 0; i < E; i++) {
+            offset[from[i] + 1]++;
+            indegree[head[i]]++;
+        }
+        for (int v = 0; v < V; v++)
+            offset[v + 1] += offset[v];
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++)
+            next[v] = offset[v + 1];
+        for (int i = 0; i < E; i++) {
+            int k = --next[from[i]];
+            to[k] = head[i];
+            weight[k] = w[i];
+        }
+    }
+
+    // Returns the number of vertices in this edge-weighted digraph.
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of edges in this edge-weighted digraph.
+    public int E() {
+        return E;
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v
+                + " is not between 0 and " + (V - 1));
+    }
+
+    // throw new IllegalArgumentException unless 0 <= i < E.
+    private void validateEdge(int i) {
+        if (i < 0 || i >= E)
+            throw new IllegalArgumentException("edge position " + i
+                + " is not between 0 and " + (E - 1));
+    }
+
+    // Returns the position of the first edge leaving vertex v.
+    public int adjBegin(int v) {
+        validateVertex(v);
+        return offset[v];
+    }
+
+    // Returns one past the position of the last edge leaving vertex v.
+    public int adjEnd(int v) {
+        validateVertex(v);
+        return offset[v + 1];
+    }
+
+    // Returns the head vertex of the edge at position i.
+    public int to(int i) {
+        validateEdge(i);
+        return to[i];
+    }
+
+    // Returns the weight of the edge at position i.
+    public double weight(int i) {
+        validateEdge(i);
+        return weight[i];
+    }
+
+    // Returns the tail vertex of the edge at position i.
+    // Takes time proportional to log V, since only the offsets are stored.
+    public int from(int i) {
+        validateEdge(i);
+        int lo = 0, hi = V - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offset[mid] <= i) lo = mid;
+            else                  hi = mid - 1;
+        }
+        return lo;
+    }
+
+    // Returns the edge at position i as a new DirectedEdge.
+    public DirectedEdge edge(int i) {
+        return new DirectedEdge(from(i), to[i], weight[i]);
+    }
+
+    // Returns the directed edges incident from vertex v, as new DirectedEdge objects.
+    public Iterable<DirectedEdge> adj(int v) {
+        validateVertex(v);
+        Queue<DirectedEdge> list = new Queue<DirectedEdge>();
+        for (int i = offset[v]; i < offset[v + 1]; i++)
+            list.enqueue(new DirectedEdge(v, to[i], weight[i]));
+        return list;
+    }
+
+    // Returns all directed edges in this edge-weighted digraph.
+    public Iterable<DirectedEdge> edges() {
+        Bag<DirectedEdge> list = new Bag<DirectedEdge>();
+        for (int v = 0; v < V; v++) {
+            for (int i = offset[v]; i < offset[v + 1]; i++)
+                list.add(new DirectedEdge(v, to[i], weight[i]));
+        }
+        return list;
+    }
+
+    // Returns the number of directed edges incident from vertex v.
+    public int outdegree(int v) {
+        validateVertex(v);
+        return offset[v + 1] - offset[v];
+    }
+
+    // Returns the number of directed edges incident to vertex v.
+    public int indegree(int v) {
+        validateVertex(v);
+        return indegree[v];
+    }
+
+    // Returns a string representation of this edge-weighted digraph.
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(V + " " + E + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int i = offset[v]; i < offset[v + 1]; i++)
+                s.append(String.format("%d->%d %5.2f ", v, to[i], weight[i]));
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+    // Unit tests the CSREdgeWeightedDigraph data type: the shortest paths
+    // from s must be the same on the frozen digraph as on the Bag-based one.
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int s = Integer.parseInt(args[1]);
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(in);
+        CSREdgeWeightedDigraph csr = new CSREdgeWeightedDigraph(G);
+        StdOut.println(csr);
+
+        DijkstraSP sp1 = new DijkstraSP(G, s);
+        DijkstraSP sp2 = new DijkstraSP(csr, s);
+        BellmanFordSP sp3 = new BellmanFordSP(csr, s);
+        for (int v = 0; v < G.V(); v++) {
+            if (sp1.distTo(v) != sp2.distTo(v) || sp1.distTo(v) != sp3.distTo(v))
+                StdOut.println("distTo(" + v + ") differs: " + sp1.distTo(v) + " "
+                    + sp2.distTo(v) + " " + sp3.distTo(v));
+        }
+        StdOut.println("done");
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ *  The {@code CSRGraph} class represents an immutable undirected graph of
+ *  vertices named 0 through V - 1, stored in compressed-sparse-row form.
+ *  Each undirected edge v-w appears twice in the {@code int[]} target array,
+ *  once in the row of v and once in the row of w; by the same convention
+ *  as {@link Graph}, a self-loop v-v appears twice in the row of v.
+ *  The neighbors of v are in the same order as {@code Graph.adj(v)}.
+ *  There is no {@link Bag} node and no boxed {@code Integer} per edge,
+ *  so a graph with E edges takes 4(V + 2E) bytes.
+ *  The constructors take time proportional to V + E; all other operations
+ *  take constant time, except iterating over the neighbors of a vertex.
+ */
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class CSRGraph implements AdjacencyGraph {
+
+    private static final String NEWLINE = System.getProperty("line.separator");
+    private final int V;            // number of vertices in this graph.
+    private final int E;            // number of edges in this graph.
+    private final int[] offset;     // offset[v] = first position of v's neighbors in target[].
+    private final int[] target;     // target[i] = the i-th entry of the adjacency rows.
+
+    // Freezes the graph G into compressed-sparse-row form.
+    public CSRGraph(Graph G) {
+        this.V = G.V();
+        this.E = G.E();
+        offset = new int[V + 1];
+        target = new int[2 * E];
+        for (int v = 0; v < V; v++)
+            offset[v + 1] = offset[v] + G.degree(v);
+        for (int v = 0; v < V; v++) {
+            int i = offset[v];
+            for (int w : G.adj(v))
+                target[i++] = w;
+        }
+    }
+
+    // Initializes a graph from the specified input stream, in the same
+    // format as Graph(In), without building an intermediate Graph.
+    public CSRGraph(In in) {
+        try {
+            this.V = in.readInt();
+            if (V < 0)
+                throw new IllegalArgumentException("number of vertices in a Graph must be nonnegative");
+            this.E = in.readInt();
+            if (E < 0)
+                throw new IllegalArgumentException("number of edges in a Graph must be nonnegative");
+            int[] from = new int[E];
+            int[] to = new int[E];
+            for (int i = 0; i < E; i++) {
+                from[i] = in.readInt();
+                to[i] = in.readInt();
+                validateVertex(from[i]);
+                validateVertex(to[i]);
+            }
+            offset = new int[V + 1];
+            target = new int[2 * E];
+            build(from, to);
+        }
+        catch (NoSuchElementException e) {
+            throw new IllegalArgumentException("invalid input format in CSRGraph constructor", e);
+        }
+    }
+
+    // Initializes a graph with V vertices from the parallel edge arrays
+    // from[] and to[]; edge i is from[i]-to[i].
+    public CSRGraph(int V, int[] from, int[] to) {
+        if (V < 0)
+            throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        if (from.length != to.length)
+            throw new IllegalArgumentException("from[] and to[] must have the same length");
+        this.V = V;
+        this.E = from.length;
+        for (int i = 0; i < E; i++) {
+            validateVertex(from[i]);
+            validateVertex(to[i]);
+        }
+        offset = new int[V + 1];
+        target = new int[2 * E];
+        build(from, to);
+    }
+
+    // counting sort of both endpoints of every edge. Rows are filled from
+    // their end so they match the iteration order of a Bag-based Graph
+    // built by calling addEdge(from[i], to[i]) for i = 0, 1, ...
+    private void build(int[] from, int[] to) {
+        for (int i = 0; i < E; i++) {
+            offset[from[i] + 1]++;
+            offset[to[i] + 1]++;
+        }
+        for (int v = 0; v < V; v++)
+            offset[v + 1] += offset[v];
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++)
+            next[v] = offset[v + 1];
+        for (int i = 0; i < E; i++) {
+            target[--next[from[i]]] = to[i];
+            target[--next[to[i]]] = from[i];
+        }
+    }
+
+    // Returns the number of vertices in this graph.
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of edges in this graph.
+    public int E() {
+        return E;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Returns the first position in the adjacency range of vertex v.
+    public int adjBegin(int v) {
+        validateVertex(v);
+        return offset[v];
+    }
+
+    // Returns one past the last position in the adjacency range of vertex v.
+    public int adjEnd(int v) {
+        validateVertex(v);
+        return offset[v + 1];
+    }
+
+    // Returns the vertex at position i of the adjacency array.
+    public int target(int i) {
+        if (i < 0 || i >= target.length)
+            throw new IllegalArgumentException("position " + i + " is not between 0 and " + (target.length - 1));
+        return target[i];
+    }
+
+    // Returns the vertices adjacent to vertex v.
+    public Iterable<Integer> adj(int v) {
+        validateVertex(v);
+        return new AdjIterator(offset[v], offset[v + 1]);
+    }
+
+    // iterator over one row of target[].
+    private class AdjIterator implements Iterator<Integer>, Iterable<Integer> {
+        private int i;
+        private final int end;
+
+        AdjIterator(int begin, int end) {
+            this.i = begin;
+            this.end = end;
+        }
+
+        public Iterator<Integer> iterator() {
+            return this;
+        }
+
+        public boolean hasNext() {
+            return i < end;
+        }
+
+        public Integer next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return target[i++];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Returns the degree of vertex v.
+    public int degree(int v) {
+        validateVertex(v);
+        return offset[v + 1] - offset[v];
+    }
+
+    // Returns a string representation of this graph.
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(V + " vertices, " + E + " edges " + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int i = offset[v]; i < offset[v + 1]; i++)
+                s.append(target[i] + " ");
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+    // Unit tests the CSRGraph data type: breadth-first search from s must
+    // give the same distances on the frozen graph as on the Bag-based one.
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Graph G = new Graph(in);
+        int s = Integer.parseInt(args[1]);
+        CSRGraph csr = new CSRGraph(G);
+        StdOut.println(csr);
+
+        BreadthFirstPaths bfs1 = new BreadthFirstPaths(G, s);
+        BreadthFirstPaths bfs2 = new BreadthFirstPaths(csr, s);
+        for (int v = 0; v < G.V(); v++) {
+            if (bfs1.distTo(v) != bfs2.distTo(v))
+                StdOut.println("distTo(" + v + ") differs: " + bfs1.distTo(v) + " " + bfs2.distTo(v));
+        }
+        StdOut.println("done");
+    }
+}
@@ -0,0 +1,630 @@
+// Contraction hierarchies (Geisberger, Sanders, Schultes and Delling).
+// The vertices are contracted one at a time, least important first:
+// contracting v removes it from the digraph and adds a shortcut u->w for
+// every path u->v->w that is the only shortest path from u to w that is
+// left. A query then only has to look "upward", at higher vertices, from
+// both ends, because every shortest path has a version, with shortcuts,
+// that goes up and then down.
+
+/**
+ *  The {@code ContractionHierarchy} class represents a data type for
+ *  answering many shortest path queries in a fixed edge-weighted digraph
+ *  with nonnegative weights. The constructor does the preprocessing once;
+ *  {@code distTo(s, t)} and {@code pathTo(s, t)} then answer each query
+ *  with a bidirectional Dijkstra search that settles only a few hundred
+ *  vertices even in a large road-like network. The distances are those of
+ *  {@link DijkstraSP}, up to rounding (the weights are added in another
+ *  order), and {@code pathTo()} unpacks the shortcuts into the edges of
+ *  the original digraph.
+ *  <p>
+ *  The order of contraction is chosen lazily with a priority queue: the
+ *  priority of v is twice its edge difference (shortcuts added minus
+ *  edges removed by contracting v) plus the number of its neighbors that
+ *  were already contracted plus its level (one more than the highest
+ *  level of those neighbors), which spreads the contraction across the
+ *  digraph and keeps the hierarchy shallow. A shortcut u->w is skipped when a local Dijkstra search from u,
+ *  which avoids v and settles at most {@code WITNESS_LIMIT} vertices
+ *  ({@code ESTIMATE_LIMIT} when the shortcuts are only counted for a
+ *  priority), finds a witness path that is no longer. A search that gives
+ *  up early only adds shortcuts that are not needed, so the answers are
+ *  always exact. Queries also stall a vertex when a higher vertex shows
+ *  that the search reached it on a path that is not shortest.
+ *  <p>
+ *  {@code save()} writes the hierarchy (the order and every edge and
+ *  shortcut) to a file, and {@code load()} reads it back without the
+ *  preprocessing. Queries reuse the work arrays of the hierarchy, with a
+ *  stamp per vertex instead of clearing them, so one hierarchy must not
+ *  be queried from several threads at once; use {@code copy()} to give
+ *  each thread its own work arrays.
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class ContractionHierarchy {
+    private static final int MAGIC = 0x43484731;    // "CHG1"
+    private static final int WITNESS_LIMIT = 500;   // vertices settled per witness search
+    private static final int ESTIMATE_LIMIT = 50;   // the same, when only counting shortcuts
+
+    private final int V;            // number of vertices
+    private final int A;            // number of arcs: edges, then shortcuts
+    private final int[] rank;       // rank[v] = position of v in the contraction order
+    private final int[] from, to;   // from[a]->to[a] is arc a
+    private final double[] weight;  // weight[a] = weight of arc a
+    private final int[] first;      // shortcut a is arc first[a] then arc second[a]; -1 for an edge
+    private final int[] second;
+
+    // the search graphs: the arcs upBegin[v] .. upBegin[v+1]-1 of up[] go
+    // from v to higher vertices, and the arcs of down[] at w come into w
+    // from higher vertices
+    private final int[] upBegin, up;
+    private final int[] downBegin, down;
+
+    // work arrays of a query
+    private final double[] distF, distB;
+    private final int[] arcF, arcB;         // last arc into v / first arc out of v
+    private final int[] stampF, stampB;
+    private final DoubleIndexMinPQ pqF, pqB;
+    private int query;
+    private int meet;                       // highest vertex of the last path found
+    private int settled;                    // vertices settled by the last query
+
+    // Preprocesses the edge-weighted digraph G.
+    public ContractionHierarchy(EdgeWeightedDigraph G) {
+        this(new Builder(G));
+    }
+
+    private ContractionHierarchy(Builder b) {
+        this(b.V, b.A, b.rank, b.from, b.to, b.weight, b.first, b.second);
+    }
+
+    private ContractionHierarchy(int V, int A, int[] rank, int[] from, int[] to, double[] weight,
+                                 int[] first, int[] second) {
+        this.V = V;
+        this.A = A;
+        this.rank = rank;
+        this.from = from;
+        this.to = to;
+        this.weight = weight;
+        this.first = first;
+        this.second = second;
+
+        // counting sort of the arcs into the two search graphs
+        upBegin = new int[V + 1];
+        downBegin = new int[V + 1];
+        int ups = 0;
+        for (int a = 0; a < A; a++) {
+            if (rank[from[a]] < rank[to[a]]) {
+                upBegin[from[a] + 1]++;
+                ups++;
+            }
+            else downBegin[to[a] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            upBegin[v + 1] += upBegin[v];
+            downBegin[v + 1] += downBegin[v];
+        }
+        up = new int[ups];
+        down = new int[A - ups];
+        int[] nextUp = Arrays.copyOf(upBegin, V);
+        int[] nextDown = Arrays.copyOf(downBegin, V);
+        for (int a = 0; a < A; a++) {
+            if (rank[from[a]] < rank[to[a]]) up[nextUp[from[a]]++] = a;
+            else                             down[nextDown[to[a]]++] = a;
+        }
+
+        distF = new double[V];
+        distB = new double[V];
+        arcF = new int[V];
+        arcB = new int[V];
+        stampF = new int[V];
+        stampB = new int[V];
+        pqF = new DoubleIndexMinPQ(V);
+        pqB = new DoubleIndexMinPQ(V);
+    }
+
+    // Returns a hierarchy that shares this one's arrays but has its own
+    // work arrays, for queries from another thread.
+    public ContractionHierarchy copy() {
+        return new ContractionHierarchy(V, A, rank, from, to, weight, first, second);
+    }
+
+    // the preprocessing: a digraph from which vertices are removed and to
+    // which shortcuts are added, with the arcs in growable arrays
+    private static class Builder {
+        final int V;
+        int A;
+        int[] rank;
+        int[] from, to, first, second;
+        double[] weight;
+        final IntList[] out, in;        // arcs between vertices not contracted yet
+        final int[] deleted;            // deleted[v] = contracted neighbors of v
+        final int[] level;              // level[v] = 1 + highest level of a contracted neighbor
+
+        // witness search
+        final double[] dist;
+        final int[] stamp;
+        int epoch;
+        final DoubleIndexMinPQ pq;
+        final int[] bestIn, bestOut;    // cheapest arc from u into v / from v to w, or -1
+
+        Builder(EdgeWeightedDigraph G) {
+            V = G.V();
+            int n = Math.max(1, G.E());
+            from = new int[n];
+            to = new int[n];
+            first = new int[n];
+            second = new int[n];
+            weight = new double[n];
+            out = new IntList[V];
+            in = new IntList[V];
+            for (int v = 0; v < V; v++) {
+                out[v] = new IntList();
+                in[v] = new IntList();
+            }
+            for (DirectedEdge e : G.edges()) {
+                if (e.weight() < 0)
+                    throw new IllegalArgumentException("edge " + e + " has negative weight");
+                if (e.from() != e.to())     // a self-loop is never on a shortest path
+                    add(e.from(), e.to(), e.weight(), -1, -1);
+            }
+            deleted = new int[V];
+            level = new int[V];
+            dist = new double[V];
+            stamp = new int[V];
+            pq = new DoubleIndexMinPQ(V);
+            bestIn = new int[V];
+            bestOut = new int[V];
+            Arrays.fill(bestIn, -1);
+            Arrays.fill(bestOut, -1);
+            contractAll();
+        }
+
+        // adds the arc u->w, a shortcut through arcs a and b if a != -1
+        void add(int u, int w, double x, int a, int b) {
+            if (A == from.length) {
+                from = Arrays.copyOf(from, 2 * A);
+                to = Arrays.copyOf(to, 2 * A);
+                first = Arrays.copyOf(first, 2 * A);
+                second = Arrays.copyOf(second, 2 * A);
+                weight = Arrays.copyOf(weight, 2 * A);
+            }
+            from[A] = u;
+            to[A] = w;
+            weight[A] = x;
+            first[A] = a;
+            second[A] = b;
+            out[u].add(A);
+            in[w].add(A);
+            A++;
+        }
+
+        // contracts the vertices in the order of their priorities, which are
+        // brought up to date when a vertex comes to the top and when one of
+        // its neighbors is contracted
+        void contractAll() {
+            rank = new int[V];
+            DoubleIndexMinPQ order = new DoubleIndexMinPQ(Math.max(1, V));
+            for (int v = 0; v < V; v++)
+                order.insert(v, priority(v));
+            int next = 0;
+            while (!order.isEmpty()) {
+                int v = order.delMin();
+                double p = priority(v);
+                if (!order.isEmpty() && p > order.minKey()) {
+                    order.insert(v, p);
+                    continue;
+                }
+                shortcuts(v, true);
+                rank[v] = next++;
+                // v leaves the digraph
+                for (int k = 0; k < in[v].n; k++) {
+                    int u = from[in[v].a[k]];
+                    out[u].remove(in[v].a[k]);
+                    deleted[u]++;
+                    level[u] = Math.max(level[u], level[v] + 1);
+                }
+                for (int k = 0; k < out[v].n; k++) {
+                    int w = to[out[v].a[k]];
+                    in[w].remove(out[v].a[k]);
+                    deleted[w]++;
+                    level[w] = Math.max(level[w], level[v] + 1);
+                }
+                for (int k = 0; k < in[v].n; k++)
+                    update(order, from[in[v].a[k]]);
+                for (int k = 0; k < out[v].n; k++)
+                    update(order, to[out[v].a[k]]);
+            }
+        }
+
+        // brings the priority of u up to date, if u is not contracted yet
+        private void update(DoubleIndexMinPQ order, int u) {
+            if (!order.contains(u))
+                return;
+            double p = priority(u);
+            if      (p < order.keyOf(u)) order.decreaseKey(u, p);
+            else if (p > order.keyOf(u)) order.increaseKey(u, p);
+        }
+
+        // the priority of v: lower is contracted first
+        double priority(int v) {
+            int added = shortcuts(v, false);
+            int removed = in[v].n + out[v].n;
+            return 2.0 * (added - removed) + deleted[v] + level[v];
+        }
+
+        // Returns the number of shortcuts needed to contract v,
+        // and adds them if add is true.
+        int shortcuts(int v, boolean add) {
+            // only the cheapest arc to or from each neighbor matters
+            for (int k = 0; k < in[v].n; k++) {
+                int a = in[v].a[k];
+                int u = from[a];
+                if (bestIn[u] == -1 || weight[a] < weight[bestIn[u]]) bestIn[u] = a;
+            }
+            double max = 0.0;
+            int targets = 0;
+            for (int k = 0; k < out[v].n; k++) {
+                int a = out[v].a[k];
+                int w = to[a];
+                if (bestOut[w] == -1) targets++;
+                if (bestOut[w] == -1 || weight[a] < weight[bestOut[w]]) bestOut[w] = a;
+                max = Math.max(max, weight[a]);
+            }
+
+            int count = 0;
+            for (int k = 0; k < in[v].n; k++) {
+                int a = in[v].a[k];
+                int u = from[a];
+                if (bestIn[u] != a)
+                    continue;
+                witnessSearch(u, v, weight[a] + max, targets, add ? WITNESS_LIMIT : ESTIMATE_LIMIT);
+                for (int j = 0; j < out[v].n; j++) {
+                    int b = out[v].a[j];
+                    int w = to[b];
+                    if (bestOut[w] != b || w == u)
+                        continue;
+                    double through = weight[a] + weight[b];
+                    if (stamp[w] == epoch && dist[w] <= through)
+                        continue;   // witness
+                    count++;
+                    if (add) add(u, w, through, a, b);
+                }
+            }
+
+            for (int k = 0; k < in[v].n; k++)
+                bestIn[from[in[v].a[k]]] = -1;
+            for (int k = 0; k < out[v].n; k++)
+                bestOut[to[out[v].a[k]]] = -1;
+            return count;
+        }
+
+        // Dijkstra's algorithm from u that avoids v, until the given number
+        // of targets (the vertices with bestOut[] != -1) are settled, or up to
+        // distance limit, or settled vertices: dist[w] is valid if stamp[w] == epoch
+        void witnessSearch(int u, int v, double limit, int targets, int settled) {
+            epoch++;
+            stamp[u] = epoch;
+            dist[u] = 0.0;
+            pq.insert(u, 0.0);
+            for (int count = 0; !pq.isEmpty() && count < settled && targets > 0; count++) {
+                if (pq.minKey() > limit)
+                    break;
+                int x = pq.delMin();
+                if (bestOut[x] != -1)
+                    targets--;
+                for (int k = 0; k < out[x].n; k++) {
+                    int a = out[x].a[k];
+                    int w = to[a];
+                    if (w == v)
+                        continue;
+                    double d = dist[x] + weight[a];
+                    if (stamp[w] != epoch || d < dist[w]) {
+                        stamp[w] = epoch;
+                        dist[w] = d;
+                        if (pq.contains(w)) pq.decreaseKey(w, d);
+                        else                pq.insert(w, d);
+                    }
+                }
+            }
+            pq.clear();
+        }
+    }
+
+    // a growable list of ints, with removal that does not keep the order
+    private static class IntList {
+        private int[] a = new int[4];
+        private int n;
+
+        void add(int x) {
+            if (n == a.length)
+                a = Arrays.copyOf(a, 2 * n);
+            a[n++] = x;
+        }
+
+        // removes one occurrence of x, not keeping the order
+        void remove(int x) {
+            for (int k = 0; k < n; k++) {
+                if (a[k] == x) {
+                    a[k] = a[--n];
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns the length of a shortest path from s to t, or
+    // Double.POSITIVE_INFINITY if there is none.
+    public double distTo(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        return search(s, t);
+    }
+
+    // Is there a path from s to t ?
+    public boolean hasPathTo(int s, int t) {
+        return distTo(s, t) < Double.POSITIVE_INFINITY;
+    }
+
+    // Returns a shortest path from s to t, or null if there is none.
+    public Iterable<DirectedEdge> pathTo(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        if (search(s, t) == Double.POSITIVE_INFINITY)
+            return null;
+
+        // the arcs from s up to meet, then from meet down to t
+        Queue<Integer> arcs = new Queue<Integer>();
+        Stack<Integer> upward = new Stack<Integer>();
+        for (int v = meet; v != s; v = from[arcF[v]])
+            upward.push(arcF[v]);
+        for (int a : upward)
+            arcs.enqueue(a);
+        for (int v = meet; v != t; v = to[arcB[v]])
+            arcs.enqueue(arcB[v]);
+
+        // each shortcut is replaced by its two arcs, until only edges are left
+        Queue<DirectedEdge> path = new Queue<DirectedEdge>();
+        Stack<Integer> todo = new Stack<Integer>();
+        for (int a : arcs) {
+            todo.push(a);
+            while (!todo.isEmpty()) {
+                int x = todo.pop();
+                if (first[x] == -1) {
+                    path.enqueue(new DirectedEdge(from[x], to[x], weight[x]));
+                }
+                else {
+                    todo.push(second[x]);
+                    todo.push(first[x]);
+                }
+            }
+        }
+        return path;
+    }
+
+    // bidirectional Dijkstra's algorithm, upward from s and (on reversed
+    // arcs) upward from t; each side stops when its smallest key is no
+    // less than the best path found, and that path meets at vertex meet
+    private double search(int s, int t) {
+        query++;
+        if (query == 0) {   // stamps wrapped around
+            Arrays.fill(stampF, 0);
+            Arrays.fill(stampB, 0);
+            query = 1;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        meet = -1;
+        settled = 0;
+        stampF[s] = query;
+        distF[s] = 0.0;
+        arcF[s] = -1;
+        pqF.insert(s, 0.0);
+        stampB[t] = query;
+        distB[t] = 0.0;
+        arcB[t] = -1;
+        pqB.insert(t, 0.0);
+
+        while (!pqF.isEmpty() || !pqB.isEmpty()) {
+            boolean forward = pqB.isEmpty() || (!pqF.isEmpty() && pqF.minKey() <= pqB.minKey());
+            DoubleIndexMinPQ pq = forward ? pqF : pqB;
+            if (pq.minKey() >= best) {
+                pq.clear();
+                continue;
+            }
+            int v = pq.delMin();
+            settled++;
+            if (stampF[v] == query && stampB[v] == query && distF[v] + distB[v] < best) {
+                best = distF[v] + distB[v];
+                meet = v;
+            }
+            if (forward) {
+                if (stalled(v, downBegin, down, from, stampF, distF))
+                    continue;
+                for (int k = upBegin[v]; k < upBegin[v + 1]; k++) {
+                    int a = up[k];
+                    int w = to[a];
+                    double d = distF[v] + weight[a];
+                    if (stampF[w] != query || d < distF[w]) {
+                        stampF[w] = query;
+                        distF[w] = d;
+                        arcF[w] = a;
+                        if (pqF.contains(w)) pqF.decreaseKey(w, d);
+                        else                 pqF.insert(w, d);
+                    }
+                }
+            }
+            else {
+                if (stalled(v, upBegin, up, to, stampB, distB))
+                    continue;
+                for (int k = downBegin[v]; k < downBegin[v + 1]; k++) {
+                    int a = down[k];
+                    int u = from[a];
+                    double d = distB[v] + weight[a];
+                    if (stampB[u] != query || d < distB[u]) {
+                        stampB[u] = query;
+                        distB[u] = d;
+                        arcB[u] = a;
+                        if (pqB.contains(u)) pqB.decreaseKey(u, d);
+                        else                 pqB.insert(u, d);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Stall-on-demand: is there a higher vertex u, already reached by the
+    // same search, with an arc to v (in the order of that search) that
+    // gives v a shorter distance? Then v is not on a shortest path from
+    // that search's end, and its arcs need not be scanned.
+    private boolean stalled(int v, int[] begin, int[] arcs, int[] other, int[] stamp, double[] dist) {
+        for (int k = begin[v]; k < begin[v + 1]; k++) {
+            int a = arcs[k];
+            int u = other[a];
+            if (stamp[u] == query && dist[u] + weight[a] < dist[v])
+                return true;
+        }
+        return false;
+    }
+
+    // Writes the hierarchy to file.
+    public void save(File file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(V);
+            out.writeInt(A);
+            for (int v = 0; v < V; v++)
+                out.writeInt(rank[v]);
+            for (int a = 0; a < A; a++) {
+                out.writeInt(from[a]);
+                out.writeInt(to[a]);
+                out.writeDouble(weight[a]);
+                out.writeInt(first[a]);
+                out.writeInt(second[a]);
+            }
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not write " + file, ioe);
+        }
+    }
+
+    // Reads a hierarchy written by save().
+    public static ContractionHierarchy load(File file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IllegalArgumentException(file + " is not a contraction hierarchy file");
+            int V = in.readInt();
+            int A = in.readInt();
+            if (V < 0 || A < 0)
+                throw new IllegalArgumentException(file + " has an invalid header");
+            int[] rank = new int[V];
+            for (int v = 0; v < V; v++)
+                rank[v] = in.readInt();
+            int[] from = new int[A];
+            int[] to = new int[A];
+            double[] weight = new double[A];
+            int[] first = new int[A];
+            int[] second = new int[A];
+            for (int a = 0; a < A; a++) {
+                from[a] = in.readInt();
+                to[a] = in.readInt();
+                weight[a] = in.readDouble();
+                first[a] = in.readInt();
+                second[a] = in.readInt();
+                if (from[a] < 0 || from[a] >= V || to[a] < 0 || to[a] >= V
+                    || first[a] >= a || second[a] >= a || (first[a] == -1) != (second[a] == -1))
+                    throw new IllegalArgumentException(file + " has an invalid arc " + a);
+            }
+            return new ContractionHierarchy(V, A, rank, from, to, weight, first, second);
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not read " + file, ioe);
+        }
+    }
+
+    // Returns the number of vertices settled by the last query.
+    public int settled() {
+        return settled;
+    }
+
+    // Returns the number of vertices.
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of shortcuts added by the preprocessing.
+    public int shortcuts() {
+        int count = 0;
+        for (int a = 0; a < A; a++)
+            if (first[a] != -1) count++;
+        return count;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Unit tests the ContractionHierarchy data type: preprocesses the
+    // digraph in a file, saves and loads the hierarchy, and checks random
+    // queries against DijkstraSP.
+    public static void main(String[] args) throws IOException {
+        In in = new In(args[0]);
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(in);
+        int queries = Integer.parseInt(args[1]);
+
+        Stopwatch timer = new Stopwatch();
+        ContractionHierarchy built = new ContractionHierarchy(G);
+        StdOut.printf("preprocessing %.3f s, %d edges, %d shortcuts\n",
+                      timer.elapsedTime(), G.E(), built.shortcuts());
+        File file = File.createTempFile("hierarchy", ".ch");
+        file.deleteOnExit();
+        built.save(file);
+        ContractionHierarchy ch = load(file);
+
+        int[] s = new int[queries], t = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            s[q] = StdRandom.uniform(G.V());
+            t[q] = StdRandom.uniform(G.V());
+        }
+        long settled = 0;
+        timer = new Stopwatch();
+        for (int q = 0; q < queries; q++) {
+            ch.distTo(s[q], t[q]);
+            settled += ch.settled();
+        }
+        double time = timer.elapsedTime();
+        StdOut.printf("%.1f microseconds and %d vertices settled per query\n",
+                      1E6 * time / queries, settled / queries);
+
+        int differ = 0;
+        for (int q = 0; q < queries; q++) {
+            DijkstraSP sp = new DijkstraSP(G, s[q]);
+            double d = ch.distTo(s[q], t[q]);
+            if (sp.hasPathTo(t[q]) != ch.hasPathTo(s[q], t[q])
+                || (sp.hasPathTo(t[q]) && Math.abs(d - sp.distTo(t[q])) > 1E-9)) {
+                differ++;
+                continue;
+            }
+            if (!sp.hasPathTo(t[q]))
+                continue;
+            double length = 0.0;
+            int at = s[q];
+            for (DirectedEdge e : ch.pathTo(s[q], t[q])) {
+                if (e.from() != at) differ++;
+                length += e.weight();
+                at = e.to();
+            }
+            if (at != t[q] || Math.abs(length - d) > 1E-9)
+                differ++;
+        }
+        StdOut.println(differ + " answers differ");
+    }
+}
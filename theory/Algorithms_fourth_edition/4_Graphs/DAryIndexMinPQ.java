@@ -0,0 +1,170 @@
+import java.util.NoSuchElementException;
+// The DAryIndexMinPQ class represents an indexed priority queue of
+// primitive double keys in a d-ary heap: every node has up to d children,
+// so the heap is log d times shallower than a binary heap. insert() and
+// decreaseKey() only swim, and get cheaper; delMin() compares d children
+// per level, which sit next to each other in memory. With d = 4 this is
+// usually the fastest heap for Dijkstra's algorithm on sparse graphs,
+// which does many more decreaseKey() than delMin().
+public class DAryIndexMinPQ implements DoubleIndexHeap {
+    private final int d;    // number of children per node
+    private int maxN;       // maximum number of elements on PQ.
+    private int n;          // number of elements on PQ.
+    private int[] pq;       // d-ary heap using 0-based indexing: the children of k are d*k+1 .. d*k+d
+    private int[] qp;       // inverse of pq -- qp[pq[i]] = pq[qp[i]] = i
+    private double[] keys;  // keys[i] = priority of i
+
+    // Initializes an empty indexed priority queue with indices between 0
+    // and maxN - 1, in a 4-ary heap.
+    public DAryIndexMinPQ(int maxN) {
+        this(maxN, 4);
+    }
+
+    // Initializes an empty indexed priority queue with indices between 0
+    // and maxN - 1, in a d-ary heap.
+    public DAryIndexMinPQ(int maxN, int d) {
+        if (maxN < 0)
+            throw new IllegalArgumentException();
+        if (d < 2)
+            throw new IllegalArgumentException("a heap needs at least 2 children per node");
+        this.d = d;
+        this.maxN = maxN;
+        n = 0;
+        keys = new double[maxN];
+        pq = new int[maxN];
+        qp = new int[maxN];
+        for (int i = 0; i < maxN; i++)
+            qp[i] = -1;
+    }
+
+    // Returns true if this priority queue is empty.
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    // Is i an index on this priority queue?
+    public boolean contains(int i) {
+        if (i < 0 || i >= maxN)
+            throw new IndexOutOfBoundsException();
+        return qp[i] != -1;
+    }
+
+    // Returns the number of keys on this priority queue.
+    public int size() {
+        return n;
+    }
+
+    // Associates key with index i
+    public void insert(int i, double key) {
+        if (contains(i))
+            throw new IllegalArgumentException("index is already in the priority queue.");
+        keys[i] = key;
+        swim(n++, i);
+    }
+
+    // Returns an index associated with a minimum key.
+    public int minIndex() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        return pq[0];
+    }
+
+    // Returns a minimum key.
+    public double minKey() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        return keys[pq[0]];
+    }
+
+    // Removes a minimum key and returns its associated index.
+    public int delMin() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        int min = pq[0];
+        qp[min] = -1;
+        int last = pq[--n];
+        if (n > 0)
+            sink(0, last);
+        return min;
+    }
+
+    // Returns the key associated with index i
+    public double keyOf(int i) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue.");
+        return keys[i];
+    }
+
+    // Decrease the key associated with index i to the specified value.
+    public void decreaseKey(int i, double key) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] <= key)
+            throw new IllegalArgumentException("Calling decreaseKey() with given "
+                + "argument would not strictly decrease the key");
+        keys[i] = key;
+        swim(qp[i], i);
+    }
+
+    // Removes every index, in time proportional to their number.
+    public void clear() {
+        for (int k = 0; k < n; k++)
+            qp[pq[k]] = -1;
+        n = 0;
+    }
+
+    // Heap helper functions: the index i moves into the hole at position k,
+    // and the nodes it passes move one level the other way.
+    private void swim(int k, int i) {
+        double key = keys[i];
+        while (k > 0) {
+            int parent = (k - 1) / d;
+            int p = pq[parent];
+            if (keys[p] <= key)
+                break;
+            pq[k] = p;
+            qp[p] = k;
+            k = parent;
+        }
+        pq[k] = i;
+        qp[i] = k;
+    }
+
+    private void sink(int k, int i) {
+        double key = keys[i];
+        while (true) {
+            int first = d * k + 1;
+            if (first >= n)
+                break;
+            int last = Math.min(first + d, n);
+            int min = first;
+            for (int j = first + 1; j < last; j++) {
+                if (keys[pq[j]] < keys[pq[min]])
+                    min = j;
+            }
+            if (keys[pq[min]] >= key)
+                break;
+            pq[k] = pq[min];
+            qp[pq[k]] = k;
+            k = min;
+        }
+        pq[k] = i;
+        qp[i] = k;
+    }
+
+    public static void main(String[] args) {
+        double[] keys = { 0.5, 0.25, 0.75, 0.125, 1.0, 0.375 };
+        DAryIndexMinPQ pq = new DAryIndexMinPQ(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            pq.insert(i, keys[i]);
+        }
+        pq.decreaseKey(4, 0.0625);
+
+        // delete and print each key
+        while (!pq.isEmpty()) {
+            double key = pq.minKey();
+            int i = pq.delMin();
+            StdOut.println(i + " " + key);
+        }
+    }
+}
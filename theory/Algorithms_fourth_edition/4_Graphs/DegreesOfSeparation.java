@@ -36,7 +36,7 @@ public class DegreesOfSeparation {
             return;
         }
         int s = sg.indexOf(source);
-        BreadthFirstPaths bfs = new BreadthFirstPaths(G, s);
+        ParallelBreadthFirstPaths bfs = new ParallelBreadthFirstPaths(G, s);
         while (!StdIn.isEmpty()) {
             String sink = StdIn.readLine();
             if (sg.contains(sink)) {
@@ -0,0 +1,341 @@
+// Delta-stepping single-source shortest paths, with the edges of each
+// bucket relaxed in parallel on a ForkJoinPool.
+// Assumes all weights are nonnegative.
+
+/**
+ *  The {@code DeltaSteppingSP} class represents a data type for solving the
+ *  single-source shortest paths problem in edge-weighted digraphs
+ *  where the edge weights are nonnegative. It has the same
+ *  {@code distTo()}, {@code hasPathTo()} and {@code pathTo()} API as
+ *  {@link DijkstraSP}.
+ *  This implementation uses the delta-stepping algorithm of Meyer and Sanders.
+ *  Vertices are kept in buckets of width delta by tentative distance.
+ *  The smallest non-empty bucket is emptied by relaxing the light edges
+ *  (weight at most delta) of all its vertices in parallel, repeating while
+ *  relaxations put vertices back into it; then the heavy edges of every
+ *  vertex removed from the bucket are relaxed in parallel, once.
+ *  Concurrent updates of the same vertex are serialized by a striped lock,
+ *  so {@code distTo[w]} and {@code edgeTo[w]} always change together.
+ *  With delta = infinity this is Bellman-Ford; with delta close to the
+ *  smallest weight it approaches Dijkstra's algorithm.
+ *  The edges are read from a {@link CSREdgeWeightedDigraph}; the constructor
+ *  that takes an {@link EdgeWeightedDigraph} freezes it first.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class DeltaSteppingSP {
+
+    private static final int CUTOFF = 64;       // vertices per sequential task
+    private static final int LOCKS = 1024;      // number of lock stripes (a power of 2)
+
+    private final CSREdgeWeightedDigraph G;
+    private final double delta;         // bucket width
+    private double[] distTo;            // distTo[v] = distance of shortest s->v path.
+    private int[] edgeTo;               // edgeTo[v] = position in G of last edge on shortest s->v path, or -1
+    private int[] bucketOf;             // bucketOf[v] = bucket currently holding v, or -1
+    private int[] removedFrom;          // removedFrom[v] = 1 + last bucket v was removed from
+    private final Object[] locks;       // locks[v & (LOCKS - 1)] guards distTo[v] and edgeTo[v]
+    private ArrayList<IntList> buckets;    // buckets.get(i) = vertices with distance in [i delta, (i+1) delta), or null
+
+    // Computes a shortest-paths tree from s in the edge-weighted digraph G,
+    // with the average edge weight as bucket width, on the common pool.
+    public DeltaSteppingSP(EdgeWeightedDigraph G, int s) {
+        this(new CSREdgeWeightedDigraph(G), s);
+    }
+
+    // Computes a shortest-paths tree from s in the frozen digraph G,
+    // with the average edge weight as bucket width, on the common pool.
+    public DeltaSteppingSP(CSREdgeWeightedDigraph G, int s) {
+        this(G, s, defaultDelta(G), ForkJoinPool.commonPool());
+    }
+
+    // Computes a shortest-paths tree from s in the frozen digraph G, with
+    // buckets of width delta, running the relaxation phases on pool.
+    public DeltaSteppingSP(CSREdgeWeightedDigraph G, int s, double delta, ForkJoinPool pool) {
+        if (!(delta > 0.0))
+            throw new IllegalArgumentException("delta must be positive");
+        for (int i = 0; i < G.E(); i++) {
+            if (G.weight(i) < 0) {
+                throw new IllegalArgumentException("edge " + G.edge(i) + " has negative weight");
+            }
+        }
+        this.G = G;
+        this.delta = delta;
+        distTo = new double[G.V()];
+        edgeTo = new int[G.V()];
+        bucketOf = new int[G.V()];
+        removedFrom = new int[G.V()];
+        locks = new Object[LOCKS];
+        for (int i = 0; i < LOCKS; i++)
+            locks[i] = new Object();
+        validateVertex(s);
+
+        for (int v = 0; v < G.V(); v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+            edgeTo[v] = -1;
+            bucketOf[v] = -1;
+        }
+        distTo[s] = 0.0;
+        buckets = new ArrayList<IntList>();
+        place(s);
+
+        for (int i = 0; i < buckets.size(); i++) {
+            IntList removed = new IntList();
+            // light edges, until bucket i stays empty
+            while (buckets.get(i) != null) {
+                IntList frontier = take(i);
+                removed.addAll(frontier);
+                IntList improved = pool.invoke(new Relax(frontier.a, 0, frontier.n, true));
+                placeAll(improved);
+            }
+            // heavy edges, once for every vertex removed from bucket i
+            IntList improved = pool.invoke(new Relax(removed.a, 0, removed.n, false));
+            placeAll(improved);
+        }
+        buckets = null;
+        bucketOf = null;
+        removedFrom = null;
+
+        // check optimality conditions
+        assert check(s);
+    }
+
+    // average edge weight, or 1.0 if there are no positive weights.
+    private static double defaultDelta(CSREdgeWeightedDigraph G) {
+        double sum = 0.0;
+        for (int i = 0; i < G.E(); i++)
+            sum += G.weight(i);
+        if (sum <= 0.0 || Double.isInfinite(sum))
+            return 1.0;
+        return sum / G.E();
+    }
+
+    // removes the live vertices of bucket i, that is those not moved to
+    // another bucket since they were added, and returns them.
+    private IntList take(int i) {
+        IntList bucket = buckets.get(i);
+        buckets.set(i, null);
+        IntList frontier = new IntList();
+        for (int k = 0; k < bucket.n; k++) {
+            int v = bucket.a[k];
+            if (bucketOf[v] == i) {
+                bucketOf[v] = -1;
+                if (removedFrom[v] != i + 1) {
+                    removedFrom[v] = i + 1;
+                    frontier.add(v);
+                }
+                else {
+                    // v comes back to bucket i: relax its light edges again,
+                    // but record it only once for the heavy phase
+                    frontier.add(~v);
+                }
+            }
+        }
+        return frontier;
+    }
+
+    // puts v in the bucket for its current distance, unless it is already there.
+    private void place(int v) {
+        double b = Math.floor(distTo[v] / delta);
+        if (b >= Integer.MAX_VALUE)
+            throw new IllegalArgumentException("too many buckets: increase delta");
+        int i = (int) b;
+        if (bucketOf[v] == i)
+            return;
+        bucketOf[v] = i;
+        while (buckets.size() <= i)
+            buckets.add(null);
+        if (buckets.get(i) == null)
+            buckets.set(i, new IntList());
+        buckets.get(i).add(v);
+    }
+
+    private void placeAll(IntList vertices) {
+        for (int k = 0; k < vertices.n; k++)
+            place(vertices.a[k]);
+    }
+
+    // relaxes the light (or heavy) edges leaving vertices[lo..hi-1] and
+    // returns the heads whose distance decreased. An entry ~v (negative)
+    // stands for v in a frontier and for nothing in the removed set.
+    private class Relax extends RecursiveTask<IntList> {
+        private static final long serialVersionUID = 1L;
+        private final int[] vertices;
+        private final int lo, hi;
+        private final boolean light;
+
+        Relax(int[] vertices, int lo, int hi, boolean light) {
+            this.vertices = vertices;
+            this.lo = lo;
+            this.hi = hi;
+            this.light = light;
+        }
+
+        protected IntList compute() {
+            if (hi - lo > CUTOFF) {
+                int mid = (lo + hi) >>> 1;
+                Relax left = new Relax(vertices, lo, mid, light);
+                left.fork();
+                IntList right = new Relax(vertices, mid, hi, light).compute();
+                IntList result = left.join();
+                result.addAll(right);
+                return result;
+            }
+            IntList improved = new IntList();
+            for (int k = lo; k < hi; k++) {
+                int v = vertices[k];
+                if (v < 0) {
+                    if (!light) continue;
+                    v = ~v;
+                }
+                double dv;
+                synchronized (locks[v & (LOCKS - 1)]) {
+                    dv = distTo[v];
+                }
+                for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                    double weight = G.weight(i);
+                    if ((weight <= delta) != light)
+                        continue;
+                    int w = G.to(i);
+                    double d = dv + weight;
+                    synchronized (locks[w & (LOCKS - 1)]) {
+                        if (d < distTo[w]) {
+                            distTo[w] = d;
+                            edgeTo[w] = i;
+                            improved.add(w);
+                        }
+                    }
+                }
+            }
+            return improved;
+        }
+    }
+
+    // growable array of vertices
+    private static class IntList {
+        private int[] a = new int[4];
+        private int n;
+
+        void add(int v) {
+            if (n == a.length)
+                a = Arrays.copyOf(a, 2 * n);
+            a[n++] = v;
+        }
+
+        void addAll(IntList that) {
+            for (int k = 0; k < that.n; k++)
+                add(that.a[k]);
+        }
+    }
+
+    // Returns the length of a shortest path from the source vertex s to vertex v.
+    public double distTo(int v) {
+        validateVertex(v);
+        return distTo[v];
+    }
+
+    // Returns true if there is a path from the source vertex s to vertex v.
+    public boolean hasPathTo(int v) {
+        validateVertex(v);
+        return distTo[v] < Double.POSITIVE_INFINITY;
+    }
+
+    // Returns a shortest path from the source vertex s to vertex v.
+    public Iterable<DirectedEdge> pathTo(int v) {
+        validateVertex(v);
+        if (!hasPathTo(v)) {
+            return null;
+        }
+        Stack<DirectedEdge> path = new Stack<DirectedEdge>();
+        for (int x = v; edgeTo[x] != -1; ) {
+            DirectedEdge e = G.edge(edgeTo[x]);
+            path.push(e);
+            x = e.from();
+        }
+        return path;
+    }
+
+    // check the optimality conditions of DijkstraSP:
+    // (1) for all edges e : distTo[e.to()] <= distTo[e.from()] + e.weight()
+    // (2) for all edge e on the SPT: distTo[e.to()] == distTo[e.from()] + e.weight()
+    private boolean check(int s) {
+
+        // check that distTo[v] and edgeTo[v] are consistent
+        if (distTo[s] != 0.0 || edgeTo[s] != -1) {
+            System.err.println("distTo[s] and edgeTo[s] inconsistent");
+            return false;
+        }
+        for (int v = 0; v < G.V(); v++) {
+            if (v == s) {
+                continue;
+            }
+            if (edgeTo[v] == -1 && distTo[v] != Double.POSITIVE_INFINITY) {
+                System.err.println("distTo[] and edgeTo[] inconsistent");
+                return false;
+            }
+        }
+
+        // check that all edges e = v->w satisfy distTo[w] <= distTo[v] + e.weight()
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                if (distTo[v] + G.weight(i) < distTo[G.to(i)]) {
+                    System.err.println("edge " + G.edge(i) + " not relaxed");
+                    return false;
+                }
+            }
+        }
+
+        // check that all edges e = v->w on SPT satisfy distTo[w] == distTo[v] + e.weight()
+        for (int w = 0; w < G.V(); w++) {
+            if (edgeTo[w] == -1) {
+                continue;
+            }
+            int i = edgeTo[w];
+            if (w != G.to(i)) {
+                return false;
+            }
+            if (distTo[G.from(i)] + G.weight(i) != distTo[w]) {
+                System.err.println("edge " + G.edge(i) + " on shortest path not tight");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = distTo.length;
+        if (v < 0 || v >= V) {
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+        }
+    }
+
+    // Unit tests the DeltaSteppingSP data type against DijkstraSP.
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int s = Integer.parseInt(args[1]);
+        CSREdgeWeightedDigraph G = new CSREdgeWeightedDigraph(in);
+        double delta = args.length > 2 ? Double.parseDouble(args[2]) : defaultDelta(G);
+
+        Stopwatch timer1 = new Stopwatch();
+        DijkstraSP sp1 = new DijkstraSP(G, s);
+        double time1 = timer1.elapsedTime();
+        Stopwatch timer2 = new Stopwatch();
+        DeltaSteppingSP sp2 = new DeltaSteppingSP(G, s, delta, ForkJoinPool.commonPool());
+        double time2 = timer2.elapsedTime();
+
+        int differ = 0;
+        for (int v = 0; v < G.V(); v++) {
+            if (sp1.distTo(v) != sp2.distTo(v)) {
+                differ++;
+                StdOut.printf("%d: DijkstraSP %.6f, DeltaSteppingSP %.6f\n", v, sp1.distTo(v), sp2.distTo(v));
+            }
+        }
+        StdOut.printf("delta = %.4f, %d distances differ\n", delta, differ);
+        StdOut.printf("DijkstraSP %.3f s, DeltaSteppingSP %.3f s on %d threads\n",
+            time1, time2, ForkJoinPool.commonPool().getParallelism());
+    }
+}
@@ -18,8 +18,9 @@ public class DepthFirstOrder {
     private int preCounter;    // counter or preorder numbering
     private int postCounter;   // counter for postorder numbering
     
-    // Determines a depth-first order for the digraph G.
-    public DepthFirstOrder(Digraph G) {
+    // Determines a depth-first order for the digraph G, which may be
+    // a Digraph or a frozen CSRDigraph.
+    public DepthFirstOrder(AdjacencyGraph G) {
         pre = new int[G.V()];
         post = new int[G.V()];
         postorder = new Queue<Integer>();
@@ -46,7 +47,7 @@ public class DepthFirstOrder {
     }
 
     // run DFS in digraph G from vertex v and compute preorer / postorder
-    private void dfs(Digraph G, int v) {
+    private void dfs(AdjacencyGraph G, int v) {
         marked[v] = true;
         pre[v] = preCounter++;
         preorder.enqueue(v);
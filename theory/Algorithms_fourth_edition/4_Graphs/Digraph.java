@@ -11,7 +11,7 @@
  *  time proportional to the number of such vertices.
  */
 import java.util.NoSuchElementException;
-public class Digraph {
+public class Digraph implements AdjacencyDigraph {
 
     private static final String NEWLINE = System.getProperty("line.separator");
     private final int V;    // number of vertices in this digraph.
@@ -9,25 +9,234 @@
  *  Afterwards, the {@code dist()} and {@code hasPath()} methods take
  *  constant time and the {@code path()} method takes time proportional to the
  *  number of edges in the shortest path returned.
+ *  <p>
+ *  The multi-source constructors take a {@link CSREdgeWeightedDigraph} and
+ *  a set of sources, and run Dijkstra's algorithm from the sources on
+ *  several worker threads, each reusing one set of work arrays.
+ *  Only one compact row per source is kept: V doubles (the distances) and
+ *  V ints (the position in G of the last edge of each path), that is 12V
+ *  bytes instead of a whole {@link DijkstraSP}. The rows are kept either on
+ *  the heap or in a file that is then memory-mapped, in which case
+ *  {@code dist()} and {@code path()} read them directly from the mapping
+ *  and the heap holds nothing per source.
  */
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class DijkstraAllPairsSP {
 
     private DijkstraSP[] all;
+    private int V;              // number of vertices
+
+    // multi-source mode
+    private CSREdgeWeightedDigraph G;
+    private int[] sources;      // sources[r] = source vertex of row r
+    private int[] rowOf;        // rowOf[s] = row of source s, or -1 if s is not a source
+    private double[][] distRow; // distRow[r][t] = distance from sources[r] to t (heap rows)
+    private int[][] edgeRow;    // edgeRow[r][t] = position of last edge on that path, or -1 (heap rows)
+    private MappedByteBuffer[] regions;  // mapped rows, rowsPerRegion rows per buffer
+    private int rowsPerRegion;
 
     // Computes a shortest paths tree from each vertex to every other vertex in
     // the edge-weighted digraph G.
     public DijkstraAllPairsSP(EdgeWeightedDigraph G) {
+        V = G.V();
         all = new DijkstraSP[G.V()];
         for (int v = 0; v < G.V(); v++) {
             all[v] = new DijkstraSP(G, v);
         }
     }
 
+    // Computes shortest paths from each vertex in sources to every other
+    // vertex in the frozen digraph G, on the given number of threads, and
+    // keeps one compact row per source on the heap.
+    public DijkstraAllPairsSP(CSREdgeWeightedDigraph G, Iterable<Integer> sources, int threads) {
+        init(G, sources);
+        distRow = new double[this.sources.length][];
+        edgeRow = new int[this.sources.length][];
+        run(threads, null);
+    }
+
+    // Computes shortest paths from each vertex in sources to every other
+    // vertex in the frozen digraph G, on the given number of threads, and
+    // spills the rows to file, which is then memory-mapped to answer queries.
+    // The file is overwritten.
+    public DijkstraAllPairsSP(CSREdgeWeightedDigraph G, Iterable<Integer> sources, int threads, File file) {
+        init(G, sources);
+        long rowBytes = 12L * V;
+        rowsPerRegion = V == 0 ? 1 : (int) Math.max(1, Integer.MAX_VALUE / rowBytes);
+        if (rowBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("a row of " + V + " vertices does not fit in one mapping");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = raf.getChannel();
+            raf.setLength(rowBytes * this.sources.length);
+            run(threads, channel);
+
+            // map the rows read-only; the mappings stay valid after the file is closed
+            int n = (this.sources.length + rowsPerRegion - 1) / rowsPerRegion;
+            regions = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long start = i * rowsPerRegion * rowBytes;
+                long size = Math.min((long) rowsPerRegion, this.sources.length - (long) i * rowsPerRegion) * rowBytes;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            }
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not write " + file, ioe);
+        }
+    }
+
+    // records G and the distinct sources, in order of first appearance.
+    private void init(CSREdgeWeightedDigraph G, Iterable<Integer> sources) {
+        if (sources == null)
+            throw new IllegalArgumentException("argument is null");
+        this.G = G;
+        this.V = G.V();
+        for (int i = 0; i < G.E(); i++) {
+            if (G.weight(i) < 0)
+                throw new IllegalArgumentException("edge " + G.edge(i) + " has negative weight");
+        }
+        rowOf = new int[V];
+        for (int v = 0; v < V; v++)
+            rowOf[v] = -1;
+        int n = 0;
+        for (int s : sources) {
+            validateVertex(s);
+            if (rowOf[s] == -1)
+                rowOf[s] = n++;
+        }
+        this.sources = new int[n];
+        for (int v = 0; v < V; v++) {
+            if (rowOf[v] != -1)
+                this.sources[rowOf[v]] = v;
+        }
+    }
+
+    // computes every row on threads workers; a row goes to distRow/edgeRow,
+    // or to channel if it is not null.
+    private void run(int threads, final FileChannel channel) {
+        if (threads < 1)
+            throw new IllegalArgumentException("number of threads must be positive");
+        final AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int k = 0; k < threads; k++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        double[] dist = new double[V];
+                        int[] edge = new int[V];
+                        DoubleIndexMinPQ pq = new DoubleIndexMinPQ(V);
+                        ByteBuffer buffer = channel == null ? null : ByteBuffer.allocate(12 * V);
+                        for (int r = next.getAndIncrement(); r < sources.length; r = next.getAndIncrement()) {
+                            dijkstra(sources[r], dist, edge, pq);
+                            if (channel == null) {
+                                distRow[r] = dist.clone();
+                                edgeRow[r] = edge.clone();
+                            }
+                            else {
+                                buffer.clear();
+                                buffer.asDoubleBuffer().put(dist);
+                                buffer.position(8 * V);
+                                buffer.asIntBuffer().put(edge);
+                                buffer.position(0);
+                                long position = 12L * V * r;
+                                while (buffer.hasRemaining())
+                                    position += channel.write(buffer, position);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+                future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while computing shortest paths", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalArgumentException("Could not write shortest paths", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Dijkstra's algorithm from s on G, into the caller's work arrays.
+    private void dijkstra(int s, double[] dist, int[] edge, DoubleIndexMinPQ pq) {
+        for (int v = 0; v < V; v++) {
+            dist[v] = Double.POSITIVE_INFINITY;
+            edge[v] = -1;
+        }
+        dist[s] = 0.0;
+        pq.insert(s, 0.0);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                int w = G.to(i);
+                double d = dist[v] + G.weight(i);
+                if (dist[w] > d) {
+                    dist[w] = d;
+                    edge[w] = i;
+                    if (pq.contains(w)) pq.decreaseKey(w, d);
+                    else                pq.insert(w, d);
+                }
+            }
+        }
+    }
+
+    // row of source s, or an exception if no paths were computed from s.
+    private int row(int s) {
+        if (rowOf[s] == -1)
+            throw new IllegalArgumentException("shortest paths from vertex " + s + " were not computed");
+        return rowOf[s];
+    }
+
+    // distance from the source of row r to t
+    private double rowDist(int r, int t) {
+        if (regions == null)
+            return distRow[r][t];
+        return regions[r / rowsPerRegion].getDouble((r % rowsPerRegion) * 12 * V + 8 * t);
+    }
+
+    // position of the last edge on the path from the source of row r to t
+    private int rowEdge(int r, int t) {
+        if (regions == null)
+            return edgeRow[r][t];
+        return regions[r / rowsPerRegion].getInt((r % rowsPerRegion) * 12 * V + 8 * V + 4 * t);
+    }
+
     // Returns a shortest path from vertex s to vertex t.
     public Iterable<DirectedEdge> path(int s, int t) {
         validateVertex(s);
         validateVertex(t);
-        return all[s].pathTo(t);
+        if (all != null)
+            return all[s].pathTo(t);
+        int r = row(s);
+        if (!hasPath(s, t))
+            return null;
+        Stack<DirectedEdge> path = new Stack<DirectedEdge>();
+        for (int i = rowEdge(r, t); i != -1; ) {
+            DirectedEdge e = G.edge(i);
+            path.push(e);
+            i = rowEdge(r, e.from());
+        }
+        return path;
     }
 
     // Is there a path from the vertex s to vertex t ?
@@ -41,18 +250,57 @@ public class DijkstraAllPairsSP {
     public double dist(int s, int t) {
         validateVertex(s);
         validateVertex(t);
-        return all[s].distTo(t);
+        if (all != null)
+            return all[s].distTo(t);
+        return rowDist(row(s), t);
     }
 
     // throw an IllegalArgumentException unless 0 <= v < V.
     private void validateVertex(int v) {
-        int V = all.length;
         if (v < 0 || v >= V) {
             throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
         }
     }
 
-    public static void main(String[] args) {
-        
+    // Unit tests the multi-source modes against DijkstraSP.
+    public static void main(String[] args) throws IOException {
+        In in = new In(args[0]);
+        int threads = Integer.parseInt(args[1]);
+        int n = Integer.parseInt(args[2]);
+        CSREdgeWeightedDigraph G = new CSREdgeWeightedDigraph(in);
+        Queue<Integer> sources = new Queue<Integer>();
+        for (int i = 0; i < n; i++)
+            sources.enqueue(StdRandom.uniform(G.V()));
+
+        File file = File.createTempFile("apsp", ".bin");
+        file.deleteOnExit();
+        Stopwatch timer = new Stopwatch();
+        DijkstraAllPairsSP heap = new DijkstraAllPairsSP(G, sources, threads);
+        double time1 = timer.elapsedTime();
+        timer = new Stopwatch();
+        DijkstraAllPairsSP mapped = new DijkstraAllPairsSP(G, sources, threads, file);
+        double time2 = timer.elapsedTime();
+        StdOut.printf("heap rows %.3f s, mapped rows %.3f s\n", time1, time2);
+
+        int differ = 0;
+        for (int s : sources) {
+            DijkstraSP sp = new DijkstraSP(G, s);
+            for (int t = 0; t < G.V(); t++) {
+                if (sp.distTo(t) != heap.dist(s, t) || sp.distTo(t) != mapped.dist(s, t))
+                    differ++;
+            }
+        }
+        StdOut.println(differ + " distances differ");
+        if (sources.isEmpty())
+            return;
+        int s = sources.iterator().next();
+        for (int t = 0; t < Math.min(G.V(), 5); t++) {
+            StdOut.printf("%d to %d (%.2f)  ", s, t, mapped.dist(s, t));
+            if (mapped.hasPath(s, t)) {
+                for (DirectedEdge e : mapped.path(s, t))
+                    StdOut.print(e + "   ");
+            }
+            StdOut.println();
+        }
     }
-}
\ No newline at end of file
+}
@@ -5,24 +5,38 @@
  *  The {@code DijkstraSP} class represents a data type for solving the
  *  single-source shortest paths problem in edge-weighted digraphs
  *  where the edge weights are nonnegative.
- *  This implementation uses Dijkstra's algorithm with a binary heap.
+ *  This implementation uses Dijkstra's algorithm with a binary heap,
+ *  or with any other {@link DoubleIndexHeap} chosen by its
+ *  {@link DoubleIndexHeap.Kind}.
  *  The constructor takes time proportional to E log V,
  *  where V is the number of vertices and E is the number of edges.
  *  Afterwards, the {@code distTo()} and {@code hasPathTo()} methods take
  *  constant time and the {@code pathTo()} method takes time proportional to the
  *  number of edges in the shortest path returned.
+ *  The heap has primitive keys, and on a {@link CSREdgeWeightedDigraph}
+ *  the tree is kept as edge positions, so no object is allocated while
+ *  relaxing edges.
  */
 public class DijkstraSP {
 
     private double[] distTo;    // distTo[v] = distance of shortest s->v path.
     private DirectedEdge[] edgeTo;  // edgeTo[v] = last edge on shortest s->v path
-    private IndexMinPQ<Double> pq;  // priority queue of vertices.
+    private DoubleIndexHeap pq;     // priority queue of vertices.
     private DirectedEdge[] edgeToSecond;    // edgeTo[v] = last edge on second shortedt s->v path
     boolean hasSeondPath;
+    private CSREdgeWeightedDigraph csr;     // frozen digraph, if the tree was computed on one
+    private int[] edgeIndex;        // edgeIndex[v] = position in csr of edgeTo[v], or -1
+    private int[] edgeIndexSecond;  // edgeIndexSecond[v] = position in csr of edgeToSecond[v], or -1
 
     // Computes a shortest-paths tree from the source vertex s to every other
     // vertex in the edge-weighted digraph G.
     public DijkstraSP(EdgeWeightedDigraph G, int s) {
+        this(G, s, DoubleIndexHeap.Kind.BINARY);
+    }
+
+    // Computes a shortest-paths tree from the source vertex s to every other
+    // vertex in the edge-weighted digraph G, with a heap of the given kind.
+    public DijkstraSP(EdgeWeightedDigraph G, int s, DoubleIndexHeap.Kind heap) {
         for (DirectedEdge e : G.edges()) {
             if (e.weight() < 0) {
                 throw new IllegalArgumentException("edge " + e + " has negative weight");
@@ -40,7 +54,7 @@ public class DijkstraSP {
         distTo[s] = 0.0;
 
         // relax vertices in order of distance from s.
-        pq = new IndexMinPQ<Double>(G.V());
+        pq = heap.create(G.V());
         pq.insert(s, distTo[s]);
         while (!pq.isEmpty()) {
             int v = pq.delMin();
@@ -53,6 +67,71 @@ public class DijkstraSP {
         assert check(G, s);
     }
 
+    // Computes a shortest-paths tree from the source vertex s to every other
+    // vertex in the frozen edge-weighted digraph G. The tree is kept as
+    // edge positions in G and the heap has primitive keys, so the relax
+    // loop does not allocate.
+    public DijkstraSP(CSREdgeWeightedDigraph G, int s) {
+        this(G, s, DoubleIndexHeap.Kind.BINARY);
+    }
+
+    // Computes a shortest-paths tree from the source vertex s to every other
+    // vertex in the frozen edge-weighted digraph G, with a heap of the given kind.
+    public DijkstraSP(CSREdgeWeightedDigraph G, int s, DoubleIndexHeap.Kind heap) {
+        for (int i = 0; i < G.E(); i++) {
+            if (G.weight(i) < 0) {
+                throw new IllegalArgumentException("edge " + G.edge(i) + " has negative weight");
+            }
+        }
+        csr = G;
+        distTo = new double[G.V()];
+        edgeIndex = new int[G.V()];
+        edgeIndexSecond = new int[G.V()];
+        hasSeondPath = false;
+        validateVertex(s);
+
+        for (int v = 0; v < G.V(); v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+            edgeIndex[v] = -1;
+            edgeIndexSecond[v] = -1;
+        }
+        distTo[s] = 0.0;
+
+        // relax vertices in order of distance from s.
+        DoubleIndexHeap pq = heap.create(G.V());
+        pq.insert(s, distTo[s]);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                relax(G, pq, v, i);
+            }
+        }
+
+        // check optimality conditions
+        assert check(G, s);
+    }
+
+    // relax the edge at position i of G, which leaves v, and update pq if changed
+    private void relax(CSREdgeWeightedDigraph G, DoubleIndexHeap pq, int v, int i) {
+        int w = G.to(i);
+        double weight = G.weight(i);
+        if (distTo[w] > distTo[v] + weight) {
+            distTo[w] = distTo[v] + weight;
+            edgeIndexSecond[w] = i;
+            edgeIndex[w] = i;
+            if (pq.contains(w)) {
+                pq.decreaseKey(w, distTo[w]);
+            }
+            else {
+                pq.insert(w, distTo[w]);
+            }
+        }
+        else if (distTo[w] == distTo[v] + weight) {
+            edgeIndexSecond[w] = i;
+            hasSeondPath = true;
+        }
+    }
+
     // relax edge e and update pq if changed
     private void relax(DirectedEdge e) {
         int v = e.from(), w = e.to();
@@ -88,7 +167,7 @@ public class DijkstraSP {
     // Returns true if there is a second path from the source vertex s to vertex v.
     public boolean hasSecondPathTo(int v) {
         validateVertex(v);
-        return (edgeToSecond[v] != null) && hasSeondPath;
+        return (edgeToSecond(v) != null) && hasSeondPath;
     }
 
     // Returns a shortest path from the source vertex s to vertex v.
@@ -98,7 +177,7 @@ public class DijkstraSP {
             return null;
         }
         Stack<DirectedEdge> path = new Stack<DirectedEdge>();
-        for (DirectedEdge e = edgeTo[v]; e != null; e = edgeTo[e.from()]) {
+        for (DirectedEdge e = edgeTo(v); e != null; e = edgeTo(e.from())) {
             path.push(e);
         }
         return path;
@@ -111,12 +190,29 @@ public class DijkstraSP {
             return null;
         }
         Stack<DirectedEdge> secondPath = new Stack<DirectedEdge>();
-        for (DirectedEdge e = edgeToSecond[v]; e != null; e = edgeToSecond[e.from()]) {
+        for (DirectedEdge e = edgeToSecond(v); e != null; e = edgeToSecond(e.from())) {
             secondPath.push(e);
         }
         return secondPath;
     }
 
+    // Returns the last edge on the shortest s->v path, or null. On a frozen
+    // digraph the edge is created from its position in csr.
+    private DirectedEdge edgeTo(int v) {
+        if (csr == null) {
+            return edgeTo[v];
+        }
+        return edgeIndex[v] < 0 ? null : csr.edge(edgeIndex[v]);
+    }
+
+    // Returns the last edge on the second shortest s->v path, or null.
+    private DirectedEdge edgeToSecond(int v) {
+        if (csr == null) {
+            return edgeToSecond[v];
+        }
+        return edgeIndexSecond[v] < 0 ? null : csr.edge(edgeIndexSecond[v]);
+    }
+
     // check optimality conditions:
     // (1) for all edges e : distTo[e.to()] <= distTo[e.from()] + e.weight()
     // (2) fro all edge e on the SPT: distTo[e.to()] == distTo[e.from()] + e.weight()
@@ -174,6 +270,55 @@ public class DijkstraSP {
         return true;
     }
 
+    // check the same optimality conditions on the frozen digraph G.
+    private boolean check(CSREdgeWeightedDigraph G, int s) {
+
+        // check that distTo[v] and edgeIndex[v] are consistent
+        if (distTo[s] != 0.0 || edgeIndex[s] != -1) {
+            System.err.println("distTo[s] and edgeTo[s] inconsistent");
+            return false;
+        }
+        for (int v = 0; v < G.V(); v++) {
+            if (v == s) {
+                continue;
+            }
+            if (edgeIndex[v] == -1 && distTo[v] != Double.POSITIVE_INFINITY) {
+                System.err.println("distTo[] and edgeTo[] inconsistent");
+                return false;
+            }
+        }
+
+        // check that all edges e = v->w satisfy distTo[w] <= distTo[v] + e.weight()
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                if (G.weight(i) < 0) {
+                    System.err.println("negative edge weight detected");
+                    return false;
+                }
+                if (distTo[v] + G.weight(i) < distTo[G.to(i)]) {
+                    System.err.println("edge " + G.edge(i) + " not relaxed");
+                    return false;
+                }
+            }
+        }
+
+        // check that all edges e = v->w on SPT satisfy distTo[w] == distTo[v] + e.weight()
+        for (int w = 0; w < G.V(); w++) {
+            if (edgeIndex[w] == -1) {
+                continue;
+            }
+            int i = edgeIndex[w];
+            if (w != G.to(i)) {
+                return false;
+            }
+            if (distTo[G.from(i)] + G.weight(i) != distTo[w]) {
+                System.err.println("edge " + G.edge(i) + " on shortest path not tight");
+                return false;
+            }
+        }
+        return true;
+    }
+
     // throw new IllegalArgumentException unless 0 <= v < V.
     private void validateVertex(int v) {
         int V = distTo.length;
@@ -182,11 +327,14 @@ public class DijkstraSP {
         }
     }
 
-    // Unit tests the DijkstraSP data type.
+    // Unit tests the DijkstraSP data type. With a file and a source vertex,
+    // times every kind of heap on the digraph in the file, with the weights
+    // scaled to integers so that the radix heap can run too.
     public static void main(String[] args) {
-        // In in = new In(args[0]);
-        // EdgeWeightedDigraph G = new EdgeWeightedDigraph(in);
-        // int s = Integer.parseInt(args[1]);
+        if (args.length >= 2) {
+            compareHeaps(new EdgeWeightedDigraph(new In(args[0])), Integer.parseInt(args[1]));
+            return;
+        }
 
         EdgeWeightedDigraph G = new EdgeWeightedDigraph(6);
         G.addEdge(new DirectedEdge(0, 1, 2));
@@ -224,4 +372,32 @@ public class DijkstraSP {
         }
 
     }
+
+    // times DijkstraSP from s with each kind of heap, on G with its weights
+    // multiplied by 1000 and rounded, and checks that the distances agree
+    private static void compareHeaps(EdgeWeightedDigraph G, int s) {
+        EdgeWeightedDigraph scaled = new EdgeWeightedDigraph(G.V());
+        for (DirectedEdge e : G.edges())
+            scaled.addEdge(new DirectedEdge(e.from(), e.to(), Math.rint(1000 * e.weight())));
+        CSREdgeWeightedDigraph csr = new CSREdgeWeightedDigraph(scaled);
+
+        DijkstraSP expected = new DijkstraSP(scaled, s);
+        for (DoubleIndexHeap.Kind heap : DoubleIndexHeap.Kind.values()) {
+            int differ = 0;
+            for (int round = 0; round < 2; round++) {   // the first round warms up the JIT
+                Stopwatch timer = new Stopwatch();
+                DijkstraSP sp = new DijkstraSP(scaled, s, heap);
+                double time1 = timer.elapsedTime();
+                timer = new Stopwatch();
+                DijkstraSP frozen = new DijkstraSP(csr, s, heap);
+                double time2 = timer.elapsedTime();
+                for (int v = 0; v < G.V(); v++) {
+                    if (sp.distTo(v) != expected.distTo(v))     differ++;
+                    if (frozen.distTo(v) != expected.distTo(v)) differ++;
+                }
+                if (round == 1)
+                    StdOut.printf("%-8s %.3f s, %.3f s on CSR, %d distances differ\n", heap, time1, time2, differ);
+            }
+        }
+    }
 }
\ No newline at end of file
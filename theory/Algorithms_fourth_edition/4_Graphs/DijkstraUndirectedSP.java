@@ -2,7 +2,9 @@
  *  The {@code DijkstraUndirectedSP} class represents a data type for solving
  *  the single-source shortest paths problem in edge-weighted graphs
  *  where the edge weights are nonnegative.
- *  This implementation uses Dijkstra's algorithm with a binary heap.
+ *  This implementation uses Dijkstra's algorithm with a binary heap,
+ *  or with any other {@link DoubleIndexHeap} chosen by its
+ *  {@link DoubleIndexHeap.Kind}.
  *  The constructor takes time proportional to E log V,
  *  where V is the number of vertices and E is the number of edges.
  *  Afterwards, the {@code distTo()} and {@code hasPathTo()} methods take
@@ -13,11 +15,17 @@ public class DijkstraUndirectedSP {
 
     private double[] distTo;    // distTo[v] = distance of shortest s->v path.
     private Edge[] edgeTo;  // edgeTo[v] = last edge on shortest s->v path.
-    private IndexMinPQ<Double> pq;  // priority queue of vertices
+    private DoubleIndexHeap pq;     // priority queue of vertices
 
     // Computes a shprtest-path tree from the source vertex s to every other vertex 
     // in the edge-weighted graph G.
     public DijkstraUndirectedSP(EdgeWeightedGraph G, int s) {
+        this(G, s, DoubleIndexHeap.Kind.BINARY);
+    }
+
+    // Computes a shortest-path tree from the source vertex s to every other vertex
+    // in the edge-weighted graph G, with a heap of the given kind.
+    public DijkstraUndirectedSP(EdgeWeightedGraph G, int s, DoubleIndexHeap.Kind heap) {
         for (Edge e : G.edges()) {
             if (e.weight() < 0) {
                 throw new IllegalArgumentException("edge " + e + " has negative weight");
@@ -34,7 +42,7 @@ public class DijkstraUndirectedSP {
         distTo[s] = 0.0;
 
         // relax vertices in order of distance from s
-        pq = new IndexMinPQ<Double>(G.V());
+        pq = heap.create(G.V());
         pq.insert(s, distTo[s]);
         while (!pq.isEmpty()) {
             int v = pq.delMin();
@@ -15,7 +15,7 @@ public class DirectedDFS {
     private int count;          // number of vertices reachable from s
 
     // Computes the vertices in digraph G that are reachable from the source vertex s.
-    public DirectedDFS(Digraph G, int s) {
+    public DirectedDFS(AdjacencyDigraph G, int s) {
         marked = new boolean[G.V()];
         validateVertex(s);
         dfs(G, s);
@@ -23,7 +23,7 @@ public class DirectedDFS {
 
     // Computes the vertices in digraph G that are connected to any of the 
     // source vertices sources.
-    public DirectedDFS(Digraph G, Iterable<Integer> sources) {
+    public DirectedDFS(AdjacencyDigraph G, Iterable<Integer> sources) {
         marked = new boolean[G.V()];
         validateVertex(sources);
         for (int v : sources) {
@@ -32,7 +32,7 @@ public class DirectedDFS {
         }
     }
 
-    private void dfs(Digraph G, int v) {
+    private void dfs(AdjacencyDigraph G, int v) {
         count++;
         marked[v] = true;
         for (int w : G.adj(v)) {
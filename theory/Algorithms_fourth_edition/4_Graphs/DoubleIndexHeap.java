@@ -0,0 +1,58 @@
+/**
+ *  The {@code DoubleIndexHeap} interface is an indexed min priority queue
+ *  of primitive double keys, with the operations that Dijkstra's and
+ *  Prim's algorithms need. Its implementations are
+ *  {@link DoubleIndexMinPQ} (binary heap), {@link DAryIndexMinPQ}
+ *  (4-ary heap), {@link PairingIndexMinPQ} (pairing heap) and
+ *  {@link RadixIndexMinPQ} (radix heap, for nonnegative integer keys that
+ *  never go below the last minimum removed); {@link Kind} names them so
+ *  that {@link DijkstraSP}, {@link DijkstraUndirectedSP} and
+ *  {@link PrimMST} can take the heap as a constructor argument.
+ */
+public interface DoubleIndexHeap {
+
+    // The heap implementations.
+    enum Kind {
+        BINARY, FOUR_ARY, PAIRING, RADIX;
+
+        // Returns an empty heap of this kind with indices between 0 and maxN - 1.
+        public DoubleIndexHeap create(int maxN) {
+            switch (this) {
+                case BINARY:   return new DoubleIndexMinPQ(maxN);
+                case FOUR_ARY: return new DAryIndexMinPQ(maxN, 4);
+                case PAIRING:  return new PairingIndexMinPQ(maxN);
+                default:       return new RadixIndexMinPQ(maxN);
+            }
+        }
+    }
+
+    // Returns true if this priority queue is empty.
+    boolean isEmpty();
+
+    // Is i an index on this priority queue?
+    boolean contains(int i);
+
+    // Returns the number of keys on this priority queue.
+    int size();
+
+    // Associates key with index i.
+    void insert(int i, double key);
+
+    // Returns an index associated with a minimum key.
+    int minIndex();
+
+    // Returns a minimum key.
+    double minKey();
+
+    // Removes a minimum key and returns its associated index.
+    int delMin();
+
+    // Returns the key associated with index i.
+    double keyOf(int i);
+
+    // Decrease the key associated with index i to the specified value.
+    void decreaseKey(int i, double key);
+
+    // Removes every index.
+    void clear();
+}
@@ -0,0 +1,176 @@
+import java.util.NoSuchElementException;
+// The DoubleIndexMinPQ class represents an indexed priority queue of
+// primitive double keys. It has the same binary-heap layout and the
+// same API as IndexMinPQ<Double>, but the keys are kept in a double[]
+// so insert() and decreaseKey() never box a Double. It is the BINARY
+// kind of DoubleIndexHeap.
+public class DoubleIndexMinPQ implements DoubleIndexHeap {
+    private int maxN;       // maximum number of elements on PQ.
+    private int n;          // number of elements on PQ.
+    private int[] pq;       // binary heap using 1-based indexing.
+    private int[] qp;       // inverse of pq -- qp[pq[i]] = pq[qp[i]] = i
+    private double[] keys;  // keys[i] = priority of i
+
+    // Initializes an empty indexed priority queue with indices between 0
+    // and maxN - 1.
+    public DoubleIndexMinPQ(int maxN) {
+        if (maxN < 0)
+            throw new IllegalArgumentException();
+        this.maxN = maxN;
+        n = 0;
+        keys = new double[maxN + 1];
+        pq = new int[maxN + 1];
+        qp = new int[maxN + 1];
+        for (int i = 0; i <= maxN; i++)
+            qp[i] = -1;
+    }
+
+    // Returns true if this priority queue is empty.
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    // Is i an index on this priority queue?
+    public boolean contains(int i) {
+        if (i < 0 || i >= maxN)
+            throw new IndexOutOfBoundsException();
+        return qp[i] != -1;
+    }
+
+    // Returns the number of keys on this priority queue.
+    public int size() {
+        return n;
+    }
+
+    // Associates key with index i
+    public void insert(int i, double key) {
+        if (contains(i))
+            throw new IllegalArgumentException("index is already in the priority queue.");
+        n++;
+        qp[i] = n;
+        pq[n] = i;
+        keys[i] = key;
+        swim(n);
+    }
+
+    // Returns an index associated with a minimum key.
+    public int minIndex() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        return pq[1];
+    }
+
+    // Returns a minimum key.
+    public double minKey() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        return keys[pq[1]];
+    }
+
+    // Removes a minimum key and returns its associated index.
+    public int delMin() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        int min = pq[1];
+        exch(1, n--);
+        sink(1);
+        qp[min] = -1;   // delete
+        pq[n + 1] = -1;     // not needed
+        return min;
+    }
+
+    // Returns the key associated with index i
+    public double keyOf(int i) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue.");
+        return keys[i];
+    }
+
+    // Decrease the key associated with index i to the specified value.
+    public void decreaseKey(int i, double key) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] <= key)
+            throw new IllegalArgumentException("Calling decreaseKey() with given "
+                + "argument would not strictly decrease the key");
+        keys[i] = key;
+        swim(qp[i]);
+    }
+
+    // Increase the key associated with index i to the specified value.
+    public void increaseKey(int i, double key) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] >= key)
+            throw new IllegalArgumentException("Calling increaseKey() with given argument would not strictly increase the key");
+        keys[i] = key;
+        sink(qp[i]);
+    }
+
+    // Remove the key associated with index i
+    public void delete(int i) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue");
+        int index = qp[i];
+        exch(index, n--);
+        swim(index);
+        sink(index);
+        qp[i] = -1;
+    }
+
+    // Removes every index, in time proportional to their number.
+    public void clear() {
+        for (int k = 1; k <= n; k++) {
+            qp[pq[k]] = -1;
+            pq[k] = -1;
+        }
+        n = 0;
+    }
+
+    // General helper functions.
+    private boolean greater(int i, int j) {
+        return keys[pq[i]] > keys[pq[j]];
+    }
+
+    private void exch(int i, int j) {
+        int swap = pq[i];
+        pq[i] = pq[j];
+        pq[j] = swap;
+        qp[pq[i]] = i;
+        qp[pq[j]] = j;
+    }
+
+    // Heap helper functions.
+    private void swim(int k) {
+        while (k > 1 && greater(k / 2, k)) {
+            exch(k, k / 2);
+            k = k / 2;
+        }
+    }
+
+    private void sink(int k) {
+        while (2 * k <= n) {
+            int j = 2 * k;
+            if (j < n && greater(j, j + 1))    j++;
+            if (!greater(k, j))    break;
+            exch(k, j);
+            k = j;
+        }
+    }
+
+    public static void main(String[] args) {
+        double[] keys = { 0.5, 0.25, 0.75, 0.125, 1.0, 0.375 };
+        DoubleIndexMinPQ pq = new DoubleIndexMinPQ(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            pq.insert(i, keys[i]);
+        }
+        pq.decreaseKey(4, 0.0625);
+
+        // delete and print each key
+        while (!pq.isEmpty()) {
+            double key = pq.minKey();
+            int i = pq.delMin();
+            StdOut.println(i + " " + key);
+        }
+    }
+}
@@ -0,0 +1,481 @@
+// Dynamic single-source shortest paths, in the style of Ramalingam and Reps.
+// The shortest-paths tree of DijkstraSP is kept up to date while edges are
+// added, removed, or change weight, and only the part of the tree that an
+// update can change is recomputed.
+
+/**
+ *  The {@code DynamicDijkstraSP} class represents a data type for solving the
+ *  single-source shortest paths problem in an edge-weighted digraph whose
+ *  edges change, where the edge weights are nonnegative.
+ *  It keeps its own copy of the digraph, with an id for every edge: the
+ *  edges of the initial digraph are numbered 0 through E - 1 in the order
+ *  of {@code G.edges()} and {@code addEdge()} returns the id of a new edge.
+ *  <p>
+ *  After an edge v->w gets cheaper or is added, only the vertices whose
+ *  distance goes down are touched: w is relaxed through the edge and the
+ *  improvement is propagated with Dijkstra's algorithm from w.
+ *  After an edge gets more expensive or is removed, nothing changes unless
+ *  it is the tree edge into w; then the affected vertices are the subtree
+ *  of w. Each of them gets the best distance through an edge from outside
+ *  the subtree, and Dijkstra's algorithm restricted to the subtree finishes
+ *  the job. Either way the work is proportional to the edges of the
+ *  touched vertices times log V, instead of E log V for a new
+ *  {@link DijkstraSP}; the work arrays are reused, with a stamp per
+ *  vertex instead of clearing them.
+ *  <p>
+ *  Queries and updates can come from different threads: updates hold a
+ *  write lock and queries a read lock, so a query sees the tree either
+ *  before or after an update, never in the middle of a repair.
+ */
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class DynamicDijkstraSP {
+    private static final double EPSILON = 1E-9;  // rounding slack in check()
+
+    private final int V;            // number of vertices
+    private final int s;            // source vertex
+    private int E;                  // number of edge ids handed out
+    private int[] from, to;         // from[e]->to[e] is edge e
+    private double[] weight;        // weight[e] = weight of edge e
+    private boolean[] removed;      // removed[e] = has edge e been removed ?
+    private final IntList[] out;    // out[v] = ids of the edges leaving v
+    private final IntList[] in;     // in[v] = ids of the edges entering v
+
+    private final double[] distTo;  // distTo[v] = distance of shortest s->v path
+    private final int[] edgeTo;     // edgeTo[v] = id of last edge on shortest s->v path, or -1
+
+    private final DoubleIndexMinPQ pq;  // work heap, empty between updates
+    private final int[] stamp;          // stamp[v] == epoch iff v is in the current subtree
+    private int epoch;
+    private long touched;               // vertices touched by all updates so far
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Computes a shortest-paths tree from the source vertex s to every other
+    // vertex in a copy of the edge-weighted digraph G.
+    public DynamicDijkstraSP(EdgeWeightedDigraph G, int s) {
+        this.V = G.V();
+        this.s = s;
+        validateVertex(s);
+        from = new int[Math.max(1, G.E())];
+        to = new int[from.length];
+        weight = new double[from.length];
+        removed = new boolean[from.length];
+        out = new IntList[V];
+        in = new IntList[V];
+        for (int v = 0; v < V; v++) {
+            out[v] = new IntList();
+            in[v] = new IntList();
+        }
+        for (DirectedEdge e : G.edges()) {
+            if (e.weight() < 0)
+                throw new IllegalArgumentException("edge " + e + " has negative weight");
+            insert(e.from(), e.to(), e.weight());
+        }
+
+        distTo = new double[V];
+        edgeTo = new int[V];
+        pq = new DoubleIndexMinPQ(V);
+        stamp = new int[V];
+        for (int v = 0; v < V; v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+            edgeTo[v] = -1;
+        }
+        distTo[s] = 0.0;
+        pq.insert(s, 0.0);
+        propagate();
+        touched = 0;
+
+        // check optimality conditions
+        assert check();
+    }
+
+    // stores edge v->w and returns its id
+    private int insert(int v, int w, double x) {
+        if (E == from.length) {
+            from = Arrays.copyOf(from, 2 * E);
+            to = Arrays.copyOf(to, 2 * E);
+            weight = Arrays.copyOf(weight, 2 * E);
+            removed = Arrays.copyOf(removed, 2 * E);
+        }
+        from[E] = v;
+        to[E] = w;
+        weight[E] = x;
+        out[v].add(E);
+        in[w].add(E);
+        return E++;
+    }
+
+    // Adds the edge v->w of the given weight and returns its id.
+    public int addEdge(int v, int w, double weight) {
+        validateVertex(v);
+        validateVertex(w);
+        validateWeight(weight);
+        lock.writeLock().lock();
+        try {
+            int e = insert(v, w, weight);
+            improve(e);
+            assert check();
+            return e;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Removes the edge with the given id.
+    public void removeEdge(int e) {
+        lock.writeLock().lock();
+        try {
+            validateEdge(e);
+            removed[e] = true;
+            out[from[e]].remove(e);
+            in[to[e]].remove(e);
+            worsen(e);
+            assert check();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Changes the weight of the edge with the given id.
+    public void setWeight(int e, double weight) {
+        validateWeight(weight);
+        lock.writeLock().lock();
+        try {
+            validateEdge(e);
+            double old = this.weight[e];
+            this.weight[e] = weight;
+            if (weight < old)      improve(e);
+            else if (weight > old) worsen(e);
+            assert check();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Lowers the weight of the edge with the given id.
+    public void decreaseWeight(int e, double weight) {
+        if (weight > weight(e))
+            throw new IllegalArgumentException("weight " + weight + " is larger than the weight of edge " + e);
+        setWeight(e, weight);
+    }
+
+    // Raises the weight of the edge with the given id.
+    public void increaseWeight(int e, double weight) {
+        if (weight < weight(e))
+            throw new IllegalArgumentException("weight " + weight + " is smaller than the weight of edge " + e);
+        setWeight(e, weight);
+    }
+
+    // edge e got cheaper or is new: relax it and pass the improvement on
+    private void improve(int e) {
+        int v = from[e], w = to[e];
+        if (distTo[v] + weight[e] < distTo[w]) {
+            distTo[w] = distTo[v] + weight[e];
+            edgeTo[w] = e;
+            pq.insert(w, distTo[w]);
+            propagate();
+        }
+    }
+
+    // Dijkstra's algorithm from the vertices on pq, which only touches
+    // vertices whose distance goes down
+    private void propagate() {
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            touched++;
+            IntList list = out[v];
+            for (int k = 0; k < list.n; k++) {
+                int e = list.a[k];
+                int w = to[e];
+                if (distTo[w] > distTo[v] + weight[e]) {
+                    distTo[w] = distTo[v] + weight[e];
+                    edgeTo[w] = e;
+                    if (pq.contains(w)) pq.decreaseKey(w, distTo[w]);
+                    else                pq.insert(w, distTo[w]);
+                }
+            }
+        }
+    }
+
+    // edge e got more expensive or is gone: recompute the subtree below it
+    private void worsen(int e) {
+        int root = to[e];
+        if (edgeTo[root] != e)
+            return;     // not a tree edge, so no distance changes
+
+        // the subtree of root: w is a child of v if edgeTo[w] leaves v
+        epoch++;
+        IntList subtree = new IntList();
+        stamp[root] = epoch;
+        subtree.add(root);
+        for (int k = 0; k < subtree.n; k++) {
+            int v = subtree.a[k];
+            IntList list = out[v];
+            for (int j = 0; j < list.n; j++) {
+                int w = to[list.a[j]];
+                if (edgeTo[w] == list.a[j] && stamp[w] != epoch) {
+                    stamp[w] = epoch;
+                    subtree.add(w);
+                }
+            }
+        }
+
+        // best distance to each subtree vertex through an edge from outside
+        for (int k = 0; k < subtree.n; k++) {
+            int w = subtree.a[k];
+            distTo[w] = Double.POSITIVE_INFINITY;
+            edgeTo[w] = -1;
+        }
+        for (int k = 0; k < subtree.n; k++) {
+            int w = subtree.a[k];
+            IntList list = in[w];
+            for (int j = 0; j < list.n; j++) {
+                int f = list.a[j];
+                int v = from[f];
+                if (stamp[v] != epoch && distTo[v] + weight[f] < distTo[w]) {
+                    distTo[w] = distTo[v] + weight[f];
+                    edgeTo[w] = f;
+                }
+            }
+            if (distTo[w] < Double.POSITIVE_INFINITY)
+                pq.insert(w, distTo[w]);
+        }
+
+        // Dijkstra's algorithm inside the subtree; vertices outside it
+        // cannot improve, since no distance went down
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            touched++;
+            IntList list = out[v];
+            for (int k = 0; k < list.n; k++) {
+                int f = list.a[k];
+                int w = to[f];
+                if (stamp[w] == epoch && distTo[w] > distTo[v] + weight[f]) {
+                    distTo[w] = distTo[v] + weight[f];
+                    edgeTo[w] = f;
+                    if (pq.contains(w)) pq.decreaseKey(w, distTo[w]);
+                    else                pq.insert(w, distTo[w]);
+                }
+            }
+        }
+    }
+
+    // growable list of ints
+    private static class IntList {
+        private int[] a = new int[4];
+        private int n;
+
+        void add(int x) {
+            if (n == a.length)
+                a = Arrays.copyOf(a, 2 * n);
+            a[n++] = x;
+        }
+
+        // removes one occurrence of x, not keeping the order
+        void remove(int x) {
+            for (int k = 0; k < n; k++) {
+                if (a[k] == x) {
+                    a[k] = a[--n];
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns the length of a shortest path from the source vertex s to vertex v.
+    public double distTo(int v) {
+        validateVertex(v);
+        lock.readLock().lock();
+        try {
+            return distTo[v];
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns true if there is a path from the source vertex s to vertex v.
+    public boolean hasPathTo(int v) {
+        return distTo(v) < Double.POSITIVE_INFINITY;
+    }
+
+    // Returns a shortest path from the source vertex s to vertex v.
+    public Iterable<DirectedEdge> pathTo(int v) {
+        validateVertex(v);
+        lock.readLock().lock();
+        try {
+            if (distTo[v] == Double.POSITIVE_INFINITY)
+                return null;
+            Stack<DirectedEdge> path = new Stack<DirectedEdge>();
+            for (int e = edgeTo[v]; e != -1; e = edgeTo[from[e]])
+                path.push(new DirectedEdge(from[e], to[e], weight[e]));
+            return path;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns the edge with the given id, with its current weight.
+    public DirectedEdge edge(int e) {
+        lock.readLock().lock();
+        try {
+            validateEdge(e);
+            return new DirectedEdge(from[e], to[e], weight[e]);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns the current weight of the edge with the given id.
+    public double weight(int e) {
+        return edge(e).weight();
+    }
+
+    // Returns the id of an edge v->w, or -1 if there is none.
+    public int findEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        lock.readLock().lock();
+        try {
+            IntList list = out[v];
+            for (int k = 0; k < list.n; k++) {
+                if (to[list.a[k]] == w)
+                    return list.a[k];
+            }
+            return -1;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns the current digraph, as an EdgeWeightedDigraph.
+    public EdgeWeightedDigraph digraph() {
+        lock.readLock().lock();
+        try {
+            EdgeWeightedDigraph G = new EdgeWeightedDigraph(V);
+            for (int e = 0; e < E; e++) {
+                if (!removed[e])
+                    G.addEdge(new DirectedEdge(from[e], to[e], weight[e]));
+            }
+            return G;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // check optimality conditions:
+    // (i) for all edges e:            distTo[e.to()] <= distTo[e.from()] + e.weight()
+    // (ii) for all edges e on the SPT: distTo[e.to()] == distTo[e.from()] + e.weight()
+    private boolean check() {
+        if (distTo[s] != 0.0 || edgeTo[s] != -1) {
+            System.err.println("distTo[s] and edgeTo[s] inconsistent");
+            return false;
+        }
+        for (int v = 0; v < V; v++) {
+            if (v == s) continue;
+            if (edgeTo[v] == -1 && distTo[v] != Double.POSITIVE_INFINITY) {
+                System.err.println("distTo[] and edgeTo[] inconsistent");
+                return false;
+            }
+        }
+        for (int e = 0; e < E; e++) {
+            if (removed[e]) continue;
+            if (distTo[from[e]] + weight[e] < distTo[to[e]] - EPSILON) {
+                System.err.println("edge " + e + " not relaxed");
+                return false;
+            }
+        }
+        for (int w = 0; w < V; w++) {
+            int e = edgeTo[w];
+            if (e == -1) continue;
+            if (removed[e] || to[e] != w) {
+                System.err.println("edgeTo[" + w + "] is not an edge into " + w);
+                return false;
+            }
+            if (Math.abs(distTo[from[e]] + weight[e] - distTo[w]) > EPSILON) {
+                System.err.println("edge " + e + " on shortest path not tight");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // throw an IllegalArgumentException unless e is the id of an edge that is still there
+    private void validateEdge(int e) {
+        if (e < 0 || e >= E)
+            throw new IllegalArgumentException("edge id " + e + " is not between 0 and " + (E - 1));
+        if (removed[e])
+            throw new IllegalArgumentException("edge " + e + " has been removed");
+    }
+
+    // throw an IllegalArgumentException unless weight is nonnegative
+    private static void validateWeight(double weight) {
+        if (!(weight >= 0.0))
+            throw new IllegalArgumentException("weight " + weight + " is not nonnegative");
+    }
+
+    // Unit tests the DynamicDijkstraSP data type: applies random updates to
+    // the digraph and compares the distances with a new DijkstraSP after each batch.
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(in);
+        int s = Integer.parseInt(args[1]);
+        int updates = Integer.parseInt(args[2]);
+        DynamicDijkstraSP sp = new DynamicDijkstraSP(G, s);
+
+        int differ = 0;
+        double rebuild = 0.0;
+        Stopwatch timer = new Stopwatch();
+        for (int i = 1; i <= updates; i++) {
+            int e = StdRandom.uniform(sp.E);
+            int kind = StdRandom.uniform(4);
+            if (sp.removed[e] || kind == 0) {
+                sp.addEdge(StdRandom.uniform(G.V()), StdRandom.uniform(G.V()), StdRandom.uniform());
+            }
+            else if (kind == 1) {
+                sp.removeEdge(e);
+            }
+            else if (kind == 2) {
+                sp.decreaseWeight(e, sp.weight(e) * StdRandom.uniform());
+            }
+            else {
+                sp.increaseWeight(e, sp.weight(e) + StdRandom.uniform());
+            }
+
+            if (i % 100 == 0 || i == updates) {
+                Stopwatch timer2 = new Stopwatch();
+                DijkstraSP fresh = new DijkstraSP(sp.digraph(), s);
+                rebuild += timer2.elapsedTime();
+                for (int v = 0; v < G.V(); v++) {
+                    if (Math.abs(fresh.distTo(v) - sp.distTo(v)) > EPSILON
+                     && fresh.distTo(v) != sp.distTo(v))
+                        differ++;
+                }
+            }
+        }
+        double time = timer.elapsedTime() - rebuild;
+        StdOut.printf("%d updates in %.3f s, %.1f vertices touched per update (V = %d)\n",
+                      updates, time, (double) sp.touched / updates, G.V());
+        StdOut.println(differ + " distances differ");
+        if (sp.hasPathTo(G.V() - 1)) {
+            for (DirectedEdge e : sp.pathTo(G.V() - 1))
+                StdOut.print(e + "   ");
+            StdOut.println();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+// Lowest common ancestors in a rooted tree (or forest) in constant time
+// per query, by reduction to range minimum queries as in LCARMQ.java:
+// the LCA of v and w is the shallowest vertex of the Euler tour between
+// the first visits of v and w. The range minimum queries go to a sparse
+// table (RMQST.java) instead of a segment tree, so a query takes two
+// table lookups instead of O(log n) time.
+// Tarjan's offline algorithm answers a whole batch of queries in one
+// depth-first search with a union-find, in time nearly linear in the
+// number of vertices plus queries.
+/**
+ *  The {@code EulerTourLCA} class represents a data type for answering
+ *  lowest common ancestor queries in a rooted forest, given by the
+ *  parent of each vertex or as an undirected tree {@link Graph} and a root.
+ *  <p>
+ *  The constructor stores the children of every vertex in
+ *  compressed-sparse-row form and walks the Euler tour of each tree with
+ *  an explicit {@code int[]} stack, recording the vertex and its depth at
+ *  each of the 2n - t steps (for t trees) and the first step at each
+ *  vertex; an {@link RMQST} over the depths finds the shallowest step
+ *  between two first steps. Everything is a primitive array; the sparse
+ *  table takes about 2n log(2n) ints.
+ *  <p>
+ *  The constructor takes time proportional to n log n. Afterwards,
+ *  {@code lca()} and {@code distance()} take constant time, and
+ *  {@code lcaOffline()} takes time proportional to n + q α(n) for q
+ *  queries, using only O(n + q) extra space.
+ */
+public class EulerTourLCA {
+
+    private final int n;            // number of vertices
+    private final int[] parent;     // parent[v] = parent of v, or -1 if v is a root
+    private final int[] depth;      // depth[v] = depth of v in its tree
+    private final int[] tree;       // tree[v] = root of the tree of v
+    private final int[] childStart; // the children of v are child[childStart[v] .. childStart[v+1]-1]
+    private final int[] child;
+    private final int[] first;      // first[v] = first step of the Euler tour at v
+    private final int[] euler;      // euler[i] = vertex at step i
+    private final int[] level;      // level[i] = depth of euler[i]
+    private final RMQST rmq;
+
+    // Initializes the data type for the forest in which the parent of v is
+    // parent[v], or v is a root if parent[v] is -1 or v.
+    public EulerTourLCA(int[] parent) {
+        n = parent.length;
+        this.parent = new int[n];
+        for (int v = 0; v < n; v++) {
+            int p = parent[v];
+            if (p < -1 || p >= n)
+                throw new IllegalArgumentException("parent " + p + " of " + v + " is not between -1 and " + (n - 1));
+            this.parent[v] = p == v ? -1 : p;
+        }
+
+        // children by counting sort on the parent, in increasing order
+        childStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            if (this.parent[v] != -1)
+                childStart[this.parent[v] + 1]++;
+        }
+        for (int v = 0; v < n; v++)
+            childStart[v + 1] += childStart[v];
+        child = new int[childStart[n]];
+        int[] next = java.util.Arrays.copyOf(childStart, n);
+        for (int v = 0; v < n; v++) {
+            if (this.parent[v] != -1)
+                child[next[this.parent[v]]++] = v;
+        }
+
+        depth = new int[n];
+        tree = new int[n];
+        first = new int[n];
+        euler = new int[Math.max(0, 2 * n - 1)];
+        level = new int[euler.length];
+        java.util.Arrays.fill(first, -1);
+        int steps = 0;
+        int[] stack = new int[n];
+        for (int r = 0; r < n; r++) {
+            if (this.parent[r] != -1)
+                continue;
+            int top = 0;
+            stack[top++] = r;
+            next[r] = childStart[r];
+            first[r] = steps;
+            tree[r] = r;
+            euler[steps] = r;
+            level[steps++] = 0;
+            while (top > 0) {
+                int v = stack[top - 1];
+                if (next[v] < childStart[v + 1]) {
+                    int w = child[next[v]++];
+                    depth[w] = depth[v] + 1;
+                    tree[w] = r;
+                    next[w] = childStart[w];
+                    first[w] = steps;
+                    stack[top++] = w;
+                    v = w;                  // down to the child
+                }
+                else {
+                    top--;
+                    if (top == 0)
+                        continue;
+                    v = stack[top - 1];     // back up to the parent
+                }
+                euler[steps] = v;
+                level[steps++] = depth[v];
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            if (first[v] == -1)
+                throw new IllegalArgumentException("vertex " + v + " is on a cycle of parents");
+        }
+        rmq = new RMQST(level, steps);
+    }
+
+    // Initializes the data type for the tree G rooted at root.
+    public EulerTourLCA(Graph G, int root) {
+        this(parents(new CSRGraph(G), root));
+    }
+
+    // the parent of each vertex of the tree G rooted at root, by breadth-first search
+    private static int[] parents(CSRGraph G, int root) {
+        int V = G.V();
+        if (root < 0 || root >= V)
+            throw new IllegalArgumentException("vertex " + root + " is not between 0 and " + (V - 1));
+        if (G.E() != V - 1)
+            throw new IllegalArgumentException("graph with " + V + " vertices and " + G.E() + " edges is not a tree");
+        int[] parent = new int[V];
+        java.util.Arrays.fill(parent, -2);
+        int[] queue = new int[V];
+        int head = 0, tail = 0;
+        queue[tail++] = root;
+        parent[root] = -1;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                int w = G.target(i);
+                if (parent[w] == -2) {
+                    parent[w] = v;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        if (tail != V)
+            throw new IllegalArgumentException("graph is not connected, so it is not a tree");
+        return parent;
+    }
+
+    // Returns the number of vertices.
+    public int size() {
+        return n;
+    }
+
+    // Returns the parent of v, or -1 if v is a root.
+    public int parent(int v) {
+        validateVertex(v);
+        return parent[v];
+    }
+
+    // Returns the depth of v, the number of edges from v to its root.
+    public int depth(int v) {
+        validateVertex(v);
+        return depth[v];
+    }
+
+    // Returns the lowest common ancestor of v and w, or -1 if they are in
+    // different trees.
+    public int lca(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        if (tree[v] != tree[w])
+            return -1;
+        int i = first[v];
+        int j = first[w];
+        if (i > j) {
+            int t = i; i = j; j = t;
+        }
+        return euler[rmq.query(i, j, level)];
+    }
+
+    // Returns the number of edges on the path between v and w, or -1 if
+    // they are in different trees.
+    public int distance(int v, int w) {
+        int a = lca(v, w);
+        return a == -1 ? -1 : depth[v] + depth[w] - 2 * depth[a];
+    }
+
+    // Returns the lowest common ancestors of v[k] and w[k] for every k, or
+    // -1 for the pairs in different trees, one sparse-table query each.
+    public int[] lca(int[] v, int[] w) {
+        if (v.length != w.length)
+            throw new IllegalArgumentException("v[] and w[] must have the same length");
+        int[] answer = new int[v.length];
+        for (int k = 0; k < v.length; k++)
+            answer[k] = lca(v[k], w[k]);
+        return answer;
+    }
+
+    // Returns the same answers as lca(v, w), by Tarjan's offline algorithm:
+    // the queries are grouped by vertex, and a depth-first search unions
+    // each finished child into its parent's set, whose ancestor is then
+    // the parent; when v is finished, the lca of v and a finished w is the
+    // ancestor of the set of w. Uses no sparse table.
+    public int[] lcaOffline(int[] v, int[] w) {
+        if (v.length != w.length)
+            throw new IllegalArgumentException("v[] and w[] must have the same length");
+        int q = v.length;
+        for (int k = 0; k < q; k++) {
+            validateVertex(v[k]);
+            validateVertex(w[k]);
+        }
+
+        // the queries at each vertex, in compressed-sparse-row form
+        int[] queryStart = new int[n + 1];
+        for (int k = 0; k < q; k++) {
+            queryStart[v[k] + 1]++;
+            queryStart[w[k] + 1]++;
+        }
+        for (int x = 0; x < n; x++)
+            queryStart[x + 1] += queryStart[x];
+        int[] query = new int[2 * q];
+        int[] at = java.util.Arrays.copyOf(queryStart, n);
+        for (int k = 0; k < q; k++) {
+            query[at[v[k]]++] = k;
+            query[at[w[k]]++] = k;
+        }
+
+        int[] answer = new int[q];
+        java.util.Arrays.fill(answer, -1);
+        int[] id = new int[n];          // union-find parent links
+        int[] size = new int[n];        // size of each set, at its root
+        int[] ancestor = new int[n];    // ancestor[find(x)] = the ancestor of x's set
+        boolean[] done = new boolean[n];
+        int[] next = at;                // reused: position of the next child to visit
+        int[] stack = new int[n];
+        for (int r = 0; r < n; r++) {
+            if (parent[r] != -1)
+                continue;
+            int top = 0;
+            stack[top++] = r;
+            makeSet(r, id, size, ancestor, next);
+            while (top > 0) {
+                int x = stack[top - 1];
+                if (next[x] < childStart[x + 1]) {
+                    int y = child[next[x]++];
+                    makeSet(y, id, size, ancestor, next);
+                    stack[top++] = y;
+                    continue;
+                }
+                top--;
+                done[x] = true;
+                for (int i = queryStart[x]; i < queryStart[x + 1]; i++) {
+                    int k = query[i];
+                    int y = v[k] == x ? w[k] : v[k];
+                    if (done[y] && tree[y] == r)
+                        answer[k] = ancestor[find(y, id)];
+                }
+                if (top > 0) {
+                    int p = stack[top - 1];
+                    ancestor[union(p, x, id, size)] = p;
+                }
+            }
+        }
+        return answer;
+    }
+
+    private void makeSet(int x, int[] id, int[] size, int[] ancestor, int[] next) {
+        id[x] = x;
+        size[x] = 1;
+        ancestor[x] = x;
+        next[x] = childStart[x];
+    }
+
+    // the root of the set of x, halving the path to it
+    private static int find(int x, int[] id) {
+        while (id[x] != x) {
+            id[x] = id[id[x]];
+            x = id[x];
+        }
+        return x;
+    }
+
+    // merges the sets of x and y, smaller into larger, and returns the root
+    private static int union(int x, int y, int[] id, int[] size) {
+        int i = find(x, id);
+        int j = find(y, id);
+        if (i == j)
+            return i;
+        if (size[i] < size[j]) {
+            int t = i; i = j; j = t;
+        }
+        id[j] = i;
+        size[i] += size[j];
+        return i;
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < n.
+    private void validateVertex(int v) {
+        if (v < 0 || v >= n)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (n - 1));
+    }
+
+    // Unit tests the EulerTourLCA data type on a random forest of n vertices
+    // (default 10^6) that is mostly long paths: checks lca() against
+    // climbing parents, then answers q random queries (default 4 * 10^6)
+    // online and offline.
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int q = args.length > 1 ? Integer.parseInt(args[1]) : 4000000;
+        int[] parent = new int[n];
+        for (int v = 0; v < n; v++) {
+            if (v % 100000 == 0) parent[v] = -1;    // a new tree
+            else                 parent[v] = v - 1 - StdRandom.uniform(Math.min(v, 8));
+        }
+        int[] order = new int[n];                   // relabel, so that parents are not smaller
+        for (int v = 0; v < n; v++)
+            order[v] = v;
+        StdRandom.shuffle(order);
+        int[] shuffled = new int[n];
+        for (int v = 0; v < n; v++)
+            shuffled[order[v]] = parent[v] == -1 ? -1 : order[parent[v]];
+        parent = shuffled;
+
+        Stopwatch timer = new Stopwatch();
+        EulerTourLCA lca = new EulerTourLCA(parent);
+        StdOut.printf("built for %d vertices in %.3f s\n", n, timer.elapsedTime());
+
+        int differ = 0;
+        for (int k = 0; k < 1000; k++) {
+            int v = StdRandom.uniform(n);
+            int w = StdRandom.uniform(n);
+            int a = v, b = w;
+            while (a != -1 && lca.depth(a) > lca.depth(b)) a = parent[a];
+            while (b != -1 && lca.depth(b) > lca.depth(a)) b = parent[b];
+            while (a != b && a != -1 && b != -1) {
+                a = parent[a];
+                b = parent[b];
+            }
+            int expected = a == b ? a : -1;
+            if (lca.lca(v, w) != expected)
+                differ++;
+        }
+        StdOut.println(differ + " of 1000 queries differ from climbing parents");
+
+        // distances in a random tree, against breadth-first search
+        Graph T = GraphGenerator.tree(2000);
+        EulerTourLCA tlca = new EulerTourLCA(T, StdRandom.uniform(T.V()));
+        differ = 0;
+        for (int k = 0; k < 100; k++) {
+            int s = StdRandom.uniform(T.V());
+            BreadthFirstPaths bfs = new BreadthFirstPaths(T, s);
+            for (int t = 0; t < T.V(); t++) {
+                if (tlca.distance(s, t) != bfs.distTo(t))
+                    differ++;
+            }
+        }
+        StdOut.println(differ + " tree distances differ from breadth-first search");
+
+        int[] v = new int[q];
+        int[] w = new int[q];
+        for (int k = 0; k < q; k++) {
+            v[k] = StdRandom.uniform(n);
+            w[k] = k % 4 == 0 ? v[k] : StdRandom.uniform(n);
+        }
+        timer = new Stopwatch();
+        int[] online = lca.lca(v, w);
+        double time1 = timer.elapsedTime();
+        timer = new Stopwatch();
+        int[] offline = lca.lcaOffline(v, w);
+        double time2 = timer.elapsedTime();
+        differ = 0;
+        for (int k = 0; k < q; k++) {
+            if (online[k] != offline[k])
+                differ++;
+        }
+        StdOut.printf("%d queries: sparse table %.3f s, Tarjan offline %.3f s, %d differ\n", q, time1, time2, differ);
+    }
+}
@@ -0,0 +1,266 @@
+// A Fenwick tree (binary indexed tree) of long values: prefix sums and
+// point updates in O(log n) time with a single array, where entry i
+// (1-based) holds the sum of the i & -i values ending at i.
+// Range adds use the difference array D of the added amounts: adding x to
+// a[lo..hi] adds x to D[lo] and -x to D[hi+1], and the sum of a[0..i]
+// grows by (i + 1) * (D[0] + ... + D[i]) - (0 D[0] + ... + i D[i]), two
+// more prefix sums, over D and over j D[j]. Those two trees are only
+// allocated at the first range add, and are interleaved in one array so
+// that a step of a walk reads one cache line instead of two. A range sum
+// walks the paths from both of its ends only until they meet, since the
+// rest of the two paths is the same.
+/**
+ *  The {@code FenwickTree} class represents an array of n long values
+ *  that supports adding to one value or to a range of values, and the
+ *  sum of a range of values, each in time proportional to log n, with
+ *  fewer and simpler steps than {@link LongSegmentTree} (which also
+ *  supports other monoids and range assignment).
+ *  Each operation walks one path of the implicit tree per prefix sum it
+ *  needs, in a loop over {@code long[]} arrays.
+ *  The constructors take time proportional to n, and
+ *  {@code search()} finds the first index whose prefix sum reaches a
+ *  target in time proportional to log n when the values are nonnegative.
+ */
+public class FenwickTree {
+
+    private final int n;        // number of values
+    private final long[] tree;  // point updates
+    private boolean points;     // has tree anything but zeros ?
+    private long[] range;       // range[2j] and range[2j+1] = entry j of the trees of
+                                // D and of j D[j], or null before the first range add
+
+    // Initializes a tree of n zeros.
+    public FenwickTree(int n) {
+        if (n < 0)
+            throw new IllegalArgumentException("number of values must be nonnegative");
+        this.n = n;
+        tree = new long[n + 1];
+    }
+
+    // Initializes a tree with the values a[0..n-1].
+    public FenwickTree(long[] a) {
+        this(a.length);
+        points = n > 0;
+        for (int i = 1; i <= n; i++) {
+            tree[i] += a[i - 1];
+            int j = i + (i & -i);
+            if (j <= n)
+                tree[j] += tree[i];
+        }
+    }
+
+    // Returns the number of values.
+    public int size() {
+        return n;
+    }
+
+    // Adds x to the value at index i.
+    public void add(int i, long x) {
+        validateIndex(i);
+        points = true;
+        update(tree, i, x);
+    }
+
+    // Adds x to the values at indices lo..hi.
+    public void add(int lo, int hi, long x) {
+        validateRange(lo, hi);
+        if (range == null)
+            range = new long[2 * (n + 1)];
+        updateRange(lo, x);
+        if (hi + 1 < n)
+            updateRange(hi + 1, -x);
+    }
+
+    // Sets the value at index i to x.
+    public void set(int i, long x) {
+        add(i, x - get(i));
+    }
+
+    // Returns the value at index i.
+    public long get(int i) {
+        return sum(i, i);
+    }
+
+    // Returns the sum of the values at indices 0..i.
+    public long prefixSum(int i) {
+        validateIndex(i);
+        return prefix(i);
+    }
+
+    // Returns the sum of the values at indices lo..hi.
+    public long sum(int lo, int hi) {
+        validateRange(lo, hi);
+        // entries on the path from hi + 1 but not on the path from lo
+        long sum = 0;
+        int j = hi + 1, k = lo;
+        while (points && j != k) {
+            if (j > k) { sum += tree[j]; j -= j & -j; }
+            else       { sum -= tree[k]; k -= k & -k; }
+        }
+        if (range == null)
+            return sum;
+
+        // (hi + 1) S(hi) - lo S(lo - 1) for the tree of D, minus the
+        // difference for the tree of j D[j], where only the tree of D has
+        // a common part
+        long above = 0, below = 0, shifts = 0;
+        j = hi + 1;
+        k = lo;
+        while (j != k) {
+            if (j > k) {
+                above += range[2 * j];
+                shifts += range[2 * j + 1];
+                j -= j & -j;
+            }
+            else {
+                below += range[2 * k];
+                shifts -= range[2 * k + 1];
+                k -= k & -k;
+            }
+        }
+        long common = 0;
+        for (; j > 0; j -= j & -j)
+            common += range[2 * j];
+        return sum + (hi + 1) * (above + common) - lo * (below + common) - shifts;
+    }
+
+    // Returns the smallest index i whose prefix sum is at least target, or
+    // n if there is none. The values must be nonnegative, and no range add
+    // may have been made.
+    public int search(long target) {
+        if (range != null)
+            throw new UnsupportedOperationException("search() after a range add");
+        if (target <= 0)
+            return 0;
+        int i = 0;      // the sum of the values at 0..i-1 is below target
+        for (int step = Integer.highestOneBit(Math.max(1, n)); step > 0; step >>= 1) {
+            if (i + step <= n && tree[i + step] < target) {
+                i += step;
+                target -= tree[i];
+            }
+        }
+        return i;
+    }
+
+    // the sum of the values at indices 0..i
+    private long prefix(int i) {
+        long sum = 0;
+        for (int j = i + 1; j > 0; j -= j & -j)
+            sum += tree[j];
+        if (range != null) {
+            long slope = 0, shift = 0;
+            for (int j = i + 1; j > 0; j -= j & -j) {
+                slope += range[2 * j];
+                shift += range[2 * j + 1];
+            }
+            sum += (i + 1) * slope - shift;
+        }
+        return sum;
+    }
+
+    // adds x to entry i (0-based) of the tree t
+    private void update(long[] t, int i, long x) {
+        for (int j = i + 1; j <= n; j += j & -j)
+            t[j] += x;
+    }
+
+    // adds x to D[i] and i x to the second tree
+    private void updateRange(int i, long x) {
+        long y = x * i;
+        for (int j = i + 1; j <= n; j += j & -j) {
+            range[2 * j] += x;
+            range[2 * j + 1] += y;
+        }
+    }
+
+    // throw new IllegalArgumentException unless 0 <= i < n.
+    private void validateIndex(int i) {
+        if (i < 0 || i >= n)
+            throw new IllegalArgumentException("index " + i + " is not between 0 and " + (n - 1));
+    }
+
+    // throw new IllegalArgumentException unless 0 <= lo <= hi < n.
+    private void validateRange(int lo, int hi) {
+        if (lo < 0 || hi >= n || lo > hi)
+            throw new IllegalArgumentException("invalid range [" + lo + ", " + hi + "] of " + n + " values");
+    }
+
+    // Unit tests the FenwickTree data type: random operations against a
+    // plain array, search() against a linear scan, then times m (default
+    // 10^7) range adds and range sums on n values (default 10^6),
+    // and the same with a LongSegmentTree.
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+
+        int size = 1 + StdRandom.uniform(300);
+        long[] a = new long[size];
+        for (int i = 0; i < size; i++)
+            a[i] = StdRandom.uniform(100);
+        FenwickTree fenwick = new FenwickTree(a);
+        int differ = 0;
+        for (int k = 0; k < 1000; k++) {
+            long target = StdRandom.uniform(100 * size + 1);
+            int expected = 0;
+            for (long sum = 0; expected < size && sum + a[expected] < target; expected++)
+                sum += a[expected];
+            if (fenwick.search(target) != expected) differ++;
+        }
+        for (int t = 0; t < 20000; t++) {
+            int lo = StdRandom.uniform(size);
+            int hi = lo + StdRandom.uniform(size - lo);
+            long x = StdRandom.uniform(-1000, 1000);
+            int kind = StdRandom.uniform(5);
+            if (kind == 0) {
+                fenwick.add(lo, x);
+                a[lo] += x;
+            }
+            else if (kind == 1) {
+                fenwick.set(lo, x);
+                a[lo] = x;
+            }
+            else if (kind == 2) {
+                fenwick.add(lo, hi, x);
+                for (int i = lo; i <= hi; i++) a[i] += x;
+            }
+            else {
+                long expected = 0;
+                for (int i = lo; i <= hi; i++)
+                    expected += a[i];
+                if (fenwick.sum(lo, hi) != expected || fenwick.get(lo) != a[lo]) differ++;
+            }
+        }
+        StdOut.println(differ + " results differ");
+
+        int[] lo = new int[1 << 16];
+        int[] hi = new int[lo.length];
+        for (int k = 0; k < lo.length; k++) {
+            int i = StdRandom.uniform(n);
+            int j = StdRandom.uniform(n);
+            lo[k] = Math.min(i, j);
+            hi[k] = Math.max(i, j);
+        }
+        fenwick = new FenwickTree(n);
+        LongSegmentTree segment = new LongSegmentTree(n, LongSegmentTree.Op.SUM);
+        for (int round = 0; round < 2; round++) {
+            Stopwatch timer = new Stopwatch();
+            long checksum1 = 0;
+            for (int t = 0; t < m; t++) {
+                int k = t & (lo.length - 1);
+                if ((t & 1) == 0) fenwick.add(lo[k], hi[k], t);
+                else              checksum1 += fenwick.sum(lo[k], hi[k]);
+            }
+            double time1 = timer.elapsedTime();
+            timer = new Stopwatch();
+            long checksum2 = 0;
+            for (int t = 0; t < m / 10; t++) {
+                int k = t & (lo.length - 1);
+                if ((t & 1) == 0) segment.add(lo[k], hi[k], t);
+                else              checksum2 += segment.query(lo[k], hi[k]);
+            }
+            double time2 = timer.elapsedTime();
+            StdOut.printf("range adds and sums on %d values: Fenwick %.2e per second, segment tree %.2e per second"
+                          + " (checksums %d %d)\n", n, m / time1, m / 10 / time2, checksum1, checksum2);
+        }
+    }
+}
@@ -16,7 +16,7 @@
  *  time proportional to the number of such vertices.
  */
 import java.util.NoSuchElementException;
-public class Graph {
+public class Graph implements AdjacencyGraph {
 
     private static final String NEWLINE = System.getProperty("line.separator");
 
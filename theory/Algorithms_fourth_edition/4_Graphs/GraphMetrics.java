@@ -0,0 +1,595 @@
+// Distance metrics of a large undirected graph. The eccentricity of every
+// vertex needs one breadth-first search per vertex, O(VE), but the
+// diameter alone rarely does: iFUB (Crescenzi, Grossi, Habib, Lanzi and
+// Marino) starts from a vertex u near the center found by the 4-sweep
+// heuristic and looks at the vertices far from u first, since only they
+// can have a large eccentricity. If the vertices at distance i from u all
+// have eccentricity at most lb, any vertex closer to u than i has
+// eccentricity at most 2(i - 1) through u, so the search stops as soon as
+// lb > 2(i - 1). On graphs of small diameter, like social graphs, it
+// takes a few dozen searches instead of V.
+
+/**
+ *  The {@code GraphMetrics} class represents a data type for computing the
+ *  eccentricities, the diameter, the radius, a center and the girth (with
+ *  a shortest cycle) of an undirected graph, in parallel on a ForkJoinPool.
+ *  <p>
+ *  The graph is a {@link CSRGraph}, and each breadth-first search is a
+ *  sequential one over primitive arrays; each thread of the pool keeps its
+ *  own queue and marks, of V ints each, in a {@code ThreadLocal}, and
+ *  marks the vertices it visits with the number of its search, so no
+ *  array is cleared or allocated between searches. The searches run in
+ *  parallel: one per vertex in {@code eccentricities()}, and those of the
+ *  vertices at the same distance from u in {@code diameter()}.
+ *  <p>
+ *  The distances are those of {@link BreadthFirstPaths}; the eccentricity
+ *  of a vertex is the largest distance to a vertex of its connected
+ *  component, and the diameter is the largest eccentricity, so a graph
+ *  that is not connected has the largest diameter of its components.
+ *  {@code diameter()} runs iFUB on every component, which takes time
+ *  proportional to V + E for the 4-sweep and the search from u, plus
+ *  V + E per vertex it has to look at. {@code eccentricities()},
+ *  {@code radius()}, {@code center()} and {@code girth()} take time
+ *  proportional to VE. {@code sample()} runs k searches from random
+ *  vertices, and returns bounds on the diameter that always hold and an
+ *  estimate of the mean distance with its standard error.
+ */
+import java.util.concurrent.ForkJoinPool;
+
+public class GraphMetrics {
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final CSRGraph G;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Work> work;   // the arrays of the searches of each thread
+    private final int V;
+
+    private int[] component;        // component[v] = connected component of v
+    private int[] size;             // size[c] = number of vertices of component c
+    private int[] hub;              // hub[c] = a vertex of largest degree of component c
+    private int components;         // number of connected components
+
+    private int[] eccentricity;     // eccentricity[v] = eccentricity of v, once computed
+    private int girth;              // length of a shortest cycle, or INFINITY
+    private int girthSource;        // the first vertex whose search finds a shortest cycle
+    private int diameter = -1;      // the diameter, once computed
+    private long searches;          // number of breadth-first searches so far
+
+    // the arrays of one thread's breadth-first searches
+    private static class Work {
+        private final int[] mark;       // mark[v] = number of the last search that visited v
+        private final int[] queue;      // the vertices of the search, in order of distance
+        private int[] dist;             // dist[v] = distance from the source, if tracked
+        private int[] edgeTo;           // edgeTo[v] = previous vertex on a shortest path, if tracked
+        private int stamp;              // number of the current search
+        private int count;              // number of vertices the last search visited
+        private long sum;               // sum of their distances from the source
+        private int cycle;              // shortest cycle the last search found, if tracked
+        private int cycleV, cycleW;     // the edge that closes it
+
+        Work(int V) {
+            mark = new int[V];
+            queue = new int[V];
+        }
+
+        // starts a new search, and clears the marks once every 2^31 searches
+        int next() {
+            if (stamp == Integer.MAX_VALUE) {
+                java.util.Arrays.fill(mark, 0);
+                stamp = 0;
+            }
+            return ++stamp;
+        }
+    }
+
+    // Initializes the metrics of the graph G, on the common pool.
+    public GraphMetrics(Graph G) {
+        this(new CSRGraph(G), ForkJoinPool.commonPool());
+    }
+
+    // Initializes the metrics of the frozen graph G, on pool; nothing is
+    // computed before the first query.
+    public GraphMetrics(CSRGraph G, ForkJoinPool pool) {
+        this.G = G;
+        this.pool = pool;
+        this.V = G.V();
+        final int n = V;
+        work = new ThreadLocal<Work>() {
+            protected Work initialValue() {
+                return new Work(n);
+            }
+        };
+    }
+
+    // Breadth-first search from s, with the arrays of the calling thread;
+    // returns the eccentricity of s. The vertices visited are in
+    // work.queue[0 .. work.count-1], in order of distance. If track is
+    // true, it also keeps the distances and the shortest paths, and the
+    // shortest cycle closed by an edge v-w to a visited vertex w that is
+    // not the parent of v: the paths from s to v and to w and the edge
+    // make a closed walk, and the shortest of these walks over all the
+    // sources is a shortest cycle.
+    private int bfs(Work work, int s, boolean track) {
+        int[] mark = work.mark;
+        int[] queue = work.queue;
+        int[] dist = null;
+        int[] edgeTo = null;
+        if (track) {
+            if (work.dist == null) {
+                work.dist = new int[V];
+                work.edgeTo = new int[V];
+            }
+            dist = work.dist;
+            edgeTo = work.edgeTo;
+            dist[s] = 0;
+            edgeTo[s] = -1;
+        }
+        int stamp = work.next();
+        int cycle = INFINITY;
+        long sum = 0;
+        mark[s] = stamp;
+        queue[0] = s;
+        int head = 0, tail = 1, end = 1, level = 0;
+        while (head < tail) {
+            if (head == end) {
+                level++;
+                end = tail;
+            }
+            int v = queue[head++];
+            sum += level;
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                int w = G.target(i);
+                if (mark[w] != stamp) {
+                    mark[w] = stamp;
+                    queue[tail++] = w;
+                    if (track) {
+                        dist[w] = level + 1;
+                        edgeTo[w] = v;
+                    }
+                }
+                else if (track && w != edgeTo[v] && dist[w] + level + 1 < cycle) {
+                    cycle = dist[w] + level + 1;
+                    work.cycleV = v;
+                    work.cycleW = w;
+                }
+            }
+        }
+        work.count = tail;
+        work.sum = sum;
+        work.cycle = cycle;
+        synchronized (this) {
+            searches++;
+        }
+        return level;
+    }
+
+    // labels the connected components, and finds a vertex of largest
+    // degree in each
+    private void label() {
+        if (component != null)
+            return;
+        Work work = this.work.get();
+        component = new int[V];
+        java.util.Arrays.fill(component, -1);
+        int[] size = new int[16];
+        int[] hub = new int[16];
+        int count = 0;
+        for (int s = 0; s < V; s++) {
+            if (component[s] != -1)
+                continue;
+            bfs(work, s, false);
+            if (count == size.length) {
+                size = java.util.Arrays.copyOf(size, 2 * count);
+                hub = java.util.Arrays.copyOf(hub, 2 * count);
+            }
+            int best = s;
+            for (int i = 0; i < work.count; i++) {
+                int v = work.queue[i];
+                component[v] = count;
+                if (G.degree(v) > G.degree(best))
+                    best = v;
+            }
+            size[count] = work.count;
+            hub[count++] = best;
+        }
+        this.size = size;
+        this.hub = hub;
+        components = count;
+    }
+
+    // runs one search per vertex, in parallel
+    private void allSources() {
+        if (eccentricity != null)
+            return;
+        final int[] ecc = new int[V];
+        final int[] cycle = new int[V];
+        pool.invoke(new IndexTask(0, V, 1) {
+            int apply(int s) {
+                Work work = GraphMetrics.this.work.get();
+                ecc[s] = bfs(work, s, true);
+                cycle[s] = work.cycle;
+                return 0;
+            }
+        });
+        girth = INFINITY;
+        girthSource = -1;
+        for (int s = 0; s < V; s++) {
+            if (cycle[s] < girth) {
+                girth = cycle[s];
+                girthSource = s;
+            }
+        }
+        eccentricity = ecc;
+    }
+
+    // Returns the eccentricity of every vertex: the largest distance from
+    // it to a vertex of its connected component.
+    public int[] eccentricities() {
+        allSources();
+        return eccentricity.clone();
+    }
+
+    // Returns the eccentricity of vertex v, with one search.
+    public int eccentricity(int v) {
+        validateVertex(v);
+        if (eccentricity != null)
+            return eccentricity[v];
+        return bfs(work.get(), v, false);
+    }
+
+    // Returns the radius: the smallest eccentricity of a vertex with at
+    // least one neighbor, or 0 if there is none.
+    public int radius() {
+        int c = center();
+        return c == -1 ? 0 : eccentricity[c];
+    }
+
+    // Returns a center: the first vertex of eccentricity the radius among
+    // the vertices with at least one neighbor, or -1 if there is none.
+    public int center() {
+        allSources();
+        int center = -1;
+        for (int v = 0; v < V; v++) {
+            if (G.degree(v) > 0 && (center == -1 || eccentricity[v] < eccentricity[center]))
+                center = v;
+        }
+        return center;
+    }
+
+    // Returns the girth: the length of a shortest cycle, or
+    // Integer.MAX_VALUE if the graph is acyclic.
+    public int girth() {
+        allSources();
+        return girth;
+    }
+
+    // Returns the vertices of a shortest cycle, in order around it, or
+    // null if the graph is acyclic.
+    public Iterable<Integer> girthCycle() {
+        allSources();
+        if (girthSource == -1)
+            return null;
+        Work work = this.work.get();
+        bfs(work, girthSource, true);
+        Stack<Integer> path = new Stack<Integer>();
+        for (int x = work.cycleV; x != -1; x = work.edgeTo[x])
+            path.push(x);
+        Queue<Integer> cycle = new Queue<Integer>();
+        for (int x : path)
+            cycle.enqueue(x);
+        for (int x = work.cycleW; x != girthSource; x = work.edgeTo[x])
+            cycle.enqueue(x);
+        return cycle;
+    }
+
+    // Is the graph connected ?
+    public boolean isConnected() {
+        label();
+        return components <= 1;
+    }
+
+    // Returns the number of connected components.
+    public int components() {
+        label();
+        return components;
+    }
+
+    // Returns the number of breadth-first searches run so far.
+    public synchronized long searches() {
+        return searches;
+    }
+
+    // Returns the diameter: the largest eccentricity, found by iFUB on
+    // each connected component.
+    public int diameter() {
+        if (diameter != -1)
+            return diameter;
+        if (eccentricity != null) {
+            int max = 0;
+            for (int v = 0; v < V; v++)
+                max = Math.max(max, eccentricity[v]);
+            return diameter = max;
+        }
+        label();
+        int max = 0;
+        for (int c = 0; c < components; c++) {
+            // a component of k vertices has diameter at most k - 1
+            if (size[c] - 1 > max)
+                max = Math.max(max, ifub(hub[c]));
+        }
+        return diameter = max;
+    }
+
+    // the diameter of the component of r, by 4-sweep and iFUB
+    private int ifub(int r) {
+        Work work = this.work.get();
+
+        // 4-sweep: two double sweeps, the second from the middle of the first
+        int a = farthest(work, r);
+        int lower = bfs(work, a, true);
+        int b = work.queue[work.count - 1];
+        int r2 = middle(work, b);
+        int a2 = farthest(work, r2);
+        lower = Math.max(lower, bfs(work, a2, true));
+        int u = middle(work, work.queue[work.count - 1]);
+
+        // the vertices of the component by distance from u, and where each
+        // distance starts
+        int eccentricity = bfs(work, u, true);
+        final int[] order = java.util.Arrays.copyOf(work.queue, work.count);
+        int[] start = new int[eccentricity + 2];
+        for (int k = 0; k < order.length; k++)
+            start[work.dist[order[k]] + 1] = k + 1;
+        lower = Math.max(lower, eccentricity);
+
+        // the vertices at distance i from u, a batch of searches at a time
+        int batch = 2 * pool.getParallelism();
+        final int[] ecc = new int[batch];
+        for (int i = eccentricity; 2 * i > lower; i--) {
+            for (int k = start[i]; k < start[i + 1] && lower < 2 * i; k += batch) {
+                final int lo = k;
+                int hi = Math.min(k + batch, start[i + 1]);
+                pool.invoke(new IndexTask(lo, hi, 1) {
+                    int apply(int j) {
+                        ecc[j - lo] = bfs(GraphMetrics.this.work.get(), order[j], false);
+                        return 0;
+                    }
+                });
+                for (int j = 0; j < hi - lo; j++)
+                    lower = Math.max(lower, ecc[j]);
+            }
+        }
+        return lower;
+    }
+
+    // the last vertex of a search from s
+    private int farthest(Work work, int s) {
+        bfs(work, s, false);
+        return work.queue[work.count - 1];
+    }
+
+    // the middle vertex of the path to v of the last tracked search
+    private int middle(Work work, int v) {
+        int x = v;
+        for (int k = work.dist[v] / 2; k > 0; k--)
+            x = work.edgeTo[x];
+        return x;
+    }
+
+    // Runs k searches from vertices picked at random, in parallel, and
+    // returns the bounds and estimates they give.
+    public Sample sample(int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("number of samples must be positive");
+        if (V == 0)
+            throw new IllegalArgumentException("graph has no vertices");
+        label();
+        final int[] source = new int[k];
+        for (int j = 0; j < k; j++)
+            source[j] = StdRandom.uniform(V);
+        final int[] ecc = new int[k];
+        final double[] mean = new double[k];
+        pool.invoke(new IndexTask(0, k, 1) {
+            int apply(int j) {
+                Work work = GraphMetrics.this.work.get();
+                ecc[j] = bfs(work, source[j], false);
+                mean[j] = work.count == 1 ? 0.0 : (double) work.sum / (work.count - 1);
+                return 0;
+            }
+        });
+        return new Sample(source, ecc, mean);
+    }
+
+    /**
+     *  The {@code Sample} class represents what k searches from random
+     *  vertices tell about the distances of the graph.
+     *  <p>
+     *  The diameter is at least the largest eccentricity of a source. It
+     *  is at most twice the smallest eccentricity of a source in each
+     *  component that has one, since any two vertices are that close
+     *  through the source, and at most the number of vertices minus 1 in a
+     *  component that has none; the upper bound is the largest of these.
+     *  The mean distance is the mean over the sources, with at least one
+     *  other vertex in their component, of the mean distance from the
+     *  source to the other vertices of its component; its standard error
+     *  is the standard deviation of these means over the square root of
+     *  their number, so the mean distance over all the vertices of a
+     *  connected graph is within 1.96 standard errors of the estimate with
+     *  probability about 95%.
+     */
+    public class Sample {
+        private final int lower, upper;
+        private final double meanDistance, standardError;
+        private final int sources;
+
+        private Sample(int[] source, int[] ecc, double[] mean) {
+            int[] best = new int[components];   // best[c] = smallest eccentricity of a source in c
+            java.util.Arrays.fill(best, INFINITY);
+            int lower = 0;
+            double sum = 0.0, sum2 = 0.0;
+            int n = 0;
+            for (int j = 0; j < source.length; j++) {
+                int c = component[source[j]];
+                best[c] = Math.min(best[c], ecc[j]);
+                lower = Math.max(lower, ecc[j]);
+                if (size[c] > 1) {
+                    sum += mean[j];
+                    sum2 += mean[j] * mean[j];
+                    n++;
+                }
+            }
+            int upper = lower;
+            for (int c = 0; c < components; c++) {
+                int bound = best[c] == INFINITY ? size[c] - 1 : (int) Math.min(2L * best[c], size[c] - 1);
+                upper = Math.max(upper, bound);
+            }
+            this.lower = lower;
+            this.upper = upper;
+            this.sources = source.length;
+            meanDistance = n == 0 ? 0.0 : sum / n;
+            double variance = n < 2 ? 0.0 : Math.max(0.0, (sum2 - sum * sum / n) / (n - 1));
+            standardError = n == 0 ? 0.0 : Math.sqrt(variance / n);
+        }
+
+        // Returns a lower bound on the diameter.
+        public int diameterLowerBound() {
+            return lower;
+        }
+
+        // Returns an upper bound on the diameter.
+        public int diameterUpperBound() {
+            return upper;
+        }
+
+        // Returns the estimate of the mean distance between two vertices
+        // of the same component.
+        public double meanDistance() {
+            return meanDistance;
+        }
+
+        // Returns the standard error of meanDistance().
+        public double standardError() {
+            return standardError;
+        }
+
+        // Returns the number of sources.
+        public int sources() {
+            return sources;
+        }
+
+        public String toString() {
+            return String.format("%d sources: diameter in [%d, %d], mean distance %.3f +- %.3f",
+                                 sources, lower, upper, meanDistance, 1.96 * standardError);
+        }
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // a random graph of V vertices and E edges, without self-loops, with
+    // paths of about 50 vertices hanging from random vertices so that the
+    // diameter is not only that of the random part
+    private static CSRGraph random(int V, int E) {
+        int[] from = new int[E];
+        int[] to = new int[E];
+        int hanging = V / 20;
+        int e = 0;
+        for (int v = V - hanging; v < V; v++) {
+            from[e] = v;
+            to[e++] = StdRandom.uniform(50) == 0 || v == V - hanging ? StdRandom.uniform(V - hanging) : v - 1;
+        }
+        while (e < E) {
+            from[e] = StdRandom.uniform(V - hanging);
+            to[e] = StdRandom.uniform(V - hanging);
+            if (from[e] != to[e])
+                e++;
+        }
+        return new CSRGraph(V, from, to);
+    }
+
+    // are the vertices a closed walk of the given length in G ?
+    private static boolean isCycle(CSRGraph G, Iterable<Integer> cycle, int length) {
+        if (cycle == null)
+            return length == INFINITY;
+        int n = 0, first = -1, previous = -1;
+        for (int v : cycle) {
+            if (n++ == 0) first = v;
+            else if (!adjacent(G, previous, v)) return false;
+            previous = v;
+        }
+        return n == length && adjacent(G, previous, first);
+    }
+
+    private static boolean adjacent(CSRGraph G, int v, int w) {
+        for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+            if (G.target(i) == w)
+                return true;
+        }
+        return false;
+    }
+
+    // Reads a graph from the file named args[0], or builds a random one
+    // with args[0] vertices and args[1] edges, and prints its diameter by
+    // iFUB, its sampled bounds, and the number of searches and the time
+    // of each. With fewer than 5000 vertices, it also checks the
+    // eccentricities and the girth against BreadthFirstPaths from every
+    // vertex, and the diameter against the largest eccentricity.
+    public static void main(String[] args) {
+        CSRGraph G;
+        int threads;
+        if (args[0].matches("\\d+")) {
+            G = random(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+            threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        }
+        else {
+            G = new CSRGraph(new In(args[0]));
+            threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        StdOut.printf("%d vertices, %d edges, %d threads\n", G.V(), G.E(), threads);
+
+        GraphMetrics metrics = new GraphMetrics(G, pool);
+        Stopwatch timer = new Stopwatch();
+        int diameter = metrics.diameter();
+        StdOut.printf("diameter %d by iFUB: %d components, %d searches, %.3f s\n",
+                      diameter, metrics.components(), metrics.searches(), timer.elapsedTime());
+
+        timer = new Stopwatch();
+        Sample sample = metrics.sample(16);
+        StdOut.printf("sampled: %s, %.3f s\n", sample, timer.elapsedTime());
+        if (sample.diameterLowerBound() > diameter || sample.diameterUpperBound() < diameter)
+            StdOut.println("BOUNDS DO NOT HOLD");
+
+        if (G.V() < 5000) {
+            timer = new Stopwatch();
+            GraphMetrics all = new GraphMetrics(G, pool);
+            int[] ecc = all.eccentricities();
+            double time1 = timer.elapsedTime();
+            timer = new Stopwatch();
+            int differ = 0;
+            int girth = Integer.MAX_VALUE;
+            int max = 0;
+            for (int s = 0; s < G.V(); s++) {
+                BreadthFirstPaths bfs = new BreadthFirstPaths(G, s);
+                int e = 0;
+                for (int v = 0; v < G.V(); v++) {
+                    if (bfs.hasPathTo(v))
+                        e = Math.max(e, bfs.distTo(v));
+                }
+                if (e != ecc[s]) differ++;
+                max = Math.max(max, e);
+                girth = Math.min(girth, bfs.shortLengthCircle());
+            }
+            double time2 = timer.elapsedTime();
+            if (girth != all.girth()) differ++;
+            if (!isCycle(G, all.girthCycle(), all.girth())) differ++;
+            if (max != diameter) differ++;
+            StdOut.printf("all sources: parallel %.3f s, BreadthFirstPaths %.3f s, radius %d, girth %d, %d differ\n",
+                          time1, time2, all.radius(), all.girth(), differ);
+        }
+        pool.shutdown();
+    }
+}
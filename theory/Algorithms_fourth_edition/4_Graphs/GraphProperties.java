@@ -2,64 +2,49 @@
 // to the furthest vertex from v. The diameter of a graph is the maximum eccentricity of 
 // any vertex. The radius of a graph is the smallest eccentricity of any vertex. 
 // A center is a vertex whose eccentricity is the radius.
+// The eccentricities come from GraphMetrics, which runs the V searches in
+// parallel with primitive arrays; GraphMetrics alone finds the diameter
+// of a large graph without them.
 public class GraphProperties {
 
     private int[] eccentricity;
-    private int diameterVertex;
-    private int radiusVertex;
+    private int diameter;
+    private int radius;
+    private int center;
     private int shortCircleLength;
-    private Queue<Integer> circlePath;
+    private Iterable<Integer> circlePath;
 
     // constructor (exception if G not connected)
     public GraphProperties(Graph G) {
-        eccentricity = new int[G.V()];
-        boolean connected = false;
-        int maximum = Integer.MIN_VALUE;
-        int minimum = Integer.MAX_VALUE;
-        shortCircleLength = Integer.MAX_VALUE;
-        for (int i = 0; i < G.V(); i++) {
-            BreadthFirstPaths bfs = new BreadthFirstPaths(G, i);
-            int length = Integer.MIN_VALUE;
-            if (bfs.shortLengthCircle() < shortCircleLength) {
-                shortCircleLength = bfs.shortLengthCircle();
-                circlePath = new Queue<Integer>();
-                for (int m : bfs.shortCirclePath())
-                    circlePath.enqueue(m);
-            }
-            for (int v = 0; v < G.V(); v++) {
-                if (bfs.hasPathTo(v)) {
-                    connected = true;
-                    int k = bfs.distTo(v);
-                    if (k > length)
-                        length = k;
-                }
-            }
-            if (!connected) {
-                throw new IllegalArgumentException("G not connected");
-            }
-            eccentricity[i] = length;
-            if (length > maximum) {
-                diameterVertex = i;
-            }
-            if (length < minimum) {
-                radiusVertex = i;
-            }
-        }
+        GraphMetrics metrics = new GraphMetrics(G);
+        if (!metrics.isConnected())
+            throw new IllegalArgumentException("G not connected");
+        eccentricity = metrics.eccentricities();
+        diameter = metrics.diameter();
+        radius = metrics.radius();
+        center = Math.max(0, metrics.center());
+        shortCircleLength = metrics.girth();
+        circlePath = metrics.girthCycle();
     }
 
     // eccentricity of v
     public int eccentricity(int v) {
-        return eccentricity[diameterVertex];
+        return eccentricity[v];
     }
 
     // diameter of G
     public int diameter() {
-        return eccentricity[radiusVertex];
+        return diameter;
+    }
+
+    // radius of G
+    public int radius() {
+        return radius;
     }
 
     // a center of G
     public int center() {
-        return radiusVertex;
+        return center;
     }
 
     public int shortCircleLength() {
@@ -86,7 +71,12 @@ public class GraphProperties {
             StdOut.print(graphPro.eccentricity(i) + " ");
         StdOut.println();
         StdOut.println(graphPro.diameter());
+        StdOut.println(graphPro.radius());
         StdOut.println(graphPro.center());
+        if (graphPro.circlePath() == null) {
+            System.out.println("There is no circle");
+            return;
+        }
         System.out.println("The shortest circle is " + graphPro.shortCircleLength());
         for (int k : graphPro.circlePath())
             System.out.print(k + " ");
@@ -1,7 +1,14 @@
 // Develop an implementation for the search API
 // that uses UF.
+// The parallel constructor unions the edges of different vertices on
+// several threads at once with a ConcurrentUF.
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class GraphSearchUsingUF {
 
+    private static final int CUTOFF = 1024;     // vertices per sequential task
+
     private UF uf;
     private boolean[] marked;   // marked[v] = is there an s-v path ?
     private int count;
@@ -27,6 +34,49 @@ public class GraphSearchUsingUF {
         marked[s] = true;
     }
 
+    public GraphSearchUsingUF(Graph G, int s, ForkJoinPool pool) {
+        ConcurrentUF uf = new ConcurrentUF(G.V());
+        marked = new boolean[G.V()];
+        count = 0;
+        pool.invoke(new Union(G, uf, 0, G.V()));
+        for (int i = 0; i < G.V(); i++) {
+            if (i != s && uf.connected(i, s)) {
+                count++;
+                marked[i] = true;
+            }
+        }
+        marked[s] = true;
+    }
+
+    // unions every edge incident to the vertices in [lo, hi) once
+    private static class Union extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Graph G;
+        private final ConcurrentUF uf;
+        private final int lo, hi;
+
+        Union(Graph G, ConcurrentUF uf, int lo, int hi) {
+            this.G = G;
+            this.uf = uf;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo > CUTOFF) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Union(G, uf, lo, mid), new Union(G, uf, mid, hi));
+                return;
+            }
+            for (int v = lo; v < hi; v++) {
+                for (int w : G.adj(v)) {
+                    if (w < v)
+                        uf.union(w, v);     // the other copy of v-w is in adj(w)
+                }
+            }
+        }
+    }
+
     // is v connected to s ?
     public boolean marked(int v) {
         return marked[v];
@@ -38,7 +88,19 @@ public class GraphSearchUsingUF {
     }
 
     public static void main(String[] args) {
-        
+        In in = new In(args[0]);
+        Graph G = new Graph(in);
+        int s = Integer.parseInt(args[1]);
+        GraphSearchUsingUF search = new GraphSearchUsingUF(G, s);
+        GraphSearchUsingUF parallel = new GraphSearchUsingUF(G, s, ForkJoinPool.commonPool());
+        for (int v = 0; v < G.V(); v++) {
+            if (search.marked(v))
+                StdOut.print(v + " ");
+            if (search.marked(v) != parallel.marked(v))
+                StdOut.print("(parallel differs) ");
+        }
+        StdOut.println();
+        StdOut.println(search.count() + " " + parallel.count());
     }
 
 }
\ No newline at end of file
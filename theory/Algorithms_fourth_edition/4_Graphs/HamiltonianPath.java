@@ -1,8 +1,16 @@
-// Hamiltonian path in DAGs. Given a DAG, design a linear-time algorithm to determine 
+// Hamiltonian path in DAGs. Given a DAG, design a linear-time algorithm to determine
 // whether there is a directed path that visits each vertex exactly once.
-// Answer: Compute a topological sort and check if there is an edge between each consecutive 
+// Answer: Compute a topological sort and check if there is an edge between each consecutive
 // pair of vertices in the topological order.
+// On an AdjMatrixDigraph the same check runs on the packed rows, and a
+// digraph with a cycle is searched with the Held-Karp dynamic program
+// over subsets, where the set of vertices at which a path through a
+// subset can end is itself a bitmask, so extending all of them is an OR
+// of their rows. That takes time proportional to 2^V V and 4 2^V bytes,
+// so it is limited to MAX_SEARCH vertices.
 public class HamiltonianPath {
+    public static final int MAX_SEARCH = 24;    // most vertices of a digraph with a cycle
+
     Topological topological;
     Queue<Integer> directedPath;
     boolean isPath;
@@ -11,6 +19,14 @@ public class HamiltonianPath {
         topological = new Topological(G);
         isPath = topological.hasOrder();
         directedPath = new Queue<Integer>();
+        if (isPath) {
+            int previous = -1;
+            for (int v : topological.order()) {
+                if (previous >= 0 && !hasEdge(G, previous, v))
+                    isPath = false;
+                previous = v;
+            }
+        }
         if (isPath) {
             for (int v : topological.order()) {
                 directedPath.enqueue(v);
@@ -18,6 +34,112 @@ public class HamiltonianPath {
         }
     }
 
+    // Finds a Hamiltonian path of the adjacency-matrix digraph G: in linear
+    // time in the size of the matrix if G is a DAG, and otherwise with the
+    // subset search, for at most MAX_SEARCH vertices.
+    public HamiltonianPath(AdjMatrixDigraph G) {
+        directedPath = new Queue<Integer>();
+        int[] order = order(G);
+        if (order != null) {
+            isPath = true;
+            for (int i = 1; i < order.length; i++) {
+                if (!G.contains(order[i - 1], order[i]))
+                    isPath = false;
+            }
+        }
+        else {
+            order = search(G);
+            isPath = order != null;
+        }
+        if (isPath) {
+            for (int v : order) {
+                directedPath.enqueue(v);
+            }
+        }
+    }
+
+    private static boolean hasEdge(Digraph G, int v, int w) {
+        for (int x : G.adj(v)) {
+            if (x == w)
+                return true;
+        }
+        return false;
+    }
+
+    // a topological order of G by Kahn's algorithm, or null if G has a cycle
+    private static int[] order(AdjMatrixDigraph G) {
+        int V = G.V();
+        int words = (V + 63) / 64;
+        int[] indegree = new int[V];
+        for (int v = 0; v < V; v++) {
+            for (int w = G.next(v * words, 0); w < V; w = G.next(v * words, w + 1))
+                indegree[w]++;
+        }
+        int[] order = new int[V];
+        int n = 0;
+        for (int v = 0; v < V; v++) {
+            if (indegree[v] == 0)
+                order[n++] = v;
+        }
+        for (int i = 0; i < n; i++) {
+            int row = order[i] * words;
+            for (int w = G.next(row, 0); w < V; w = G.next(row, w + 1)) {
+                if (--indegree[w] == 0)
+                    order[n++] = w;
+            }
+        }
+        return n == V ? order : null;
+    }
+
+    // Held-Karp: end[S] = the set of vertices v in S such that some path
+    // visits exactly the vertices of S and ends at v
+    private static int[] search(AdjMatrixDigraph G) {
+        int V = G.V();
+        if (V > MAX_SEARCH)
+            throw new IllegalArgumentException("digraph with a cycle and more than " + MAX_SEARCH + " vertices");
+        int[] row = new int[V];     // the rows of G, one int each
+        long[] rows = G.rows();
+        for (int v = 0; v < V; v++)
+            row[v] = (int) rows[v];
+        int full = (1 << V) - 1;
+        int[] end = new int[1 << V];
+        for (int v = 0; v < V; v++)
+            end[1 << v] = 1 << v;
+        for (int set = 1; set < full; set++) {
+            int next = 0;
+            for (int ends = end[set]; ends != 0; ends &= ends - 1)
+                next |= row[Integer.numberOfTrailingZeros(ends)];
+            for (next &= ~set; next != 0; next &= next - 1) {
+                int w = Integer.numberOfTrailingZeros(next);
+                end[set | (1 << w)] |= 1 << w;
+            }
+        }
+        if (end[full] == 0)
+            return null;
+
+        // walk back from an end of the full set
+        int[] path = new int[V];
+        int set = full;
+        int w = Integer.numberOfTrailingZeros(end[full]);
+        for (int i = V - 1; i > 0; i--) {
+            path[i] = w;
+            set ^= 1 << w;
+            w = Integer.numberOfTrailingZeros(end[set] & column(row, w));
+        }
+        path[0] = w;
+        return path;
+    }
+
+    // the vertices with an edge to w, as a bitmask
+    private static int column(int[] row, int w) {
+        int column = 0;
+        for (int v = 0; v < row.length; v++) {
+            if ((row[v] & (1 << w)) != 0)
+                column |= 1 << v;
+        }
+        return column;
+    }
+
     public boolean hasExist() {
         return isPath;
     }
@@ -26,6 +148,8 @@ public class HamiltonianPath {
         return directedPath;
     }
 
+    // test client: the path 0->1->2->3->4, then random DAGs and random
+    // digraphs as AdjMatrixDigraph, against a brute-force search
     public static void main(String[] args) {
         Digraph G = new Digraph(5);
         G.addEdge(0, 1);
@@ -39,6 +163,66 @@ public class HamiltonianPath {
             }
             System.out.println();
         }
+
+        int differ = 0, found = 0;
+        for (int t = 0; t < 2000; t++) {
+            int V = 1 + StdRandom.uniform(8);
+            int E = StdRandom.uniform(V * V + 1);
+            boolean dag = t % 2 == 0;
+            AdjMatrixDigraph M = new AdjMatrixDigraph(V);
+            Digraph D = new Digraph(V);
+            int[] perm = new int[V];
+            for (int v = 0; v < V; v++) perm[v] = v;
+            StdRandom.shuffle(perm);
+            for (int e = 0; e < E; e++) {
+                int v = StdRandom.uniform(V);
+                int w = StdRandom.uniform(V);
+                if (dag && v >= w) continue;
+                if (dag) { v = perm[v]; w = perm[w]; }
+                if (!M.contains(v, w)) D.addEdge(v, w);
+                M.addEdge(v, w);
+            }
+            boolean expected = bruteForce(M, new int[V], new boolean[V], 0);
+            HamiltonianPath path = new HamiltonianPath(M);
+            if (path.hasExist() != expected) differ++;
+            if (dag && new HamiltonianPath(D).hasExist() != expected) differ++;
+            if (path.hasExist()) {
+                found++;
+                boolean[] seen = new boolean[V];
+                int previous = -1, n = 0;
+                for (int v : path.orderPath()) {
+                    if (seen[v] || (previous >= 0 && !M.contains(previous, v))) differ++;
+                    seen[v] = true;
+                    previous = v;
+                    n++;
+                }
+                if (n != V) differ++;
+            }
+        }
+        StdOut.println(found + " of 2000 digraphs have a Hamiltonian path, " + differ + " results differ");
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        AdjMatrixDigraph M = new AdjMatrixDigraph(V, 3 * V);
+        Stopwatch timer = new Stopwatch();
+        HamiltonianPath path = new HamiltonianPath(M);
+        StdOut.printf("%d vertices, %d edges: %s in %.3f s\n", V, M.E(),
+                      path.hasExist() ? "path " + path.orderPath() : "no path", timer.elapsedTime());
+    }
+
+    // is there a Hamiltonian path that starts with path[0..n-1] ?
+    private static boolean bruteForce(AdjMatrixDigraph G, int[] path, boolean[] used, int n) {
+        if (n == G.V())
+            return true;
+        for (int w = 0; w < G.V(); w++) {
+            if (used[w] || (n > 0 && !G.contains(path[n - 1], w)))
+                continue;
+            used[w] = true;
+            path[n] = w;
+            if (bruteForce(G, path, used, n + 1))
+                return true;
+            used[w] = false;
+        }
+        return false;
     }
 
-}
\ No newline at end of file
+}
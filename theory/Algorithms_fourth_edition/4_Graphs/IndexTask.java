@@ -0,0 +1,70 @@
+/**
+ *  The {@code IndexTask} class is the fork/join task that the parallel
+ *  graph algorithms of this directory use for a loop over a range of
+ *  indices [lo, hi): a subclass gives the body of the loop as
+ *  {@code apply(i)}, and the task returns the sum of what it returns.
+ *  The range is split in halves, in parallel, down to ranges of at most
+ *  {@code cutoff} indices, which run sequentially; the cutoff is
+ *  {@code CUTOFF} unless the constructor is given another one, such as 1
+ *  when each index is a whole search.
+ *  <p>
+ *  {@code invoke()} runs a task on a ForkJoinPool, or in the calling
+ *  thread if it is too small to split, so that a loop over a few indices,
+ *  such as one level of a long path, costs no task.
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+abstract class IndexTask extends RecursiveTask<Integer> {
+    // the fields are private, so that no name of the class that writes an
+    // anonymous subclass, such as its own CUTOFF, is hidden in apply()
+    private static final long serialVersionUID = 1L;
+    private static final int CUTOFF = 256;      // indices per sequential task
+
+    private final int lo, hi, cutoff;
+
+    // a task for every index in [lo, hi), CUTOFF indices per sequential task
+    IndexTask(int lo, int hi) {
+        this(lo, hi, CUTOFF);
+    }
+
+    // a task for every index in [lo, hi), cutoff indices per sequential task
+    IndexTask(int lo, int hi, int cutoff) {
+        if (cutoff < 1)
+            throw new IllegalArgumentException("cutoff must be positive");
+        this.lo = lo;
+        this.hi = hi;
+        this.cutoff = cutoff;
+    }
+
+    // the body of the loop for index i
+    abstract int apply(int i);
+
+    // sums apply() over every index in [lo, hi), splitting the range in parallel.
+    protected Integer compute() {
+        if (hi - lo <= cutoff) {
+            int sum = 0;
+            for (int i = lo; i < hi; i++)
+                sum += apply(i);
+            return sum;
+        }
+        final int mid = (lo + hi) >>> 1;
+        final IndexTask outer = this;
+        IndexTask left = new IndexTask(lo, mid, cutoff) {
+            int apply(int i) { return outer.apply(i); }
+        };
+        IndexTask right = new IndexTask(mid, hi, cutoff) {
+            int apply(int i) { return outer.apply(i); }
+        };
+        right.fork();
+        int sum = left.compute();
+        return sum + right.join();
+    }
+
+    // runs task on pool, or in this thread if it is too small to split,
+    // and returns its sum
+    static int invoke(ForkJoinPool pool, IndexTask task) {
+        if (task.hi - task.lo <= task.cutoff) return task.compute();
+        else                                  return pool.invoke(task);
+    }
+}
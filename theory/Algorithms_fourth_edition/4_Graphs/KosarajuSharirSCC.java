@@ -23,7 +23,7 @@ public class KosarajuSharirSCC {
     private int count;  // number of strongly-connected components.
 
     // Computes the strong components of digraph G.
-    public KosarajuSharirSCC(Digraph G) {
+    public KosarajuSharirSCC(AdjacencyDigraph G) {
 
         // compute reverse postorder of reverse graph
         DepthFirstOrder dfs = new DepthFirstOrder(G.reverse());
@@ -42,7 +42,7 @@ public class KosarajuSharirSCC {
     }
 
     // DFS on graph G.
-    private void dfs(Digraph G, int v) {
+    private void dfs(AdjacencyDigraph G, int v) {
         marked[v] = true;
         id[v] = count;
         for (int w : G.adj(v)) {
@@ -70,7 +70,7 @@ public class KosarajuSharirSCC {
     }
 
     // does the id[] array contain the strongly connected components ?
-    private boolean check(Digraph G) {
+    private boolean check(AdjacencyDigraph G) {
         TransitiveClosure tc = new TransitiveClosure(G);
         for (int v = 0; v < G.V(); v++) {
             for (int w = 0; w < G.V(); w++) {
@@ -14,9 +14,20 @@
  *  where V is the number of vertices and E is the number of edges.
  *  Afterwards, the {@code weight()} method takes constant time
  *  and the {@code edges()} method takes time proportional to V.
+ *  <p>
+ *  The parallel constructor sorts the edges with a parallel sort and takes
+ *  them in batches of doubling size: the edges of a batch whose endpoints
+ *  are already in one tree are found in parallel with a
+ *  {@link ConcurrentUF}, and only the rest go through the greedy loop,
+ *  which stays sequential because it must see the edges in order.
  */
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class KruskalMST {
     private static final double FLOATING_POINT_EPSILON = 1E-12;
+    private static final int CUTOFF = 4096;     // edges per sequential filter task
 
     private double weight;  // weight of MST.
     private Queue<Edge> mst = new Queue<Edge>();    // edges in MST.
@@ -44,6 +55,73 @@ public class KruskalMST {
         assert check(G);
     }
 
+    // Compute a minimum spanning tree (or forest) of an edge-weighted graph,
+    // sorting and filtering the edges on pool.
+    public KruskalMST(EdgeWeightedGraph G, ForkJoinPool pool) {
+        final Edge[] edges = new Edge[G.E()];
+        int n = 0;
+        for (Edge e : G.edges()) {
+            edges[n++] = e;
+        }
+        // a parallel sort started from a task of pool runs on pool
+        pool.submit(new Runnable() {
+            public void run() {
+                Arrays.parallelSort(edges);
+            }
+        }).join();
+
+        // run greedy algorithm, one batch at a time
+        ConcurrentUF uf = new ConcurrentUF(G.V());
+        boolean[] inside = new boolean[edges.length];   // inside[i] = edges[i] is inside one tree
+        int batch = Math.max(CUTOFF, G.V());
+        for (int lo = 0; lo < edges.length && mst.size() < G.V() - 1; lo += batch, batch += batch) {
+            int hi = (int) Math.min(edges.length, (long) lo + batch);
+            pool.invoke(new Filter(edges, inside, uf, lo, hi));
+            for (int i = lo; i < hi && mst.size() < G.V() - 1; i++) {
+                if (inside[i])
+                    continue;
+                Edge e = edges[i];
+                int v = e.either();
+                int w = e.other(v);
+                if (uf.union(v, w)) {   // v-w does not create a cycle
+                    mst.enqueue(e);
+                    weight += e.weight();
+                }
+            }
+        }
+        // check optimality conditions
+        assert check(G);
+    }
+
+    // marks the edges in [lo, hi) whose endpoints are already connected in uf.
+    private static class Filter extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Edge[] edges;
+        private final boolean[] inside;
+        private final ConcurrentUF uf;
+        private final int lo, hi;
+
+        Filter(Edge[] edges, boolean[] inside, ConcurrentUF uf, int lo, int hi) {
+            this.edges = edges;
+            this.inside = inside;
+            this.uf = uf;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo > CUTOFF) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Filter(edges, inside, uf, lo, mid), new Filter(edges, inside, uf, mid, hi));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                int v = edges[i].either();
+                inside[i] = uf.connected(v, edges[i].other(v));
+            }
+        }
+    }
+
     // Returns the edges in a minimum spanning tree (or forest).
     public Iterable<Edge> edges() {
         return mst;
@@ -118,5 +196,7 @@ public class KruskalMST {
             StdOut.println(e);
         }
         StdOut.printf("%.5f\n", mst.weight());
+        KruskalMST parallel = new KruskalMST(G, ForkJoinPool.commonPool());
+        StdOut.printf("%.5f (parallel filter)\n", parallel.weight());
     }
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+// A segment tree of long values with lazy propagation. Unlike
+// SegmentTree.java and RMQSegmentTree.java, the operation is a parameter
+// (a monoid: sum, min, max or any other associative operation with an
+// identity), and whole ranges can be assigned a value or have a value
+// added to every element, as well as single elements.
+// The tree is laid out bottom-up: leaf i is node size + i, where size is
+// n rounded up to a power of two, node k has children 2k and 2k+1, and
+// every operation is a pair of loops up and down the paths from the two
+// ends of its range, with no recursion.
+/**
+ *  The {@code LongSegmentTree} class represents an array of n long
+ *  values that supports, for any range lo..hi (inclusive):
+ *  the combination of the values under a monoid, setting every value to
+ *  x, and adding d to every value, each in time proportional to log n.
+ *  <p>
+ *  Every internal node keeps the combination of its range and a pending
+ *  tag for its children: either "assign x" or "add d" (an add after an
+ *  assign becomes an assign of a larger value, and an assign replaces an
+ *  add). The tags of the nodes above the ends of a range are pushed down
+ *  before it is touched, so nodes inside the range can be updated from
+ *  their own value and length alone; this needs {@code Monoid.power()}
+ *  for assignments and {@code Monoid.add()} for additions. A monoid
+ *  without {@code add()} (such as xor) still supports every other
+ *  operation. All values and tags are in primitive arrays: 3 size
+ *  longs and size bytes, where size <= 2n is n rounded up to a power of 2.
+ */
+public class LongSegmentTree {
+
+    private static final byte NONE = 0, ADD = 1, ASSIGN = 2;    // kinds of tags
+
+    // An associative operation with an identity. power() and add() tell
+    // the tree how a range changes under assignment and addition without
+    // visiting its elements.
+    public interface Monoid {
+        long identity();
+
+        long combine(long a, long b);
+
+        // the combination of k >= 1 copies of x
+        long power(long x, int k);
+
+        // the combination of k elements after d is added to each, given
+        // their combination before
+        default long add(long combination, long d, int k) {
+            throw new UnsupportedOperationException("range add is not supported by this monoid");
+        }
+    }
+
+    // The common monoids.
+    public enum Op implements Monoid {
+        SUM {
+            public long identity()                   { return 0; }
+            public long combine(long a, long b)      { return a + b; }
+            public long power(long x, int k)         { return x * k; }
+            public long add(long c, long d, int k)   { return c + d * k; }
+        },
+        MIN {
+            public long identity()                   { return Long.MAX_VALUE; }
+            public long combine(long a, long b)      { return Math.min(a, b); }
+            public long power(long x, int k)         { return x; }
+            public long add(long c, long d, int k)   { return c + d; }
+        },
+        MAX {
+            public long identity()                   { return Long.MIN_VALUE; }
+            public long combine(long a, long b)      { return Math.max(a, b); }
+            public long power(long x, int k)         { return x; }
+            public long add(long c, long d, int k)   { return c + d; }
+        },
+        XOR {
+            public long identity()                   { return 0; }
+            public long combine(long a, long b)      { return a ^ b; }
+            public long power(long x, int k)         { return (k & 1) == 0 ? 0 : x; }
+        }
+    }
+
+    private final Monoid op;
+    private final int n;            // number of values
+    private final int size;         // n rounded up to a power of two
+    private final int log;          // log2(size)
+    private final long[] value;     // value[k] = combination of the range of node k
+    private final long[] tag;       // tag[k] = pending assign or add for the children of k
+    private final byte[] state;     // state[k] = NONE, ADD or ASSIGN: what tag[k] is
+
+    // Initializes a tree of n zeros.
+    public LongSegmentTree(int n, Monoid op) {
+        this(new long[n], op);
+    }
+
+    // Initializes a tree with the values a[0..n-1].
+    public LongSegmentTree(long[] a, Monoid op) {
+        if (op == null)
+            throw new IllegalArgumentException("monoid is null");
+        this.op = op;
+        n = a.length;
+        int s = 1, h = 0;
+        while (s < n) {
+            s <<= 1;
+            h++;
+        }
+        size = s;
+        log = h;
+        value = new long[2 * size];
+        tag = new long[size];
+        state = new byte[size];
+        java.util.Arrays.fill(value, size + n, 2 * size, op.identity());
+        System.arraycopy(a, 0, value, size, n);
+        for (int k = size - 1; k >= 1; k--)
+            pull(k);
+    }
+
+    // Returns the number of values.
+    public int size() {
+        return n;
+    }
+
+    // Returns the value at index i.
+    public long get(int i) {
+        validateIndex(i);
+        i += size;
+        for (int h = log; h >= 1; h--)
+            push(i >> h);
+        return value[i];
+    }
+
+    // Sets the value at index i to x.
+    public void set(int i, long x) {
+        validateIndex(i);
+        i += size;
+        for (int h = log; h >= 1; h--)
+            push(i >> h);
+        value[i] = x;
+        for (int h = 1; h <= log; h++)
+            pull(i >> h);
+    }
+
+    // Returns the combination of the values at indices lo..hi, in order.
+    public long query(int lo, int hi) {
+        validateRange(lo, hi);
+        int l = lo + size;
+        int r = hi + 1 + size;
+        pushEnds(l, r);
+        long left = op.identity();
+        long right = op.identity();
+        while (l < r) {
+            if ((l & 1) == 1) left = op.combine(left, value[l++]);
+            if ((r & 1) == 1) right = op.combine(value[--r], right);
+            l >>= 1;
+            r >>= 1;
+        }
+        return op.combine(left, right);
+    }
+
+    // Returns the combination of all the values.
+    public long all() {
+        return value[1];
+    }
+
+    // Adds d to the values at indices lo..hi.
+    public void add(int lo, int hi, long d) {
+        validateRange(lo, hi);
+        update(lo, hi, ADD, d);
+    }
+
+    // Sets the values at indices lo..hi to x.
+    public void assign(int lo, int hi, long x) {
+        validateRange(lo, hi);
+        update(lo, hi, ASSIGN, x);
+    }
+
+    private void update(int lo, int hi, byte kind, long x) {
+        int l = lo + size;
+        int r = hi + 1 + size;
+        pushEnds(l, r);
+        int l0 = l, r0 = r;
+        for (int length = 1; l < r; length <<= 1) {
+            if ((l & 1) == 1) apply(l++, kind, x, length);
+            if ((r & 1) == 1) apply(--r, kind, x, length);
+            l >>= 1;
+            r >>= 1;
+        }
+        for (int h = 1; h <= log; h++) {
+            boolean left = ((l0 >> h) << h) != l0;
+            if (left) pull(l0 >> h);
+            if (((r0 >> h) << h) != r0 && !(left && (l0 >> h) == ((r0 - 1) >> h))) pull((r0 - 1) >> h);
+        }
+    }
+
+    // pushes the tags down the paths to the nodes l and r - 1, except
+    // where the range [l, r) starts or ends at the left edge of a node,
+    // and once where the paths meet
+    private void pushEnds(int l, int r) {
+        for (int h = log; h >= 1; h--) {
+            boolean left = ((l >> h) << h) != l;
+            if (left) push(l >> h);
+            if (((r >> h) << h) != r && !(left && (l >> h) == ((r - 1) >> h))) push((r - 1) >> h);
+        }
+    }
+
+    // assigns x to, or adds x to, every value in node k, of the given length
+    private void apply(int k, byte kind, long x, int length) {
+        if (kind == ASSIGN) {
+            value[k] = op.power(x, length);
+            if (k < size) {
+                tag[k] = x;
+                state[k] = ASSIGN;
+            }
+        }
+        else {
+            value[k] = op.add(value[k], x, length);
+            if (k < size) {
+                if (state[k] == NONE) {
+                    tag[k] = x;
+                    state[k] = ADD;
+                }
+                else {
+                    tag[k] += x;    // to the assigned value, or to the pending add
+                }
+            }
+        }
+    }
+
+    // hands the tag of node k to its children
+    private void push(int k) {
+        byte kind = state[k];
+        if (kind == NONE)
+            return;
+        int length = size >>> (32 - Integer.numberOfLeadingZeros(k));    // of a child
+        apply(2 * k, kind, tag[k], length);
+        apply(2 * k + 1, kind, tag[k], length);
+        state[k] = NONE;
+    }
+
+    private void pull(int k) {
+        value[k] = op.combine(value[2 * k], value[2 * k + 1]);
+    }
+
+    // throw new IllegalArgumentException unless 0 <= i < n.
+    private void validateIndex(int i) {
+        if (i < 0 || i >= n)
+            throw new IllegalArgumentException("index " + i + " is not between 0 and " + (n - 1));
+    }
+
+    // throw new IllegalArgumentException unless 0 <= lo <= hi < n.
+    private void validateRange(int lo, int hi) {
+        if (lo < 0 || hi >= n || lo > hi)
+            throw new IllegalArgumentException("invalid range [" + lo + ", " + hi + "] of " + n + " values");
+    }
+
+    // Unit tests the LongSegmentTree data type: random operations on
+    // every Op against a plain array, then times m (default 10^7) range
+    // adds and sum queries on n values (default 10^6).
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+
+        for (Op op : Op.values()) {
+            int size = 1 + StdRandom.uniform(200);
+            long[] a = new long[size];
+            for (int i = 0; i < size; i++)
+                a[i] = StdRandom.uniform(-1000, 1000);
+            LongSegmentTree tree = new LongSegmentTree(a, op);
+            int differ = 0;
+            for (int t = 0; t < 20000; t++) {
+                int lo = StdRandom.uniform(size);
+                int hi = lo + StdRandom.uniform(size - lo);
+                long x = StdRandom.uniform(-1000, 1000);
+                int kind = StdRandom.uniform(op == Op.XOR ? 4 : 5);
+                if (kind == 0) {
+                    tree.set(lo, x);
+                    a[lo] = x;
+                }
+                else if (kind == 1) {
+                    if (tree.get(lo) != a[lo]) differ++;
+                }
+                else if (kind == 2) {
+                    long expected = op.identity();
+                    for (int i = lo; i <= hi; i++)
+                        expected = op.combine(expected, a[i]);
+                    if (tree.query(lo, hi) != expected) differ++;
+                }
+                else if (kind == 3) {
+                    tree.assign(lo, hi, x);
+                    for (int i = lo; i <= hi; i++) a[i] = x;
+                }
+                else {
+                    tree.add(lo, hi, x);
+                    for (int i = lo; i <= hi; i++) a[i] += x;
+                }
+            }
+            long expected = op.identity();
+            for (int i = 0; i < size; i++)
+                expected = op.combine(expected, a[i]);
+            if (tree.all() != expected) differ++;
+            StdOut.println(op + ": " + differ + " results differ");
+        }
+
+        LongSegmentTree sums = new LongSegmentTree(n, Op.SUM);
+        int[] lo = new int[1 << 16];
+        int[] hi = new int[lo.length];
+        for (int k = 0; k < lo.length; k++) {
+            int i = StdRandom.uniform(n);
+            int j = StdRandom.uniform(n);
+            lo[k] = Math.min(i, j);
+            hi[k] = Math.max(i, j);
+        }
+        Stopwatch timer = new Stopwatch();
+        long checksum = 0;
+        for (int t = 0; t < m; t++) {
+            int k = t & (lo.length - 1);
+            if ((t & 1) == 0) sums.add(lo[k], hi[k], t);
+            else              checksum += sums.query(lo[k], hi[k]);
+        }
+        double time = timer.elapsedTime();
+        StdOut.printf("%d range adds and sums on %d values in %.3f s: %.2e per second (checksum %d)\n",
+                      m, n, time, m / time, checksum);
+    }
+}
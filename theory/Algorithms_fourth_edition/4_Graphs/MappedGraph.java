@@ -0,0 +1,515 @@
+/**
+ *  The {@code MappedGraph} class represents an immutable graph or digraph,
+ *  optionally edge-weighted, that is read straight from a memory-mapped
+ *  binary file in compressed-sparse-row form. It has the same
+ *  {@code adjBegin()}/{@code adjEnd()}/{@code target()} access as
+ *  {@link CSRDigraph} and {@link CSRGraph}, plus {@code weight()} for
+ *  weighted files; every call reads the mapped bytes, so there is no
+ *  object per vertex or per edge. Opening a file reads the offsets and
+ *  the targets once, to check that the offsets do not decrease and that
+ *  every target is a vertex, which takes time proportional to V + E.
+ *  <p>
+ *  The file, in little-endian byte order, is a 32-byte header
+ *  (magic, version, flags, V, E, the number m of adjacency entries, and
+ *  two reserved ints), then V + 1 int offsets, then m int targets and, in
+ *  a weighted file, m double weights; each array starts on a multiple of
+ *  8 bytes. As in {@link CSRGraph}, an undirected edge has one entry in
+ *  the row of each endpoint, so m = 2E; in a digraph m = E. Rows are in
+ *  the same order as the {@link Bag}-based classes built from the same
+ *  text, so algorithms visit vertices in the same order on both.
+ *  <p>
+ *  The static {@code write()} methods save a {@link Graph},
+ *  {@link Digraph}, {@link EdgeWeightedGraph} or
+ *  {@link EdgeWeightedDigraph}, and {@code convert()} turns a text file in
+ *  the format of their {@code In} constructors into a binary file without
+ *  building the Bag-based graph. Files larger than 2GB are mapped in
+ *  pieces of 1GB.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class MappedGraph implements AdjacencyDigraph {
+
+    private static final String NEWLINE = System.getProperty("line.separator");
+    private static final int MAGIC = 0x47525048;    // "GRPH"
+    private static final int VERSION = 1;
+    private static final int DIRECTED = 1;          // flag bits
+    private static final int WEIGHTED = 2;
+    private static final int HEADER = 32;           // bytes
+    private static final int CHUNK_SHIFT = 30;      // 1GB per mapped piece
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final int V;            // number of vertices
+    private final int E;            // number of edges
+    private final int m;            // number of adjacency entries
+    private final boolean directed;
+    private final ByteBuffer[] offset;  // mapped int offsets, in pieces
+    private final ByteBuffer[] target;  // mapped int targets, in pieces
+    private final ByteBuffer[] weight;  // mapped double weights, in pieces, or null
+
+    // Maps the binary graph file.
+    public MappedGraph(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER)
+                throw new IllegalArgumentException(file + " is too short for a graph header");
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC)
+                throw new IllegalArgumentException(file + " is not a binary graph file");
+            if (header.getInt(4) != VERSION)
+                throw new IllegalArgumentException(file + " has unsupported version " + header.getInt(4));
+            int flags = header.getInt(8);
+            V = header.getInt(12);
+            E = header.getInt(16);
+            m = header.getInt(20);
+            directed = (flags & DIRECTED) != 0;
+            if (V < 0 || E < 0 || m != (directed ? E : 2L * E))
+                throw new IllegalArgumentException(file + " has an invalid header");
+
+            long targetPos = align(HEADER + 4L * (V + 1));
+            long weightPos = align(targetPos + 4L * m);
+            long end = (flags & WEIGHTED) != 0 ? weightPos + 8L * m : targetPos + 4L * m;
+            if (channel.size() < end)
+                throw new IllegalArgumentException(file + " is shorter than its header says");
+
+            offset = map(channel, HEADER, 4L * (V + 1));
+            target = map(channel, targetPos, 4L * m);
+            weight = (flags & WEIGHTED) != 0 ? map(channel, weightPos, 8L * m) : null;
+            if (offset(0) != 0 || offset(V) != m)
+                throw new IllegalArgumentException(file + " has invalid offsets");
+            for (int v = 0; v < V; v++)
+                if (offset(v) > offset(v + 1))
+                    throw new IllegalArgumentException(file + " has decreasing offsets at vertex " + v);
+            for (int i = 0; i < m; i++) {
+                int w = getInt(target, i);
+                if (w < 0 || w >= V)
+                    throw new IllegalArgumentException(file + " has target " + w + " not between 0 and " + (V - 1));
+            }
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not open " + file, ioe);
+        }
+    }
+
+    // maps length bytes from position in pieces of at most 1GB; the
+    // mappings stay valid after the channel is closed
+    private static ByteBuffer[] map(FileChannel channel, long position, long length) throws IOException {
+        int n = (int) Math.max(1, (length + CHUNK_MASK) >>> CHUNK_SHIFT);
+        ByteBuffer[] pieces = new ByteBuffer[n];
+        for (int k = 0; k < n; k++) {
+            long start = (long) k << CHUNK_SHIFT;
+            long size = Math.min(CHUNK_MASK + 1, length - start);
+            pieces[k] = channel.map(FileChannel.MapMode.READ_ONLY, position + start, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return pieces;
+    }
+
+    // next multiple of 8
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    // the i-th int of a mapped array
+    private static int getInt(ByteBuffer[] pieces, long i) {
+        long b = i << 2;
+        return pieces[(int) (b >>> CHUNK_SHIFT)].getInt((int) (b & CHUNK_MASK));
+    }
+
+    // the i-th double of a mapped array
+    private static double getDouble(ByteBuffer[] pieces, long i) {
+        long b = i << 3;
+        return pieces[(int) (b >>> CHUNK_SHIFT)].getDouble((int) (b & CHUNK_MASK));
+    }
+
+    private int offset(int v) {
+        return getInt(offset, v);
+    }
+
+    // Returns the number of vertices.
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of edges.
+    public int E() {
+        return E;
+    }
+
+    // Is this a digraph ? (otherwise every edge has an entry at both endpoints)
+    public boolean isDirected() {
+        return directed;
+    }
+
+    // Does this graph have edge weights ?
+    public boolean isWeighted() {
+        return weight != null;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // throw an IllegalArgumentException unless 0 <= i < m.
+    private void validatePosition(int i) {
+        if (i < 0 || i >= m)
+            throw new IllegalArgumentException("position " + i + " is not between 0 and " + (m - 1));
+    }
+
+    // Returns the first position in the adjacency range of vertex v.
+    public int adjBegin(int v) {
+        validateVertex(v);
+        return offset(v);
+    }
+
+    // Returns one past the last position in the adjacency range of vertex v.
+    public int adjEnd(int v) {
+        validateVertex(v);
+        return offset(v + 1);
+    }
+
+    // Returns the vertex at position i of the adjacency array.
+    public int target(int i) {
+        validatePosition(i);
+        return getInt(target, i);
+    }
+
+    // Returns the weight of the edge at position i of the adjacency array.
+    public double weight(int i) {
+        if (weight == null)
+            throw new UnsupportedOperationException("graph has no edge weights");
+        validatePosition(i);
+        return getDouble(weight, i);
+    }
+
+    // Returns the vertices adjacent from vertex v.
+    public Iterable<Integer> adj(int v) {
+        validateVertex(v);
+        return new AdjIterator(offset(v), offset(v + 1));
+    }
+
+    // iterator over one row of the mapped targets.
+    private class AdjIterator implements Iterator<Integer>, Iterable<Integer> {
+        private int i;
+        private final int end;
+
+        AdjIterator(int begin, int end) {
+            this.i = begin;
+            this.end = end;
+        }
+
+        public Iterator<Integer> iterator() {
+            return this;
+        }
+
+        public boolean hasNext() {
+            return i < end;
+        }
+
+        public Integer next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return getInt(target, i++);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Returns the number of entries in the row of vertex v: the outdegree
+    // in a digraph, the degree in a graph.
+    public int degree(int v) {
+        validateVertex(v);
+        return offset(v + 1) - offset(v);
+    }
+
+    // Returns the reverse of this digraph, on the heap; a graph is its own reverse.
+    public AdjacencyDigraph reverse() {
+        if (!directed)
+            return this;
+        int[] from = new int[m];
+        int[] to = new int[m];
+        for (int v = 0; v < V; v++) {
+            for (int i = offset(v); i < offset(v + 1); i++) {
+                from[i] = getInt(target, i);
+                to[i] = v;
+            }
+        }
+        return new CSRDigraph(V, from, to);
+    }
+
+    // Returns a string representation of this graph.
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(V + " vertices, " + E + " edges " + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int i = offset(v); i < offset(v + 1); i++) {
+                if (weight == null) s.append(getInt(target, i) + " ");
+                else                s.append(getInt(target, i) + "(" + String.format("%.2f", getDouble(weight, i)) + ") ");
+            }
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+    // Writes the graph G to file.
+    public static void write(Graph G, File file) {
+        CSRGraph csr = new CSRGraph(G);
+        int[] offset = new int[G.V() + 1];
+        int[] target = new int[2 * G.E()];
+        for (int v = 0; v < G.V(); v++) {
+            offset[v + 1] = csr.adjEnd(v);
+            for (int i = csr.adjBegin(v); i < csr.adjEnd(v); i++)
+                target[i] = csr.target(i);
+        }
+        write(file, G.V(), G.E(), false, offset, target, null);
+    }
+
+    // Writes the digraph G to file.
+    public static void write(Digraph G, File file) {
+        CSRDigraph csr = new CSRDigraph(G);
+        int[] offset = new int[G.V() + 1];
+        int[] target = new int[G.E()];
+        for (int v = 0; v < G.V(); v++) {
+            offset[v + 1] = csr.adjEnd(v);
+            for (int i = csr.adjBegin(v); i < csr.adjEnd(v); i++)
+                target[i] = csr.target(i);
+        }
+        write(file, G.V(), G.E(), true, offset, target, null);
+    }
+
+    // Writes the edge-weighted graph G to file.
+    public static void write(EdgeWeightedGraph G, File file) {
+        int[] offset = new int[G.V() + 1];
+        int[] target = new int[2 * G.E()];
+        double[] weight = new double[2 * G.E()];
+        int i = 0;
+        for (int v = 0; v < G.V(); v++) {
+            for (Edge e : G.adj(v)) {
+                target[i] = e.other(v);
+                weight[i] = e.weight();
+                i++;
+            }
+            offset[v + 1] = i;
+        }
+        write(file, G.V(), G.E(), false, offset, target, weight);
+    }
+
+    // Writes the edge-weighted digraph G to file.
+    public static void write(EdgeWeightedDigraph G, File file) {
+        CSREdgeWeightedDigraph csr = new CSREdgeWeightedDigraph(G);
+        int[] offset = new int[G.V() + 1];
+        int[] target = new int[G.E()];
+        double[] weight = new double[G.E()];
+        for (int v = 0; v < G.V(); v++) {
+            offset[v + 1] = csr.adjEnd(v);
+            for (int i = csr.adjBegin(v); i < csr.adjEnd(v); i++) {
+                target[i] = csr.to(i);
+                weight[i] = csr.weight(i);
+            }
+        }
+        write(file, G.V(), G.E(), true, offset, target, weight);
+    }
+
+    // Converts a text file in the format of Graph(In), Digraph(In),
+    // EdgeWeightedGraph(In) or EdgeWeightedDigraph(In) to a binary file,
+    // keeping only the edge arrays in memory.
+    public static void convert(In in, boolean directed, boolean weighted, File file) {
+        try {
+            int V = in.readInt();
+            if (V < 0)
+                throw new IllegalArgumentException("number of vertices must be nonnegative");
+            int E = in.readInt();
+            if (E < 0)
+                throw new IllegalArgumentException("number of edges must be nonnegative");
+            if (!directed && E > Integer.MAX_VALUE / 2)
+                throw new IllegalArgumentException("too many edges for one binary graph file");
+            int[] from = new int[E];
+            int[] to = new int[E];
+            double[] w = weighted ? new double[E] : null;
+            for (int i = 0; i < E; i++) {
+                from[i] = in.readInt();
+                to[i] = in.readInt();
+                if (from[i] < 0 || from[i] >= V || to[i] < 0 || to[i] >= V)
+                    throw new IllegalArgumentException("edge " + from[i] + "-" + to[i] + " has a vertex not between 0 and " + (V - 1));
+                if (weighted)
+                    w[i] = in.readDouble();
+            }
+
+            // counting sort by row; rows are filled from their end so they
+            // match the iteration order of the Bag-based classes
+            int m = directed ? E : 2 * E;
+            int[] offset = new int[V + 1];
+            for (int i = 0; i < E; i++) {
+                offset[from[i] + 1]++;
+                if (!directed) offset[to[i] + 1]++;
+            }
+            for (int v = 0; v < V; v++)
+                offset[v + 1] += offset[v];
+            int[] next = new int[V];
+            for (int v = 0; v < V; v++)
+                next[v] = offset[v + 1];
+            int[] target = new int[m];
+            double[] weight = weighted ? new double[m] : null;
+            for (int i = 0; i < E; i++) {
+                int k = --next[from[i]];
+                target[k] = to[i];
+                if (weighted) weight[k] = w[i];
+                if (!directed) {
+                    k = --next[to[i]];
+                    target[k] = from[i];
+                    if (weighted) weight[k] = w[i];
+                }
+            }
+            write(file, V, E, directed, offset, target, weight);
+        }
+        catch (NoSuchElementException e) {
+            throw new IllegalArgumentException("invalid input format in MappedGraph.convert()", e);
+        }
+    }
+
+    // writes the header and the three arrays to file
+    private static void write(File file, int V, int E, boolean directed, int[] offset, int[] target, double[] weight) {
+        int m = target.length;
+        long targetPos = align(HEADER + 4L * (V + 1));
+        long weightPos = align(targetPos + 4L * m);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt((directed ? DIRECTED : 0) | (weight != null ? WEIGHTED : 0));
+            buffer.putInt(V).putInt(E).putInt(m).putInt(0).putInt(0);
+            for (int x : offset)
+                put(channel, buffer).putInt(x);
+            pad(channel, buffer);
+            for (int x : target)
+                put(channel, buffer).putInt(x);
+            if (weight != null) {
+                pad(channel, buffer);
+                for (double x : weight)
+                    put(channel, buffer).putDouble(x);
+            }
+            flush(channel, buffer);
+            assert channel.position() == (weight != null ? weightPos + 8L * m : targetPos + 4L * m);
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not write " + file, ioe);
+        }
+    }
+
+    // returns buffer, first writing it out if it has no room for a double
+    private static ByteBuffer put(FileChannel channel, ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 8)
+            flush(channel, buffer);
+        return buffer;
+    }
+
+    // writes zero bytes up to the next multiple of 8 of the position in the
+    // file, which is not that of the buffer once it has been flushed at a
+    // multiple of 4
+    private static void pad(FileChannel channel, ByteBuffer buffer) throws IOException {
+        put(channel, buffer);
+        while ((channel.position() + buffer.position()) % 8 != 0)
+            buffer.put((byte) 0);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    // writes a random edge-weighted digraph with V vertices and E edges to
+    // a temporary file, maps it, and returns the number of adjacency entries
+    // that differ; arrays of more than a million bytes are written out in
+    // several pieces, and the next array must still start where the reader
+    // looks for it
+    private static int roundTrip(int V, int E) throws IOException {
+        EdgeWeightedDigraph digraph = new EdgeWeightedDigraph(V, E);
+        CSREdgeWeightedDigraph H = new CSREdgeWeightedDigraph(digraph);
+        File file = File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+        write(digraph, file);
+        MappedGraph G = new MappedGraph(file);
+        int differ = 0;
+        for (int v = 0; v < V; v++) {
+            if (G.adjBegin(v) != H.adjBegin(v) || G.adjEnd(v) != H.adjEnd(v)) differ++;
+            for (int i = H.adjBegin(v); i < H.adjEnd(v); i++)
+                if (G.target(i) != H.to(i) || G.weight(i) != H.weight(i)) differ++;
+        }
+        return differ;
+    }
+
+    // Converts a text graph file of the given kind (graph, digraph, ewg or
+    // ewd) to a binary file, maps it, and checks it against the Bag-based
+    // class read from the same text; then writes and maps random digraphs
+    // larger than the write buffer.
+    public static void main(String[] args) throws IOException {
+        String kind = args[0];
+        boolean directed = kind.equals("digraph") || kind.equals("ewd");
+        boolean weighted = kind.equals("ewg") || kind.equals("ewd");
+        File file = new File(args[2]);
+
+        Stopwatch timer = new Stopwatch();
+        convert(new In(args[1]), directed, weighted, file);
+        double time1 = timer.elapsedTime();
+        timer = new Stopwatch();
+        MappedGraph G = new MappedGraph(file);
+        double time2 = timer.elapsedTime();
+        StdOut.printf("convert %.3f s, map %.3f s, %d vertices, %d edges\n", time1, time2, G.V(), G.E());
+
+        // the same rows, in the same order, as the Bag-based class
+        int differ = 0;
+        In in = new In(args[1]);
+        if (!weighted) {
+            AdjacencyGraph H = directed ? new Digraph(in) : new Graph(in);
+            for (int v = 0; v < G.V(); v++) {
+                int i = G.adjBegin(v);
+                for (int w : H.adj(v)) {
+                    if (i >= G.adjEnd(v) || G.target(i) != w) differ++;
+                    i++;
+                }
+                if (i != G.adjEnd(v)) differ++;
+            }
+        }
+        else if (!directed) {
+            EdgeWeightedGraph H = new EdgeWeightedGraph(in);
+            for (int v = 0; v < G.V(); v++) {
+                int i = G.adjBegin(v);
+                for (Edge e : H.adj(v)) {
+                    if (i >= G.adjEnd(v) || G.target(i) != e.other(v) || G.weight(i) != e.weight()) differ++;
+                    i++;
+                }
+                if (i != G.adjEnd(v)) differ++;
+            }
+        }
+        else {
+            EdgeWeightedDigraph H = new EdgeWeightedDigraph(in);
+            for (int v = 0; v < G.V(); v++) {
+                int i = G.adjBegin(v);
+                for (DirectedEdge e : H.adj(v)) {
+                    if (i >= G.adjEnd(v) || G.target(i) != e.to() || G.weight(i) != e.weight()) differ++;
+                    i++;
+                }
+                if (i != G.adjEnd(v)) differ++;
+            }
+        }
+        StdOut.println(differ + " adjacency entries differ");
+        if (G.V() <= 20)
+            StdOut.println(G);
+
+        for (int V = 300000; V <= 300001; V++)
+            StdOut.println(roundTrip(V, V + 1) + " adjacency entries differ in a random digraph with "
+                           + V + " vertices and " + (V + 1) + " edges");
+    }
+}
@@ -0,0 +1,393 @@
+/**
+ *  The {@code NameDictionary} class represents a symbol table from strings
+ *  to the integers 0 through n - 1, assigned in the order in which the
+ *  strings are first added, with the inverse mapping from integers back
+ *  to strings, as the {@link ST} and {@code String[]} of
+ *  {@link SymbolGraph} provide.
+ *  <p>
+ *  The names are kept as UTF-8 bytes in an arena of direct (off-heap)
+ *  buffers of 16MB pages, each name preceded by its length as a varint;
+ *  name i starts at {@code position[i]}. The index is an open-addressing
+ *  hash table of ids with linear probing, and {@code hash[i]} caches the
+ *  hash of name i, so lookups compare bytes only on a hash match and the
+ *  table grows without reading the arena. Besides the arena, the
+ *  dictionary takes about 12 bytes per name and at most 8 bytes per
+ *  name for the table, instead of a {@code String} and a tree node per
+ *  name.
+ *  <p>
+ *  {@code save()} writes the dictionary to a file, in little-endian byte
+ *  order: a 32-byte header (magic, version, n, the number of arena pages,
+ *  the bytes used in the last page, the table length, and two reserved
+ *  ints), then the positions, the hashes, the table, and the pages, each
+ *  page on a multiple of 16MB from the start of the arena. The
+ *  {@code NameDictionary(File)} constructor reads the index arrays and
+ *  maps the pages, so the names are never decoded again; names added
+ *  afterwards go to new direct pages.
+ *  <p>
+ *  {@code add()}, {@code indexOf()} and {@code contains()} take expected
+ *  time proportional to the length of the name, and {@code nameOf()}
+ *  time proportional to the length of the result.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+public class NameDictionary {
+
+    private static final int MAGIC = 0x454d414e;    // "NAME"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;           // bytes
+    private static final int PAGE_SHIFT = 24;       // 16MB per arena page
+    private static final int PAGE = 1 << PAGE_SHIFT;
+    private static final int MAX_LENGTH = PAGE - 5; // longest name, in bytes, with its varint
+    private static final int MAX_NAMES = 1 << 29;   // so that the table length fits in an int
+
+    private int n;                  // number of names
+    private long[] position;        // position[i] = page << PAGE_SHIFT | offset of name i
+    private int[] hash;             // hash[i] = hash of name i
+    private int[] table;            // table[k] = 1 + id of the name in slot k, or 0 if empty
+    private ByteBuffer[] pages;     // the arena
+    private int pageCount;          // number of pages in use
+    private int top;                // bytes used in the last page, or PAGE if it is mapped
+    private int mapped;             // number of pages mapped from a file
+    private int mappedTop;          // bytes used in the last mapped page
+
+    // Initializes an empty dictionary.
+    public NameDictionary() {
+        position = new long[16];
+        hash = new int[16];
+        table = new int[32];
+        pages = new ByteBuffer[4];
+        top = PAGE;     // no page yet
+    }
+
+    // Maps a dictionary saved with save().
+    public NameDictionary(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER)
+                throw new IllegalArgumentException(file + " is too short for a dictionary header");
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC)
+                throw new IllegalArgumentException(file + " is not a name dictionary file");
+            if (header.getInt(4) != VERSION)
+                throw new IllegalArgumentException(file + " has unsupported version " + header.getInt(4));
+            n = header.getInt(8);
+            pageCount = header.getInt(12);
+            int last = header.getInt(16);
+            int capacity = header.getInt(20);
+            if (n < 0 || pageCount < 0 || last < 0 || last > PAGE || capacity < 2L * n
+                    || Integer.bitCount(capacity) != 1 || (pageCount == 0 && n > 0))
+                throw new IllegalArgumentException(file + " has an invalid header");
+
+            long arena = arenaPosition(n, capacity);
+            long end = pageCount == 0 ? arena : arena + (long) (pageCount - 1) * PAGE + last;
+            if (channel.size() < end)
+                throw new IllegalArgumentException(file + " is shorter than its header says");
+
+            position = new long[Math.max(16, n)];
+            hash = new int[Math.max(16, n)];
+            table = new int[capacity];
+            long at = HEADER;
+            read(channel, at, 8L * n).asLongBuffer().get(position, 0, n);
+            at += 8L * n;
+            read(channel, at, 4L * n).asIntBuffer().get(hash, 0, n);
+            at += 4L * n;
+            read(channel, at, 4L * capacity).asIntBuffer().get(table);
+
+            pages = new ByteBuffer[Math.max(4, pageCount)];
+            for (int k = 0; k < pageCount; k++) {
+                int size = k == pageCount - 1 ? last : PAGE;
+                pages[k] = channel.map(FileChannel.MapMode.READ_ONLY, arena + (long) k * PAGE, size);
+            }
+            mapped = pageCount;
+            mappedTop = last;
+            top = PAGE;     // the mapped pages are read-only: add() starts a new one
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not open " + file, ioe);
+        }
+    }
+
+    // maps length bytes from position, in little-endian order
+    private static ByteBuffer read(FileChannel channel, long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // where the arena starts in a file of n names and the given table length
+    private static long arenaPosition(int n, int capacity) {
+        long end = HEADER + 12L * n + 4L * capacity;
+        return (end + PAGE - 1) & ~(long) (PAGE - 1);
+    }
+
+    // Returns the number of names.
+    public int size() {
+        return n;
+    }
+
+    // Returns the number of bytes of the arena in use.
+    public long arenaBytes() {
+        return pageCount == 0 ? 0 : (long) (pageCount - 1) * PAGE + used();
+    }
+
+    // bytes used in the last page
+    private int used() {
+        return pageCount > mapped ? top : mappedTop;
+    }
+
+    // Does the dictionary contain the name s ?
+    public boolean contains(String s) {
+        return indexOf(s) != -1;
+    }
+
+    // Returns the integer associated with the name s, or -1 if there is none.
+    public int indexOf(String s) {
+        if (s == null)
+            throw new IllegalArgumentException("argument to indexOf() is null");
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        return indexOf(b, 0, b.length);
+    }
+
+    // Returns the integer associated with the name whose UTF-8 bytes are
+    // b[from .. from+length-1], or -1 if there is none.
+    public int indexOf(byte[] b, int from, int length) {
+        int h = hash(b, from, length);
+        int mask = table.length - 1;
+        for (int k = h & mask; table[k] != 0; k = (k + 1) & mask) {
+            int id = table[k] - 1;
+            if (hash[id] == h && equals(id, b, from, length))
+                return id;
+        }
+        return -1;
+    }
+
+    // Returns the integer associated with the name s, adding s with the
+    // next integer if it is not in the dictionary.
+    public int add(String s) {
+        if (s == null)
+            throw new IllegalArgumentException("argument to add() is null");
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        return add(b, 0, b.length);
+    }
+
+    // Returns the integer associated with the name whose UTF-8 bytes are
+    // b[from .. from+length-1], adding it with the next integer if it is
+    // not in the dictionary.
+    public int add(byte[] b, int from, int length) {
+        if (length > MAX_LENGTH)
+            throw new IllegalArgumentException("name of " + length + " bytes is longer than " + MAX_LENGTH);
+        int h = hash(b, from, length);
+        int mask = table.length - 1;
+        int k = h & mask;
+        for (; table[k] != 0; k = (k + 1) & mask) {
+            int id = table[k] - 1;
+            if (hash[id] == h && equals(id, b, from, length))
+                return id;
+        }
+        if (n == MAX_NAMES)
+            throw new IllegalStateException("more than " + MAX_NAMES + " names");
+        if (n == position.length) {
+            position = java.util.Arrays.copyOf(position, 2 * n);
+            hash = java.util.Arrays.copyOf(hash, 2 * n);
+        }
+        position[n] = append(b, from, length);
+        hash[n] = h;
+        table[k] = n + 1;
+        n++;
+        if (2L * n > table.length)
+            rehash(2 * table.length);
+        return n - 1;
+    }
+
+    // Returns the name associated with the integer v.
+    public String nameOf(int v) {
+        validateIndex(v);
+        ByteBuffer page = pages[(int) (position[v] >>> PAGE_SHIFT)];
+        int i = (int) position[v] & (PAGE - 1);
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte x = page.get(i++);
+            length |= (x & 0x7f) << shift;
+            if (x >= 0)
+                break;
+        }
+        byte[] b = new byte[length];
+        page.get(i, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // does name id have the bytes b[from .. from+length-1] ?
+    private boolean equals(int id, byte[] b, int from, int length) {
+        ByteBuffer page = pages[(int) (position[id] >>> PAGE_SHIFT)];
+        int i = (int) position[id] & (PAGE - 1);
+        int stored = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte x = page.get(i++);
+            stored |= (x & 0x7f) << shift;
+            if (x >= 0)
+                break;
+        }
+        if (stored != length)
+            return false;
+        for (int j = 0; j < length; j++) {
+            if (page.get(i + j) != b[from + j])
+                return false;
+        }
+        return true;
+    }
+
+    // copies the varint length and the bytes to the arena, and returns
+    // where they start; a name never crosses a page
+    private long append(byte[] b, int from, int length) {
+        int need = length + 5;
+        if (top + need > PAGE) {
+            if (pageCount == pages.length)
+                pages = java.util.Arrays.copyOf(pages, 2 * pageCount);
+            pages[pageCount++] = ByteBuffer.allocateDirect(PAGE);
+            top = 0;
+        }
+        ByteBuffer page = pages[pageCount - 1];
+        long start = (long) (pageCount - 1) << PAGE_SHIFT | top;
+        int x = length;
+        while (x >= 0x80) {
+            page.put(top++, (byte) (x | 0x80));
+            x >>>= 7;
+        }
+        page.put(top++, (byte) x);
+        page.put(top, b, from, length);
+        top += length;
+        return start;
+    }
+
+    // rebuilds the table with the given length, from the cached hashes
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < n; id++) {
+            int k = hash[id] & mask;
+            while (table[k] != 0)
+                k = (k + 1) & mask;
+            table[k] = id + 1;
+        }
+    }
+
+    // FNV-1a, with the MurmurHash3 finalizer so that the low bits mix well
+    private static int hash(byte[] b, int from, int length) {
+        int h = 0x811c9dc5;
+        for (int j = from; j < from + length; j++)
+            h = (h ^ b[j]) * 0x01000193;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // Writes the dictionary to file, so that NameDictionary(File) can map it.
+    public void save(File file) {
+        int capacity = table.length;
+        long arena = arenaPosition(n, capacity);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(pageCount);
+            buffer.putInt(pageCount == 0 ? 0 : used()).putInt(capacity).putInt(0).putInt(0);
+            for (int i = 0; i < n; i++)
+                put(channel, buffer).putLong(position[i]);
+            for (int i = 0; i < n; i++)
+                put(channel, buffer).putInt(hash[i]);
+            for (int k = 0; k < capacity; k++)
+                put(channel, buffer).putInt(table[k]);
+            flush(channel, buffer);
+            for (int k = 0; k < pageCount; k++) {
+                ByteBuffer page = pages[k].duplicate();
+                page.clear().limit(k == pageCount - 1 ? used() : page.capacity());
+                long at = arena + (long) k * PAGE;
+                while (page.hasRemaining())
+                    at += channel.write(page, at);
+            }
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not write " + file, ioe);
+        }
+    }
+
+    // returns buffer, first writing it out if it has no room for a long
+    private static ByteBuffer put(FileChannel channel, ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 8)
+            flush(channel, buffer);
+        return buffer;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < n.
+    private void validateIndex(int v) {
+        if (v < 0 || v >= n)
+            throw new IllegalArgumentException("index " + v + " is not between 0 and " + (n - 1));
+    }
+
+    // Unit tests the NameDictionary data type: adds the words of a file,
+    // checks them against an ST, then saves, maps and checks again; then
+    // saves the mapped dictionary as it is, maps that, adds a name, and
+    // saves and maps once more.
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        String[] words = in.readAllStrings();
+        ST<String, Integer> st = new ST<String, Integer>();
+        NameDictionary names = new NameDictionary();
+        int differ = 0;
+        for (String word : words) {
+            if (!st.contains(word))
+                st.put(word, st.size());
+            if (names.add(word) != st.get(word))
+                differ++;
+        }
+        StdOut.println(names.size() + " names, " + names.arenaBytes() + " arena bytes, " + differ + " ids differ");
+
+        File file = new File(args.length > 1 ? args[1] : args[0] + ".dict");
+        names.save(file);
+        NameDictionary mapped = new NameDictionary(file);
+        differ = 0;
+        for (String word : st.keys()) {
+            if (mapped.indexOf(word) != st.get(word) || !mapped.nameOf(st.get(word)).equals(word))
+                differ++;
+        }
+        if (mapped.contains("not a wordé") || mapped.size() != names.size())
+            differ++;
+        int id = mapped.add("not a wordé");
+        if (id != names.size() || !mapped.nameOf(id).equals("not a wordé"))
+            differ++;
+        StdOut.println("mapped " + file + ": " + differ + " names differ");
+
+        File copy = new File(file.getPath() + ".copy");
+        differ = 0;
+        NameDictionary again = new NameDictionary(file);
+        again.save(copy);
+        NameDictionary remapped = new NameDictionary(copy);
+        if (remapped.arenaBytes() != names.arenaBytes() || again.arenaBytes() != names.arenaBytes())
+            differ++;
+        int other = remapped.add("another wordé");
+        remapped.save(file);
+        NameDictionary last = new NameDictionary(file);
+        for (String word : st.keys()) {
+            if (last.indexOf(word) != st.get(word) || !last.nameOf(st.get(word)).equals(word))
+                differ++;
+        }
+        if (last.indexOf("another wordé") != other || last.size() != names.size() + 1)
+            differ++;
+        copy.delete();
+        StdOut.println("saved, mapped and saved again: " + differ + " names differ");
+    }
+}
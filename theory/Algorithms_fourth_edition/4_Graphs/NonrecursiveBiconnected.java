@@ -0,0 +1,201 @@
+// Biconnectivity with an explicit stack of ints: finds the articulation
+// vertices of a graph, like Biconnected.java, and its biconnected
+// components, the maximal sets of vertices that no single vertex removal
+// disconnects. Every edge is in exactly one biconnected component; two
+// components share at most one vertex, an articulation vertex.
+// Runs in O(E + V) time.
+/**
+ *  The {@code NonrecursiveBiconnected} class represents a data type for
+ *  finding the articulation vertices and the biconnected components of
+ *  an undirected graph, with the same {@code isArticulation()} as
+ *  {@link Biconnected}.
+ *  The depth-first search keeps a call stack of vertices with, for every
+ *  vertex on it, the position of the next edge to look at in its row;
+ *  when a vertex w is finished, its parent v takes its low number, and if
+ *  no edge from the subtree of w reaches above v, the edges pushed since
+ *  the tree edge v-w form a biconnected component. The stacks are
+ *  {@code int[]} arrays, so a path of millions of vertices needs no larger
+ *  thread stack.
+ *  The constructor takes time proportional to V + E, where V is the number
+ *  of vertices and E is the number of edges. Afterwards,
+ *  {@code isArticulation()} and {@code count()} take constant time and
+ *  {@code component(i)} time proportional to the size of component i.
+ */
+public class NonrecursiveBiconnected {
+
+    private int[] low;              // low[v] = lowest preorder number reachable from the subtree of v
+    private int[] pre;              // pre[v] = preorder number of v, or -1
+    private int cnt;                // preorder number counter
+    private boolean[] articulation; // articulation[v] = is v an articulation vertex ?
+    private int count;              // number of biconnected components
+    private int[] first;            // component i is vertices[first[i] .. first[i+1]-1]
+    private int[] vertices;
+
+    // Computes the articulation vertices and biconnected components of G.
+    public NonrecursiveBiconnected(Graph G) {
+        this(CSRDigraph.freeze(G));
+    }
+
+    // Computes the articulation vertices and biconnected components of G.
+    public NonrecursiveBiconnected(CSRGraph G) {
+        this(CSRDigraph.freeze(G));
+    }
+
+    // G has both v->w and w->v for every edge v-w
+    private NonrecursiveBiconnected(CSRDigraph G) {
+        int V = G.V();
+        low = new int[V];
+        pre = new int[V];
+        articulation = new boolean[V];
+        for (int v = 0; v < V; v++)
+            pre[v] = -1;
+
+        int[] parent = new int[V];
+        int[] next = new int[V];    // next[v] = position of the next edge to look at
+        int[] call = new int[V];    // the call stack
+        int[] edgeFrom = new int[G.E()];    // the stack of edges of components in progress
+        int[] edgeTo = new int[G.E()];
+        int edges = 0;
+        IntList members = new IntList();    // the vertices of the components, in order
+        IntList starts = new IntList();     // starts of the components in members
+        int[] stamp = new int[V];           // stamp[v] == count + 1 iff v is in component count
+
+        for (int s = 0; s < V; s++) {
+            if (pre[s] != -1)
+                continue;
+            int children = 0;
+            int calls = 0;
+            call[calls++] = s;
+            parent[s] = s;
+            visit(G, s, next);
+            while (calls > 0) {
+                int v = call[calls - 1];
+                if (next[v] < G.adjEnd(v)) {
+                    int w = G.target(next[v]++);
+                    if (pre[w] == -1) {
+                        if (v == s)
+                            children++;
+                        edgeFrom[edges] = v;
+                        edgeTo[edges++] = w;
+                        call[calls++] = w;
+                        parent[w] = v;
+                        visit(G, w, next);
+                    }
+                    // back edge, ignoring the reverse of the edge leading to v
+                    else if (w != parent[v] && pre[w] < pre[v]) {
+                        low[v] = Math.min(low[v], pre[w]);
+                        edgeFrom[edges] = v;
+                        edgeTo[edges++] = w;
+                    }
+                    continue;
+                }
+                calls--;
+                if (calls == 0)
+                    break;
+                int u = call[calls - 1];    // return from w = v to its parent u
+                low[u] = Math.min(low[u], low[v]);
+                if (low[v] >= pre[u]) {
+                    // non-root of DFS is an articulation point if low[w] >= pre[v]
+                    if (u != s)
+                        articulation[u] = true;
+                    // the edges down to and including u-v form a component
+                    starts.add(members.n);
+                    count++;
+                    int x, y;
+                    do {
+                        x = edgeFrom[--edges];
+                        y = edgeTo[edges];
+                        if (stamp[x] != count) { stamp[x] = count; members.add(x); }
+                        if (stamp[y] != count) { stamp[y] = count; members.add(y); }
+                    } while (x != u || y != v);
+                }
+            }
+            // root of DFS is an articulation point if it has more than 1 child
+            if (children > 1)
+                articulation[s] = true;
+        }
+        starts.add(members.n);
+        first = java.util.Arrays.copyOf(starts.a, starts.n);
+        vertices = java.util.Arrays.copyOf(members.a, members.n);
+    }
+
+    private void visit(CSRDigraph G, int v, int[] next) {
+        pre[v] = cnt++;
+        low[v] = pre[v];
+        next[v] = G.adjBegin(v);
+    }
+
+    // a growable list of ints
+    private static class IntList {
+        private int[] a = new int[4];
+        private int n;
+
+        void add(int x) {
+            if (n == a.length)
+                a = java.util.Arrays.copyOf(a, 2 * n);
+            a[n++] = x;
+        }
+    }
+
+    // is vertex v an articulation point ?
+    public boolean isArticulation(int v) {
+        validateVertex(v);
+        return articulation[v];
+    }
+
+    // Returns the number of biconnected components with at least one edge.
+    public int count() {
+        return count;
+    }
+
+    // Returns the vertices of biconnected component i.
+    public Iterable<Integer> component(int i) {
+        if (i < 0 || i >= count)
+            throw new IllegalArgumentException("component " + i + " is not between 0 and " + (count - 1));
+        Queue<Integer> queue = new Queue<Integer>();
+        for (int k = first[i]; k < first[i + 1]; k++)
+            queue.enqueue(vertices[k]);
+        return queue;
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = pre.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Unit tests the NonrecursiveBiconnected data type: checks the
+    // articulation vertices of a random graph by deleting each vertex,
+    // then runs on a path of n vertices (default 10^6).
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        Graph G = GraphGenerator.simple(V, E);
+        NonrecursiveBiconnected bic = new NonrecursiveBiconnected(G);
+
+        int differ = 0;
+        int components = new CC(G).count();
+        for (int x = 0; x < V; x++) {
+            // the graph without x, which stays as an isolated vertex
+            Graph H = new Graph(V);
+            for (int v = 0; v < V; v++) {
+                for (int w : G.adj(v)) {
+                    if (v < w && v != x && w != x)
+                        H.addEdge(v, w);
+                }
+            }
+            int isolated = G.degree(x) == 0 ? 0 : 1;
+            if ((new CC(H).count() > components + isolated) != bic.isArticulation(x))
+                differ++;
+        }
+        StdOut.println(bic.count() + " biconnected components, " + differ + " articulation vertices differ");
+
+        int n = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+        Graph path = new Graph(n);
+        for (int v = 0; v + 1 < n; v++)
+            path.addEdge(v, v + 1);
+        bic = new NonrecursiveBiconnected(path);
+        StdOut.println("path of " + n + " vertices: " + bic.count() + " biconnected components");
+    }
+}
@@ -0,0 +1,179 @@
+// Depth-first orders of a digraph with an explicit stack of ints.
+// Runs in O(E + V) time.
+// Visits the vertices in exactly the same order as DepthFirstOrder.java,
+// but a path of any length fits, since the stack is an array on the heap
+// instead of one call per vertex on the thread's stack.
+/**
+ *  The {@code NonrecursiveDepthFirstOrder} class represents a data type for
+ *  determining depth-first search ordering of the vertices in a digraph
+ *  or edge-weighted digraph, including preorder, postorder, and reverse
+ *  postorder, with the same API and the same results as
+ *  {@link DepthFirstOrder}.
+ *  The digraph is frozen with {@link CSRDigraph#freeze} and the search
+ *  keeps, for every vertex on the stack, the position of the next edge
+ *  to look at in its row, so nothing is boxed during the search.
+ *  The constructor takes time proportional to V + E
+ *  (in the worst case),
+ *  where V is the number of vertices and E is the number of edges.
+ *  Afterwards, the preorder, postorder, and reverse postorder
+ *  operation takes take time proportional to V.
+ */
+public class NonrecursiveDepthFirstOrder {
+    private boolean[] marked;   // marked[v] = has v been marked in dfs ?
+    private int[] pre;          // pre[v] = preorder number of v
+    private int[] post;         // post[v] = postorder number of v
+    private int[] preorder;     // vertices in preorder
+    private int[] postorder;    // vertices in postorder
+    private int preCounter;     // counter or preorder numbering
+    private int postCounter;    // counter for postorder numbering
+
+    // Determines a depth-first order for the digraph G, which may be
+    // a Digraph or a frozen CSRDigraph.
+    public NonrecursiveDepthFirstOrder(AdjacencyGraph G) {
+        this(CSRDigraph.freeze(G));
+    }
+
+    // Determines a depth-first order for the edge-weighted digraph G.
+    public NonrecursiveDepthFirstOrder(EdgeWeightedDigraph G) {
+        this(rows(G));
+    }
+
+    private NonrecursiveDepthFirstOrder(CSRDigraph G) {
+        int V = G.V();
+        pre = new int[V];
+        post = new int[V];
+        preorder = new int[V];
+        postorder = new int[V];
+        marked = new boolean[V];
+        int[] stack = new int[V];   // the vertices whose row is being scanned
+        int[] next = new int[V];    // next[v] = position of the next edge to look at
+        for (int s = 0; s < V; s++) {
+            if (marked[s])
+                continue;
+            int top = 0;
+            stack[top++] = visit(G, s, next);
+            while (top > 0) {
+                int v = stack[top - 1];
+                if (next[v] < G.adjEnd(v)) {
+                    int w = G.target(next[v]++);
+                    if (!marked[w])
+                        stack[top++] = visit(G, w, next);
+                }
+                else {
+                    top--;
+                    postorder[postCounter] = v;
+                    post[v] = postCounter++;
+                }
+            }
+        }
+        assert check();
+    }
+
+    // marks v, numbers it in preorder and returns it
+    private int visit(CSRDigraph G, int v, int[] next) {
+        marked[v] = true;
+        preorder[preCounter] = v;
+        pre[v] = preCounter++;
+        next[v] = G.adjBegin(v);
+        return v;
+    }
+
+    // the edge-weighted digraph G without its weights, with the same rows
+    private static CSRDigraph rows(EdgeWeightedDigraph G) {
+        int[] from = new int[G.E()];
+        int[] to = new int[G.E()];
+        int end = 0;
+        for (int v = 0; v < G.V(); v++) {
+            end += G.outdegree(v);
+            int i = end;
+            for (DirectedEdge e : G.adj(v)) {   // backwards, as in CSRDigraph.freeze()
+                from[--i] = v;
+                to[i] = e.to();
+            }
+        }
+        return new CSRDigraph(G.V(), from, to);
+    }
+
+    // Returns the preorder number of vertex v.
+    public int pre(int v) {
+        validateVertex(v);
+        return pre[v];
+    }
+
+    // Return the postorder number of vertex v.
+    public int post(int v) {
+        validateVertex(v);
+        return post[v];
+    }
+
+    // Returns the vertices in postorder.
+    public Iterable<Integer> post() {
+        Queue<Integer> queue = new Queue<Integer>();
+        for (int k = 0; k < postCounter; k++)
+            queue.enqueue(postorder[k]);
+        return queue;
+    }
+
+    // Returns the vertices in preorder.
+    public Iterable<Integer> pre() {
+        Queue<Integer> queue = new Queue<Integer>();
+        for (int k = 0; k < preCounter; k++)
+            queue.enqueue(preorder[k]);
+        return queue;
+    }
+
+    // Retruns the vertices in reverse postorder.
+    public Iterable<Integer> reversePost() {
+        Stack<Integer> reverse = new Stack<Integer>();
+        for (int k = 0; k < postCounter; k++)
+            reverse.push(postorder[k]);
+        return reverse;
+    }
+
+    // Returns the vertex with the given postorder number, without boxing.
+    public int postorder(int k) {
+        validateVertex(k);
+        return postorder[k];
+    }
+
+    // check that pre() and post() are consistent with pre(v) and post(v)
+    private boolean check() {
+        for (int k = 0; k < postCounter; k++) {
+            if (post[postorder[k]] != k || pre[preorder[k]] != k) {
+                StdOut.println("post(v) and post() inconsistent");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = marked.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Unit tests the NonrecursiveDepthFirstOrder data type against
+    // DepthFirstOrder, then on a path of n vertices (default 10^6).
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Digraph G = new Digraph(in);
+        DepthFirstOrder dfs = new DepthFirstOrder(G);
+        NonrecursiveDepthFirstOrder order = new NonrecursiveDepthFirstOrder(G);
+        int differ = 0;
+        for (int v = 0; v < G.V(); v++) {
+            if (dfs.pre(v) != order.pre(v) || dfs.post(v) != order.post(v))
+                differ++;
+        }
+        StdOut.println(differ + " vertices differ");
+
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        Digraph path = new Digraph(n);
+        for (int v = 0; v + 1 < n; v++)
+            path.addEdge(v, v + 1);
+        order = new NonrecursiveDepthFirstOrder(path);
+        StdOut.println("path of " + n + " vertices: first in postorder " + order.postorder(0)
+                       + ", last " + order.postorder(n - 1));
+    }
+}
@@ -0,0 +1,133 @@
+// Compute the strongly-connected components of a digraph using
+// Gabow's algorithm (aka Cheriyan-Mehlhorn algorithm), with explicit
+// stacks of ints.
+// Runs in O(E + V) time.
+// Finds the same components, with the same ids, as GabowSCC.java.
+/**
+ *  The {@code NonrecursiveGabowSCC} class represents a data type for
+ *  determining the strong components in a digraph, with the same API and
+ *  the same component ids as {@link GabowSCC}.
+ *  Besides the two stacks of the algorithm, the recursion becomes a call
+ *  stack of vertices with the position of the next edge to look at in
+ *  each row; all three are {@code int[]} arrays of length V.
+ *  The constructor takes time proportional to V + E (in the worst case),
+ *  where V is the number of vertices and E is the number of edges.
+ *  Afterwards, the id, count, and areStronglyConnected
+ *  operations take constant time.
+ */
+public class NonrecursiveGabowSCC {
+
+    private boolean[] marked;   // marked[v] = has v been visited?
+    private int[] id;   // id[v] = id of strong component containing v.
+    private int[] preorder;    // preorder[v] = preorder of v.
+    private int pre;    // preorder number counter
+    private int count;  // number of strongly-connected components
+
+    // Computes the strong components of the digraph G.
+    public NonrecursiveGabowSCC(AdjacencyDigraph G) {
+        CSRDigraph D = CSRDigraph.freeze(G);
+        int V = D.V();
+        marked = new boolean[V];
+        id = new int[V];
+        preorder = new int[V];
+        for (int v = 0; v < V; v++) {
+            id[v] = -1;
+        }
+        int[] next = new int[V];    // next[v] = position of the next edge to look at
+        int[] call = new int[V];    // the call stack
+        int[] stack1 = new int[V];  // vertices not yet in a component
+        int[] stack2 = new int[V];  // roots of the components being built
+        int top1 = 0, top2 = 0;
+        for (int s = 0; s < V; s++) {
+            if (marked[s])
+                continue;
+            int calls = 0;
+            call[calls++] = s;
+            stack1[top1++] = s;
+            stack2[top2++] = s;
+            visit(D, s, next);
+            while (calls > 0) {
+                int v = call[calls - 1];
+                if (next[v] < D.adjEnd(v)) {
+                    int w = D.target(next[v]++);
+                    if (!marked[w]) {
+                        call[calls++] = w;
+                        stack1[top1++] = w;
+                        stack2[top2++] = w;
+                        visit(D, w, next);
+                    }
+                    else if (id[w] == -1) {
+                        while (preorder[stack2[top2 - 1]] > preorder[w])
+                            top2--;
+                    }
+                    continue;
+                }
+                calls--;
+
+                // found strong component containing v
+                if (stack2[top2 - 1] == v) {
+                    top2--;
+                    int w;
+                    do {
+                        w = stack1[--top1];
+                        id[w] = count;
+                    } while (w != v);
+                    count++;
+                }
+            }
+        }
+    }
+
+    private void visit(CSRDigraph G, int v, int[] next) {
+        marked[v] = true;
+        preorder[v] = pre++;
+        next[v] = G.adjBegin(v);
+    }
+
+    // Returns the number of strong components.
+    public int count() {
+        return count;
+    }
+
+    // Are vertices v and w in the same strong component ?
+    public boolean stronglyConnected(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return id[v] == id[w];
+    }
+
+    // Returns the component id of the strong component containing vertex v.
+    public int id(int v) {
+        validateVertex(v);
+        return id[v];
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = marked.length;
+        if (v < 0 || v >= V) {
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+        }
+    }
+
+    // Unit tests the NonrecursiveGabowSCC data type against GabowSCC,
+    // then on a cycle of n vertices (default 10^6).
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Digraph G = new Digraph(in);
+        GabowSCC gabow = new GabowSCC(G);
+        NonrecursiveGabowSCC scc = new NonrecursiveGabowSCC(G);
+        int differ = 0;
+        for (int v = 0; v < G.V(); v++) {
+            if (gabow.id(v) != scc.id(v))
+                differ++;
+        }
+        StdOut.println(scc.count() + " components, " + differ + " ids differ from GabowSCC");
+
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        Digraph cycle = new Digraph(n);
+        for (int v = 0; v < n; v++)
+            cycle.addEdge(v, (v + 1) % n);
+        StdOut.println("cycle of " + n + " vertices: " + new NonrecursiveGabowSCC(cycle).count() + " components");
+    }
+}
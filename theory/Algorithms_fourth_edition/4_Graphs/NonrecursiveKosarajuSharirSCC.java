@@ -0,0 +1,104 @@
+// Compute the strongly-connected components of a digraph using the
+// Kosaraju-Sharir algorithm, with explicit stacks of ints.
+// Runs in O(E + V) time.
+// Finds the same components, with the same ids, as KosarajuSharirSCC.java.
+/**
+ *  The {@code NonrecursiveKosarajuSharirSCC} class represents a data type
+ *  for determining the strong components in a digraph, with the same API
+ *  and the same component ids as {@link KosarajuSharirSCC}.
+ *  The reverse postorder of the reverse digraph comes from
+ *  {@link NonrecursiveDepthFirstOrder}, and the second pass only marks
+ *  the vertices reachable from each start vertex, so a plain stack of
+ *  vertices to visit is enough for it.
+ *  The constructor takes time proportional to V + E (in the worst case),
+ *  where V is the number of vertices and E is the number of edges.
+ *  Afterwards, the id, count, and areStronglyConnected
+ *  operations take constant time.
+ */
+public class NonrecursiveKosarajuSharirSCC {
+
+    private boolean[] marked;   // marked[v] = has vertex v been visited ?
+    private int[] id;   // id[v] = id of strong component containing v.
+    private int count;  // number of strongly-connected components.
+
+    // Computes the strong components of digraph G.
+    public NonrecursiveKosarajuSharirSCC(AdjacencyDigraph G) {
+        CSRDigraph D = CSRDigraph.freeze(G);
+        int V = D.V();
+
+        // compute reverse postorder of reverse graph
+        NonrecursiveDepthFirstOrder dfs = new NonrecursiveDepthFirstOrder(D.reverse());
+
+        // run DFS on G, using reverse postorder of reverse graph
+        marked = new boolean[V];
+        id = new int[V];
+        int[] stack = new int[V];
+        for (int k = V - 1; k >= 0; k--) {
+            int s = dfs.postorder(k);
+            if (marked[s])
+                continue;
+            int top = 0;
+            marked[s] = true;
+            stack[top++] = s;
+            while (top > 0) {
+                int v = stack[--top];
+                id[v] = count;
+                for (int i = D.adjBegin(v); i < D.adjEnd(v); i++) {
+                    int w = D.target(i);
+                    if (!marked[w]) {
+                        marked[w] = true;
+                        stack[top++] = w;
+                    }
+                }
+            }
+            count++;
+        }
+    }
+
+    // Returns the number of strong components.
+    public int count() {
+        return count;
+    }
+
+    // Are vertices v and w in the same strong component ?
+    public boolean stronglyConnected(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return id[v] == id[w];
+    }
+
+    // Returns the component id of the strong component containing vertex v.
+    public int id(int v) {
+        validateVertex(v);
+        return id[v];
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = marked.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Unit tests the NonrecursiveKosarajuSharirSCC data type against
+    // KosarajuSharirSCC, then on a cycle of n vertices (default 10^6).
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Digraph G = new Digraph(in);
+        KosarajuSharirSCC kosaraju = new KosarajuSharirSCC(G);
+        NonrecursiveKosarajuSharirSCC scc = new NonrecursiveKosarajuSharirSCC(G);
+        int differ = 0;
+        for (int v = 0; v < G.V(); v++) {
+            if (kosaraju.id(v) != scc.id(v))
+                differ++;
+        }
+        StdOut.println(scc.count() + " strong components, " + differ + " ids differ from KosarajuSharirSCC");
+
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        Digraph cycle = new Digraph(n);
+        for (int v = 0; v < n; v++)
+            cycle.addEdge(v, (v + 1) % n);
+        StdOut.println("cycle of " + n + " vertices: " + new NonrecursiveKosarajuSharirSCC(cycle).count()
+                       + " strong components");
+    }
+}
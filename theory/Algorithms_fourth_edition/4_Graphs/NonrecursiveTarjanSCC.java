@@ -0,0 +1,135 @@
+// Compute the strongly-connected components of a digraph using
+// Tarjan's algorithm, with explicit stacks of ints.
+// Runs in O(E + V) time.
+// Finds the same components, with the same ids, as TarjanSCC.java.
+/**
+ *  The {@code NonrecursiveTarjanSCC} class represents a data type for
+ *  determining the strong components in a digraph, with the same API and
+ *  the same component ids as {@link TarjanSCC}.
+ *  The recursion of {@link TarjanSCC} becomes a call stack of vertices
+ *  with, for every vertex on it, the position of the next edge to look at
+ *  in its row and the smallest low number seen so far; when a vertex is
+ *  finished, its low number is passed to the vertex below it on the call
+ *  stack, as the return from {@code dfs()} would. Both stacks are
+ *  {@code int[]} arrays of length V, so a path of millions of vertices
+ *  needs no larger thread stack.
+ *  The constructor takes time proportional to V + E (in the worst case),
+ *  where V is the number of vertices and E is the number of edges.
+ *  Afterwards, the id, count, and areStronglyConnected
+ *  operations take constant time.
+ */
+public class NonrecursiveTarjanSCC {
+
+    private boolean[] marked;   // marked[v] = has v been visited ?
+    private int[] id;   // id[v] = id of strong component containing v.
+    private int[] low;  // low[v] = low number of v;
+    private int pre;    // preorder number counter
+    private int count;  // number of strongly-connected components
+
+    // Computes the strong components of the digraph G.
+    public NonrecursiveTarjanSCC(AdjacencyDigraph G) {
+        CSRDigraph D = CSRDigraph.freeze(G);
+        int V = D.V();
+        marked = new boolean[V];
+        id = new int[V];
+        low = new int[V];
+        int[] min = new int[V];     // min[v] = smallest low number seen from v so far
+        int[] next = new int[V];    // next[v] = position of the next edge to look at
+        int[] call = new int[V];    // the call stack
+        int[] stack = new int[V];   // the stack of vertices not yet in a component
+        int top = 0;
+        for (int s = 0; s < V; s++) {
+            if (marked[s])
+                continue;
+            int calls = 0;
+            call[calls++] = s;
+            stack[top++] = s;
+            visit(D, s, min, next);
+            while (calls > 0) {
+                int v = call[calls - 1];
+                if (next[v] < D.adjEnd(v)) {
+                    int w = D.target(next[v]++);
+                    if (!marked[w]) {
+                        call[calls++] = w;
+                        stack[top++] = w;
+                        visit(D, w, min, next);
+                    }
+                    else if (low[w] < min[v]) {
+                        min[v] = low[w];
+                    }
+                    continue;
+                }
+                calls--;
+                if (min[v] < low[v]) {
+                    low[v] = min[v];
+                }
+                else {
+                    int w;
+                    do {
+                        w = stack[--top];
+                        id[w] = count;
+                        low[w] = V;
+                    } while (w != v);
+                    count++;
+                }
+                // return to the caller
+                if (calls > 0 && low[v] < min[call[calls - 1]])
+                    min[call[calls - 1]] = low[v];
+            }
+        }
+    }
+
+    private void visit(CSRDigraph G, int v, int[] min, int[] next) {
+        marked[v] = true;
+        low[v] = pre++;
+        min[v] = low[v];
+        next[v] = G.adjBegin(v);
+    }
+
+    // Returns the number of strong components.
+    public int count() {
+        return count;
+    }
+
+    // Are vertices v and w in the same strong component ?
+    public boolean stronglyConnected(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return id[v] == id[w];
+    }
+
+    // Returns the component id of the strong component containing vertex v.
+    public int id(int v) {
+        validateVertex(v);
+        return id[v];
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = marked.length;
+        if (v < 0 || v >= V) {
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+        }
+    }
+
+    // Unit tests the NonrecursiveTarjanSCC data type against TarjanSCC,
+    // then on a cycle of n vertices (default 10^6).
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Digraph G = new Digraph(in);
+        TarjanSCC tarjan = new TarjanSCC(G);
+        NonrecursiveTarjanSCC scc = new NonrecursiveTarjanSCC(G);
+        int differ = 0;
+        for (int v = 0; v < G.V(); v++) {
+            if (tarjan.id(v) != scc.id(v))
+                differ++;
+        }
+        StdOut.println(scc.count() + " components, " + differ + " ids differ from TarjanSCC");
+
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        Digraph cycle = new Digraph(n);
+        for (int v = 0; v < n; v++)
+            cycle.addEdge(v, (v + 1) % n);
+        StdOut.println("cycle of " + n + " vertices: " + new NonrecursiveTarjanSCC(cycle).count() + " components");
+    }
+}
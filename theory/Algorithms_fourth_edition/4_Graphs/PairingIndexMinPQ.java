@@ -0,0 +1,200 @@
+import java.util.NoSuchElementException;
+// The PairingIndexMinPQ class represents an indexed priority queue of
+// primitive double keys in a pairing heap (Fredman, Sedgewick, Sleator
+// and Tarjan): a heap-ordered multiway tree, kept as child and sibling
+// links in int arrays indexed by the indices themselves. insert() and
+// decreaseKey() take constant time: they link a one-node tree, or the cut
+// subtree of the index, to the root. delMin() pairs the children of the
+// root from left to right and then links the pairs from right to left,
+// which takes O(log n) amortized time.
+public class PairingIndexMinPQ implements DoubleIndexHeap {
+    private static final int NONE = -1;
+
+    private int maxN;       // maximum number of elements on PQ.
+    private int n;          // number of elements on PQ.
+    private int root;       // index with the minimum key, or NONE
+    private int[] child;    // child[i] = leftmost child of i, or NONE
+    private int[] next;     // next[i] = right sibling of i, or NONE
+    private int[] prev;     // prev[i] = left sibling of i, or its parent if i is a leftmost child
+    private boolean[] onPQ; // onPQ[i] = is i on the priority queue?
+    private double[] keys;  // keys[i] = priority of i
+    private int[] pairs;    // scratch space of delMin()
+
+    // Initializes an empty indexed priority queue with indices between 0
+    // and maxN - 1.
+    public PairingIndexMinPQ(int maxN) {
+        if (maxN < 0)
+            throw new IllegalArgumentException();
+        this.maxN = maxN;
+        n = 0;
+        root = NONE;
+        child = new int[maxN];
+        next = new int[maxN];
+        prev = new int[maxN];
+        onPQ = new boolean[maxN];
+        keys = new double[maxN];
+        pairs = new int[maxN];
+    }
+
+    // Returns true if this priority queue is empty.
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    // Is i an index on this priority queue?
+    public boolean contains(int i) {
+        if (i < 0 || i >= maxN)
+            throw new IndexOutOfBoundsException();
+        return onPQ[i];
+    }
+
+    // Returns the number of keys on this priority queue.
+    public int size() {
+        return n;
+    }
+
+    // Associates key with index i
+    public void insert(int i, double key) {
+        if (contains(i))
+            throw new IllegalArgumentException("index is already in the priority queue.");
+        onPQ[i] = true;
+        keys[i] = key;
+        child[i] = NONE;
+        next[i] = NONE;
+        prev[i] = NONE;
+        root = root == NONE ? i : link(root, i);
+        n++;
+    }
+
+    // Returns an index associated with a minimum key.
+    public int minIndex() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        return root;
+    }
+
+    // Returns a minimum key.
+    public double minKey() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        return keys[root];
+    }
+
+    // Removes a minimum key and returns its associated index.
+    public int delMin() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        int min = root;
+        onPQ[min] = false;
+        n--;
+
+        // first pass: link the children in pairs, from left to right
+        int count = 0;
+        int x = child[min];
+        while (x != NONE) {
+            int y = next[x];
+            if (y == NONE) {
+                prev[x] = NONE;
+                pairs[count++] = x;
+                break;
+            }
+            int z = next[y];
+            next[x] = NONE;
+            next[y] = NONE;
+            prev[x] = NONE;
+            prev[y] = NONE;
+            pairs[count++] = link(x, y);
+            x = z;
+        }
+        // second pass: link the pairs into one tree, from right to left
+        root = NONE;
+        for (int k = count - 1; k >= 0; k--)
+            root = root == NONE ? pairs[k] : link(pairs[k], root);
+        if (root != NONE) {
+            next[root] = NONE;
+            prev[root] = NONE;
+        }
+        return min;
+    }
+
+    // Returns the key associated with index i
+    public double keyOf(int i) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue.");
+        return keys[i];
+    }
+
+    // Decrease the key associated with index i to the specified value.
+    public void decreaseKey(int i, double key) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] <= key)
+            throw new IllegalArgumentException("Calling decreaseKey() with given "
+                + "argument would not strictly decrease the key");
+        keys[i] = key;
+        if (i == root)
+            return;
+        // cut the subtree of i out of its parent's list of children
+        int p = prev[i];
+        if (child[p] == i) child[p] = next[i];
+        else               next[p] = next[i];
+        if (next[i] != NONE)
+            prev[next[i]] = p;
+        next[i] = NONE;
+        prev[i] = NONE;
+        root = link(root, i);
+    }
+
+    // Removes every index, in time proportional to their number.
+    public void clear() {
+        if (root != NONE)
+            clear(root);
+        root = NONE;
+        n = 0;
+    }
+
+    // takes the tree of x off the priority queue, with an explicit stack
+    private void clear(int x) {
+        int top = 0;
+        pairs[top++] = x;
+        while (top > 0) {
+            int y = pairs[--top];
+            onPQ[y] = false;
+            for (int c = child[y]; c != NONE; c = next[c])
+                pairs[top++] = c;
+        }
+    }
+
+    // links the roots x and y, which have no siblings, and returns the new root
+    private int link(int x, int y) {
+        if (keys[y] < keys[x]) {
+            int swap = x;
+            x = y;
+            y = swap;
+        }
+        // y becomes the leftmost child of x
+        int c = child[x];
+        next[y] = c;
+        if (c != NONE)
+            prev[c] = y;
+        prev[y] = x;
+        child[x] = y;
+        return x;
+    }
+
+    public static void main(String[] args) {
+        double[] keys = { 0.5, 0.25, 0.75, 0.125, 1.0, 0.375 };
+        PairingIndexMinPQ pq = new PairingIndexMinPQ(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            pq.insert(i, keys[i]);
+        }
+        pq.decreaseKey(4, 0.0625);
+
+        // delete and print each key
+        while (!pq.isEmpty()) {
+            double key = pq.minKey();
+            int i = pq.delMin();
+            StdOut.println(i + " " + key);
+        }
+    }
+}
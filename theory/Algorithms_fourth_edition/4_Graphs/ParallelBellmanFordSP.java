@@ -0,0 +1,291 @@
+// Bellman-Ford shortest paths in synchronous rounds, in parallel. Round k
+// finds the shortest paths of at most k edges: every vertex with an edge
+// from a vertex that changed in round k - 1 takes the best of its edges
+// in, with the distances of round k - 1. Each vertex computes its own
+// distance from its edges in, so the rounds need no atomic minimum, and
+// the result does not depend on the threads.
+
+/**
+ *  The {@code ParallelBellmanFordSP} class represents a data type for
+ *  solving the single-source shortest paths problem in edge-weighted
+ *  digraphs on a ForkJoinPool, with the same operations as
+ *  {@link BellmanFordSP}: it finds either a shortest path from the source
+ *  vertex s to every other vertex, or a negative cycle reachable from s.
+ *  <p>
+ *  Each round has three parallel steps over a {@link CSREdgeWeightedDigraph}
+ *  and the positions of the edges into each vertex: the vertices with an
+ *  edge from a vertex that changed are listed once each, with an atomic
+ *  stamp; each of them takes the minimum over its edges in, into a
+ *  separate array; and the ones that improved get their new distance and
+ *  edge, and are the changed vertices of the next round.
+ *  A negative cycle shows up as a cycle of last edges, which goes
+ *  through a vertex whose edge was set in the round the cycle closes; so
+ *  after each round the last edges are followed from the changed vertices
+ *  only, stopping at a vertex seen in the round, and the search stops at
+ *  the first round with a cycle instead of after V rounds.
+ *  Rounds with at most 256 vertices, the cutoff of {@link IndexTask}, run
+ *  in the calling thread.
+ *  <p>
+ *  It takes time proportional to V (V + E) in the worst case, with about
+ *  as many parallel steps as there are edges on the longest shortest path,
+ *  which suits large batch digraphs of small diameter; {@link SPFA} does
+ *  less work in total and suits a single thread and streams of updates.
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelBellmanFordSP {
+    private final CSREdgeWeightedDigraph G;
+    private final double[] distTo;  // distTo[v] = distance of shortest s->v path
+    private final int[] edgeTo;     // edgeTo[v] = position of the last edge on it, or -1
+    private final int[] tail;       // tail[i] = tail vertex of the edge at position i
+    private int rounds;             // number of rounds
+    private Stack<DirectedEdge> cycle;  // negative cycle (or null if no such cycle)
+
+    // Computes a shortest paths tree from s to every other vertex in the
+    // edge-weighted digraph G, on the common pool.
+    public ParallelBellmanFordSP(EdgeWeightedDigraph G, int s) {
+        this(new CSREdgeWeightedDigraph(G), s, ForkJoinPool.commonPool());
+    }
+
+    // Computes a shortest paths tree from s to every other vertex in the
+    // frozen edge-weighted digraph G, on pool.
+    public ParallelBellmanFordSP(final CSREdgeWeightedDigraph G, int s, ForkJoinPool pool) {
+        this.G = G;
+        final int V = G.V();
+        int E = G.E();
+        distTo = new double[V];
+        edgeTo = new int[V];
+        validateVertex(s);
+
+        // the positions of the edges into each vertex
+        tail = new int[E];
+        final int[] inBegin = new int[V + 1];
+        final int[] inEdge = new int[E];
+        for (int v = 0; v < V; v++) {
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                tail[i] = v;
+                inBegin[G.to(i) + 1]++;
+            }
+        }
+        for (int v = 0; v < V; v++)
+            inBegin[v + 1] += inBegin[v];
+        int[] at = java.util.Arrays.copyOf(inBegin, V);
+        for (int i = 0; i < E; i++)
+            inEdge[at[G.to(i)]++] = i;
+
+        java.util.Arrays.fill(distTo, Double.POSITIVE_INFINITY);
+        java.util.Arrays.fill(edgeTo, -1);
+        distTo[s] = 0.0;
+
+        final int[] changed = new int[V];
+        final int[] touched = new int[V];
+        final double[] best = new double[V];    // best[k] = new distance of touched[k]
+        final int[] bestEdge = new int[V];      // bestEdge[k] = its edge, or -1
+        final AtomicIntegerArray stamp = new AtomicIntegerArray(V);
+        final AtomicInteger changedTail = new AtomicInteger();
+        final AtomicInteger touchedTail = new AtomicInteger();
+        final int[] walk = new int[V];          // walk[v] = last walk that went through v
+        int walks = 0;
+        changed[0] = s;
+        int n = 1;
+        while (n > 0) {
+            final int round = ++rounds;
+
+            // the vertices with an edge from a changed vertex
+            touchedTail.set(0);
+            IndexTask.invoke(pool, new IndexTask(0, n) {
+                int apply(int k) {
+                    int v = changed[k];
+                    for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                        int w = G.to(i);
+                        if (stamp.get(w) != round && stamp.getAndSet(w, round) != round)
+                            touched[touchedTail.getAndIncrement()] = w;
+                    }
+                    return 0;
+                }
+            });
+
+            // the best edge into each of them, with the distances of the last round
+            final int m = touchedTail.get();
+            IndexTask.invoke(pool, new IndexTask(0, m) {
+                int apply(int k) {
+                    int w = touched[k];
+                    double d = distTo[w];
+                    int edge = -1;
+                    for (int j = inBegin[w]; j < inBegin[w + 1]; j++) {
+                        int i = inEdge[j];
+                        double x = distTo[tail[i]] + G.weight(i);
+                        if (x < d) {
+                            d = x;
+                            edge = i;
+                        }
+                    }
+                    best[k] = d;
+                    bestEdge[k] = edge;
+                    return 0;
+                }
+            });
+
+            // the ones that improved
+            changedTail.set(0);
+            IndexTask.invoke(pool, new IndexTask(0, m) {
+                int apply(int k) {
+                    if (bestEdge[k] == -1)
+                        return 0;
+                    int w = touched[k];
+                    distTo[w] = best[k];
+                    edgeTo[w] = bestEdge[k];
+                    changed[changedTail.getAndIncrement()] = w;
+                    return 0;
+                }
+            });
+            n = changedTail.get();
+
+            // a cycle of last edges goes through a vertex that changed
+            if (walks > Integer.MAX_VALUE - V) {
+                java.util.Arrays.fill(walk, 0);
+                walks = 0;
+            }
+            int first = walks + 1;
+            for (int k = 0; k < n && cycle == null; k++) {
+                int id = ++walks;
+                int x = changed[k];
+                while (x != -1 && walk[x] < first) {
+                    walk[x] = id;
+                    x = edgeTo[x] == -1 ? -1 : tail[edgeTo[x]];
+                }
+                if (x != -1 && walk[x] == id)
+                    findCycle(x);
+            }
+            if (cycle != null)
+                break;
+        }
+    }
+
+    // the cycle of last edges through x
+    private void findCycle(int x) {
+        cycle = new Stack<DirectedEdge>();
+        int y = x;
+        do {
+            int i = edgeTo[y];
+            cycle.push(new DirectedEdge(tail[i], y, G.weight(i)));
+            y = tail[i];
+        } while (y != x);
+    }
+
+    // Returns the number of rounds.
+    public int rounds() {
+        return rounds;
+    }
+
+    // Is there a negative cycle reachable from the source vertex s ?
+    public boolean hasNegativeCycle() {
+        return cycle != null;
+    }
+
+    // Returns a negative cycle reachable from the source vertex s, or null
+    // if there is no such cycle.
+    public Iterable<DirectedEdge> negativeCycle() {
+        return cycle;
+    }
+
+    // Returns the length of a shortest path from the source s to vertex v.
+    public double distTo(int v) {
+        validateVertex(v);
+        if (hasNegativeCycle()) {
+            throw new UnsupportedOperationException("Negative cost cycle exists");
+        }
+        return distTo[v];
+    }
+
+    // Is there a path from the source s to vertex v ?
+    public boolean hasPathTo(int v) {
+        validateVertex(v);
+        return distTo[v] < Double.POSITIVE_INFINITY;
+    }
+
+    // Returns a shortest path from the source s to vertex v.
+    public Iterable<DirectedEdge> pathTo(int v) {
+        validateVertex(v);
+        if (hasNegativeCycle()) {
+            throw new UnsupportedOperationException("Negative cost cycle exists");
+        }
+        if (!hasPathTo(v)) {
+            return null;
+        }
+        Stack<DirectedEdge> path = new Stack<DirectedEdge>();
+        for (int i = edgeTo[v]; i != -1; i = edgeTo[tail[i]]) {
+            path.push(new DirectedEdge(tail[i], G.to(i), G.weight(i)));
+        }
+        return path;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = distTo.length;
+        if (v < 0 || v >= V) {
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+        }
+    }
+
+    // Unit tests the ParallelBellmanFordSP data type against BellmanFordSP
+    // and SPFA on random digraphs with V vertices and E edges, some with
+    // negative cycles, and times the three.
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        for (int t = 0; t < 6; t++) {
+            double low = t < 3 ? 0.0 : -0.1 * (t - 2);
+            int[] from = new int[E];
+            int[] to = new int[E];
+            double[] w = new double[E];
+            for (int i = 0; i < E; i++) {
+                from[i] = StdRandom.uniform(V);
+                to[i] = StdRandom.uniform(V);
+                w[i] = StdRandom.uniform(low, 1.0);
+            }
+            CSREdgeWeightedDigraph G = new CSREdgeWeightedDigraph(V, from, to, w);
+
+            Stopwatch timer = new Stopwatch();
+            BellmanFordSP bellmanFord = new BellmanFordSP(G, 0);
+            double time1 = timer.elapsedTime();
+            timer = new Stopwatch();
+            SPFA spfa = new SPFA(G, 0);
+            double time2 = timer.elapsedTime();
+            timer = new Stopwatch();
+            ParallelBellmanFordSP parallel = new ParallelBellmanFordSP(G, 0, pool);
+            double time3 = timer.elapsedTime();
+
+            int differ = 0;
+            if (parallel.hasNegativeCycle() != bellmanFord.hasNegativeCycle()
+                || spfa.hasNegativeCycle() != bellmanFord.hasNegativeCycle())
+                differ++;
+            if (parallel.hasNegativeCycle()) {
+                double total = 0.0;
+                int previous = -1, first = -1;
+                for (DirectedEdge e : parallel.negativeCycle()) {
+                    if (previous != -1 && e.from() != previous) differ++;
+                    if (first == -1) first = e.from();
+                    previous = e.to();
+                    total += e.weight();
+                }
+                if (total >= 0.0 || previous != first) differ++;
+            }
+            else if (!bellmanFord.hasNegativeCycle()) {
+                for (int v = 0; v < V; v++) {
+                    if (parallel.hasPathTo(v) != bellmanFord.hasPathTo(v)
+                        || (parallel.hasPathTo(v) && Math.abs(parallel.distTo(v) - bellmanFord.distTo(v)) > 1e-9))
+                        differ++;
+                }
+            }
+            StdOut.printf("weights from %5.2f: %s, %4d rounds, BellmanFordSP %.3f s, SPFA %.3f s, parallel %.3f s,"
+                          + " %d differ\n", low, parallel.hasNegativeCycle() ? "negative cycle" : "shortest paths",
+                          parallel.rounds(), time1, time2, time3, differ);
+        }
+    }
+}
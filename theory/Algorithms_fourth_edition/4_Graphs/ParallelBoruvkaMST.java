@@ -0,0 +1,353 @@
+// Parallel Boruvka's algorithm. Every phase of BoruvkaMST has two steps that
+// can run in parallel: finding the cheapest edge out of each tree, which
+// is independent per edge, and merging the trees along those edges, which
+// is independent per tree once the trees are numbered.
+// Here the cheapest edge of each tree is tracked with compare-and-set on an
+// AtomicIntegerArray, the trees are merged by pointer jumping, and the
+// graph is contracted between phases so that later phases only scan the
+// edges that still join two different trees.
+
+/**
+ *  The {@code ParallelBoruvkaMST} class represents a data type for computing a
+ *  minimum spanning tree in an edge-weighted graph, with the same API as
+ *  {@link BoruvkaMST}.
+ *  The edge weights can be positive, zero, or negative and need not
+ *  be distinct: ties are broken by the position of the edge in
+ *  {@code G.edges()}, so that every tree picks its edge in one total order
+ *  and the picked edges never close a cycle other than two trees picking
+ *  the same edge. If the graph is not connected, it computes a minimum
+ *  spanning forest.
+ *  <p>
+ *  Each phase runs on a ForkJoinPool in three parallel passes over the
+ *  current edges and trees: every edge offers itself to the two trees it
+ *  joins with a compare-and-set loop that keeps the cheapest one; every
+ *  tree points to the tree across its cheapest edge and the pointers are
+ *  jumped until each tree knows its new root; and the edges inside one new
+ *  tree are dropped while the others are renamed to the new trees.
+ *  The number of trees at least halves in each phase, so the constructor
+ *  takes time proportional to E log V in total (and E log V / P on P
+ *  threads, up to the sequential renumbering of the trees) and extra space
+ *  proportional to E + V.
+ *  Afterwards, the {@code weight()} method takes constant time
+ *  and the {@code edges()} method takes time proportional to V.
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelBoruvkaMST {
+
+    private static final double FLOATING_POINT_EPSILON = 1E-12;
+    private static final int CUTOFF = 4096;     // indices per sequential task
+
+    private Queue<Edge> mst = new Queue<Edge>();    // edges in MST
+    private double weight;      // weight of MST
+
+    private final Edge[] all;   // all[i] = i-th edge of G.edges()
+    private final double[] w;   // w[i] = weight of all[i]
+
+    // current contracted graph: edge k joins trees eu[k] and ev[k] and is all[eid[k]]
+    private int m;              // number of edges
+    private int[] eu, ev, eid;
+
+    // Computes a minimum spanning tree (or forest) of an edge-weighted graph,
+    // on the common pool.
+    public ParallelBoruvkaMST(EdgeWeightedGraph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    // Computes a minimum spanning tree (or forest) of an edge-weighted graph,
+    // on pool.
+    public ParallelBoruvkaMST(EdgeWeightedGraph G, ForkJoinPool pool) {
+        all = new Edge[G.E()];
+        w = new double[G.E()];
+        eu = new int[G.E()];
+        ev = new int[G.E()];
+        eid = new int[G.E()];
+        for (Edge e : G.edges()) {
+            int v = e.either();
+            all[m] = e;
+            w[m] = e.weight();
+            eu[m] = v;
+            ev[m] = e.other(v);
+            eid[m] = m;
+            m++;
+        }
+
+        // drop self-loops; each vertex is its own tree
+        int n = G.V();
+        int[] label = new int[n];
+        for (int v = 0; v < n; v++)
+            label[v] = v;
+        contract(label, pool);
+
+        while (m > 0) {
+            n = phase(n, pool);
+        }
+
+        // check optimality conditions
+        assert check(G);
+    }
+
+    // one Boruvka phase on the n current trees; returns the number of trees after it.
+    private int phase(final int n, ForkJoinPool pool) {
+        // best[c] = position of the cheapest edge out of tree c, or -1
+        final AtomicIntegerArray best = new AtomicIntegerArray(n);
+        pool.invoke(new IndexTask(0, n, CUTOFF) {
+            int apply(int c) {
+                best.set(c, -1);
+                return 0;
+            }
+        });
+        pool.invoke(new IndexTask(0, m, CUTOFF) {
+            int apply(int k) {
+                offer(best, eu[k], k);
+                offer(best, ev[k], k);
+                return 0;
+            }
+        });
+
+        // each tree points to the tree across its cheapest edge; when two
+        // trees picked the same edge the smaller one becomes the root
+        final int[] parent = new int[n];
+        pool.invoke(new IndexTask(0, n, CUTOFF) {
+            int apply(int c) {
+                int k = best.get(c);
+                if (k == -1) {
+                    parent[c] = c;
+                    return 0;
+                }
+                int other = eu[k] == c ? ev[k] : eu[k];
+                if (best.get(other) == k && c < other) parent[c] = c;
+                else                                   parent[c] = other;
+                return 0;
+            }
+        });
+
+        // every tree that is not a root adds its cheapest edge
+        for (int c = 0; c < n; c++) {
+            if (parent[c] != c) {
+                Edge e = all[eid[best.get(c)]];
+                mst.enqueue(e);
+                weight += e.weight();
+            }
+        }
+
+        // pointer jumping until every tree points to its root
+        int[] from = parent;
+        int[] to = new int[n];
+        while (true) {
+            final int[] src = from, dst = to;
+            int changed = pool.invoke(new IndexTask(0, n, CUTOFF) {
+                int apply(int c) {
+                    dst[c] = src[src[c]];
+                    return dst[c] != src[c] ? 1 : 0;
+                }
+            });
+            from = dst;
+            to = src;
+            if (changed == 0) break;
+        }
+        final int[] root = from;
+
+        // number the roots 0, 1, 2, ... and name every tree by its root's number
+        final int[] label = new int[n];
+        int count = 0;
+        for (int c = 0; c < n; c++) {
+            if (root[c] == c) label[c] = count++;
+        }
+        pool.invoke(new IndexTask(0, n, CUTOFF) {
+            int apply(int c) {
+                if (root[c] != c) label[c] = label[root[c]];
+                return 0;
+            }
+        });
+        contract(label, pool);
+        return count;
+    }
+
+    // offers edge position k as the cheapest edge out of tree c
+    private void offer(AtomicIntegerArray best, int c, int k) {
+        while (true) {
+            int current = best.get(c);
+            if (current != -1 && !less(k, current)) return;
+            if (best.compareAndSet(c, current, k)) return;
+        }
+    }
+
+    // is edge position j lighter than edge position k ? (ties broken by position in G.edges())
+    private boolean less(int j, int k) {
+        int a = eid[j], b = eid[k];
+        if (w[a] != w[b]) return w[a] < w[b];
+        return a < b;
+    }
+
+    // renames the endpoints of every edge by label[] and drops the edges
+    // whose endpoints now have the same name, keeping the order of the rest.
+    private void contract(final int[] label, ForkJoinPool pool) {
+        final int chunks = (m + CUTOFF - 1) / CUTOFF;
+        final int[] start = new int[chunks + 1];
+        pool.invoke(new IndexTask(0, chunks, 1) {
+            int apply(int b) {
+                int kept = 0;
+                for (int k = b * CUTOFF; k < Math.min(m, (b + 1) * CUTOFF); k++) {
+                    if (label[eu[k]] != label[ev[k]]) kept++;
+                }
+                start[b + 1] = kept;
+                return 0;
+            }
+        });
+        for (int b = 0; b < chunks; b++)
+            start[b + 1] += start[b];
+
+        final int[] u = new int[start[chunks]];
+        final int[] v = new int[start[chunks]];
+        final int[] id = new int[start[chunks]];
+        pool.invoke(new IndexTask(0, chunks, 1) {
+            int apply(int b) {
+                int i = start[b];
+                for (int k = b * CUTOFF; k < Math.min(m, (b + 1) * CUTOFF); k++) {
+                    if (label[eu[k]] != label[ev[k]]) {
+                        u[i] = label[eu[k]];
+                        v[i] = label[ev[k]];
+                        id[i] = eid[k];
+                        i++;
+                    }
+                }
+                return 0;
+            }
+        });
+        eu = u;
+        ev = v;
+        eid = id;
+        m = start[chunks];
+    }
+
+    // Returns the edges in a minimum spanning tree (or forest).
+    public Iterable<Edge> edges() {
+        return mst;
+    }
+
+    // Returns the sum of the edge weights in a minimum spanning tree (or forest).
+    public double weight() {
+        return weight;
+    }
+
+    // check optimality conditions (takes time proportional to E V log V)
+    private boolean check(EdgeWeightedGraph G) {
+
+        // check weight
+        double totalWeight = 0.0;
+        for (Edge e : edges()) {
+            totalWeight += e.weight();
+        }
+        if (Math.abs(totalWeight - weight()) > FLOATING_POINT_EPSILON) {
+            System.err.printf("Weight of edges does not equal weight(): %f vs. %f\n", totalWeight, weight());
+            return false;
+        }
+
+        // check that it is acyclic
+        UF uf = new UF(G.V());
+        for (Edge e : edges()) {
+            int v = e.either(), w = e.other(v);
+            if (uf.connected(v, w)) {
+                System.err.println("Not a forest");
+                return false;
+            }
+            uf.union(v, w);
+        }
+
+        // check that it is a spanning forest
+        for (Edge e : G.edges()) {
+            int v = e.either(), w = e.other(v);
+            if (!uf.connected(v, w)) {
+                System.err.println("Not a spanning forest");
+                return false;
+            }
+        }
+
+        // check that it is a minimal spanning forest (cut optimality conditions)
+        for (Edge e : edges()) {
+
+            // all edges in MST except e
+            uf = new UF(G.V());
+            for (Edge f : mst) {
+                int x = f.either(), y = f.other(x);
+                if (f != e) uf.union(x, y);
+            }
+
+            // check that e is min weight edge in crossing cut
+            for (Edge f : G.edges()) {
+                int x = f.either(), y = f.other(x);
+                if (!uf.connected(x, y)) {
+                    if (f.weight() < e.weight()) {
+                        System.err.println("Edge " + f + " violates cut optimality conditions");
+                        return false;
+                    }
+                }
+            }
+
+        }
+
+        return true;
+    }
+
+    // Returns the graph G with a random weight on every edge; the weights
+    // are rounded to two digits so that many edges have equal weights.
+    private static EdgeWeightedGraph weighted(Graph G) {
+        EdgeWeightedGraph weighted = new EdgeWeightedGraph(G.V());
+        for (int v = 0; v < G.V(); v++) {
+            for (int w : G.adj(v)) {
+                if (v < w)
+                    weighted.addEdge(new Edge(v, w, Math.round(100 * StdRandom.uniform()) / 100.0));
+            }
+        }
+        return weighted;
+    }
+
+    // Unit tests the ParallelBoruvkaMST data type against KruskalMST and
+    // PrimMST on GraphGenerator graphs with V vertices and E edges.
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        String[] names = { "simple", "Erdos-Renyi", "bipartite", "regular", "tree", "wheel", "sparse forest" };
+        Graph[] graphs = {
+            GraphGenerator.simple(V, E),
+            GraphGenerator.simple(V, 2.0 * E / ((double) V * (V - 1))),
+            GraphGenerator.bipartite(V / 2, V - V / 2, E),
+            GraphGenerator.regular(V, 4),
+            GraphGenerator.tree(V),
+            GraphGenerator.wheel(V),
+            GraphGenerator.simple(V, V / 3),
+        };
+        for (int i = 0; i < graphs.length; i++) {
+            EdgeWeightedGraph G = weighted(graphs[i]);
+            Stopwatch timer = new Stopwatch();
+            KruskalMST kruskal = new KruskalMST(G);
+            double time1 = timer.elapsedTime();
+            timer = new Stopwatch();
+            PrimMST prim = new PrimMST(G);
+            double time2 = timer.elapsedTime();
+            timer = new Stopwatch();
+            ParallelBoruvkaMST boruvka = new ParallelBoruvkaMST(G, pool);
+            double time3 = timer.elapsedTime();
+
+            int size = 0;
+            for (Edge e : boruvka.edges())
+                size++;
+            int expected = 0;
+            for (Edge e : kruskal.edges())
+                expected++;
+            // the weights are sums of the same edges in different orders
+            double tolerance = 1E-12 * G.E();
+            boolean same = Math.abs(kruskal.weight() - boruvka.weight()) <= tolerance
+                        && Math.abs(prim.weight() - boruvka.weight()) <= tolerance
+                        && size == expected;
+            StdOut.printf("%-14s %s  weight %.5f  Kruskal %.3f s, Prim %.3f s, parallel Boruvka %.3f s\n",
+                          names[i], same ? "ok  " : "FAIL", boruvka.weight(), time1, time2, time3);
+        }
+        pool.shutdown();
+    }
+}
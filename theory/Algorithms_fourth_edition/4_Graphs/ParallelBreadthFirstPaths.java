@@ -0,0 +1,296 @@
+// Level-synchronous parallel breadth-first search with direction
+// optimization (Beamer, Asanovic and Patterson): while the frontier is
+// small, each frontier vertex looks at its neighbors (top-down); once the
+// edges out of the frontier outnumber the edges out of the unvisited
+// vertices by a factor of ALPHA, each unvisited vertex looks for a
+// neighbor in the frontier instead (bottom-up), until the frontier falls
+// under V / BETA vertices.
+
+/**
+ *  The {@code ParallelBreadthFirstPaths} class represents a data type for
+ *  finding shortest paths (number of edges) from a source vertex s (or a
+ *  set of source vertices) to every other vertex in an undirected graph,
+ *  with the same results as {@link BreadthFirstPaths}: the same
+ *  {@code distTo()} and the same {@code pathTo()}.
+ *  <p>
+ *  The graph is frozen into a {@link CSRGraph} and the frontiers are
+ *  {@code int[]} arrays, so no vertex is boxed. Each level is computed in
+ *  parallel on a ForkJoinPool in two steps. First every new vertex w
+ *  finds its parent: the neighbor of w that comes first in the frontier,
+ *  which is the vertex that would have dequeued w first in the sequential
+ *  search; top-down, the frontier vertices offer their position in the
+ *  frontier to their unvisited neighbors with a compare-and-set minimum,
+ *  and bottom-up, each unvisited vertex scans its own neighbors.
+ *  Then every parent scans its row once more and writes its children, in
+ *  the order of its row, to its slot of the next frontier, so the next
+ *  frontier is in the order of the sequential queue.
+ *  The constructor takes time proportional to V + E, plus V per
+ *  bottom-up level, and extra space proportional to V.
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelBreadthFirstPaths {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int ALPHA = 14;        // switch to bottom-up when m_f > m_u / ALPHA
+    private static final int BETA = 24;         // switch back when n_f < V / BETA
+
+    private final int[] distTo;     // distTo[v] = number of edges shortest s-v path
+    private final int[] edgeTo;     // edgeTo[v] = previous vertex on shortest s-v path
+    private int bottomUpLevels;     // number of levels searched bottom-up
+
+    // Computes the shortest path between the source vertex s and
+    // every other vertex in the graph G, on the common pool.
+    public ParallelBreadthFirstPaths(Graph G, int s) {
+        this(new CSRGraph(G), s, ForkJoinPool.commonPool());
+    }
+
+    // Computes the shortest path between the source vertex s and
+    // every other vertex in the graph G, on pool.
+    public ParallelBreadthFirstPaths(CSRGraph G, int s, ForkJoinPool pool) {
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        validateVertex(s);
+        bfs(G, new int[] { s }, pool);
+    }
+
+    // Computes the shortest path between any one of the source vertices in sources
+    // and every other vertex in graph G, on the common pool.
+    public ParallelBreadthFirstPaths(Graph G, Iterable<Integer> sources) {
+        this(new CSRGraph(G), sources, ForkJoinPool.commonPool());
+    }
+
+    // Computes the shortest path between any one of the source vertices in sources
+    // and every other vertex in graph G, on pool.
+    public ParallelBreadthFirstPaths(CSRGraph G, Iterable<Integer> sources, ForkJoinPool pool) {
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        validateVertices(sources);
+        int n = 0;
+        for (int s : sources)
+            n++;
+        int[] array = new int[n];
+        n = 0;
+        for (int s : sources)
+            array[n++] = s;
+        bfs(G, array, pool);
+    }
+
+    // level-synchronous breadth-first search from the sources, in order
+    private void bfs(final CSRGraph G, int[] sources, ForkJoinPool pool) {
+        final int V = G.V();
+        final int[] rank = new int[V];  // rank[v] = position of v in its level
+        final AtomicIntegerArray best = new AtomicIntegerArray(V);  // best[w] = rank of w's parent
+        for (int v = 0; v < V; v++) {
+            distTo[v] = INFINITY;
+            edgeTo[v] = -1;
+            best.set(v, INFINITY);
+        }
+
+        // level 0: the distinct sources, in order
+        int n = 0;
+        int[] frontier = new int[sources.length];
+        long mf = 0;    // entries in the rows of the frontier
+        for (int s : sources) {
+            if (distTo[s] == 0)
+                continue;
+            distTo[s] = 0;
+            rank[s] = n;
+            frontier[n++] = s;
+            mf += G.degree(s);
+        }
+        long mu = (V == 0 ? 0 : G.adjEnd(V - 1)) - mf;  // entries in the rows of unvisited vertices
+        boolean bottomUp = false;
+
+        for (int level = 1; n > 0; level++) {
+            if (!bottomUp && mf > mu / ALPHA)  bottomUp = true;
+            else if (bottomUp && n < V / BETA) bottomUp = false;
+            final int d = level;
+            final int[] parents = frontier;
+            final AtomicIntegerArray children = new AtomicIntegerArray(n);  // children[r] = children of parents[r]
+
+            if (bottomUp) {
+                bottomUpLevels++;
+                pool.invoke(new IndexTask(0, V) {
+                    int apply(int w) {
+                        if (distTo[w] != INFINITY)
+                            return 0;
+                        int min = INFINITY;
+                        for (int i = G.adjBegin(w); i < G.adjEnd(w); i++) {
+                            int u = G.target(i);
+                            if (distTo[u] == d - 1 && rank[u] < min)
+                                min = rank[u];
+                        }
+                        if (min != INFINITY) {
+                            best.set(w, min);
+                            edgeTo[w] = parents[min];
+                            children.incrementAndGet(min);
+                        }
+                        return 0;
+                    }
+                });
+            }
+            else {
+                pool.invoke(new IndexTask(0, n) {
+                    int apply(int r) {
+                        int u = parents[r];
+                        for (int i = G.adjBegin(u); i < G.adjEnd(u); i++) {
+                            int w = G.target(i);
+                            if (distTo[w] == INFINITY)
+                                offer(best, w, r);
+                        }
+                        return 0;
+                    }
+                });
+                // every parent counts its children, once each
+                pool.invoke(new IndexTask(0, n) {
+                    int apply(int r) {
+                        int u = parents[r];
+                        int count = 0;
+                        for (int i = G.adjBegin(u); i < G.adjEnd(u); i++) {
+                            int w = G.target(i);
+                            if (distTo[w] == INFINITY && best.get(w) == r && edgeTo[w] != u) {
+                                edgeTo[w] = u;
+                                count++;
+                            }
+                        }
+                        children.set(r, count);
+                        return 0;
+                    }
+                });
+            }
+
+            // parents[r] writes its children to next[start[r] .. start[r+1]-1]
+            final int[] start = new int[n + 1];
+            for (int r = 0; r < n; r++)
+                start[r + 1] = start[r] + children.get(r);
+            final int[] next = new int[start[n]];
+            mf = pool.invoke(new IndexTask(0, n) {
+                int apply(int r) {
+                    int k = start[r];
+                    if (k == start[r + 1])
+                        return 0;
+                    int u = parents[r];
+                    int degrees = 0;
+                    for (int i = G.adjBegin(u); i < G.adjEnd(u) && k < start[r + 1]; i++) {
+                        int w = G.target(i);
+                        if (distTo[w] == INFINITY && best.get(w) == r) {
+                            distTo[w] = d;
+                            rank[w] = k;
+                            next[k++] = w;
+                            degrees += G.degree(w);
+                        }
+                    }
+                    return degrees;
+                }
+            });
+            mu -= mf;
+            frontier = next;
+            n = next.length;
+        }
+    }
+
+    // offers rank r as the parent of w; the smallest rank wins
+    private static void offer(AtomicIntegerArray best, int w, int r) {
+        while (true) {
+            int current = best.get(w);
+            if (current <= r) return;
+            if (best.compareAndSet(w, current, r)) return;
+        }
+    }
+
+    // Is there a path between the source vertex s (or sources) and vertex v ?
+    public boolean hasPathTo(int v) {
+        validateVertex(v);
+        return distTo[v] != INFINITY;
+    }
+
+    // Returns the number of edges in a shortest path between the source
+    // vertex s (or sources) and vertex v.
+    public int distTo(int v) {
+        validateVertex(v);
+        return distTo[v];
+    }
+
+    // Returns a shortest path between the source vertex s (or sources)
+    // and v, or null if no such path.
+    public Iterable<Integer> pathTo(int v) {
+        validateVertex(v);
+        if (!hasPathTo(v))
+            return null;
+        Stack<Integer> path = new Stack<Integer>();
+        int x;
+        for (x = v; distTo[x] != 0; x = edgeTo[x])
+            path.push(x);
+        path.push(x);
+        return path;
+    }
+
+    // Returns the number of levels that were searched bottom-up.
+    public int bottomUpLevels() {
+        return bottomUpLevels;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V
+    private void validateVertex(int v) {
+        int V = distTo.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V for every vertex
+    private void validateVertices(Iterable<Integer> vertices) {
+        if (vertices == null) {
+            throw new IllegalArgumentException("argument is null");
+        }
+        for (int v : vertices)
+            validateVertex(v);
+    }
+
+    // Unit tests the ParallelBreadthFirstPaths data type against BreadthFirstPaths.
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Graph G = new Graph(in);
+        int s = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        CSRGraph csr = new CSRGraph(G);
+
+        Stopwatch timer = new Stopwatch();
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, s);
+        double time1 = timer.elapsedTime();
+        timer = new Stopwatch();
+        ParallelBreadthFirstPaths parallel = new ParallelBreadthFirstPaths(csr, s, pool);
+        double time2 = timer.elapsedTime();
+        StdOut.printf("BreadthFirstPaths %.3f s, parallel %.3f s (%d bottom-up levels)\n",
+                      time1, time2, parallel.bottomUpLevels());
+
+        Queue<Integer> sources = new Queue<Integer>();
+        for (int i = 0; i < 3; i++)
+            sources.enqueue(StdRandom.uniform(G.V()));
+        BreadthFirstPaths multi = new BreadthFirstPaths(G, sources);
+        ParallelBreadthFirstPaths parallelMulti = new ParallelBreadthFirstPaths(csr, sources, pool);
+
+        int differ = 0;
+        for (int v = 0; v < G.V(); v++) {
+            if (!samePath(bfs, parallel, v))           differ++;
+            if (!samePath(multi, parallelMulti, v))    differ++;
+        }
+        StdOut.println(differ + " paths differ");
+        pool.shutdown();
+    }
+
+    // do both searches give the same distance and the same path to v ?
+    private static boolean samePath(BreadthFirstPaths bfs, ParallelBreadthFirstPaths parallel, int v) {
+        if (bfs.distTo(v) != parallel.distTo(v) || bfs.hasPathTo(v) != parallel.hasPathTo(v))
+            return false;
+        if (!bfs.hasPathTo(v))
+            return true;
+        StringBuilder a = new StringBuilder(), b = new StringBuilder();
+        for (int x : bfs.pathTo(v))
+            a.append(x).append(' ');
+        for (int x : parallel.pathTo(v))
+            b.append(x).append(' ');
+        return a.toString().equals(b.toString());
+    }
+}
@@ -0,0 +1,243 @@
+// Critical path method, in parallel, on the layers of the precedence DAG.
+/**
+ *  The {@code ParallelCPM} class represents a data type for solving the
+ *  parallel precedence-constrained job scheduling problem via the
+ *  critical path method on a ForkJoinPool, with the same start times as
+ *  {@link CPM}.
+ *  <p>
+ *  {@code CPM} builds an edge-weighted digraph of 2n + 2 vertices and
+ *  3n + E edge objects and runs {@link AcyclicLP} on it. Here the jobs
+ *  are the vertices of a {@link CSRDigraph}, with an edge from each job
+ *  to the jobs that must wait for it, and {@link ParallelTopological}
+ *  splits it into layers. The start time of a job is the latest finish
+ *  time of the jobs it waits for, or 0, so it depends only on earlier
+ *  layers: the jobs of one layer pull their start times from their
+ *  predecessors, in the reverse digraph, in parallel, with no atomic
+ *  operation, and the job that finishes last among them is the one
+ *  before it on a critical path. The sums and maxima are those of the
+ *  relaxations of {@code AcyclicLP} on the network of {@code CPM}, so
+ *  the start times are the same doubles.
+ *  <p>
+ *  It takes time proportional to n + E, with about as many parallel
+ *  steps as there are layers.
+ */
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelCPM {
+    private final int n;                // number of jobs
+    private final double[] duration;    // duration[i] = duration of job i
+    private final double[] start;       // start[i] = earliest start time of job i
+    private final int[] before;         // before[i] = the job i waits for last, or -1
+    private final double finish;        // finish time of the last job
+
+    // Reads a job-scheduling problem in the format of CPM from in and
+    // schedules it on the common pool.
+    public ParallelCPM(In in) {
+        this(read(in), ForkJoinPool.commonPool());
+    }
+
+    // Schedules the n = duration.length jobs, where job to[i] cannot start
+    // before job from[i] finishes, on pool.
+    public ParallelCPM(double[] duration, int[] from, int[] to, ForkJoinPool pool) {
+        this(new Problem(duration, new CSRDigraph(duration.length, from, to)), pool);
+    }
+
+    private ParallelCPM(Problem problem, ForkJoinPool pool) {
+        n = problem.duration.length;
+        duration = problem.duration;
+        start = new double[n];
+        before = new int[n];
+        ParallelTopological topological = new ParallelTopological(problem.G, pool);
+        if (!topological.hasOrder())
+            throw new IllegalArgumentException("precedence constraints have a cycle");
+        final CSRDigraph R = problem.G.reverse();
+        final int[] order = topological.orderArray();
+
+        for (int k = 0; k < topological.layers(); k++) {
+            IndexTask.invoke(pool, new IndexTask(topological.layerStart(k), topological.layerStart(k + 1)) {
+                int apply(int i) {
+                    int v = order[i];
+                    double time = 0.0;
+                    int last = -1;
+                    for (int j = R.adjBegin(v); j < R.adjEnd(v); j++) {
+                        int u = R.target(j);
+                        if (time < start[u] + duration[u]) {
+                            time = start[u] + duration[u];
+                            last = u;
+                        }
+                    }
+                    start[v] = time;
+                    before[v] = last;
+                    return 0;
+                }
+            });
+        }
+        double latest = 0.0;
+        for (int i = 0; i < n; i++) {
+            if (latest < start[i] + duration[i])
+                latest = start[i] + duration[i];
+        }
+        finish = latest;
+    }
+
+    // the durations and precedence digraph of a problem
+    private static class Problem {
+        private final double[] duration;
+        private final CSRDigraph G;
+
+        Problem(double[] duration, CSRDigraph G) {
+            this.duration = duration;
+            this.G = G;
+        }
+    }
+
+    // the number of jobs, then for each job its duration, the number m of
+    // jobs that must wait for it and those m jobs
+    private static Problem read(In in) {
+        int n = in.readInt();
+        if (n < 0)
+            throw new IllegalArgumentException("number of jobs must be nonnegative");
+        double[] duration = new double[n];
+        int[] from = new int[16];
+        int[] to = new int[16];
+        int E = 0;
+        for (int i = 0; i < n; i++) {
+            duration[i] = in.readDouble();
+            int m = in.readInt();
+            for (int j = 0; j < m; j++) {
+                if (E == from.length) {
+                    from = java.util.Arrays.copyOf(from, 2 * E);
+                    to = java.util.Arrays.copyOf(to, 2 * E);
+                }
+                from[E] = i;
+                to[E++] = in.readInt();
+            }
+        }
+        return new Problem(duration, new CSRDigraph(n, java.util.Arrays.copyOf(from, E),
+                                                    java.util.Arrays.copyOf(to, E)));
+    }
+
+    // Returns the number of jobs.
+    public int size() {
+        return n;
+    }
+
+    // Returns the earliest start time of job i.
+    public double startTime(int i) {
+        validateJob(i);
+        return start[i];
+    }
+
+    // Returns the earliest finish time of job i.
+    public double finishTime(int i) {
+        validateJob(i);
+        return start[i] + duration[i];
+    }
+
+    // Returns the finish time of the whole schedule.
+    public double finishTime() {
+        return finish;
+    }
+
+    // Returns the jobs of a critical path, in order: a chain of jobs, each
+    // starting when the one before it finishes, that ends at the finish
+    // time of the schedule.
+    public Iterable<Integer> criticalPath() {
+        Stack<Integer> path = new Stack<Integer>();
+        int last = -1;
+        for (int i = 0; i < n && last == -1; i++) {
+            if (start[i] + duration[i] == finish)
+                last = i;
+        }
+        for (int i = last; i != -1; i = before[i])
+            path.push(i);
+        return path;
+    }
+
+    // throw new IllegalArgumentException unless 0 <= i < n.
+    private void validateJob(int i) {
+        if (i < 0 || i >= n)
+            throw new IllegalArgumentException("job " + i + " is not between 0 and " + (n - 1));
+    }
+
+    // Reads the precedence constraints from the file named args[0] and
+    // prints a feasible schedule, as CPM does; or, given a number of jobs
+    // n and of constraints E, compares the start times with those of
+    // AcyclicLP on the network of CPM for a random problem and times both.
+    public static void main(String[] args) {
+        if (args.length == 1) {
+            ParallelCPM cpm = new ParallelCPM(new In(args[0]));
+            StdOut.println(" job   start   finish");
+            StdOut.println("---------------------");
+            for (int i = 0; i < cpm.size(); i++) {
+                StdOut.printf("%4d %7.1f %7.1f\n", i, cpm.startTime(i), cpm.finishTime(i));
+            }
+            StdOut.printf("Finish time: %7.1f\n", cpm.finishTime());
+            StdOut.print("Critical path:");
+            for (int i : cpm.criticalPath())
+                StdOut.print(" " + i);
+            StdOut.println();
+            return;
+        }
+
+        int n = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        // constraints between jobs at most 1000 apart in a random order
+        int[] jobs = new int[n];
+        for (int i = 0; i < n; i++)
+            jobs[i] = i;
+        StdRandom.shuffle(jobs);
+        double[] duration = new double[n];
+        for (int i = 0; i < n; i++)
+            duration[i] = StdRandom.uniform(1000) / 10.0;
+        int[] from = new int[E];
+        int[] to = new int[E];
+        for (int e = 0; e < E; e++) {
+            int v = StdRandom.uniform(n - 1);
+            int w = v + 1 + StdRandom.uniform(Math.min(n - 1 - v, 1000));
+            from[e] = jobs[v];
+            to[e] = jobs[w];
+        }
+
+        // the network of CPM
+        Stopwatch timer = new Stopwatch();
+        int source = 2 * n;
+        int sink = 2 * n + 1;
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(2 * n + 2);
+        for (int i = 0; i < n; i++) {
+            G.addEdge(new DirectedEdge(source, i, 0.0));
+            G.addEdge(new DirectedEdge(i + n, sink, 0.0));
+            G.addEdge(new DirectedEdge(i, i + n, duration[i]));
+        }
+        for (int e = 0; e < E; e++)
+            G.addEdge(new DirectedEdge(n + from[e], to[e], 0.0));
+        AcyclicLP lp = new AcyclicLP(G, source);
+        double time1 = timer.elapsedTime();
+
+        timer = new Stopwatch();
+        ParallelCPM cpm = new ParallelCPM(duration, from, to, pool);
+        double time2 = timer.elapsedTime();
+
+        int differ = 0;
+        for (int i = 0; i < n; i++) {
+            if (cpm.startTime(i) != lp.distTo(i) || cpm.finishTime(i) != lp.distTo(i + n))
+                differ++;
+        }
+        if (cpm.finishTime() != lp.distTo(sink))
+            differ++;
+        double t = 0.0;
+        int previous = -1;
+        for (int i : cpm.criticalPath()) {
+            if (cpm.startTime(i) != t) differ++;
+            t = cpm.finishTime(i);
+            previous = i;
+        }
+        if (previous == -1 ? n > 0 : t != cpm.finishTime())
+            differ++;
+        StdOut.printf("%d jobs, %d constraints, finish time %.1f: CPM %.3f s, parallel %.3f s, %d start times differ\n",
+                      n, E, cpm.finishTime(), time1, time2, differ);
+    }
+}
@@ -0,0 +1,501 @@
+// Compute the strongly-connected components of a digraph in parallel,
+// with trimming, one forward-backward step and coloring (Hong, Rodia and
+// Olukotun; Orzan). Depth-first search is inherently sequential, but
+// reachability is not: the vertices that both reach and are reached from
+// a pivot form the pivot's strong component, and breadth-first search
+// finds them level by level, in parallel.
+
+/**
+ *  The {@code ParallelSCC} class represents a data type for determining
+ *  the strong components in a digraph on a ForkJoinPool, with the same
+ *  {@code count()}, {@code id()} and {@code stronglyConnected()} as
+ *  {@link KosarajuSharirSCC}. The components are the same; the ids are
+ *  numbered in another order.
+ *  <p>
+ *  It works in three phases, on a {@link CSRDigraph} and its reverse.
+ *  Trimming: a vertex with no edge in or no edge out among the vertices
+ *  left is a component by itself; removing it can leave a neighbor
+ *  without edges in or out, so the trimming runs to completion, with an
+ *  atomic count of the edges in and out of each vertex.
+ *  Forward-backward: the vertex with the most edges in and out is the
+ *  pivot, and the vertices reached from it by a parallel breadth-first
+ *  search forward and backward form its component, which in most large
+ *  digraphs is the giant one.
+ *  Coloring: every vertex left starts with its own number as its color
+ *  and the largest color spreads along the edges in parallel; then each
+ *  vertex whose color is still its own is the root of a component made of
+ *  the vertices of its color that reach it, found by one backward search
+ *  per root, all in parallel. The rest is trimmed and colored again
+ *  until at most {@code SEQUENTIAL} vertices are left, or until coloring
+ *  removes less than 1 / p of the vertices left, where p is the
+ *  parallelism of the pool; then {@link NonrecursiveTarjanSCC} finds the
+ *  remaining components faster than more coloring would.
+ *  Rounds with at most 256 vertices (the cutoff of {@link IndexTask}) run
+ *  in the calling thread, so a long path costs no task per level, and a
+ *  digraph with at most {@code SEQUENTIAL} vertices, or a pool with a
+ *  parallelism of 1, goes to {@code NonrecursiveTarjanSCC} from the
+ *  start: on one thread the phases only add their rounds to the work of
+ *  Tarjan's algorithm, which is several times faster.
+ *  Each phase takes time proportional to V + E per round, and there are
+ *  about as many rounds as the longest path of the vertices it touches.
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelSCC {
+    private static final int SEQUENTIAL = 1 << 16;  // vertices left for NonrecursiveTarjanSCC
+    private static final int LEFT = -1;         // comp[v] of a vertex not in a component yet
+    private static final int CLAIMED = -2;      // comp[v] while v is being trimmed
+
+    private final int[] id;     // id[v] = id of strong component containing v.
+    private final int count;    // number of strongly-connected components
+
+    private CSRDigraph G, R;                // the digraph and its reverse
+    private AtomicIntegerArray comp;        // comp[v] = component of v, or LEFT
+    private AtomicIntegerArray in, out;     // edges into / out of v from vertices left, without self-loops
+    private AtomicIntegerArray queued;      // queued[v] = 1 once v is on the trimming worklist
+    private AtomicInteger components;       // number of component ids handed out
+    private int[] work;                     // trimming worklist: every vertex at most once
+    private AtomicInteger workTail;
+
+    // Computes the strong components of the digraph G, on the common pool.
+    public ParallelSCC(AdjacencyDigraph G) {
+        this(CSRDigraph.freeze(G), ForkJoinPool.commonPool());
+    }
+
+    // Computes the strong components of the frozen digraph G, on pool.
+    public ParallelSCC(CSRDigraph G, ForkJoinPool pool) {
+        final int V = G.V();
+        if (V <= SEQUENTIAL || pool.getParallelism() < 2) {
+            // the rounds of tasks would cost more than they save
+            NonrecursiveTarjanSCC scc = new NonrecursiveTarjanSCC(G);
+            id = new int[V];
+            for (int v = 0; v < V; v++)
+                id[v] = scc.id(v);
+            count = scc.count();
+            return;
+        }
+        this.G = G;
+        this.R = G.reverse();
+        comp = new AtomicIntegerArray(V);
+        in = new AtomicIntegerArray(V);
+        out = new AtomicIntegerArray(V);
+        queued = new AtomicIntegerArray(V);
+        components = new AtomicInteger();
+        work = new int[V];
+        workTail = new AtomicInteger();
+
+        IndexTask.invoke(pool, new IndexTask(0, V) {
+            int apply(int v) {
+                comp.set(v, LEFT);
+                in.set(v, degree(ParallelSCC.this.R, v));
+                out.set(v, degree(ParallelSCC.this.G, v));
+                if (in.get(v) == 0 || out.get(v) == 0)
+                    enqueue(v);
+                return 0;
+            }
+        });
+        trim(pool, 0);
+
+        // forward-backward from the pivot
+        int pivot = -1;
+        long best = -1;
+        for (int v = 0; v < V; v++) {
+            if (comp.get(v) == LEFT && (long) in.get(v) * out.get(v) > best) {
+                best = (long) in.get(v) * out.get(v);
+                pivot = v;
+            }
+        }
+        if (pivot != -1) {
+            int[] scc = forwardBackward(pool, pivot);
+            release(pool, scc, scc.length);
+        }
+
+        // coloring, until every vertex is in a component
+        int[] left = new int[V];
+        int n = 0;
+        for (int v = 0; v < V; v++) {
+            if (comp.get(v) == LEFT)
+                left[n++] = v;
+        }
+        AtomicIntegerArray color = new AtomicIntegerArray(V);
+        AtomicIntegerArray stamp = new AtomicIntegerArray(V);
+        int round = 0;
+        while (n > SEQUENTIAL) {
+            round = color(pool, left, n, color, stamp, round);
+            int[] removed = backward(pool, left, n, color);
+            release(pool, removed, removed.length);
+            int m = 0;
+            for (int k = 0; k < n; k++) {
+                if (comp.get(left[k]) == LEFT)
+                    left[m++] = left[k];
+            }
+            // a round of coloring costs about as much as all of Tarjan's
+            // algorithm divided by the parallelism: stop if it did too little
+            boolean slow = (long) (n - m) * pool.getParallelism() < n;
+            n = m;
+            if (slow)
+                break;
+        }
+        if (n > 0)
+            sequential(left, n);
+
+        id = new int[V];
+        for (int v = 0; v < V; v++)
+            id[v] = comp.get(v);
+        count = components.get();
+        this.G = null;      // only id[] and count are kept
+        this.R = null;
+        comp = in = out = queued = null;
+        work = null;
+        assert check(G);
+    }
+
+    // finds the components of the subgraph induced by the vertices
+    // left[0 .. n-1] with NonrecursiveTarjanSCC
+    private void sequential(int[] left, int n) {
+        int[] index = new int[comp.length()];   // index[v] = position of v in left[], if v is there
+        int edges = 0;
+        for (int k = 0; k < n; k++) {
+            index[left[k]] = k;
+            edges += G.adjEnd(left[k]) - G.adjBegin(left[k]);
+        }
+        int[] from = new int[edges];
+        int[] to = new int[edges];
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            int v = left[k];
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                int w = G.target(i);
+                if (comp.get(w) == LEFT) {
+                    from[m] = k;
+                    to[m++] = index[w];
+                }
+            }
+        }
+        NonrecursiveTarjanSCC scc = new NonrecursiveTarjanSCC(
+            new CSRDigraph(n, java.util.Arrays.copyOf(from, m), java.util.Arrays.copyOf(to, m)));
+        int base = components.getAndAdd(scc.count());
+        for (int k = 0; k < n; k++)
+            comp.set(left[k], base + scc.id(k));
+    }
+
+    // number of edges in row v of D that are not self-loops
+    private static int degree(CSRDigraph D, int v) {
+        int d = 0;
+        for (int i = D.adjBegin(v); i < D.adjEnd(v); i++) {
+            if (D.target(i) != v)
+                d++;
+        }
+        return d;
+    }
+
+    // puts v on the trimming worklist, once
+    private void enqueue(int v) {
+        if (queued.compareAndSet(v, 0, 1))
+            work[workTail.getAndIncrement()] = v;
+    }
+
+    // trims the worklist from position head to the end, round by round:
+    // each vertex on it that is still left becomes a component, and the
+    // neighbors it leaves without edges in or out join the next round
+    private void trim(ForkJoinPool pool, int head) {
+        while (head < workTail.get()) {
+            final int lo = head, hi = workTail.get();
+            IndexTask.invoke(pool, new IndexTask(lo, hi) {
+                int apply(int k) {
+                    int v = work[k];
+                    if (!comp.compareAndSet(v, LEFT, CLAIMED))
+                        return 0;   // already in a component found by another phase
+                    comp.set(v, components.getAndIncrement());
+                    releaseEdges(v);
+                    return 0;
+                }
+            });
+            head = hi;
+        }
+    }
+
+    // v has just been put in a component: its neighbors that are left lose an edge
+    private void releaseEdges(int v) {
+        for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+            int w = G.target(i);
+            if (w != v && comp.get(w) == LEFT && in.decrementAndGet(w) == 0)
+                enqueue(w);
+        }
+        for (int i = R.adjBegin(v); i < R.adjEnd(v); i++) {
+            int u = R.target(i);
+            if (u != v && comp.get(u) == LEFT && out.decrementAndGet(u) == 0)
+                enqueue(u);
+        }
+    }
+
+    // the vertices removed[0 .. n-1] have just been put in components:
+    // updates their neighbors and trims what that exposes
+    private void release(ForkJoinPool pool, final int[] removed, int n) {
+        final int head = workTail.get();
+        IndexTask.invoke(pool, new IndexTask(0, n) {
+            int apply(int k) {
+                releaseEdges(removed[k]);
+                return 0;
+            }
+        });
+        trim(pool, head);
+    }
+
+    // Returns the component of pivot, which it puts in a new component:
+    // the vertices left that a parallel breadth-first search reaches both
+    // forward and backward from pivot
+    private int[] forwardBackward(ForkJoinPool pool, int pivot) {
+        int V = comp.length();
+        AtomicIntegerArray mark = new AtomicIntegerArray(V);
+        int[] forward = new int[V];
+        int[] backward = new int[V];
+        reach(pool, G, pivot, mark, forward, 1);
+        int n = reach(pool, R, pivot, mark, backward, 2);
+        int c = components.getAndIncrement();
+        int size = 0;
+        for (int k = 0; k < n; k++) {
+            int v = backward[k];
+            if (mark.get(v) == 3) {
+                comp.set(v, c);
+                backward[size++] = v;
+            }
+        }
+        return java.util.Arrays.copyOf(backward, size);
+    }
+
+    // breadth-first search in D from s over vertices left, level by level in
+    // parallel; sets bit in mark[] of every vertex reached and lists them in
+    // reached[], and returns their number
+    private int reach(ForkJoinPool pool, final CSRDigraph D, int s, final AtomicIntegerArray mark,
+                      final int[] reached, final int bit) {
+        final AtomicInteger tail = new AtomicInteger();
+        mark.set(s, mark.get(s) | bit);
+        reached[tail.getAndIncrement()] = s;
+        int lo = 0;
+        while (lo < tail.get()) {
+            int hi = tail.get();
+            IndexTask.invoke(pool, new IndexTask(lo, hi) {
+                int apply(int k) {
+                    int v = reached[k];
+                    for (int i = D.adjBegin(v); i < D.adjEnd(v); i++) {
+                        int w = D.target(i);
+                        if (comp.get(w) != LEFT)
+                            continue;
+                        int m = mark.get(w);
+                        while ((m & bit) == 0) {
+                            if (mark.compareAndSet(w, m, m | bit)) {
+                                reached[tail.getAndIncrement()] = w;
+                                break;
+                            }
+                            m = mark.get(w);
+                        }
+                    }
+                    return 0;
+                }
+            });
+            lo = hi;
+        }
+        return tail.get();
+    }
+
+    // spreads the largest vertex number forward among the vertices
+    // left[0 .. n-1], in rounds over the vertices whose color changed;
+    // stamp[v] == round when v is on the list of the next round. Returns
+    // the last round number used.
+    private int color(ForkJoinPool pool, final int[] left, int n, final AtomicIntegerArray color,
+                      final AtomicIntegerArray stamp, int round) {
+        for (int k = 0; k < n; k++)
+            color.set(left[k], left[k]);
+        int[] active = java.util.Arrays.copyOf(left, n);
+        int[] spare = new int[n];
+        int size = n;
+        while (size > 0) {
+            final int[] current = active;
+            final int[] next = spare;
+            final AtomicInteger tail = new AtomicInteger();
+            final int r = ++round;
+            IndexTask.invoke(pool, new IndexTask(0, size) {
+                int apply(int k) {
+                    int v = current[k];
+                    int c = color.get(v);
+                    for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                        int w = G.target(i);
+                        if (comp.get(w) != LEFT)
+                            continue;
+                        int old = color.get(w);
+                        while (old < c) {
+                            if (color.compareAndSet(w, old, c)) {
+                                if (stamp.getAndSet(w, r) != r)
+                                    next[tail.getAndIncrement()] = w;
+                                break;
+                            }
+                            old = color.get(w);
+                        }
+                    }
+                    return 0;
+                }
+            });
+            spare = active;
+            active = next;
+            size = tail.get();
+        }
+        return round;
+    }
+
+    // puts the vertices of each color that reach its root (the vertex whose
+    // number is the color) in a new component, one backward search per root,
+    // in parallel; returns the vertices put in components
+    private int[] backward(ForkJoinPool pool, final int[] left, int n, final AtomicIntegerArray color) {
+        final int[] removed = new int[n];
+        final AtomicInteger tail = new AtomicInteger();
+        IndexTask.invoke(pool, new IndexTask(0, n) {
+            int apply(int k) {
+                int root = left[k];
+                if (color.get(root) != root)
+                    return 0;
+                int c = components.getAndIncrement();
+                comp.set(root, c);
+                int[] stack = new int[4];
+                int top = 0;
+                stack[top++] = root;
+                while (top > 0) {
+                    int v = stack[--top];
+                    removed[tail.getAndIncrement()] = v;
+                    for (int i = R.adjBegin(v); i < R.adjEnd(v); i++) {
+                        int u = R.target(i);
+                        if (color.get(u) == root && comp.compareAndSet(u, LEFT, c)) {
+                            if (top == stack.length)
+                                stack = java.util.Arrays.copyOf(stack, 2 * top);
+                            stack[top++] = u;
+                        }
+                    }
+                }
+                return 0;
+            }
+        });
+        return java.util.Arrays.copyOf(removed, tail.get());
+    }
+
+    // Returns the number of strong components.
+    public int count() {
+        return count;
+    }
+
+    // Are vertices v and w in the same strong component ?
+    public boolean stronglyConnected(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return id[v] == id[w];
+    }
+
+    // Returns the component id of the strong component containing vertex v.
+    public int id(int v) {
+        validateVertex(v);
+        return id[v];
+    }
+
+    // is every vertex in a component, with an id between 0 and count - 1,
+    // and does every component have a vertex ?
+    private boolean check(CSRDigraph G) {
+        boolean[] used = new boolean[count];
+        for (int v = 0; v < G.V(); v++) {
+            if (id[v] < 0 || id[v] >= count)
+                return false;
+            used[id[v]] = true;
+        }
+        for (int c = 0; c < count; c++) {
+            if (!used[c])
+                return false;
+        }
+        return true;
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = id.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Unit tests the ParallelSCC data type against KosarajuSharirSCC on
+    // digraphs from DigraphGenerator with V vertices and E edges, and
+    // compares its time with that of the sequential algorithms, on a pool
+    // of args[2] threads (by default, one per processor).
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        StdOut.println(threads + " threads");
+
+        String[] names = { "simple", "dag", "strong", "cycle", "rootedInDAG" };
+        Digraph[] digraphs = {
+            DigraphGenerator.simple(V, E),
+            DigraphGenerator.dag(V, E),
+            DigraphGenerator.strong(V, E, Math.max(1, V / 100)),
+            DigraphGenerator.cycle(V),
+            DigraphGenerator.rootedInDAG(V, E),
+        };
+        for (int g = 0; g < digraphs.length; g++) {
+            Digraph G = digraphs[g];
+            CSRDigraph csr = new CSRDigraph(G);
+            ParallelSCC parallel = null;
+            double time1 = Double.POSITIVE_INFINITY, time2 = time1, time3 = time1;
+            // the first round warms up the JIT; the best of the other two
+            // leaves out most garbage collections
+            for (int round = 0; round < 3; round++) {
+                Stopwatch timer = new Stopwatch();
+                new NonrecursiveKosarajuSharirSCC(csr);
+                double kosaraju = timer.elapsedTime();
+                timer = new Stopwatch();
+                new NonrecursiveTarjanSCC(csr);
+                double tarjan = timer.elapsedTime();
+                timer = new Stopwatch();
+                parallel = new ParallelSCC(csr, pool);
+                double time = timer.elapsedTime();
+                if (round > 0) {
+                    time1 = Math.min(time1, kosaraju);
+                    time2 = Math.min(time2, tarjan);
+                    time3 = Math.min(time3, time);
+                }
+            }
+            StdOut.printf("%-12s %7d components, Kosaraju %.3f s, Tarjan %.3f s, parallel %.3f s (%.2fx Tarjan), %s\n",
+                          names[g], parallel.count(), time1, time2, time3, time2 / time3,
+                          same(G, parallel) ? "same components" : "DIFFERENT");
+        }
+        pool.shutdown();
+    }
+
+    // does parallel have the components of KosarajuSharirSCC (when G is small
+    // enough for its recursion) or of NonrecursiveKosarajuSharirSCC ?
+    private static boolean same(Digraph G, ParallelSCC parallel) {
+        int[] reference = new int[G.V()];
+        int count;
+        if (G.V() <= 10000) {
+            KosarajuSharirSCC scc = new KosarajuSharirSCC(G);
+            for (int v = 0; v < G.V(); v++)
+                reference[v] = scc.id(v);
+            count = scc.count();
+        }
+        else {
+            NonrecursiveKosarajuSharirSCC scc = new NonrecursiveKosarajuSharirSCC(G);
+            for (int v = 0; v < G.V(); v++)
+                reference[v] = scc.id(v);
+            count = scc.count();
+        }
+        if (count != parallel.count())
+            return false;
+        // the ids must correspond one to one
+        int[] map = new int[count];
+        java.util.Arrays.fill(map, -1);
+        for (int v = 0; v < G.V(); v++) {
+            int c = parallel.id(v);
+            if (map[c] == -1) map[c] = reference[v];
+            else if (map[c] != reference[v]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,217 @@
+// Compute a topological order of a DAG in parallel with Kahn's algorithm,
+// layer by layer: the sources form layer 0, and a vertex is in layer k
+// when the last of its edges in comes from layer k - 1. The vertices of
+// one layer are independent, so they are processed in parallel, and
+// each edge is followed exactly once, by an atomic decrement of the
+// in-degree of its target.
+
+/**
+ *  The {@code ParallelTopological} class represents a data type for
+ *  determining a topological order of a directed acyclic graph (DAG) on a
+ *  ForkJoinPool, with the same {@code order()}, {@code hasOrder()} and
+ *  {@code rank()} as {@link TopologicalX}.
+ *  <p>
+ *  The vertices are put in one {@code int[]} array in order of layer; a
+ *  layer is the set of vertices whose longest path from a source has the
+ *  same number of edges. The in-degrees are counted in parallel, the
+ *  sources are found in parallel, and then every layer is the block of the
+ *  array the layer before it appended: each of its vertices decrements the
+ *  in-degree of its successors in an {@link AtomicIntegerArray}, and the
+ *  thread that brings one to zero appends it to the next block with an
+ *  atomic tail index. Layers with at most 256 vertices, the cutoff of
+ *  {@link IndexTask}, run in the calling thread, so a long path costs no
+ *  task per layer.
+ *  The order of the vertices within a layer depends on the threads; the
+ *  layers do not. If the digraph has a cycle, the vertices on or after it
+ *  never reach in-degree zero, and there is no order.
+ *  <p>
+ *  It takes time proportional to V + E, with about as many parallel
+ *  steps as there are layers.
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelTopological {
+
+    private final int[] order;      // the vertices, in order of layer
+    private final int[] ranks;      // ranks[v] = position of v in order
+    private final int[] layer;      // layer[v] = layer of v
+    private int[] start;            // layer k is order[start[k] .. start[k+1]-1]
+    private int layers;             // number of layers
+    private final int count;        // number of vertices in a layer: V if G is a DAG
+
+    // Determines whether the digraph G has a topological order, and if so
+    // finds one, on the common pool.
+    public ParallelTopological(AdjacencyDigraph G) {
+        this(CSRDigraph.freeze(G), ForkJoinPool.commonPool());
+    }
+
+    // Determines whether the frozen digraph G has a topological order, and
+    // if so finds one, on pool.
+    public ParallelTopological(final CSRDigraph G, ForkJoinPool pool) {
+        int V = G.V();
+        order = new int[V];
+        ranks = new int[V];
+        layer = new int[V];
+        start = new int[16];
+        final AtomicIntegerArray indegree = new AtomicIntegerArray(V);
+        final AtomicInteger tail = new AtomicInteger();
+
+        IndexTask.invoke(pool, new IndexTask(0, V) {
+            int apply(int v) {
+                for (int i = G.adjBegin(v); i < G.adjEnd(v); i++)
+                    indegree.incrementAndGet(G.target(i));
+                return 0;
+            }
+        });
+        IndexTask.invoke(pool, new IndexTask(0, V) {
+            int apply(int v) {
+                if (indegree.get(v) == 0)
+                    order[tail.getAndIncrement()] = v;
+                return 0;
+            }
+        });
+
+        int lo = 0;
+        while (lo < tail.get()) {
+            final int hi = tail.get();
+            final int k = layers;
+            if (layers + 1 == start.length)
+                start = java.util.Arrays.copyOf(start, 2 * start.length);
+            start[layers++] = lo;
+            IndexTask.invoke(pool, new IndexTask(lo, hi) {
+                int apply(int i) {
+                    int v = order[i];
+                    ranks[v] = i;
+                    layer[v] = k;
+                    for (int j = G.adjBegin(v); j < G.adjEnd(v); j++) {
+                        int w = G.target(j);
+                        if (indegree.decrementAndGet(w) == 0)
+                            order[tail.getAndIncrement()] = w;
+                    }
+                    return 0;
+                }
+            });
+            lo = hi;
+        }
+        start[layers] = lo;
+        count = lo;
+        assert !hasOrder() || check(G);
+    }
+
+    // Returns a topological order if the digraph has a topological order,
+    // and null otherwise.
+    public Iterable<Integer> order() {
+        if (!hasOrder())
+            return null;
+        Queue<Integer> queue = new Queue<Integer>();
+        for (int v : order)
+            queue.enqueue(v);
+        return queue;
+    }
+
+    // Does the digraph have a topological order ?
+    public boolean hasOrder() {
+        return count == order.length;
+    }
+
+    // The rank of vertex v in the topological order;
+    // -1 if the digraph is not a DAG.
+    public int rank(int v) {
+        validateVertex(v);
+        return hasOrder() ? ranks[v] : -1;
+    }
+
+    // Returns the number of layers, or -1 if the digraph is not a DAG.
+    public int layers() {
+        return hasOrder() ? layers : -1;
+    }
+
+    // Returns the layer of vertex v: the number of edges on a longest path
+    // from a source to v; -1 if the digraph is not a DAG.
+    public int layer(int v) {
+        validateVertex(v);
+        return hasOrder() ? layer[v] : -1;
+    }
+
+    // the vertices in order of layer, for ParallelCPM; not to be modified
+    int[] orderArray() {
+        return order;
+    }
+
+    // the first position in orderArray() of layer k, for 0 <= k <= layers()
+    int layerStart(int k) {
+        return start[k];
+    }
+
+    // is order a topological order, and are the layers the longest paths ?
+    private boolean check(CSRDigraph G) {
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                int w = G.target(i);
+                if (ranks[w] <= ranks[v] || layer[w] <= layer[v])
+                    return false;
+            }
+        }
+        CSRDigraph R = G.reverse();
+        for (int v = 0; v < G.V(); v++) {
+            int longest = -1;
+            for (int i = R.adjBegin(v); i < R.adjEnd(v); i++)
+                longest = Math.max(longest, layer[R.target(i)]);
+            if (layer[v] != longest + 1)
+                return false;
+        }
+        return true;
+    }
+
+    // throw new IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = order.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Unit tests the ParallelTopological data type on a random DAG with V
+    // vertices and E edges against TopologicalX, then on the DAG with a
+    // cycle of two edges.
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        int[] vertices = new int[V];
+        for (int v = 0; v < V; v++)
+            vertices[v] = v;
+        StdRandom.shuffle(vertices);
+        int[] from = new int[E + 1];
+        int[] to = new int[E + 1];
+        for (int e = 0; e < E; e++) {
+            int v = StdRandom.uniform(V - 1);
+            int w = v + 1 + StdRandom.uniform(Math.min(V - 1 - v, 1000));
+            from[e] = vertices[v];
+            to[e] = vertices[w];
+        }
+        CSRDigraph G = new CSRDigraph(V, java.util.Arrays.copyOf(from, E), java.util.Arrays.copyOf(to, E));
+        Digraph D = new Digraph(V);
+        for (int e = 0; e < E; e++)
+            D.addEdge(from[e], to[e]);
+
+        Stopwatch timer = new Stopwatch();
+        TopologicalX topological = new TopologicalX(D);
+        double time1 = timer.elapsedTime();
+        timer = new Stopwatch();
+        ParallelTopological parallel = new ParallelTopological(G, pool);
+        double time2 = timer.elapsedTime();
+        StdOut.printf("%d vertices, %d edges, %d layers: TopologicalX %.3f s, parallel %.3f s, %s\n",
+                      V, E, parallel.layers(), time1, time2,
+                      topological.hasOrder() && parallel.hasOrder() && parallel.check(G) ? "valid order" : "INVALID");
+
+        // two more edges close a cycle
+        from[E - 1] = to[E] = vertices[0];
+        to[E - 1] = from[E] = vertices[1];
+        CSRDigraph cyclic = new CSRDigraph(V, from, to);
+        StdOut.println("with a cycle: " + (new ParallelTopological(cyclic, pool).hasOrder() ? "ORDER" : "no order"));
+    }
+}
@@ -0,0 +1,463 @@
+// Point-to-point shortest paths. DijkstraSP settles every vertex even when
+// only one s->t distance is wanted; here Dijkstra's algorithm stops as
+// soon as t is settled, the bidirectional search meets in the middle, and
+// A* is steered towards t by a lower bound on the remaining distance.
+
+/**
+ *  The {@code PointToPointSP} class represents a data type for answering
+ *  many single-pair shortest path queries in one edge-weighted digraph (or
+ *  graph) with nonnegative weights. Three query methods are provided:
+ *  {@code dijkstra(s, t)} stops when t leaves the heap;
+ *  {@code bidirectional(s, t)} searches forward from s and backward from t
+ *  on the reverse digraph, always advancing the side with the smaller
+ *  heap, and stops when the two smallest keys add up to at least the best
+ *  s->t path seen so far; and {@code aStar(s, t, h)} runs Dijkstra's
+ *  algorithm on the keys distance + h.estimate(v, t).
+ *  <p>
+ *  A {@link Heuristic} must never overestimate the remaining distance;
+ *  the {@code euclidean()} heuristic uses coordinates of the vertices, for
+ *  edge weights no shorter than the straight-line distance, and
+ *  {@code landmarks()} uses the triangle inequality with exact distances
+ *  to and from a few landmark vertices (ALT). Both are also consistent,
+ *  so A* settles every vertex at most once.
+ *  <p>
+ *  All work arrays are allocated once, by the constructor: a vertex
+ *  counts as unreached unless its stamp equals the number of the current
+ *  query, so a query takes time proportional to the vertices and edges it
+ *  touches (times log V), not to V. An engine is therefore not thread-safe;
+ *  use one engine per thread.
+ *  After a query, {@code path()} returns the path it found and
+ *  {@code settled()} the number of vertices it took off the heap.
+ */
+import java.util.Arrays;
+
+public class PointToPointSP {
+
+    // A lower bound on the distance from v to t.
+    public interface Heuristic {
+        double estimate(int v, int t);
+    }
+
+    private final CSREdgeWeightedDigraph G;     // forward digraph
+    private final CSREdgeWeightedDigraph R;     // reverse digraph (G itself for a graph)
+    private final int V;
+
+    // forward search
+    private final double[] distF;
+    private final int[] edgeF;          // position in G of the last edge on the path to v
+    private final int[] stampF;
+    private final DoubleIndexMinPQ pqF;
+
+    // backward search
+    private final double[] distB;
+    private final int[] edgeB;          // position in R of the first edge on the path from v
+    private final int[] stampB;
+    private final DoubleIndexMinPQ pqB;
+
+    private final double[] h;           // h[v] = estimate for v in this A* query
+    private int query;                  // number of the current query
+
+    private int source, sink, meet;     // last query and the vertex where its path is split
+    private double dist;                // distance found by the last query
+    private int settled;                // vertices settled by the last query
+
+    // Prepares for queries on the edge-weighted digraph G.
+    public PointToPointSP(EdgeWeightedDigraph G) {
+        this(new CSREdgeWeightedDigraph(G));
+    }
+
+    // Prepares for queries on the frozen digraph G.
+    public PointToPointSP(CSREdgeWeightedDigraph G) {
+        this(G, reverse(G));
+    }
+
+    // Prepares for queries on the edge-weighted graph G, in which every
+    // edge v-w can be used as v->w and as w->v.
+    public PointToPointSP(EdgeWeightedGraph G) {
+        this(symmetric(G), null);
+    }
+
+    private PointToPointSP(CSREdgeWeightedDigraph G, CSREdgeWeightedDigraph R) {
+        for (int i = 0; i < G.E(); i++) {
+            if (G.weight(i) < 0)
+                throw new IllegalArgumentException("edge " + G.edge(i) + " has negative weight");
+        }
+        this.G = G;
+        this.R = R == null ? G : R;
+        this.V = G.V();
+        distF = new double[V];
+        edgeF = new int[V];
+        stampF = new int[V];
+        pqF = new DoubleIndexMinPQ(V);
+        distB = new double[V];
+        edgeB = new int[V];
+        stampB = new int[V];
+        pqB = new DoubleIndexMinPQ(V);
+        h = new double[V];
+        source = -1;
+    }
+
+    // the reverse of G, with the same weights
+    private static CSREdgeWeightedDigraph reverse(CSREdgeWeightedDigraph G) {
+        int[] from = new int[G.E()];
+        int[] head = new int[G.E()];
+        double[] w = new double[G.E()];
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                from[i] = G.to(i);
+                head[i] = v;
+                w[i] = G.weight(i);
+            }
+        }
+        return new CSREdgeWeightedDigraph(G.V(), from, head, w);
+    }
+
+    // the digraph with both directions of every edge of G
+    private static CSREdgeWeightedDigraph symmetric(EdgeWeightedGraph G) {
+        int[] from = new int[2 * G.E()];
+        int[] head = new int[2 * G.E()];
+        double[] w = new double[2 * G.E()];
+        int i = 0;
+        for (Edge e : G.edges()) {
+            int v = e.either(), x = e.other(v);
+            from[i] = v;  head[i] = x;  w[i++] = e.weight();
+            from[i] = x;  head[i] = v;  w[i++] = e.weight();
+        }
+        return new CSREdgeWeightedDigraph(G.V(), from, head, w);
+    }
+
+    // starts a new query: every vertex becomes unreached
+    private void begin(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        query++;
+        if (query == 0) {   // stamps wrapped around
+            Arrays.fill(stampF, 0);
+            Arrays.fill(stampB, 0);
+            query = 1;
+        }
+        source = s;
+        sink = t;
+        meet = -1;
+        dist = Double.POSITIVE_INFINITY;
+        settled = 0;
+    }
+
+    private double forward(int v) {
+        return stampF[v] == query ? distF[v] : Double.POSITIVE_INFINITY;
+    }
+
+    private double backward(int v) {
+        return stampB[v] == query ? distB[v] : Double.POSITIVE_INFINITY;
+    }
+
+    // Returns the length of a shortest path from s to t (infinity if
+    // there is none), with Dijkstra's algorithm stopped when t is settled.
+    public double dijkstra(int s, int t) {
+        return aStar(s, t, null);
+    }
+
+    // Returns the length of a shortest path from s to t (infinity if
+    // there is none), with A* search guided by the heuristic h,
+    // or with plain Dijkstra's algorithm if h is null.
+    public double aStar(int s, int t, Heuristic heuristic) {
+        begin(s, t);
+        reachF(s, 0.0, -1);
+        h[s] = heuristic == null ? 0.0 : heuristic.estimate(s, t);
+        pqF.insert(s, h[s]);
+        while (!pqF.isEmpty()) {
+            int v = pqF.delMin();
+            settled++;
+            if (v == t) {
+                dist = distF[t];
+                meet = t;
+                break;
+            }
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                int w = G.to(i);
+                double d = distF[v] + G.weight(i);
+                if (d < forward(w)) {
+                    if (stampF[w] != query)
+                        h[w] = heuristic == null ? 0.0 : heuristic.estimate(w, t);
+                    reachF(w, d, i);
+                    if (h[w] == Double.POSITIVE_INFINITY)
+                        continue;   // t cannot be reached from w
+                    // a settled vertex is put back only if the heuristic is inconsistent
+                    if (!pqF.contains(w))                 pqF.insert(w, d + h[w]);
+                    else if (d + h[w] < pqF.keyOf(w))     pqF.decreaseKey(w, d + h[w]);
+                }
+            }
+        }
+        pqF.clear();
+        return dist;
+    }
+
+    // Returns the length of a shortest path from s to t (infinity if
+    // there is none), with bidirectional Dijkstra's algorithm.
+    public double bidirectional(int s, int t) {
+        begin(s, t);
+        reachF(s, 0.0, -1);
+        pqF.insert(s, 0.0);
+        stampB[t] = query;
+        distB[t] = 0.0;
+        edgeB[t] = -1;
+        pqB.insert(t, 0.0);
+        if (s == t) {
+            dist = 0.0;
+            meet = s;
+        }
+        while (!pqF.isEmpty() && !pqB.isEmpty()) {
+            if (pqF.minKey() + pqB.minKey() >= dist)
+                break;
+            settled++;
+            if (pqF.size() <= pqB.size()) {
+                int v = pqF.delMin();
+                for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                    int w = G.to(i);
+                    double d = distF[v] + G.weight(i);
+                    if (d < forward(w)) {
+                        reachF(w, d, i);
+                        if (pqF.contains(w)) pqF.decreaseKey(w, d);
+                        else                 pqF.insert(w, d);
+                        if (d + backward(w) < dist) {
+                            dist = d + backward(w);
+                            meet = w;
+                        }
+                    }
+                }
+            }
+            else {
+                int v = pqB.delMin();
+                for (int i = R.adjBegin(v); i < R.adjEnd(v); i++) {
+                    int w = R.to(i);
+                    double d = distB[v] + R.weight(i);
+                    if (d < backward(w)) {
+                        stampB[w] = query;
+                        distB[w] = d;
+                        edgeB[w] = i;
+                        if (pqB.contains(w)) pqB.decreaseKey(w, d);
+                        else                 pqB.insert(w, d);
+                        if (d + forward(w) < dist) {
+                            dist = d + forward(w);
+                            meet = w;
+                        }
+                    }
+                }
+            }
+        }
+        pqF.clear();
+        pqB.clear();
+        return dist;
+    }
+
+    // records a forward path to w of length d ending with the edge at position i
+    private void reachF(int w, double d, int i) {
+        stampF[w] = query;
+        distF[w] = d;
+        edgeF[w] = i;
+    }
+
+    // Returns the length of the path found by the last query.
+    public double dist() {
+        if (source == -1)
+            throw new IllegalStateException("no query yet");
+        return dist;
+    }
+
+    // Returns the path found by the last query, or null if there is none.
+    public Iterable<DirectedEdge> path() {
+        if (source == -1)
+            throw new IllegalStateException("no query yet");
+        if (meet == -1)
+            return null;
+        Queue<DirectedEdge> path = new Queue<DirectedEdge>();
+        Stack<DirectedEdge> first = new Stack<DirectedEdge>();
+        for (int i = edgeF[meet]; i != -1; i = edgeF[G.from(i)])
+            first.push(G.edge(i));
+        for (DirectedEdge e : first)
+            path.enqueue(e);
+        // the backward search went from t to meet on the reverse digraph:
+        // the edge at position i of R, from x to v, is the edge v->x of G
+        if (stampB[meet] == query) {
+            for (int v = meet; edgeB[v] != -1; ) {
+                int i = edgeB[v];
+                int x = R.from(i);
+                path.enqueue(new DirectedEdge(v, x, R.weight(i)));
+                v = x;
+            }
+        }
+        return path;
+    }
+
+    // Returns the number of vertices settled by the last query.
+    public int settled() {
+        return settled;
+    }
+
+    // Returns a heuristic that is the straight-line distance between the
+    // points of v and t; it is a lower bound if no edge is shorter than
+    // the straight line between its endpoints.
+    public static Heuristic euclidean(final Point2D[] points) {
+        return new Heuristic() {
+            public double estimate(int v, int t) {
+                return points[v].distanceTo(points[t]);
+            }
+        };
+    }
+
+    // Returns an ALT heuristic with k landmarks, chosen one at a time as
+    // the vertex farthest from the landmarks chosen so far. It takes 2k
+    // runs of Dijkstra's algorithm and 16kV bytes.
+    public Heuristic landmarks(int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("number of landmarks must be positive");
+        k = Math.min(k, V);
+        final double[][] from = new double[k][];    // from[j][v] = distance from landmark j to v
+        final double[][] to = new double[k][];      // to[j][v] = distance from v to landmark j
+        double[] nearest = new double[V];           // distance from the nearest landmark
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int landmark = V == 0 ? 0 : StdRandom.uniform(V);
+        for (int j = 0; j < k; j++) {
+            from[j] = distances(G, landmark);
+            to[j] = distances(R, landmark);
+            int next = landmark;
+            double far = -1.0;
+            for (int v = 0; v < V; v++) {
+                nearest[v] = Math.min(nearest[v], from[j][v]);
+                // prefer reachable vertices, then the farthest one
+                double key = nearest[v] == Double.POSITIVE_INFINITY ? 0.0 : nearest[v];
+                if (key > far) {
+                    far = key;
+                    next = v;
+                }
+            }
+            landmark = next;
+        }
+        return new Heuristic() {
+            public double estimate(int v, int t) {
+                double best = 0.0;
+                for (int j = 0; j < from.length; j++) {
+                    // d(v, t) >= d(L, t) - d(L, v) and d(v, t) >= d(v, L) - d(t, L)
+                    if (from[j][v] < Double.POSITIVE_INFINITY)
+                        best = Math.max(best, from[j][t] - from[j][v]);
+                    if (to[j][t] < Double.POSITIVE_INFINITY)
+                        best = Math.max(best, to[j][v] - to[j][t]);
+                }
+                return best;
+            }
+        };
+    }
+
+    // distances from s in the digraph D, with the forward work arrays
+    private double[] distances(CSREdgeWeightedDigraph D, int s) {
+        double[] dist = new double[V];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[s] = 0.0;
+        pqF.insert(s, 0.0);
+        while (!pqF.isEmpty()) {
+            int v = pqF.delMin();
+            for (int i = D.adjBegin(v); i < D.adjEnd(v); i++) {
+                int w = D.to(i);
+                double d = dist[v] + D.weight(i);
+                if (d < dist[w]) {
+                    dist[w] = d;
+                    if (pqF.contains(w)) pqF.decreaseKey(w, d);
+                    else                 pqF.insert(w, d);
+                }
+            }
+        }
+        return dist;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Unit tests the PointToPointSP data type against DijkstraSP on random
+    // queries in a digraph read from a file, then against
+    // DijkstraUndirectedSP on a random geometric graph with Euclidean A*.
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(in);
+        int queries = Integer.parseInt(args[1]);
+        PointToPointSP sp = new PointToPointSP(G);
+        Heuristic alt = sp.landmarks(8);
+
+        int differ = 0;
+        long settled1 = 0, settled2 = 0, settled3 = 0, settled4 = 0;
+        for (int q = 0; q < queries; q++) {
+            int s = StdRandom.uniform(G.V());
+            int t = StdRandom.uniform(G.V());
+            DijkstraSP full = new DijkstraSP(G, s);
+            settled1 += G.V();
+            double[] d = { sp.dijkstra(s, t), 0, 0 };
+            settled2 += sp.settled();
+            d[1] = sp.bidirectional(s, t);
+            settled3 += sp.settled();
+            differ += checkPath(sp, s, t, d[1]);
+            d[2] = sp.aStar(s, t, alt);
+            settled4 += sp.settled();
+            differ += checkPath(sp, s, t, d[2]);
+            for (double x : d) {
+                if (Math.abs(x - full.distTo(t)) > 1E-9 && x != full.distTo(t))
+                    differ++;
+            }
+        }
+        StdOut.printf("digraph: vertices settled per query: DijkstraSP %d, early exit %d, bidirectional %d, ALT %d\n",
+                      settled1 / queries, settled2 / queries, settled3 / queries, settled4 / queries);
+
+        // random geometric graph: points in the unit square, each joined to
+        // a few random nearby points by an edge at least as long as the line
+        int V = Math.max(2, G.V());
+        Point2D[] points = new Point2D[V];
+        for (int v = 0; v < V; v++)
+            points[v] = new Point2D(StdRandom.uniform(), StdRandom.uniform());
+        EdgeWeightedGraph H = new EdgeWeightedGraph(V);
+        double radius = Math.sqrt(8.0 / V);
+        for (int v = 0; v < V; v++) {
+            for (int k = 0; k < 4; k++) {
+                int w = StdRandom.uniform(V);
+                double length = points[v].distanceTo(points[w]);
+                if (length < radius)
+                    H.addEdge(new Edge(v, w, length * (1.0 + StdRandom.uniform())));
+            }
+            if (v > 0)
+                H.addEdge(new Edge(v - 1, v, points[v - 1].distanceTo(points[v]) * 2.0));
+        }
+        PointToPointSP geo = new PointToPointSP(H);
+        Heuristic euclid = euclidean(points);
+        settled1 = 0;
+        settled2 = 0;
+        for (int q = 0; q < queries; q++) {
+            int s = StdRandom.uniform(V);
+            int t = StdRandom.uniform(V);
+            DijkstraUndirectedSP full = new DijkstraUndirectedSP(H, s);
+            double d = geo.aStar(s, t, euclid);
+            settled1 += geo.settled();
+            differ += checkPath(geo, s, t, d);
+            double b = geo.bidirectional(s, t);
+            settled2 += geo.settled();
+            if (Math.abs(d - full.distTo(t)) > 1E-9 || Math.abs(b - full.distTo(t)) > 1E-9)
+                differ++;
+        }
+        StdOut.printf("graph: vertices settled per query: Euclidean A* %d, bidirectional %d\n",
+                      settled1 / queries, settled2 / queries);
+        StdOut.println(differ + " answers differ");
+    }
+
+    // 0 if the last path goes from s to t and has length d, 1 otherwise
+    private static int checkPath(PointToPointSP sp, int s, int t, double d) {
+        if (d == Double.POSITIVE_INFINITY)
+            return sp.path() == null ? 0 : 1;
+        double length = 0.0;
+        int at = s;
+        for (DirectedEdge e : sp.path()) {
+            if (e.from() != at) return 1;
+            length += e.weight();
+            at = e.to();
+        }
+        return at == t && Math.abs(length - d) < 1E-9 ? 0 : 1;
+    }
+}
@@ -8,7 +8,10 @@
  *  weight of a minimum spanning tree and the {@code edges()} method
  *  returns its edges.
  *  This implementation uses Prim's algorithm with an indexed
- *  binary heap.
+ *  binary heap, or with a 4-ary or pairing heap chosen by its
+ *  {@link DoubleIndexHeap.Kind}. A radix heap cannot be used: the keys
+ *  are edge weights, which need not be integers, and the minimum does
+ *  not grow monotonically as it does in Dijkstra's algorithm.
  *  The constructor takes time proportional to E log V
  *  and extra space (not including the graph) proportional to V,
  *  where V is the number of vertices and E is the number of edges.
@@ -21,14 +24,22 @@ public class PrimMST {
     private Edge[] edgeTo;  // edgeTo[v] = shortest edge from tree vertex to non-tree vertex.
     private double[] distTo;    // distTo[v] = weight of shortest such edge.
     private boolean[] marked;   // marked[v] = true if v on tree, false otherwise.
-    private IndexMinPQ<Double> pq;
+    private DoubleIndexHeap pq;
 
     // Compute a minimum spanning tree (or forest) of an edge-weighted graph.
     public PrimMST(EdgeWeightedGraph G) {
+        this(G, DoubleIndexHeap.Kind.BINARY);
+    }
+
+    // Compute a minimum spanning tree (or forest) of an edge-weighted graph,
+    // with a heap of the given kind.
+    public PrimMST(EdgeWeightedGraph G, DoubleIndexHeap.Kind heap) {
+        if (heap == DoubleIndexHeap.Kind.RADIX)
+            throw new IllegalArgumentException("Prim's algorithm does not remove keys in increasing order");
         edgeTo = new Edge[G.V()];
         distTo = new double[G.V()];
         marked = new boolean[G.V()];
-        pq = new IndexMinPQ<Double>(G.V());
+        pq = heap.create(G.V());
         for (int v = 0; v < G.V(); v++) {
             distTo[v] = Double.POSITIVE_INFINITY;
         }
@@ -148,7 +159,8 @@ public class PrimMST {
     public static void main(String[] args) {
         In in = new In(args[0]);
         EdgeWeightedGraph G = new EdgeWeightedGraph(in);
-        PrimMST mst = new PrimMST(G);
+        DoubleIndexHeap.Kind heap = args.length > 1 ? DoubleIndexHeap.Kind.valueOf(args[1]) : DoubleIndexHeap.Kind.BINARY;
+        PrimMST mst = new PrimMST(G, heap);
         for (Edge e : mst.edges()) {
             StdOut.println(e);
         }
@@ -11,37 +11,50 @@
 // The other is the query with the same range that has r as its right boundary. 
 // The overall result can be obtained in constant time because these two queries can be 
 // answered in constant time and the only thing left to do is to choose the smaller of the two results.
+// The table is kept as one int[] per power of two, min[j][i] = B[i, j], so
+// it is about n log n ints in log n arrays instead of n small arrays.
 public class RMQST {
 
-    int min[][];    // Each element min[i][j] holds the index of the minimum of the range A[i...i + 2 ^ j - 1].
+    int min[][];    // Each element min[j][i] holds the index of the minimum of the range A[i...i + 2 ^ j - 1].
 
     public RMQST(int A[], int n) {
-        int k = (int)(Math.log(n) / Math.log(2) + 2);
-        min = new int[n][k];
-        // initialize min[][] for the intervals with length 1
+        int levels = n == 0 ? 1 : 32 - Integer.numberOfLeadingZeros(n);
+        min = new int[levels][];
+        // initialize min[0][] for the intervals with length 1
+        min[0] = new int[n];
         for (int i = 0; i < n; i++) {
-            min[i][0] = i;
+            min[0][i] = i;
         }
         // compute values from smaller to big intervals
-        for (int j = 1; 1 << j <= n; j++) {
-            for (int i = 0; i + (1 << j) - 1 < n; i++) {
-                if (A[min[i][j - 1]] < A[min[i + (1 << (j - 1))][j - 1]]) {
-                    min[i][j] = min[i][j - 1];
+        for (int j = 1; j < levels; j++) {
+            int[] below = min[j - 1];
+            int[] level = new int[n - (1 << j) + 1];
+            int half = 1 << (j - 1);
+            for (int i = 0; i < level.length; i++) {
+                if (A[below[i]] <= A[below[i + half]]) {
+                    level[i] = below[i];
                 }
                 else {
-                    min[i][j] = min[i + (1 << (j - 1))][j - 1];
+                    level[i] = below[i + half];
                 }
             }
+            min[j] = level;
         }
     }
 
+    // Returns the index of a minimum of A[i..j], the leftmost one if there
+    // are several, in constant time.
     public int query(int i, int j, int A[]) {
-        int k = (int)(Math.log(j - i + 1));
-        if (A[min[i][k]] <= A[min[j - (int)(Math.pow(2, k)) + 1][k]]) {
-            return min[i][k];
+        if (i > j || i < 0 || j >= min[0].length)
+            throw new IllegalArgumentException("invalid range [" + i + ", " + j + "]");
+        int k = 31 - Integer.numberOfLeadingZeros(j - i + 1);
+        int left = min[k][i];
+        int right = min[k][j - (1 << k) + 1];
+        if (A[left] <= A[right]) {
+            return left;
         }
         else {
-            return min[j - (int)(Math.pow(2, k)) + 1][k];
+            return right;
         }
     }
 
@@ -49,5 +62,23 @@ public class RMQST {
         int A[] = {1, 2, 3, 4, 5, 6, 7};
         RMQST rmq = new RMQST(A, A.length);
         System.out.println(rmq.query(1, 2, A));
+
+        // every range of a random array, against a linear scan
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int[] B = new int[n];
+        for (int i = 0; i < n; i++)
+            B[i] = StdRandom.uniform(n / 4 + 1);
+        rmq = new RMQST(B, n);
+        int differ = 0;
+        for (int i = 0; i < n; i++) {
+            int m = i;
+            for (int j = i; j < n; j++) {
+                if (B[j] < B[m])
+                    m = j;
+                if (rmq.query(i, j, B) != m)
+                    differ++;
+            }
+        }
+        System.out.println(differ + " of " + (long) n * (n + 1) / 2 + " ranges differ");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,200 @@
+import java.util.NoSuchElementException;
+// The RadixIndexMinPQ class represents an indexed priority queue of
+// nonnegative integer keys in a radix heap (Ahuja, Mehlhorn, Orlin and
+// Tarjan). It is monotone: a key may not be smaller than the last minimum
+// that was removed, which holds in Dijkstra's algorithm with integer
+// weights. Bucket 0 holds the keys equal to that minimum, and bucket b > 0
+// the keys whose highest bit that differs from it is bit b - 1. When
+// bucket 0 is empty, the first bucket that is not is emptied: its minimum
+// becomes the new last minimum and its keys move to lower buckets, so each
+// key moves at most 64 times in all. Every operation but delMin() takes
+// constant time, and the buckets are linked lists in int arrays.
+// The keys are doubles, like those of the other DoubleIndexHeap
+// implementations, but must be integers below 2^53 (which doubles hold exactly).
+public class RadixIndexMinPQ implements DoubleIndexHeap {
+    private static final int NONE = -1;
+    private static final int BUCKETS = 65;
+    private static final double MAX_KEY = 9007199254740992.0;   // 2^53
+
+    private int maxN;       // maximum number of elements on PQ.
+    private int n;          // number of elements on PQ.
+    private long last;      // the last minimum removed (or moved to bucket 0)
+    private int[] head;     // head[b] = first index in bucket b, or NONE
+    private int[] next;     // next[i] = index after i in its bucket, or NONE
+    private int[] prev;     // prev[i] = index before i in its bucket, or NONE
+    private int[] bucket;   // bucket[i] = bucket of i, or NONE if i is not on the PQ
+    private long[] keys;    // keys[i] = priority of i
+
+    // Initializes an empty indexed priority queue with indices between 0
+    // and maxN - 1.
+    public RadixIndexMinPQ(int maxN) {
+        if (maxN < 0)
+            throw new IllegalArgumentException();
+        this.maxN = maxN;
+        n = 0;
+        head = new int[BUCKETS];
+        next = new int[maxN];
+        prev = new int[maxN];
+        bucket = new int[maxN];
+        keys = new long[maxN];
+        for (int b = 0; b < BUCKETS; b++)
+            head[b] = NONE;
+        for (int i = 0; i < maxN; i++)
+            bucket[i] = NONE;
+    }
+
+    // Returns true if this priority queue is empty.
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    // Is i an index on this priority queue?
+    public boolean contains(int i) {
+        if (i < 0 || i >= maxN)
+            throw new IndexOutOfBoundsException();
+        return bucket[i] != NONE;
+    }
+
+    // Returns the number of keys on this priority queue.
+    public int size() {
+        return n;
+    }
+
+    // Associates key with index i
+    public void insert(int i, double key) {
+        if (contains(i))
+            throw new IllegalArgumentException("index is already in the priority queue.");
+        keys[i] = validateKey(key);
+        add(i);
+        n++;
+    }
+
+    // Returns an index associated with a minimum key.
+    public int minIndex() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        redistribute();
+        return head[0];
+    }
+
+    // Returns a minimum key.
+    public double minKey() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        redistribute();
+        return last;
+    }
+
+    // Removes a minimum key and returns its associated index.
+    public int delMin() {
+        if (n == 0)
+            throw new NoSuchElementException("Priority queue underflow");
+        redistribute();
+        int min = head[0];
+        remove(min);
+        n--;
+        return min;
+    }
+
+    // Returns the key associated with index i
+    public double keyOf(int i) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue.");
+        return keys[i];
+    }
+
+    // Decrease the key associated with index i to the specified value.
+    public void decreaseKey(int i, double key) {
+        if (!contains(i))
+            throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] <= key)
+            throw new IllegalArgumentException("Calling decreaseKey() with given "
+                + "argument would not strictly decrease the key");
+        long k = validateKey(key);
+        remove(i);
+        keys[i] = k;
+        add(i);
+    }
+
+    // Removes every index, in time proportional to their number.
+    public void clear() {
+        for (int b = 0; b < BUCKETS; b++) {
+            for (int i = head[b]; i != NONE; i = next[i])
+                bucket[i] = NONE;
+            head[b] = NONE;
+        }
+        n = 0;
+        last = 0;
+    }
+
+    // makes bucket 0 nonempty, if the priority queue is not empty
+    private void redistribute() {
+        if (head[0] != NONE)
+            return;
+        int b = 1;
+        while (head[b] == NONE)
+            b++;
+        long min = Long.MAX_VALUE;
+        for (int i = head[b]; i != NONE; i = next[i])
+            min = Math.min(min, keys[i]);
+        last = min;
+        int i = head[b];
+        head[b] = NONE;
+        while (i != NONE) {
+            int j = next[i];
+            add(i);
+            i = j;
+        }
+    }
+
+    // the bucket of a key: 1 + the highest bit in which it differs from last
+    private int bucketOf(long key) {
+        return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    // puts i at the front of the bucket of its key
+    private void add(int i) {
+        int b = bucketOf(keys[i]);
+        bucket[i] = b;
+        prev[i] = NONE;
+        next[i] = head[b];
+        if (head[b] != NONE)
+            prev[head[b]] = i;
+        head[b] = i;
+    }
+
+    // takes i out of its bucket
+    private void remove(int i) {
+        if (prev[i] == NONE) head[bucket[i]] = next[i];
+        else                 next[prev[i]] = next[i];
+        if (next[i] != NONE)
+            prev[next[i]] = prev[i];
+        bucket[i] = NONE;
+    }
+
+    // throw an IllegalArgumentException unless key is an integer between
+    // the last minimum and 2^53
+    private long validateKey(double key) {
+        if (key != Math.rint(key) || key >= MAX_KEY)
+            throw new IllegalArgumentException("key " + key + " is not an integer below 2^53");
+        if (key < last)
+            throw new IllegalArgumentException("key " + key + " is smaller than the last minimum " + last);
+        return (long) key;
+    }
+
+    public static void main(String[] args) {
+        double[] keys = { 5, 3, 7, 1, 10, 4 };
+        RadixIndexMinPQ pq = new RadixIndexMinPQ(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            pq.insert(i, keys[i]);
+        }
+        pq.decreaseKey(4, 2);
+
+        // delete and print each key
+        while (!pq.isEmpty()) {
+            double key = pq.minKey();
+            int i = pq.delMin();
+            StdOut.println(i + " " + key);
+        }
+    }
+}
@@ -0,0 +1,551 @@
+// Queue-based Bellman-Ford (the "shortest path faster algorithm") with
+// Tarjan's subtree disassembly. The shortest-paths tree is kept as a
+// preorder list of its vertices with their depths, so the subtree of a
+// vertex is the run of vertices after it that are deeper than it. When an
+// edge v->w improves w, the subtree of w is taken out of the tree, since
+// every distance in it is about to improve: if v is in it, the edge closes
+// a negative cycle, found at once; otherwise the vertices of the subtree
+// are not scanned with their old distances, which saves most of the
+// scans of the plain algorithm.
+
+/**
+ *  The {@code SPFA} class represents a data type for solving the
+ *  single-source shortest paths problem in edge-weighted digraphs, with
+ *  the same operations as {@link BellmanFordSP}: it finds either a
+ *  shortest path from the source vertex s to every other vertex, or a
+ *  negative cycle reachable from s.
+ *  <p>
+ *  Unlike {@code BellmanFordSP}, which looks for a cycle in the whole
+ *  predecessor graph after every V relaxations, it finds a negative cycle
+ *  with the relaxation that closes it, in time proportional to the
+ *  subtree the relaxation takes apart, which every relaxation pays for
+ *  anyway: a vertex leaves the tree at most once per time it enters it.
+ *  The weights can also be changed after the paths are found, by
+ *  {@code setWeight()}, which updates the paths instead of starting over:
+ *  a weight that goes down is one more relaxation, and a weight of a tree
+ *  edge that goes up takes the subtree below the edge out of the tree and
+ *  relaxes the edges into it. This is what makes it fit for a stream of
+ *  updates, such as the exchange rates of {@link Arbitrage}.
+ *  <p>
+ *  It works on a {@link CSREdgeWeightedDigraph} and a copy of its weights,
+ *  with primitive arrays only; the queue is an {@code int[]} ring, since
+ *  each vertex is on it at most once.
+ *  The constructor takes time proportional to V E in the worst case and
+ *  much less in practice. After a negative cycle is found, the next
+ *  change of weight starts from the tree as it was when the cycle closed,
+ *  with the vertices out of it at infinite distance, and the edges into
+ *  them relaxed again.
+ */
+public class SPFA {
+
+    private final CSREdgeWeightedDigraph G;     // the structure of the digraph
+    private final int s;                        // the source
+    private final double[] weight;  // weight[i] = current weight of the edge at position i
+    private final double[] distTo;  // distTo[v] = distance of shortest s->v path
+    private final int[] edgeTo;     // edgeTo[v] = position of the last edge on it, or -1
+    private final int[] parent;     // parent[v] = vertex before v on it, or -1
+    private final int[] depth;      // depth[v] = depth of v in the tree, or -1 if not in it
+    private final int[] next, prev; // the tree in preorder, as a doubly-linked list (or -1)
+    private final boolean[] onQueue;
+    private final int[] ring;       // queue of vertices to scan, as a circular buffer
+    private int ringFirst;          // position of the first vertex in ring
+    private int ringSize;           // number of vertices in ring
+    private int[] inBegin, inEdge;  // edges into v are inEdge[inBegin[v] .. inBegin[v+1]-1]
+    private int[] tail;             // tail[i] = tail vertex of the edge at position i
+    private int[] removed;          // vertices taken out by an increase of weight
+    private Stack<DirectedEdge> cycle;  // negative cycle (or null if no such cycle)
+    private int cycleTail;          // the vertex whose edge closed the cycle
+    private long relaxations;       // number of edges that improved a distance
+
+    // Computes a shortest paths tree from s to every other vertex in the
+    // frozen edge-weighted digraph G.
+    public SPFA(CSREdgeWeightedDigraph G, int s) {
+        this.G = G;
+        int V = G.V();
+        this.s = s;
+        weight = new double[G.E()];
+        for (int i = 0; i < weight.length; i++)
+            weight[i] = G.weight(i);
+        distTo = new double[V];
+        edgeTo = new int[V];
+        parent = new int[V];
+        depth = new int[V];
+        next = new int[V];
+        prev = new int[V];
+        onQueue = new boolean[V];
+        ring = new int[V];
+        validateVertex(s);
+        solve();
+    }
+
+    // computes the tree from scratch
+    private void solve() {
+        java.util.Arrays.fill(distTo, Double.POSITIVE_INFINITY);
+        java.util.Arrays.fill(edgeTo, -1);
+        java.util.Arrays.fill(parent, -1);
+        java.util.Arrays.fill(depth, -1);
+        java.util.Arrays.fill(onQueue, false);
+        ringFirst = 0;
+        ringSize = 0;
+        cycle = null;
+        distTo[s] = 0.0;
+        depth[s] = 0;
+        next[s] = -1;
+        prev[s] = -1;
+        enqueue(s);
+        run();
+    }
+
+    // scans the vertices on the queue until it is empty or a cycle is found
+    private void run() {
+        while (ringSize > 0 && cycle == null) {
+            int v = ring[ringFirst];
+            ringFirst = ringFirst + 1 == ring.length ? 0 : ringFirst + 1;
+            ringSize--;
+            onQueue[v] = false;
+            if (depth[v] < 0)
+                continue;       // taken out of the tree since it was queued
+            for (int i = G.adjBegin(v), end = G.adjEnd(v); i < end; i++) {
+                int w = G.to(i);
+                double d = distTo[v] + weight[i];
+                if (d < distTo[w] && !relax(v, w, i, d))
+                    return;
+            }
+        }
+    }
+
+    private void enqueue(int v) {
+        int k = ringFirst + ringSize;
+        ring[k >= ring.length ? k - ring.length : k] = v;
+        ringSize++;
+        onQueue[v] = true;
+    }
+
+    // makes the edge v->w at position i, with distTo[v] + weight d, the
+    // last edge of the path to w; returns false if it closes a negative cycle
+    private boolean relax(int v, int w, int i, double d) {
+        relaxations++;
+        if (depth[w] >= 0) {
+            if (v == w) {
+                foundCycle(v, w, i);
+                return false;
+            }
+            // the subtree of w, which closes a cycle if it has v in it
+            int x = next[w];
+            while (x != -1 && depth[x] > depth[w]) {
+                if (x == v) {
+                    foundCycle(v, w, i);
+                    return false;
+                }
+                x = next[x];
+            }
+            // take it out of the tree, and w out of the list
+            for (int y = next[w]; y != x; y = next[y])
+                depth[y] = -1;
+            unlink(w, x);
+        }
+        distTo[w] = d;
+        edgeTo[w] = i;
+        parent[w] = v;
+        depth[w] = depth[v] + 1;
+
+        // w is the first child of v
+        int after = next[v];
+        next[w] = after;
+        if (after != -1) prev[after] = w;
+        next[v] = w;
+        prev[w] = v;
+        if (!onQueue[w])
+            enqueue(w);
+        return true;
+    }
+
+    // removes the vertices from w up to, not including, x from the list
+    private void unlink(int w, int x) {
+        int before = prev[w];
+        next[before] = x;
+        if (x != -1) prev[x] = before;
+    }
+
+    // the cycle made of the edge v->w at position i and the tree path from w to v
+    private void foundCycle(int v, int w, int i) {
+        cycleTail = v;
+        cycle = new Stack<DirectedEdge>();
+        cycle.push(new DirectedEdge(v, w, weight[i]));
+        for (int x = v; x != w; x = parent[x])
+            cycle.push(new DirectedEdge(parent[x], x, weight[edgeTo[x]]));
+    }
+
+    // Sets the weight of the edge at position i of the digraph and updates
+    // the shortest paths. Returns true if there is a negative cycle
+    // reachable from s afterwards.
+    public boolean setWeight(int i, double w) {
+        validateEdge(i);
+        if (Double.isNaN(w))
+            throw new IllegalArgumentException("Weight is NaN");
+        if (inBegin == null)
+            reverse();
+        double old = weight[i];
+        weight[i] = w;
+        int v = tail[i];
+        int x = G.to(i);
+        int n = 0;
+        if (w > old && edgeTo[x] == i && depth[x] >= 0)
+            n = cut(x);
+        if (cycle != null)
+            n = resume();
+        if (w < old && depth[v] >= 0 && distTo[v] + w < distTo[x] && !relax(v, x, i, distTo[v] + w))
+            return true;
+        if (relaxInto(n))
+            run();
+        return hasNegativeCycle();
+    }
+
+    // the path to x is now longer: takes x and its subtree out of the tree
+    // and puts them in removed[]; returns their number
+    private int cut(int x) {
+        int n = 0;
+        int y = x;
+        do {
+            removed[n++] = y;
+            y = next[y];
+        } while (y != -1 && depth[y] > depth[x]);
+        unlink(x, y);
+        for (int k = 0; k < n; k++)
+            reset(removed[k]);
+        return n;
+    }
+
+    // after a negative cycle: the tree is what it was when the cycle closed,
+    // but a vertex out of it may be waiting for a relaxation that the cycle
+    // stopped, whether it still has its old distance, was reset to infinity
+    // by cut(), or was left in removed[] by the relaxInto() that closed the
+    // cycle. So every vertex out of the tree is reset and put in removed[],
+    // including those cut() just put there, and the vertex whose edge
+    // closed the cycle is scanned again. Returns the number of vertices in
+    // removed[].
+    private int resume() {
+        cycle = null;
+        int n = 0;
+        for (int u = 0; u < distTo.length; u++) {
+            if (depth[u] < 0) {
+                reset(u);
+                removed[n++] = u;
+            }
+        }
+        if (depth[cycleTail] >= 0 && !onQueue[cycleTail])
+            enqueue(cycleTail);
+        return n;
+    }
+
+    private void reset(int u) {
+        depth[u] = -1;
+        distTo[u] = Double.POSITIVE_INFINITY;
+        edgeTo[u] = -1;
+        parent[u] = -1;
+    }
+
+    // relaxes every edge into the n vertices in removed[] from the vertices
+    // in the tree; returns false if one closes a negative cycle
+    private boolean relaxInto(int n) {
+        for (int k = 0; k < n; k++) {
+            int u = removed[k];
+            double best = distTo[u];
+            int edge = -1;
+            for (int j = inBegin[u]; j < inBegin[u + 1]; j++) {
+                int i = inEdge[j];
+                int v = tail[i];
+                if (depth[v] >= 0 && distTo[v] + weight[i] < best) {
+                    best = distTo[v] + weight[i];
+                    edge = i;
+                }
+            }
+            if (edge != -1 && !relax(tail[edge], u, edge, best))
+                return false;
+        }
+        return true;
+    }
+
+    // the edges into each vertex, built at the first change of weight
+    private void reverse() {
+        int V = G.V();
+        int E = G.E();
+        tail = new int[E];
+        inBegin = new int[V + 1];
+        inEdge = new int[E];
+        removed = new int[V];
+        for (int v = 0; v < V; v++) {
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                tail[i] = v;
+                inBegin[G.to(i) + 1]++;
+            }
+        }
+        for (int v = 0; v < V; v++)
+            inBegin[v + 1] += inBegin[v];
+        int[] at = java.util.Arrays.copyOf(inBegin, V);
+        for (int i = 0; i < E; i++)
+            inEdge[at[G.to(i)]++] = i;
+    }
+
+    // Returns the current weight of the edge at position i.
+    public double weight(int i) {
+        validateEdge(i);
+        return weight[i];
+    }
+
+    // Returns the number of relaxations that improved a distance so far.
+    public long relaxations() {
+        return relaxations;
+    }
+
+    // Is there a negative cycle reachable from the source vertex s ?
+    public boolean hasNegativeCycle() {
+        return cycle != null;
+    }
+
+    // Returns a negative cycle reachable from the source vertex s, or null
+    // if there is no such cycle.
+    public Iterable<DirectedEdge> negativeCycle() {
+        return cycle;
+    }
+
+    // Returns the length of a shortest path from the source s to vertex v.
+    public double distTo(int v) {
+        validateVertex(v);
+        if (hasNegativeCycle()) {
+            throw new UnsupportedOperationException("Negative cost cycle exists");
+        }
+        return distTo[v];
+    }
+
+    // Is there a path from the source s to vertex v ?
+    public boolean hasPathTo(int v) {
+        validateVertex(v);
+        return distTo[v] < Double.POSITIVE_INFINITY;
+    }
+
+    // Returns a shortest path from the source s to vertex v.
+    public Iterable<DirectedEdge> pathTo(int v) {
+        validateVertex(v);
+        if (hasNegativeCycle()) {
+            throw new UnsupportedOperationException("Negative cost cycle exists");
+        }
+        if (!hasPathTo(v)) {
+            return null;
+        }
+        Stack<DirectedEdge> path = new Stack<DirectedEdge>();
+        for (int x = v; edgeTo[x] != -1; x = parent[x]) {
+            path.push(new DirectedEdge(parent[x], x, weight[edgeTo[x]]));
+        }
+        return path;
+    }
+
+    // check optimality conditions, as in BellmanFordSP, and that the list
+    // is the tree in preorder
+    private boolean check() {
+        if (hasNegativeCycle()) {
+            double total = 0.0;
+            for (DirectedEdge e : negativeCycle()) {
+                total += e.weight();
+            }
+            return total < 0.0;
+        }
+        int n = 0;
+        for (int v = s; v != -1; v = next[v]) {
+            if (v != s && (depth[parent[v]] != depth[v] - 1 || distTo[parent[v]] + weight[edgeTo[v]] != distTo[v]))
+                return false;
+            n++;
+        }
+        for (int v = 0; v < G.V(); v++) {
+            if ((depth[v] >= 0) != (distTo[v] < Double.POSITIVE_INFINITY))
+                return false;
+            if (depth[v] >= 0) n--;
+            for (int i = G.adjBegin(v); i < G.adjEnd(v); i++) {
+                if (distTo[v] + weight[i] < distTo[G.to(i)])
+                    return false;
+            }
+        }
+        return n == 0;
+    }
+
+    // throw an IllegalArgumentException unless 0 <= v < V.
+    private void validateVertex(int v) {
+        int V = distTo.length;
+        if (v < 0 || v >= V) {
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
+        }
+    }
+
+    // throw an IllegalArgumentException unless 0 <= i < E.
+    private void validateEdge(int i) {
+        if (i < 0 || i >= weight.length)
+            throw new IllegalArgumentException("edge position " + i + " is not between 0 and " + (weight.length - 1));
+    }
+
+    // Unit tests the SPFA data type: random digraphs with V vertices and E
+    // edges (default 2000 and 10000), some with negative cycles, against
+    // BellmanFordSP, then random changes of weight against a new SPFA and,
+    // on small digraphs, against BellmanFordSP after every change, then the
+    // latency of rate updates on a complete exchange-rate digraph
+    // of C currencies (default 150).
+    public static void main(String[] args) {
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int E = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int C = args.length > 2 ? Integer.parseInt(args[2]) : 150;
+
+        int differ = 0, cycles = 0;
+        for (int t = 0; t < 40; t++) {
+            CSREdgeWeightedDigraph G = random(V, E, t % 2 == 0 ? 0.0 : -0.05);
+            SPFA spfa = new SPFA(G, 0);
+            BellmanFordSP bellmanFord = new BellmanFordSP(G, 0);
+            if (!spfa.check() || spfa.hasNegativeCycle() != bellmanFord.hasNegativeCycle())
+                differ++;
+            if (spfa.hasNegativeCycle()) {
+                cycles++;
+                continue;
+            }
+            for (int v = 0; v < V; v++) {
+                if (spfa.hasPathTo(v) != bellmanFord.hasPathTo(v)
+                    || (spfa.hasPathTo(v) && Math.abs(spfa.distTo(v) - bellmanFord.distTo(v)) > 1e-9))
+                    differ++;
+            }
+        }
+        StdOut.println("40 digraphs, " + cycles + " with negative cycles, " + differ + " differ from BellmanFordSP");
+
+        differ = 0;
+        cycles = 0;
+        CSREdgeWeightedDigraph G = random(V / 10, E / 10, 0.0);
+        SPFA spfa = new SPFA(G, 0);
+        for (int t = 0; t < 2000; t++) {
+            int i = StdRandom.uniform(G.E());
+            double w = spfa.weight(i) + StdRandom.uniform(-0.5, 0.5);
+            if (spfa.setWeight(i, w)) cycles++;
+            if (!spfa.check()) differ++;
+            if (t % 20 == 0) {
+                double[] weights = new double[G.E()];
+                int[] from = new int[G.E()];
+                int[] to = new int[G.E()];
+                for (int j = 0; j < G.E(); j++) {
+                    from[j] = G.from(j);
+                    to[j] = G.to(j);
+                    weights[j] = spfa.weight(j);
+                }
+                SPFA fresh = new SPFA(new CSREdgeWeightedDigraph(G.V(), from, to, weights), 0);
+                if (fresh.hasNegativeCycle() != spfa.hasNegativeCycle())
+                    differ++;
+                else if (!fresh.hasNegativeCycle()) {
+                    for (int v = 0; v < G.V(); v++) {
+                        if (fresh.hasPathTo(v) != spfa.hasPathTo(v)
+                            || (fresh.hasPathTo(v) && Math.abs(fresh.distTo(v) - spfa.distTo(v)) > 1e-9))
+                            differ++;
+                    }
+                }
+            }
+        }
+        StdOut.println("2000 changes of weight, " + cycles + " with negative cycles, " + differ + " differ");
+
+        // a cycle closes with 0->2 at -4 and 2->0 at 0, and is still there
+        // when 4->1 goes up; once it breaks, 1 must be reached again
+        int[] from6 = { 5, 4, 4, 3, 2, 2, 0, 0, 0 };
+        int[] to6   = { 1, 4, 1, 4, 4, 0, 5, 4, 2 };
+        double[] w6 = { 3, 7, -1, 0, 0, 3, 6, 1, -1 };
+        spfa = new SPFA(new CSREdgeWeightedDigraph(6, from6, to6, w6), 0);
+        int[] position = { 0, 3, 6, 1, 8, 3, 0 };
+        double[] weights6 = { -4, 0, 3, 2, 3, 0, 9 };
+        for (int t = 0; t < position.length; t++)
+            spfa.setWeight(position[t], weights6[t]);
+        StdOut.println("distance to 1 after a cycle breaks: " + spfa.distTo(1) + " (BellmanFordSP: 5.0)");
+
+        // small digraphs with integer weights, so that every sum is exact,
+        // which often have a cycle pending at the next change, against
+        // BellmanFordSP after every change
+        differ = 0;
+        cycles = 0;
+        for (int t = 0; t < 20000; t++) {
+            int n = 2 + StdRandom.uniform(6);
+            int m = 1 + StdRandom.uniform(12);
+            double[] weights = new double[m];
+            int[] from = new int[m];
+            int[] to = new int[m];
+            for (int j = 0; j < m; j++) {
+                from[j] = StdRandom.uniform(n);
+                to[j] = StdRandom.uniform(n);
+                weights[j] = StdRandom.uniform(-1, 9);
+            }
+            G = new CSREdgeWeightedDigraph(n, from, to, weights);
+            for (int j = 0; j < m; j++) {
+                from[j] = G.from(j);
+                to[j] = G.to(j);
+            }
+            spfa = new SPFA(G, 0);
+            for (int k = 0; k < 30; k++) {
+                spfa.setWeight(StdRandom.uniform(G.E()), StdRandom.uniform(-4, 10));
+                for (int j = 0; j < G.E(); j++)
+                    weights[j] = spfa.weight(j);
+                BellmanFordSP bellmanFord = new BellmanFordSP(new CSREdgeWeightedDigraph(G.V(), from, to, weights), 0);
+                if (bellmanFord.hasNegativeCycle()) cycles++;
+                if (bellmanFord.hasNegativeCycle() != spfa.hasNegativeCycle() || !spfa.check())
+                    differ++;
+                else if (!spfa.hasNegativeCycle()) {
+                    for (int v = 0; v < G.V(); v++) {
+                        if (spfa.hasPathTo(v) != bellmanFord.hasPathTo(v)
+                            || (spfa.hasPathTo(v) && Math.abs(spfa.distTo(v) - bellmanFord.distTo(v)) > 1e-9))
+                            differ++;
+                    }
+                }
+            }
+        }
+        StdOut.println("600000 changes of small weights, " + cycles + " with negative cycles, " + differ + " differ from BellmanFordSP");
+
+        // exchange rates around 1 with a small spread, so there is no arbitrage
+        int[] from = new int[C * (C - 1)];
+        int[] to = new int[from.length];
+        double[] w = new double[from.length];
+        double[] price = new double[C];
+        for (int v = 0; v < C; v++)
+            price[v] = StdRandom.uniform(0.5, 2.0);
+        for (int v = 0, k = 0; v < C; v++) {
+            for (int x = 0; x < C; x++) {
+                if (v == x) continue;
+                from[k] = v;
+                to[k] = x;
+                w[k++] = -Math.log(price[v] / price[x] * 0.999);
+            }
+        }
+        G = new CSREdgeWeightedDigraph(C, from, to, w);
+        spfa = new SPFA(G, 0);
+        int updates = 200000;
+        cycles = 0;
+        long detect = 0, revert = 0;    // nanoseconds in the updates that close a cycle, and after
+        Stopwatch timer = new Stopwatch();
+        for (int t = 0; t < updates; t++) {
+            int i = StdRandom.uniform(G.E());
+            double rate = price[G.from(i)] / price[G.to(i)] * StdRandom.uniform(0.998, 1.0008);
+            long start = System.nanoTime();
+            if (spfa.setWeight(i, -Math.log(rate))) {
+                long found = System.nanoTime();
+                cycles++;
+                spfa.setWeight(i, -Math.log(price[G.from(i)] / price[G.to(i)] * 0.999));
+                detect += found - start;
+                revert += System.nanoTime() - found;
+            }
+        }
+        double time = timer.elapsedTime();
+        StdOut.printf("%d currencies: %d rate updates in %.3f s, %.2f us per update; %d arbitrage cycles,"
+                      + " found in %.2f us, rate restored in %.2f us\n", C, updates, time, time * 1e6 / updates,
+                      cycles, detect / 1e3 / Math.max(1, cycles), revert / 1e3 / Math.max(1, cycles));
+    }
+
+    // a random digraph with edge weights uniform in [low, 1)
+    private static CSREdgeWeightedDigraph random(int V, int E, double low) {
+        int[] from = new int[E];
+        int[] to = new int[E];
+        double[] w = new double[E];
+        for (int i = 0; i < E; i++) {
+            from[i] = StdRandom.uniform(V);
+            to[i] = StdRandom.uniform(V);
+            w[i] = StdRandom.uniform(low, 1.0);
+        }
+        return new CSREdgeWeightedDigraph(V, from, to, w);
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ *  The {@code SymbolGraphBuilder} class reads a file in the format of
+ *  {@link SymbolGraph} and {@link SymbolDigraph} in a single pass: each
+ *  line is the name of a vertex followed by the names of the vertices
+ *  adjacent to it, separated by the delimiter. Names get their integers
+ *  from a {@link NameDictionary} as they arrive, in order of first
+ *  appearance, which are the same integers as those of
+ *  {@code SymbolGraph}; the edges go to two growable {@code int[]}
+ *  arrays, from which {@code graph()}, {@code digraph()},
+ *  {@code csrGraph()} and {@code csrDigraph()} build the graph once the
+ *  number of vertices is known.
+ *  <p>
+ *  The file is read as bytes, and names are added to the dictionary
+ *  straight from the read buffer, so no {@code String} is made for a
+ *  name; the file is read once instead of twice. Unlike
+ *  {@code String.split()}, the delimiter is a literal string, not a
+ *  regular expression. Empty lines are skipped, and as with
+ *  {@code split()}, empty names at the end of a line are dropped.
+ *  <p>
+ *  Given a dictionary mapped from a file saved by an earlier run, names
+ *  that are already in it keep their integers and only the new ones are
+ *  added.
+ *  The constructor takes time proportional to the number of bytes in the
+ *  file; building a graph takes time proportional to V + E.
+ */
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class SymbolGraphBuilder {
+
+    private final NameDictionary names;     // string <-> index
+    private int[] from;                     // edge i is from[i]-to[i]
+    private int[] to;
+    private int E;
+
+    // Reads the file with a new dictionary.
+    public SymbolGraphBuilder(String filename, String delimiter) {
+        this(filename, delimiter, new NameDictionary());
+    }
+
+    // Reads the file, adding the names that are not in the dictionary to it.
+    public SymbolGraphBuilder(String filename, String delimiter, NameDictionary names) {
+        if (delimiter == null || delimiter.isEmpty())
+            throw new IllegalArgumentException("delimiter is empty");
+        this.names = names;
+        from = new int[16];
+        to = new int[16];
+        try (InputStream in = new FileInputStream(filename)) {
+            read(in, delimiter.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not read " + filename, ioe);
+        }
+    }
+
+    // reads the lines, keeping the bytes after the last newline in the
+    // buffer for the next read
+    private void read(InputStream in, byte[] delimiter) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        int length = 0;
+        while (true) {
+            if (length == buffer.length)
+                buffer = java.util.Arrays.copyOf(buffer, 2 * length);  // a very long line
+            int r = in.read(buffer, length, buffer.length - length);
+            if (r == -1)
+                break;
+            int end = length + r;
+            int start = 0;
+            for (int i = length; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    line(buffer, start, i, delimiter);
+                    start = i + 1;
+                }
+            }
+            length = end - start;
+            System.arraycopy(buffer, start, buffer, 0, length);
+        }
+        line(buffer, 0, length, delimiter);     // no newline at the end
+    }
+
+    // the line in b[start .. end-1]
+    private void line(byte[] b, int start, int end, byte[] delimiter) {
+        if (end > start && b[end - 1] == '\r')
+            end--;
+        // as with split(), empty names at the end are dropped
+        while (end - start >= delimiter.length && endsWith(b, end, delimiter))
+            end -= delimiter.length;
+        if (end == start)
+            return;
+        int j = indexOf(b, start, end, delimiter);
+        int v = names.add(b, start, j - start);
+        while (j < end) {
+            int i = j + delimiter.length;
+            j = indexOf(b, i, end, delimiter);
+            addEdge(v, names.add(b, i, j - i));
+        }
+    }
+
+    // does b[.. end-1] end with the delimiter ?
+    private static boolean endsWith(byte[] b, int end, byte[] delimiter) {
+        for (int k = 1; k <= delimiter.length; k++) {
+            if (b[end - k] != delimiter[delimiter.length - k])
+                return false;
+        }
+        return true;
+    }
+
+    // the first position of the delimiter in b[from .. end-1], or end
+    private static int indexOf(byte[] b, int from, int end, byte[] delimiter) {
+        byte first = delimiter[0];
+        for (int i = from; i + delimiter.length <= end; i++) {
+            if (b[i] != first)
+                continue;
+            int k = 1;
+            while (k < delimiter.length && b[i + k] == delimiter[k])
+                k++;
+            if (k == delimiter.length)
+                return i;
+        }
+        return end;
+    }
+
+    private void addEdge(int v, int w) {
+        if (E == from.length) {
+            from = java.util.Arrays.copyOf(from, 2 * E);
+            to = java.util.Arrays.copyOf(to, 2 * E);
+        }
+        from[E] = v;
+        to[E++] = w;
+    }
+
+    // Returns the dictionary of vertex names.
+    public NameDictionary names() {
+        return names;
+    }
+
+    // Returns the number of vertices.
+    public int V() {
+        return names.size();
+    }
+
+    // Returns the number of edges.
+    public int E() {
+        return E;
+    }
+
+    // Does the graph contain the vertex named s ?
+    public boolean contains(String s) {
+        return names.contains(s);
+    }
+
+    // Returns the integer associated with the vertex named s, or -1.
+    public int indexOf(String s) {
+        return names.indexOf(s);
+    }
+
+    // Returns the name of the vertex associated with the integer v.
+    public String nameOf(int v) {
+        return names.nameOf(v);
+    }
+
+    // Builds the graph, with the same adjacency lists as SymbolGraph.graph().
+    public Graph graph() {
+        Graph G = new Graph(V());
+        for (int i = 0; i < E; i++)
+            G.addEdge(from[i], to[i]);
+        return G;
+    }
+
+    // Builds the digraph, with the same adjacency lists as SymbolDigraph.digraph().
+    public Digraph digraph() {
+        Digraph G = new Digraph(V());
+        for (int i = 0; i < E; i++)
+            G.addEdge(from[i], to[i]);
+        return G;
+    }
+
+    // Builds the graph in compressed-sparse-row form, with rows in the
+    // order of graph().
+    public CSRGraph csrGraph() {
+        return new CSRGraph(V(), java.util.Arrays.copyOf(from, E), java.util.Arrays.copyOf(to, E));
+    }
+
+    // Builds the digraph in compressed-sparse-row form, with rows in the
+    // order of digraph().
+    public CSRDigraph csrDigraph() {
+        return new CSRDigraph(V(), java.util.Arrays.copyOf(from, E), java.util.Arrays.copyOf(to, E));
+    }
+
+    // Unit tests the SymbolGraphBuilder data type: reads a file with both
+    // SymbolGraph and SymbolGraphBuilder and compares them, then saves the
+    // dictionary, maps it and reads the file again with it.
+    public static void main(String[] args) {
+        String filename = args[0];
+        String delimiter = args[1];
+        java.io.File file = new java.io.File(args.length > 2 ? args[2] : filename + ".dict");
+
+        Stopwatch timer = new Stopwatch();
+        SymbolGraph sg = new SymbolGraph(filename, delimiter);
+        double time1 = timer.elapsedTime();
+        timer = new Stopwatch();
+        SymbolGraphBuilder builder = new SymbolGraphBuilder(filename, delimiter);
+        Graph G = builder.graph();
+        double time2 = timer.elapsedTime();
+        StdOut.printf("SymbolGraph %.3f s, SymbolGraphBuilder %.3f s, %d vertices, %d edges, %d arena bytes\n",
+                      time1, time2, G.V(), G.E(), builder.names().arenaBytes());
+
+        int differ = 0;
+        Graph H = sg.graph();
+        if (H.V() != G.V() || H.E() != G.E())
+            differ++;
+        for (int v = 0; v < Math.min(G.V(), H.V()); v++) {
+            String name = sg.nameOf(v);
+            if (!builder.nameOf(v).equals(name) || builder.indexOf(name) != v)
+                differ++;
+            java.util.Iterator<Integer> it = G.adj(v).iterator();
+            for (int w : H.adj(v)) {
+                if (!it.hasNext() || it.next() != w)
+                    differ++;
+            }
+            if (it.hasNext())
+                differ++;
+        }
+        StdOut.println(differ + " vertices differ from SymbolGraph");
+
+        builder.names().save(file);
+        timer = new Stopwatch();
+        NameDictionary names = new NameDictionary(file);
+        double time3 = timer.elapsedTime();
+        SymbolGraphBuilder again = new SymbolGraphBuilder(filename, delimiter, names);
+        differ = 0;
+        if (again.V() != G.V() || again.E() != G.E())
+            differ++;
+        for (int v = 0; v < G.V(); v++) {
+            if (!again.nameOf(v).equals(sg.nameOf(v)))
+                differ++;
+        }
+        StdOut.printf("mapped %s in %.3f s, %d vertices differ\n", file, time3, differ);
+    }
+}
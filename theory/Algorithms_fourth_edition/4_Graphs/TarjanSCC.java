@@ -30,7 +30,7 @@ public class TarjanSCC {
     private Stack<Integer> stack;
 
     // Computes the strong components of the digraph G.
-    public TarjanSCC(Digraph G) {
+    public TarjanSCC(AdjacencyDigraph G) {
         marked = new boolean[G.V()];
         stack = new Stack<Integer>();
         id = new int[G.V()];
@@ -44,7 +44,7 @@ public class TarjanSCC {
         assert check(G);
     }
 
-    private void dfs(Digraph G, int v) {
+    private void dfs(AdjacencyDigraph G, int v) {
         marked[v] = true;
         low[v] = pre++;
         int min = low[v];
@@ -89,7 +89,7 @@ public class TarjanSCC {
     }
 
     // does the id[] array contain the strongly connected components ?
-    private boolean check(Digraph G) {
+    private boolean check(AdjacencyDigraph G) {
         TransitiveClosure tc = new TransitiveClosure(G);
         for (int v = 0; v < G.V(); v++) {
             for (int w = 0; w < G.V(); w++) {
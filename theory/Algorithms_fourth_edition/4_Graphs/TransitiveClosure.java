@@ -11,7 +11,7 @@ public class TransitiveClosure {
     private DirectedDFS[] tc;   // tc[v] = reachable from v.
 
     // Computes the transitive closure of the digraph G.
-    public TransitiveClosure(Digraph G) {
+    public TransitiveClosure(AdjacencyDigraph G) {
         tc = new DirectedDFS[G.V()];
         for (int v = 0; v < G.V(); v++)
             tc[v] = new DirectedDFS(G, v);
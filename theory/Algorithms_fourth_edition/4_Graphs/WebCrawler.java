@@ -2,67 +2,567 @@
 // Gives an idea of how Google's spider crawls the web. Instead of
 // looking for hyperlinks, we just look for patterns of the form:
 // http:// followed by an alternating sequence of alphanumeric
-// characters and dots, ending with a sequence of alphanumeric 
-// characters.
-
+// characters and dots, ending with a sequence of alphanumeric
+// characters, optionally followed by a port and a path.
+/**
+ *  The {@code WebCrawler} class crawls the web breadth first from a seed
+ *  url, in a pipeline of three stages connected by bounded queues:
+ *  fetcher threads download pages, extractor threads find the links in
+ *  them with a regular expression, and the frontier, in the thread that
+ *  calls the constructor, keeps the urls still to be fetched and hands
+ *  them to the fetchers.
+ *  <p>
+ *  The frontier keeps one queue of urls per host (the authority of the
+ *  url, host and port) and at most {@code perHost} of them are being
+ *  fetched at once; hosts with urls and a free slot take turns. It never
+ *  blocks on the queue to the fetchers, only offering as many urls as it
+ *  has room for, so a full queue of pages in front of the extractors
+ *  stops the fetchers and a full queue of events in front of the
+ *  frontier stops the extractors, but the stages never wait on each
+ *  other in a cycle. The queue depths are sampled as the frontier runs.
+ *  <p>
+ *  Visited urls are kept in a Bloom filter backed by a
+ *  {@link NameDictionary}: a url that the filter has never seen is new
+ *  without a lookup in the dictionary, whose names are in off-heap pages,
+ *  and only the filter's positives are looked up.
+ *  <p>
+ *  {@code main()} crawls either the web from a url or a synthetic web of
+ *  a random digraph, served by a local HTTP server per host, and checks
+ *  that every reachable page was crawled without more than
+ *  {@code perHost} concurrent requests to any host.
+ */
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 public class WebCrawler {
 
-    public static void main(String[] args) {
-        
-        // timeout connection after 500 miliseconds.
-        System.setProperty("sun.net.client.defaultConnectTimeout", "500");
-        System.setProperty("sun.net.client.defaultReadTimeout", "1000");
+    /*************************************************************
+    *  Find links of the form: http://xxx.yyy.zzz:port/path
+    *  \\w+ for one or more alpha-numeric characters
+    *  \\. for dot
+    *  (?:...)++ so that the host is matched without backtracking,
+    *  and a long run of dots cannot overflow the stack
+    *************************************************************/
+    private static final Pattern LINK = Pattern.compile("https?://(?:\\w+\\.)++(\\w+)(:\\d+)?(/[\\w./-]*)?");
+    private static final String STOP = new String("stop");     // tells a fetcher to stop
+    private static final Page LAST = new Page(null, null);      // tells an extractor to stop
+
+    private final int perHost;      // most concurrent fetches from one host
+    private final int maxPages;     // most urls to fetch
+    private final boolean verbose;  // print progress every second ?
+
+    private final BlockingQueue<String> fetchQueue;     // frontier -> fetchers
+    private final BlockingQueue<Page> pageQueue;        // fetchers -> extractors
+    private final BlockingQueue<Event> eventQueue;      // fetchers and extractors -> frontier
+    private final HttpClient client;
+
+    // the frontier, used only by the thread running the constructor
+    private final HashMap<String, Host> hosts = new HashMap<String, Host>();
+    private final ArrayDeque<Host> ready = new ArrayDeque<Host>();  // hosts with urls and a free slot
+    private final Visited visited;
+    private final ArrayList<String> crawled = new ArrayList<String>();
+    private int pending;            // urls in the queues of the hosts
+    private int dispatched;         // urls handed to the fetchers
+    private int completed;          // urls fetched and extracted, or failed
+    private int failures;
+    private double elapsed;
+    private int maxFetchQueue, maxPageQueue, maxEventQueue, maxPending;
+
+    // a fetched page, or a url that could not be fetched if body is null
+    private static class Page {
+        private final String url;
+        private final String body;
+
+        Page(String url, String body) {
+            this.url = url;
+            this.body = body;
+        }
+    }
+
+    // what the frontier hears: a fetch from host is over (if host is not
+    // null), and url is done with the given links (if url is not null;
+    // links is null if it could not be fetched)
+    private static class Event {
+        private final String host;
+        private final String url;
+        private final ArrayList<String> links;
+
+        Event(String host, String url, ArrayList<String> links) {
+            this.host = host;
+            this.url = url;
+            this.links = links;
+        }
+    }
+
+    // the urls of one host still to be fetched
+    private static class Host {
+        private final ArrayDeque<String> urls = new ArrayDeque<String>();
+        private int fetching;       // urls of this host being fetched
+        private boolean ready;      // is this host in the ready queue ?
+    }
+
+    // Crawls from seed, with 16 fetchers and at most 2 concurrent fetches
+    // per host, until maxPages urls have been fetched or there are no more.
+    public WebCrawler(String seed, int maxPages) {
+        this(seed, maxPages, 16, 2, false);
+    }
+
+    // Crawls from seed with the given number of fetcher threads and at most
+    // perHost concurrent fetches per host, until maxPages urls have been
+    // fetched or there are no more; prints progress every second if verbose.
+    public WebCrawler(String seed, int maxPages, int fetchers, int perHost, boolean verbose) {
+        if (maxPages < 1)
+            throw new IllegalArgumentException("maxPages must be positive");
+        if (fetchers < 1)
+            throw new IllegalArgumentException("number of fetchers must be positive");
+        if (perHost < 1)
+            throw new IllegalArgumentException("perHost must be positive");
+        if (hostOf(seed) == null)
+            throw new IllegalArgumentException("not a url: " + seed);
+        this.perHost = perHost;
+        this.maxPages = maxPages;
+        this.verbose = verbose;
+        int extractors = Math.max(1, Math.min(fetchers, Runtime.getRuntime().availableProcessors()));
+        fetchQueue = new ArrayBlockingQueue<String>(2 * fetchers);
+        pageQueue = new ArrayBlockingQueue<Page>(2 * extractors);
+        eventQueue = new ArrayBlockingQueue<Event>(4 * (fetchers + extractors));
+        visited = new Visited(maxPages);
+        // timeout connection after 500 miliseconds, reading after 1000.
+        client = HttpClient.newBuilder()
+                           .version(HttpClient.Version.HTTP_1_1)
+                           .connectTimeout(Duration.ofMillis(500))
+                           .followRedirects(HttpClient.Redirect.NORMAL)
+                           .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(fetchers + extractors);
+        try {
+            for (int k = 0; k < fetchers; k++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        fetch();
+                    }
+                });
+            }
+            for (int k = 0; k < extractors; k++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        extract();
+                    }
+                });
+            }
+            crawl(seed);
+            for (int k = 0; k < fetchers; k++)
+                fetchQueue.put(STOP);
+            for (int k = 0; k < extractors; k++)
+                pageQueue.put(LAST);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while crawling", e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // the frontier stage
+    private void crawl(String seed) throws InterruptedException {
+        Stopwatch timer = new Stopwatch();
+        double report = 1.0;
+        discover(seed);
+        while (true) {
+            dispatch();
+            if (completed == dispatched && (pending == 0 || dispatched == maxPages))
+                break;
+            Event event = eventQueue.poll(100, TimeUnit.MILLISECONDS);
+            for (; event != null; event = eventQueue.poll())
+                handle(event);
+            maxPending = Math.max(maxPending, pending);
+            maxFetchQueue = Math.max(maxFetchQueue, fetchQueue.size());
+            maxPageQueue = Math.max(maxPageQueue, pageQueue.size());
+            if (verbose && timer.elapsedTime() >= report) {
+                StdOut.printf("%6.1f s %8d pages %9.1f pages/s  frontier %d  fetch %d  extract %d  events %d\n",
+                              timer.elapsedTime(), crawled.size(), crawled.size() / timer.elapsedTime(),
+                              pending, fetchQueue.size(), pageQueue.size(), eventQueue.size());
+                report += 1.0;
+            }
+        }
+        elapsed = timer.elapsedTime();
+    }
+
+    // offers urls of ready hosts to the fetchers while there is room
+    private void dispatch() {
+        while (!ready.isEmpty() && fetchQueue.remainingCapacity() > 0 && dispatched < maxPages) {
+            Host host = ready.poll();
+            fetchQueue.offer(host.urls.poll());
+            host.fetching++;
+            pending--;
+            dispatched++;
+            host.ready = !host.urls.isEmpty() && host.fetching < perHost;
+            if (host.ready)
+                ready.add(host);    // at the end, so that hosts take turns
+        }
+    }
+
+    private void handle(Event event) {
+        maxEventQueue = Math.max(maxEventQueue, eventQueue.size() + 1);
+        if (event.host != null) {
+            Host host = hosts.get(event.host);
+            host.fetching--;
+            makeReady(host);
+        }
+        if (event.url != null) {
+            completed++;
+            if (event.links == null) {
+                failures++;
+                return;
+            }
+            crawled.add(event.url);
+            for (String link : event.links)
+                discover(link);
+        }
+    }
 
-        // initial web page
-        String s = args[0];
+    // adds url to the queue of its host if it was not seen before and
+    // there is room for it within maxPages
+    private void discover(String url) {
+        if (dispatched + pending >= maxPages)
+            return;
+        String name = hostOf(url);
+        if (name == null || !visited.add(url))
+            return;
+        Host host = hosts.get(name);
+        if (host == null) {
+            host = new Host();
+            hosts.put(name, host);
+        }
+        host.urls.add(url);
+        pending++;
+        makeReady(host);
+    }
 
-        // list of web pages to be examined
-        Queue<String> queue = new Queue<String>();
-        queue.enqueue(s);
+    private void makeReady(Host host) {
+        if (!host.ready && !host.urls.isEmpty() && host.fetching < perHost) {
+            host.ready = true;
+            ready.add(host);
+        }
+    }
 
-        // set of examined web pages
-        SET<String> marked = new SET<String>();
-        marked.add(s);
+    // the authority of url, or null if it is not an http(s) url
+    private static String hostOf(String url) {
+        int start = url.indexOf("://");
+        if (start == -1 || !url.startsWith("http"))
+            return null;
+        start += 3;
+        int end = url.indexOf('/', start);
+        return end == -1 ? url.substring(start) : url.substring(start, end);
+    }
 
-        // breadth first search crawl of web
-        while (!queue.isEmpty()) {
-            String v = queue.dequeue();
-            StdOut.println(v);
+    // the fetch stage
+    private void fetch() {
+        try {
+            while (true) {
+                String url = fetchQueue.take();
+                if (url == STOP)
+                    return;
+                String body = null;
+                try {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                                                     .timeout(Duration.ofMillis(1000))
+                                                     .build();
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200)
+                        body = response.body();
+                }
+                catch (IOException | RuntimeException | StackOverflowError e) {
+                    // could not open url; the frontier still hears of it,
+                    // or it would wait for it forever
+                }
+                eventQueue.put(new Event(hostOf(url), null, null));
+                if (body == null) eventQueue.put(new Event(null, url, null));
+                else              pageQueue.put(new Page(url, body));
+            }
+        }
+        catch (InterruptedException e) {
+            // the crawl is over
+        }
+    }
 
-            String input = null;
+    // the extract stage
+    private void extract() {
+        try {
+            while (true) {
+                Page page = pageQueue.take();
+                if (page == LAST)
+                    return;
+                ArrayList<String> links = new ArrayList<String>();
+                try {
+                    Matcher matcher = LINK.matcher(page.body);
+                    while (matcher.find())
+                        links.add(matcher.group());
+                }
+                catch (RuntimeException | StackOverflowError e) {
+                    links = null;   // a failure, as for a page that could not be fetched
+                }
+                eventQueue.put(new Event(null, page.url, links));
+            }
+        }
+        catch (InterruptedException e) {
+            // the crawl is over
+        }
+    }
+
+    // a Bloom filter of urls in front of an exact set of them
+    private static class Visited {
+        private static final int HASHES = 4;
+        private final long[] bits;
+        private final int mask;
+        private final NameDictionary urls = new NameDictionary();
+        private int falsePositives;     // urls that the filter had wrongly seen
+
+        // 16 to 32 bits per url, for at most n urls
+        Visited(int n) {
+            int m = Integer.highestOneBit(16 * Math.max(64, Math.min(n, 1 << 26)) - 1) << 1;
+            bits = new long[m >>> 6];
+            mask = m - 1;
+        }
+
+        // adds url, and returns true if it was not in the set
+        boolean add(String url) {
+            int h1 = url.hashCode() * 0x9e3779b9;
+            int h2 = (h1 ^ (h1 >>> 16)) * 0x85ebca6b | 1;
+            boolean seen = true;
+            for (int i = 0; i < HASHES; i++) {
+                int b = (h1 + i * h2) & mask;
+                if ((bits[b >>> 6] & (1L << b)) == 0) {
+                    seen = false;
+                    bits[b >>> 6] |= 1L << b;
+                }
+            }
+            if (seen) {
+                if (urls.contains(url))
+                    return false;
+                falsePositives++;
+            }
+            urls.add(url);
+            return true;
+        }
+    }
+
+    // Returns the urls that were fetched, in the order they were done.
+    public Iterable<String> pages() {
+        return crawled;
+    }
+
+    // Returns the number of urls that were fetched.
+    public int count() {
+        return crawled.size();
+    }
+
+    // Returns the number of urls that could not be fetched.
+    public int failures() {
+        return failures;
+    }
+
+    // Returns the time the crawl took, in seconds.
+    public double elapsedTime() {
+        return elapsed;
+    }
+
+    // Returns the number of pages fetched per second.
+    public double pagesPerSecond() {
+        return crawled.size() / elapsed;
+    }
+
+    // Returns a string with the rate, the largest queue depths and the
+    // visited filter's false positives.
+    public String toString() {
+        return String.format("%d pages, %d failures in %.3f s, %.1f pages/s; max depth frontier %d, "
+                             + "fetch %d, extract %d, events %d; %d hosts, %d Bloom filter false positives",
+                             crawled.size(), failures, elapsed, pagesPerSecond(), maxPending,
+                             maxFetchQueue, maxPageQueue, maxEventQueue, hosts.size(), visited.falsePositives);
+    }
+
+    // A synthetic web: page v of the digraph G is http://127.0.0.1:port/v,
+    // on the server of host v % hosts, and links to the pages adjacent to
+    // v; every 50th page also links to a page that does not exist, and
+    // page 0 to /trap, 400000 characters that are almost a link. Each
+    // response waits for latency milliseconds and the servers record the
+    // most concurrent requests each host has had.
+    private static class LocalWeb {
+        private final Digraph G;
+        private final HttpServer[] servers;
+        private final AtomicIntegerArray active;    // requests being answered, per host
+        private final AtomicIntegerArray most;      // most concurrent requests, per host
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+
+        LocalWeb(Digraph G, int hosts, final int latency) throws IOException {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            this.G = G;
+            servers = new HttpServer[hosts];
+            active = new AtomicIntegerArray(hosts);
+            most = new AtomicIntegerArray(hosts);
+            for (int k = 0; k < hosts; k++) {
+                final int host = k;
+                servers[k] = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+                servers[k].createContext("/", new HttpHandler() {
+                    public void handle(HttpExchange exchange) throws IOException {
+                        // counted until the response starts, since the
+                        // client can send its next request once it has it
+                        int n = active.incrementAndGet(host);
+                        most.accumulateAndGet(host, n, Math::max);
+                        try {
+                            Thread.sleep(latency);
+                            active.decrementAndGet(host);
+                            serve(exchange);
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        finally {
+                            exchange.close();
+                        }
+                    }
+                });
+                servers[k].setExecutor(executor);
+                servers[k].start();
+            }
+        }
+
+        private void serve(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/trap")) {
+                StringBuilder trap = new StringBuilder("http://");
+                for (int k = 0; k < 200000; k++)
+                    trap.append("a.");
+                send(exchange, trap.append(' ').toString());
+                return;
+            }
+            int v = -1;
             try {
-                In in = new In(v);
-                input = in.readAll();
+                v = Integer.parseInt(path.substring(1));
             }
-            catch(IllegalArgumentException e) {
-                StdOut.println("[counld not open " + v + "]");
-                continue;
+            catch (NumberFormatException e) {
+                // not a page
             }
+            if (v < 0 || v >= G.V()) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            StringBuilder html = new StringBuilder("<html><body>page " + v + "\n");
+            for (int w : G.adj(v))
+                html.append("<a href=\"" + url(w) + "\">" + w + "</a>\n");
+            if (v % 50 == 0)
+                html.append("<a href=\"" + url(v).replace("/" + v, "/missing" + v) + "\">gone</a>\n");
+            if (v == 0)
+                html.append("<a href=\"" + url(0).replace("/0", "/trap") + "\">trap</a>\n");
+            html.append("</body></html>\n");
+            send(exchange, html.toString());
+        }
 
-            // if (input == null) continue;
+        private void send(HttpExchange exchange, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        String url(int v) {
+            return "http://127.0.0.1:" + servers[v % servers.length].getAddress().getPort() + "/" + v;
+        }
 
-            /*************************************************************
-            *  Find links of the form: http://xxx.yyy.zzz
-            *  \\w+ for one or more alpha-numeric characters
-            *  \\. for dot
-            *  could take first two statements out of loop
-            *************************************************************/
-            String regexp = "http://(\\w+\\.)+(\\w+)";
-            Pattern pattern = Pattern.compile(regexp);
+        int mostConcurrent() {
+            int max = 0;
+            for (int k = 0; k < servers.length; k++)
+                max = Math.max(max, most.get(k));
+            return max;
+        }
 
-            Matcher matcher = pattern.matcher(input);
+        void stop() {
+            for (HttpServer server : servers)
+                server.stop(0);
+            executor.shutdownNow();
+        }
+    }
 
-            // find and print all matches
-            while (matcher.find()) {
-                String w = matcher.group();
-                if (!marked.contains(w)) {
-                    queue.enqueue(w);
-                    marked.add(w);
+    // Crawls the web from the url args[0], fetching at most args[1] pages
+    // (default 100) and printing them, or, with "local V E hosts
+    // [fetchers perHost latency]", crawls a synthetic web of a random
+    // digraph from page 0 and checks the result.
+    public static void main(String[] args) throws IOException {
+        if (!args[0].equals("local")) {
+            int maxPages = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            WebCrawler crawler = new WebCrawler(args[0], maxPages, 16, 2, true);
+            for (String url : crawler.pages())
+                StdOut.println(url);
+            StdOut.println(crawler);
+            return;
+        }
+
+        int V = Integer.parseInt(args[1]);
+        int E = Integer.parseInt(args[2]);
+        int hosts = Integer.parseInt(args[3]);
+        int fetchers = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+        int perHost = args.length > 5 ? Integer.parseInt(args[5]) : 2;
+        int latency = args.length > 6 ? Integer.parseInt(args[6]) : 5;
+        Digraph G = DigraphGenerator.simple(V, E);
+        LocalWeb web = new LocalWeb(G, hosts, latency);
+        try {
+            WebCrawler crawler = new WebCrawler(web.url(0), 10 * V, fetchers, perHost, true);
+            StdOut.println(crawler);
+
+            // every page reachable from 0 is crawled once, and every 50th
+            // of them has one missing link
+            DirectedDFS dfs = new DirectedDFS(G, 0);
+            int missing = 0;
+            for (int v = 0; v < V; v++) {
+                if (dfs.marked(v) && v % 50 == 0)
+                    missing++;
+            }
+            boolean[] seen = new boolean[V];
+            int differ = 0, trapped = 0;
+            for (String url : crawler.pages()) {
+                if (url.endsWith("/trap")) {
+                    trapped++;
+                    continue;
                 }
+                int v = Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+                if (seen[v] || !dfs.marked(v) || !url.equals(web.url(v)))
+                    differ++;
+                seen[v] = true;
             }
+            StdOut.println(dfs.count() + " reachable pages, " + (crawler.count() - trapped) + " crawled, "
+                           + differ + " wrong; " + missing + " missing links, "
+                           + crawler.failures() + " failures; trap page crawled " + trapped + " time(s)");
+            StdOut.println("most concurrent requests to one host: " + web.mostConcurrent()
+                           + " (limit " + perHost + ")");
+        }
+        finally {
+            web.stop();
         }
     }
-}
\ No newline at end of file
+}
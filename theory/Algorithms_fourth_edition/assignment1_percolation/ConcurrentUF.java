@@ -0,0 +1,151 @@
+// The ConcurrentUF class represents a union-find data type that many
+// threads can use at once, with the same find, union, connected and
+// count operations as UF.
+// It is lock-free: parent[] is an AtomicIntegerArray, a root is linked
+// under another root with one compare-and-set, which fails (and the union
+// is retried) only if another thread linked that root first, and find()
+// does path splitting with compare-and-set, which never undoes a link
+// because it only moves a site to a site that is already its ancestor.
+// Roots are linked by index instead of by rank, since a rank could not be
+// updated together with the link in one compare-and-set: each site gets a
+// fixed pseudo-random priority (a bijective hash of its index) and the
+// root of lower priority goes under the other, which keeps the trees as
+// shallow as linking by rank does, in expectation.
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ConcurrentUF {
+    private final AtomicIntegerArray parent;    // parent[i] = parent of i
+    private final AtomicInteger count;          // number of components
+
+    // Initializes an empty union-find data structure with n sites 0 through n - 1.
+    // Each site is initially in its own component.
+    public ConcurrentUF(int n) {
+        if (n < 0)
+            throw new IllegalArgumentException();
+        count = new AtomicInteger(n);
+        parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++)
+            parent.set(i, i);
+    }
+
+    // Returns the component identifier for the component containing site.
+    // With concurrent unions, the answer is the root at some moment during the call.
+    public int find(int p) {
+        validate(p);
+        while (true) {
+            int q = parent.get(p);
+            if (q == p)
+                return p;
+            int r = parent.get(q);
+            if (q != r)
+                parent.compareAndSet(p, q, r);  // path splitting
+            p = q;
+        }
+    }
+
+    // Return the number of components
+    public int count() {
+        return count.get();
+    }
+
+    // Return true if the two sites are in the same component.
+    public boolean connected(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ)
+                return true;
+            // still a root, so p and q were in different components just now
+            if (parent.get(rootP) == rootP)
+                return false;
+        }
+    }
+
+    // Merges the component containing site p with the component
+    // containing site q. Returns true if they were different components,
+    // so that exactly one of several threads uniting the same two
+    // components gets true.
+    public boolean union(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ)
+                return false;
+            // Make root of lower priority point to root of higher priority.
+            if (priority(rootP) > priority(rootQ)) {
+                int swap = rootP;
+                rootP = rootQ;
+                rootQ = swap;
+            }
+            if (parent.compareAndSet(rootP, rootP, rootQ)) {
+                count.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    // pseudo-random priority of site p; distinct for distinct sites
+    private static int priority(int p) {
+        p ^= p >>> 16;
+        p *= 0x45d9f3b;
+        p ^= p >>> 16;
+        p *= 0x45d9f3b;
+        p ^= p >>> 16;
+        return p;
+    }
+
+    // validate that p is a valid index
+    private void validate(int p) {
+        int n = parent.length();
+        if (p < 0 || p >= n) {
+            throw new IndexOutOfBoundsException("index " + p + " is not between 0 and " + (n - 1));
+        }
+    }
+
+    // Reads in an integer n and a sequence of pairs of integers between
+    // 0 and n - 1 from standard input, unions the pairs on the given number
+    // of threads, and checks the components against WeightedQuickUnionUF.
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int n = StdIn.readInt();
+        int[] pairs = StdIn.readAllInts();
+        final int[] from = new int[pairs.length / 2];
+        final int[] to = new int[pairs.length / 2];
+        for (int i = 0; i < from.length; i++) {
+            from[i] = pairs[2 * i];
+            to[i] = pairs[2 * i + 1];
+        }
+
+        final ConcurrentUF uf = new ConcurrentUF(n);
+        final AtomicInteger merged = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int first = t;
+            final int step = threads;
+            workers[t] = new Thread(new Runnable() {
+                public void run() {
+                    for (int i = first; i < from.length; i += step) {
+                        if (uf.union(from[i], to[i]))
+                            merged.incrementAndGet();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+
+        WeightedQuickUnionUF expected = new WeightedQuickUnionUF(n);
+        for (int i = 0; i < from.length; i++)
+            expected.union(from[i], to[i]);
+        int differ = 0;
+        for (int p = 0; p < n; p++) {
+            if (expected.connected(p, 0) != uf.connected(p, 0)
+             || expected.connected(p, p / 2) != uf.connected(p, p / 2))
+                differ++;
+        }
+        StdOut.println(uf.count() + " components, " + merged.get() + " merging unions, "
+                       + expected.count() + " components in WeightedQuickUnionUF, " + differ + " sites differ");
+    }
+}
@@ -1,11 +1,16 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+// Sites can be opened from many threads at once: the open flags and the
+// count are atomic, and open() unions the site with its open neighbours
+// in a ConcurrentUF. Of two neighbours opened at the same moment, at least
+// one sees the other open, so their union is never lost.
 public class Percolation {
 
     int[][] grid;
-    private int[] percolatedArray;
-    private int percolatedArrayCount;
-    WeightedQuickUnionUF myWeightedQuickUnionUF;
+    private AtomicIntegerArray percolatedArray;
+    private AtomicInteger percolatedArrayCount;
+    ConcurrentUF myUnionFind;
     int line;
 
     // create n-by-n grid, with all sites blocked
@@ -19,14 +24,10 @@ public class Percolation {
         }
         line = n+1;
 
-        percolatedArrayCount = 0;
-        percolatedArray = new int[(n + 2) * (n + 2)];
-        int endPer = (n + 2) * (n + 2);
-        for (int i = 0; i < endPer; i++) {
-            percolatedArray[i] = 0; // 0 means block, 1 means open.
-        }
+        percolatedArrayCount = new AtomicInteger();
+        percolatedArray = new AtomicIntegerArray((n + 2) * (n + 2)); // 0 means block, 1 means open.
 
-        myWeightedQuickUnionUF = new WeightedQuickUnionUF((n + 2) * (n + 2));
+        myUnionFind = new ConcurrentUF((n + 2) * (n + 2));
     }
 
     // open site (row, col) if it is not open already
@@ -35,10 +36,16 @@ public class Percolation {
     // }
 
     // Origin version is right, below is a more quicker version.
+    // Opening also connects the site to its open neighbours.
     public void open(int row, int col) {
         int pointRowCol = grid[row][col];
-        percolatedArray[pointRowCol] = 1;
-        percolatedArrayCount++;
+        if (!percolatedArray.compareAndSet(pointRowCol, 0, 1))
+            return;
+        percolatedArrayCount.incrementAndGet();
+        if (isOpen(row - 1, col)) myUnionFind.union(grid[row - 1][col], pointRowCol);
+        if (isOpen(row + 1, col)) myUnionFind.union(grid[row + 1][col], pointRowCol);
+        if (isOpen(row, col - 1)) myUnionFind.union(grid[row][col - 1], pointRowCol);
+        if (isOpen(row, col + 1)) myUnionFind.union(grid[row][col + 1], pointRowCol);
     }
 
     // is site (row, col) open?
@@ -51,7 +58,7 @@ public class Percolation {
     // Origin version is right, below is a more quicker version
     public boolean isOpen(int row, int col) {
         int pointRowCol = grid[row][col];
-        return (percolatedArray[pointRowCol] == 1);
+        return (percolatedArray.get(pointRowCol) == 1);
     }
 
     // Maybe wrong
@@ -67,10 +74,10 @@ public class Percolation {
     // a system percolates if we fill all open sites connected to the top row and that process 
     // fills some open site on the bottom row. 
     public boolean isFull(int row, int col) {
-        return ((isOpen(row - 1, col) && myWeightedQuickUnionUF.connected(grid[0][0], grid[row - 1][col])) ||
-                (isOpen(row + 1, col) && myWeightedQuickUnionUF.connected(grid[0][0], grid[row + 1][col])) ||
-                (isOpen(row, col - 1) && myWeightedQuickUnionUF.connected(grid[0][0], grid[row][col - 1])) ||
-                (isOpen(row, col + 1) && myWeightedQuickUnionUF.connected(grid[0][0], grid[row][col + 1])));
+        return ((isOpen(row - 1, col) && myUnionFind.connected(grid[0][0], grid[row - 1][col])) ||
+                (isOpen(row + 1, col) && myUnionFind.connected(grid[0][0], grid[row + 1][col])) ||
+                (isOpen(row, col - 1) && myUnionFind.connected(grid[0][0], grid[row][col - 1])) ||
+                (isOpen(row, col + 1) && myUnionFind.connected(grid[0][0], grid[row][col + 1])));
     }
 
     // number of open sites
@@ -82,12 +89,12 @@ public class Percolation {
         //     }
         // }
         // return num;
-        return percolatedArrayCount;
+        return percolatedArrayCount.get();
     }
 
     // does the system percolate?
     public boolean percolates(){
-        return (myWeightedQuickUnionUF.connected(grid[0][0],grid[line][line]));
+        return (myUnionFind.connected(grid[0][0],grid[line][line]));
     }
 
     public static void main(String[] args)
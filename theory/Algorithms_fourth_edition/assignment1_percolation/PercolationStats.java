@@ -21,8 +21,8 @@ public class PercolationStats {
             int col;
 
             for(int i = 1; i < myPercolation.line; i++) {
-                myPercolation.myWeightedQuickUnionUF.union(myGrid[0][0], myGrid[1][i]);
-                myPercolation.myWeightedQuickUnionUF.union(
+                myPercolation.myUnionFind.union(myGrid[0][0], myGrid[1][i]);
+                myPercolation.myUnionFind.union(
                         myGrid[myPercolation.line][myPercolation.line], myGrid[myPercolation.line - 1][i]);
             }
 
@@ -32,19 +32,10 @@ public class PercolationStats {
                     row = StdRandom.uniform(1,n+1);
                     col = StdRandom.uniform(1,n+1);
                     if(! myPercolation.isOpen(row, col)) {
-                        myPercolation.open(row,col);
+                        myPercolation.open(row,col);    // also unions with open neighbours
                         break; 
                     }
                 }
-
-                if(myPercolation.isOpen(row-1,col))
-                    myPercolation.myWeightedQuickUnionUF.union(myGrid[row-1][col],myGrid[row][col]);
-                if(myPercolation.isOpen(row+1,col))
-                    myPercolation.myWeightedQuickUnionUF.union(myGrid[row+1][col],myGrid[row][col]);
-                if(myPercolation.isOpen(row,col-1))
-                    myPercolation.myWeightedQuickUnionUF.union(myGrid[row][col-1],myGrid[row][col]);
-                if(myPercolation.isOpen(row,col+1))
-                    myPercolation.myWeightedQuickUnionUF.union(myGrid[row][col+1],myGrid[row][col]);
             }
 
             resultArray[j] = myPercolation.numberOfOpenSites() * 1.0 / (n * n);